@@ -18,6 +18,7 @@ import org.ml4j.nn.axons.Axons;
 import org.ml4j.nn.axons.AxonsContext;
 import org.ml4j.nn.components.axons.BatchNormDirectedAxonsComponent;
 import org.ml4j.nn.components.axons.DirectedAxonsComponentActivation;
+import org.ml4j.nn.components.metrics.ComponentPhase;
 import org.ml4j.nn.components.onetoone.DefaultChainableDirectedComponentAdapter;
 import org.ml4j.nn.neurons.Neurons;
 import org.ml4j.nn.neurons.NeuronsActivation;
@@ -49,7 +50,8 @@ public class BatchNormDirectedAxonsComponentAdapter<N extends Neurons> extends D
 	
 	@Override
 	public DirectedAxonsComponentActivation forwardPropagate(NeuronsActivation input, AxonsContext context) {
-		return new DirectedAxonsComponentActivationAdapter(super.forwardPropagate(input, context), name);
+		return new DirectedAxonsComponentActivationAdapter(super.forwardPropagate(input, context),
+				getTimer(ComponentPhase.BACKWARD), getTimer(ComponentPhase.GRADIENT));
 	}
 
 	@SuppressWarnings("unchecked")
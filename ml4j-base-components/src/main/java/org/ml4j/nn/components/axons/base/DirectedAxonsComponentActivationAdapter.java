@@ -13,7 +13,6 @@
  */
 package org.ml4j.nn.components.axons.base;
 
-import java.util.Date;
 import java.util.List;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -24,18 +23,22 @@ import org.ml4j.nn.components.DirectedComponentGradient;
 import org.ml4j.nn.components.DirectedComponentGradientImpl;
 import org.ml4j.nn.components.axons.DirectedAxonsComponent;
 import org.ml4j.nn.components.axons.DirectedAxonsComponentActivation;
+import org.ml4j.nn.components.metrics.ComponentMetricsRegistry;
+import org.ml4j.nn.components.metrics.ComponentTimer;
 import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponentActivation;
-import org.ml4j.nn.components.onetoone.DefaultChainableDirectedComponentAdapter;
 import org.ml4j.nn.neurons.NeuronsActivation;
 
 public class DirectedAxonsComponentActivationAdapter implements DirectedAxonsComponentActivation {
 
 	private DirectedAxonsComponentActivation delegated;
-	private String name;
+	private ComponentTimer backwardTimer;
+	private ComponentTimer gradientTimer;
 	
-	public DirectedAxonsComponentActivationAdapter(DirectedAxonsComponentActivation delegated, String name) {
+	public DirectedAxonsComponentActivationAdapter(DirectedAxonsComponentActivation delegated,
+			ComponentTimer backwardTimer, ComponentTimer gradientTimer) {
 		this.delegated = delegated;
-		this.name = name;
+		this.backwardTimer = backwardTimer;
+		this.gradientTimer = gradientTimer;
 	}
 	
 	@Override
@@ -46,11 +49,10 @@ public class DirectedAxonsComponentActivationAdapter implements DirectedAxonsCom
 	@Override
 	public DirectedComponentGradient<NeuronsActivation> backPropagate(
 			DirectedComponentGradient<NeuronsActivation> gradient) {
-		long startTime = new Date().getTime();
+		ComponentMetricsRegistry metricsRegistry = ComponentMetricsRegistry.getDefault();
+		long startTime = metricsRegistry.startTimer();
 		DirectedComponentGradient<NeuronsActivation> grad =  delegated.backPropagate(gradient);
-		long endTime = new Date().getTime();
-		long timeTaken = endTime - startTime;
-		DefaultChainableDirectedComponentAdapter.addTime(timeTaken, "bp:" + name);
+		metricsRegistry.record(backwardTimer, startTime);
 		return new DirectedComponentGradientImpl<>(grad.getTotalTrainableAxonsGradients().stream()
 				.map(s -> decorateGradientSupplier(s)).collect(Collectors.toList()), grad.getOutput());
 	}
@@ -69,11 +71,10 @@ public class DirectedAxonsComponentActivationAdapter implements DirectedAxonsCom
 		
 		@Override
 		public AxonsGradient get() {
-			long startTime = new Date().getTime();
+			ComponentMetricsRegistry metricsRegistry = ComponentMetricsRegistry.getDefault();
+			long startTime = metricsRegistry.startTimer();
 			AxonsGradient gradient = gradientSupplier.get();
-			long endTime = new Date().getTime();
-			long timeTaken = endTime - startTime;
-			DefaultChainableDirectedComponentAdapter.addTime(timeTaken, "grad:" + name);
+			metricsRegistry.record(gradientTimer, startTime);
 			return gradient;
 		}
 		
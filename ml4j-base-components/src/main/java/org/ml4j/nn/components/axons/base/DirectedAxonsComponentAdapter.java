@@ -17,6 +17,7 @@ import org.ml4j.nn.axons.Axons;
 import org.ml4j.nn.axons.AxonsContext;
 import org.ml4j.nn.components.axons.DirectedAxonsComponent;
 import org.ml4j.nn.components.axons.DirectedAxonsComponentActivation;
+import org.ml4j.nn.components.metrics.ComponentPhase;
 import org.ml4j.nn.components.onetoone.DefaultChainableDirectedComponentAdapter;
 import org.ml4j.nn.neurons.Neurons;
 import org.ml4j.nn.neurons.NeuronsActivation;
@@ -48,7 +49,8 @@ public class DirectedAxonsComponentAdapter<L extends Neurons, R extends Neurons>
 
 	@Override
 	public DirectedAxonsComponentActivation forwardPropagate(NeuronsActivation input, AxonsContext context) {
-		return new DirectedAxonsComponentActivationAdapter(super.forwardPropagate(input, context), name);
+		return new DirectedAxonsComponentActivationAdapter(super.forwardPropagate(input, context),
+				getTimer(ComponentPhase.BACKWARD), getTimer(ComponentPhase.GRADIENT));
 	}
 	
 	
@@ -35,6 +35,7 @@ import org.ml4j.nn.components.onetomany.base.OneToManyDirectedComponentAdapter;
 import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponent;
 import org.ml4j.nn.components.onetone.DefaultDirectedComponentBipoleGraph;
 import org.ml4j.nn.components.onetone.DefaultDirectedComponentChain;
+import org.ml4j.nn.components.onetoone.ParallelDefaultDirectedComponentBipoleGraphImpl;
 import org.ml4j.nn.neurons.Neurons;
 import org.ml4j.nn.neurons.Neurons3D;
 
@@ -42,9 +43,22 @@ public class DirectedComponentFactoryAdapter implements DirectedComponentFactory
 
 	protected DirectedComponentFactory delegated;
 	
+	private boolean parallelPaths;
 	
 	public DirectedComponentFactoryAdapter(DirectedComponentFactory delegated) {
+		this(delegated, false);
+	}
+	
+	/**
+	 * @param delegated     The factory the components are created by.
+	 * @param parallelPaths Whether the bipole graphs created - such as those of
+	 *                      the parallel paths and skip connections of the graph
+	 *                      builders - propagate their edges concurrently, on the
+	 *                      common fork/join pool.
+	 */
+	public DirectedComponentFactoryAdapter(DirectedComponentFactory delegated, boolean parallelPaths) {
 		this.delegated = delegated;
+		this.parallelPaths = parallelPaths;
 	}
 	
 	@Override
@@ -145,7 +159,13 @@ public class DirectedComponentFactoryAdapter implements DirectedComponentFactory
 	@Override
 	public DefaultDirectedComponentBipoleGraph createDirectedComponentBipoleGraph(Neurons arg0, Neurons arg1,
 			List<DefaultChainableDirectedComponent<?, ?>> parallelComponents, PathCombinationStrategy arg3) {
-		return delegated.createDirectedComponentBipoleGraph(arg0, arg1, parallelComponents, arg3);
+		DefaultDirectedComponentBipoleGraph bipoleGraph = delegated.createDirectedComponentBipoleGraph(arg0, arg1,
+				parallelComponents, arg3);
+		if (parallelPaths) {
+			return new ParallelDefaultDirectedComponentBipoleGraphImpl(bipoleGraph,
+					createManyToOneDirectedComponent(arg3), null);
+		}
+		return bipoleGraph;
 	}
 
 	@Override
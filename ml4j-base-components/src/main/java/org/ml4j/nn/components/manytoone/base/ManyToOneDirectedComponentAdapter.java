@@ -13,14 +13,15 @@
  */
 package org.ml4j.nn.components.manytoone.base;
 
-import java.util.Date;
 import java.util.List;
 
 import org.ml4j.nn.components.DirectedComponentsContext;
 import org.ml4j.nn.components.NeuralComponentType;
 import org.ml4j.nn.components.manytoone.ManyToOneDirectedComponent;
 import org.ml4j.nn.components.manytoone.ManyToOneDirectedComponentActivation;
-import org.ml4j.nn.components.onetoone.DefaultChainableDirectedComponentAdapter;
+import org.ml4j.nn.components.metrics.ComponentMetricsRegistry;
+import org.ml4j.nn.components.metrics.ComponentPhase;
+import org.ml4j.nn.components.metrics.ComponentTimer;
 import org.ml4j.nn.neurons.NeuronsActivation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,12 @@ public class ManyToOneDirectedComponentAdapter<A extends ManyToOneDirectedCompon
 	
 	private ManyToOneDirectedComponent<A> delegated;
 	
+	/**
+	 * The forward propagation timer, resolved from the default
+	 * ComponentMetricsRegistry on first use.
+	 */
+	private transient ComponentTimer forwardTimer;
+	
 	public ManyToOneDirectedComponentAdapter(ManyToOneDirectedComponent<A> delegated) {
 		this.delegated = delegated;
 	}
@@ -44,16 +51,27 @@ public class ManyToOneDirectedComponentAdapter<A extends ManyToOneDirectedCompon
 	@Override
 	public A forwardPropagate(List<NeuronsActivation> input, DirectedComponentsContext context) {
 		
-		LOGGER.info(getComponentType().toString());
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(getComponentType().toString());
+		}
 		
-		long startTime = new Date().getTime();
+		ComponentMetricsRegistry metricsRegistry = ComponentMetricsRegistry.getDefault();
+		long startTime = metricsRegistry.startTimer();
 		A activation =  delegated.forwardPropagate(input, context);
-		long endTime = new Date().getTime();
-		long timeTaken = endTime - startTime;
-		DefaultChainableDirectedComponentAdapter.addTime(timeTaken, delegated.getClass().getSimpleName());
+		metricsRegistry.record(getForwardTimer(), startTime);
 		return activation;
 	}
 
+	private ComponentTimer getForwardTimer() {
+		ComponentTimer timer = forwardTimer;
+		if (timer == null) {
+			timer = ComponentMetricsRegistry.getDefault().getTimer(delegated.getClass().getSimpleName(),
+					ComponentPhase.FORWARD);
+			forwardTimer = timer;
+		}
+		return timer;
+	}
+
 	@Override
 	public NeuralComponentType<?> getComponentType() {
 		return delegated.getComponentType();
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.components.metrics;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Exports snapshots of the timers of a ComponentMetricsRegistry.
+ * 
+ * @author Michael Lavelle
+ */
+@FunctionalInterface
+public interface ComponentMetricsExporter {
+
+	/**
+	 * @param snapshots The snapshots of all the timers of the registry.
+	 * @throws IOException If the snapshots could not be exported.
+	 */
+	void export(List<ComponentTimerSnapshot> snapshots) throws IOException;
+}
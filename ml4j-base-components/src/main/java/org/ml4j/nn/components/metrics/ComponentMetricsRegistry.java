@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.components.metrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of ComponentTimers keyed by component name and phase.
+ * 
+ * Timing is disabled by default, and may be enabled by setting the
+ * "ml4j.componentMetrics.enabled" system property to true or by calling
+ * setEnabled(true) - when disabled, startTimer() and record(...) reduce to a
+ * single volatile read, without reading the clock.
+ * 
+ * Typical usage on a hot path resolves the timer once, outside the hot path,
+ * and then records into it:
+ * 
+ * <pre>
+ * ComponentTimer timer = registry.getTimer(componentName, ComponentPhase.FORWARD);
+ * ...
+ * long startTime = registry.startTimer();
+ * ...
+ * registry.record(timer, startTime);
+ * </pre>
+ * 
+ * @author Michael Lavelle
+ */
+public class ComponentMetricsRegistry {
+
+	/**
+	 * The system property used to initialise whether the default registry is
+	 * enabled.
+	 */
+	public static final String ENABLED_PROPERTY = "ml4j.componentMetrics.enabled";
+
+	private static final ComponentMetricsRegistry DEFAULT_REGISTRY = new ComponentMetricsRegistry(
+			Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "false")));
+
+	/**
+	 * Returned by startTimer() when disabled.
+	 */
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+
+	private volatile boolean enabled;
+
+	private final ConcurrentMap<String, ComponentTimer> timers;
+
+	public ComponentMetricsRegistry(boolean enabled) {
+		this.enabled = enabled;
+		this.timers = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @return The registry used by the component adapters.
+	 */
+	public static ComponentMetricsRegistry getDefault() {
+		return DEFAULT_REGISTRY;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return The current System.nanoTime() if enabled, to be passed to
+	 *         record(...) once the timed phase completes.
+	 */
+	public long startTimer() {
+		return enabled ? System.nanoTime() : NOT_STARTED;
+	}
+
+	/**
+	 * Record the time elapsed since startTime, if enabled.
+	 * 
+	 * @param timer     The timer, as returned by getTimer(...).
+	 * @param startTime The value returned by startTimer().
+	 */
+	public void record(ComponentTimer timer, long startTime) {
+		if (enabled && startTime != NOT_STARTED) {
+			timer.record(System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Record the time elapsed since startTime, if enabled - looking up the timer
+	 * on each call, so hot paths should resolve the timer once and call
+	 * record(ComponentTimer, long) instead.
+	 * 
+	 * @param componentName The name of the component.
+	 * @param phase         The phase timed.
+	 * @param startTime     The value returned by startTimer().
+	 */
+	public void record(String componentName, ComponentPhase phase, long startTime) {
+		if (enabled && startTime != NOT_STARTED) {
+			getTimer(componentName, phase).record(System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * @param componentName The name of the component.
+	 * @param phase         The phase timed.
+	 * @return The timer for the phase of the component, created if necessary -
+	 *         the same timer for the lifetime of this registry, so it may be
+	 *         cached by callers.
+	 */
+	public ComponentTimer getTimer(String componentName, ComponentPhase phase) {
+		String key = phase.getShortName() + ":" + componentName;
+		ComponentTimer timer = timers.get(key);
+		if (timer == null) {
+			timer = timers.computeIfAbsent(key, k -> new ComponentTimer(componentName, phase));
+		}
+		return timer;
+	}
+
+	/**
+	 * @return Snapshots of all timers, ordered by component name and phase.
+	 */
+	public List<ComponentTimerSnapshot> snapshot() {
+		List<ComponentTimerSnapshot> snapshots = new ArrayList<>();
+		for (ComponentTimer timer : timers.values()) {
+			snapshots.add(timer.snapshot());
+		}
+		snapshots.sort(Comparator.comparing(ComponentTimerSnapshot::getComponentName)
+				.thenComparing(ComponentTimerSnapshot::getPhase));
+		return snapshots;
+	}
+
+	/**
+	 * @param exporter The exporter to export snapshots of all timers to.
+	 * @throws IOException If the snapshots could not be exported.
+	 */
+	public void export(ComponentMetricsExporter exporter) throws IOException {
+		exporter.export(snapshot());
+	}
+
+	/**
+	 * Reset the counters of all timers.
+	 */
+	public void reset() {
+		for (ComponentTimer timer : timers.values()) {
+			timer.reset();
+		}
+	}
+}
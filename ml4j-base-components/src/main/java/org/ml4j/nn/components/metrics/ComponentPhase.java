@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.components.metrics;
+
+/**
+ * The phases of a component's lifecycle timed by the ComponentMetricsRegistry.
+ * 
+ * @author Michael Lavelle
+ */
+public enum ComponentPhase {
+
+	FORWARD("fp"), BACKWARD("bp"), GRADIENT("grad");
+
+	private String shortName;
+
+	private ComponentPhase(String shortName) {
+		this.shortName = shortName;
+	}
+
+	/**
+	 * @return The short name of the phase, as used to prefix timings in logs.
+	 */
+	public String getShortName() {
+		return shortName;
+	}
+}
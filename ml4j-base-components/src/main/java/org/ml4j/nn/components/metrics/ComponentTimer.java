@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.components.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the durations of one phase of one component into a histogram with
+ * power-of-two nanosecond buckets.
+ * 
+ * Recording is lock-free - each counter is a striped LongAdder, so concurrent
+ * threads timing the same component do not contend on a single memory
+ * location. All fields are final, so a timer may be cached and shared between
+ * threads without further synchronisation.
+ * 
+ * @author Michael Lavelle
+ */
+public class ComponentTimer {
+
+	/**
+	 * The base two logarithm of the upper bound of the first bucket - 1024ns.
+	 */
+	static final int FIRST_BUCKET_EXPONENT = 10;
+
+	/**
+	 * The number of bounded buckets - the last having an upper bound of 2^36ns,
+	 * approximately 69 seconds. Longer durations are counted by the unbounded
+	 * overflow bucket.
+	 */
+	static final int BOUNDED_BUCKET_COUNT = 27;
+
+	private final String componentName;
+
+	private final ComponentPhase phase;
+
+	private final LongAdder count;
+
+	private final LongAdder totalNanos;
+
+	private final LongAccumulator maxNanos;
+
+	private final LongAdder[] bucketCounts;
+
+	public ComponentTimer(String componentName, ComponentPhase phase) {
+		this.componentName = componentName;
+		this.phase = phase;
+		this.count = new LongAdder();
+		this.totalNanos = new LongAdder();
+		this.maxNanos = new LongAccumulator(Math::max, 0);
+		this.bucketCounts = new LongAdder[BOUNDED_BUCKET_COUNT + 1];
+		for (int i = 0; i < bucketCounts.length; i++) {
+			bucketCounts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * @param nanos The duration to record, in nanoseconds.
+	 */
+	public void record(long nanos) {
+		long duration = Math.max(nanos, 0);
+		count.increment();
+		totalNanos.add(duration);
+		maxNanos.accumulate(duration);
+		bucketCounts[getBucketIndex(duration)].increment();
+	}
+
+	/**
+	 * @return A snapshot of the durations recorded - not atomic with respect to
+	 *         concurrent recording, so counters may differ by in-flight records.
+	 */
+	public ComponentTimerSnapshot snapshot() {
+		long[] snapshotBucketCounts = new long[bucketCounts.length];
+		for (int i = 0; i < bucketCounts.length; i++) {
+			snapshotBucketCounts[i] = bucketCounts[i].sum();
+		}
+		return new ComponentTimerSnapshot(componentName, phase, count.sum(), totalNanos.sum(), maxNanos.get(),
+				snapshotBucketCounts);
+	}
+
+	/**
+	 * Reset all counters to zero.
+	 */
+	public void reset() {
+		count.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+		for (LongAdder bucketCount : bucketCounts) {
+			bucketCount.reset();
+		}
+	}
+
+	public String getComponentName() {
+		return componentName;
+	}
+
+	public ComponentPhase getPhase() {
+		return phase;
+	}
+
+	/**
+	 * @param bucketIndex The index of a bounded bucket.
+	 * @return The inclusive upper bound of the bucket, in nanoseconds.
+	 */
+	static long getBucketUpperBoundNanos(int bucketIndex) {
+		return 1L << (FIRST_BUCKET_EXPONENT + bucketIndex);
+	}
+
+	/**
+	 * @param nanos A non-negative duration, in nanoseconds.
+	 * @return The index of the bucket counting the duration.
+	 */
+	static int getBucketIndex(long nanos) {
+		if (nanos <= 1) {
+			return 0;
+		}
+		// The exponent of the smallest power of two at least nanos
+		int exponent = 64 - Long.numberOfLeadingZeros(nanos - 1);
+		return Math.min(Math.max(exponent - FIRST_BUCKET_EXPONENT, 0), BOUNDED_BUCKET_COUNT);
+	}
+}
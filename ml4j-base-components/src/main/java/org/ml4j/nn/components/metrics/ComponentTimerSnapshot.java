@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.components.metrics;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of the durations recorded by a ComponentTimer.
+ * 
+ * @author Michael Lavelle
+ */
+public class ComponentTimerSnapshot {
+
+	private String componentName;
+
+	private ComponentPhase phase;
+
+	private long count;
+
+	private long totalNanos;
+
+	private long maxNanos;
+
+	private long[] bucketCounts;
+
+	/**
+	 * @param bucketCounts The counts of the bounded buckets, followed by the count
+	 *                     of the overflow bucket.
+	 */
+	public ComponentTimerSnapshot(String componentName, ComponentPhase phase, long count, long totalNanos,
+			long maxNanos, long[] bucketCounts) {
+		this.componentName = componentName;
+		this.phase = phase;
+		this.count = count;
+		this.totalNanos = totalNanos;
+		this.maxNanos = maxNanos;
+		this.bucketCounts = bucketCounts;
+	}
+
+	public String getComponentName() {
+		return componentName;
+	}
+
+	public ComponentPhase getPhase() {
+		return phase;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	public double getMeanNanos() {
+		return count == 0 ? 0 : (double) totalNanos / count;
+	}
+
+	/**
+	 * @return The number of bounded buckets - getBucketCount(getBucketCount())
+	 *         being the count of the overflow bucket.
+	 */
+	public int getBucketCount() {
+		return bucketCounts.length - 1;
+	}
+
+	/**
+	 * @param bucketIndex The index of the bucket.
+	 * @return The number of durations recorded in the bucket - not cumulative.
+	 */
+	public long getBucketCount(int bucketIndex) {
+		return bucketCounts[bucketIndex];
+	}
+
+	/**
+	 * @param bucketIndex The index of a bounded bucket.
+	 * @return The inclusive upper bound of the bucket, in nanoseconds.
+	 */
+	public long getBucketUpperBoundNanos(int bucketIndex) {
+		return ComponentTimer.getBucketUpperBoundNanos(bucketIndex);
+	}
+
+	/**
+	 * @param quantile The quantile, between 0 and 1.
+	 * @return An upper bound for the quantile, being the upper bound of the bucket
+	 *         containing it - or the maximum duration if that is smaller.
+	 */
+	public long getQuantileUpperBoundNanos(double quantile) {
+		if (quantile < 0 || quantile > 1) {
+			throw new IllegalArgumentException("Quantile must be between 0 and 1");
+		}
+		long rank = (long) Math.ceil(quantile * count);
+		long cumulativeCount = 0;
+		for (int i = 0; i < getBucketCount(); i++) {
+			cumulativeCount = cumulativeCount + bucketCounts[i];
+			if (cumulativeCount >= rank) {
+				return Math.min(getBucketUpperBoundNanos(i), maxNanos);
+			}
+		}
+		return maxNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "ComponentTimerSnapshot [componentName=" + componentName + ", phase=" + phase + ", count=" + count
+				+ ", totalNanos=" + totalNanos + ", maxNanos=" + maxNanos + ", bucketCounts="
+				+ Arrays.toString(bucketCounts) + "]";
+	}
+}
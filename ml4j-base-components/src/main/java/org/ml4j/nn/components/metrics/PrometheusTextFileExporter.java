@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.components.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * ComponentMetricsExporter writing snapshots to a file in the Prometheus text
+ * exposition format, suitable for collection by the node exporter's textfile
+ * collector.
+ * 
+ * Each timer is exported as a histogram named
+ * ml4j_component_duration_seconds, labelled by component and phase. The file
+ * is written to a temporary file and moved into place, so collectors never
+ * read a partially written file.
+ * 
+ * @author Michael Lavelle
+ */
+public class PrometheusTextFileExporter implements ComponentMetricsExporter {
+
+	/**
+	 * The name of the exported histogram.
+	 */
+	public static final String METRIC_NAME = "ml4j_component_duration_seconds";
+
+	private static final double NANOS_PER_SECOND = 1e9;
+
+	private Path path;
+
+	/**
+	 * @param path The path of the file to write.
+	 */
+	public PrometheusTextFileExporter(Path path) {
+		this.path = path;
+	}
+
+	@Override
+	public void export(List<ComponentTimerSnapshot> snapshots) throws IOException {
+		Path directory = path.toAbsolutePath().getParent();
+		Path temporaryPath = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		try {
+			try (Writer writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+				write(snapshots, writer);
+			}
+			Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+	}
+
+	/**
+	 * @param snapshots The snapshots to write.
+	 * @param writer    The writer to write the snapshots to, in the Prometheus
+	 *                  text exposition format.
+	 * @throws IOException If the snapshots could not be written.
+	 */
+	public static void write(List<ComponentTimerSnapshot> snapshots, Writer writer) throws IOException {
+		writer.write("# HELP " + METRIC_NAME + " Duration of each phase of each neural network component.\n");
+		writer.write("# TYPE " + METRIC_NAME + " histogram\n");
+		for (ComponentTimerSnapshot snapshot : snapshots) {
+			String labels = "component=\"" + escape(snapshot.getComponentName()) + "\",phase=\""
+					+ snapshot.getPhase().name().toLowerCase() + "\"";
+			long cumulativeCount = 0;
+			for (int i = 0; i < snapshot.getBucketCount(); i++) {
+				cumulativeCount = cumulativeCount + snapshot.getBucketCount(i);
+				writer.write(METRIC_NAME + "_bucket{" + labels + ",le=\""
+						+ snapshot.getBucketUpperBoundNanos(i) / NANOS_PER_SECOND + "\"} " + cumulativeCount + "\n");
+			}
+			// Derive the total from the buckets, keeping the histogram consistent
+			cumulativeCount = cumulativeCount + snapshot.getBucketCount(snapshot.getBucketCount());
+			writer.write(METRIC_NAME + "_bucket{" + labels + ",le=\"+Inf\"} " + cumulativeCount + "\n");
+			writer.write(METRIC_NAME + "_sum{" + labels + "} " + snapshot.getTotalNanos() / NANOS_PER_SECOND + "\n");
+			writer.write(METRIC_NAME + "_count{" + labels + "} " + cumulativeCount + "\n");
+		}
+	}
+
+	private static String escape(String labelValue) {
+		return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	public Path getPath() {
+		return path;
+	}
+}
@@ -13,13 +13,14 @@
  */
 package org.ml4j.nn.components.onetomany.base;
 
-import java.util.Date;
 
 import org.ml4j.nn.components.DirectedComponentsContext;
 import org.ml4j.nn.components.NeuralComponentType;
+import org.ml4j.nn.components.metrics.ComponentMetricsRegistry;
+import org.ml4j.nn.components.metrics.ComponentPhase;
+import org.ml4j.nn.components.metrics.ComponentTimer;
 import org.ml4j.nn.components.onetomany.OneToManyDirectedComponent;
 import org.ml4j.nn.components.onetomany.OneToManyDirectedComponentActivation;
-import org.ml4j.nn.components.onetoone.DefaultChainableDirectedComponentAdapter;
 import org.ml4j.nn.neurons.NeuronsActivation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,12 @@ public class OneToManyDirectedComponentAdapter<A extends OneToManyDirectedCompon
 	
 	private OneToManyDirectedComponent<A> delegated;
 	
+	/**
+	 * The forward propagation timer, resolved from the default
+	 * ComponentMetricsRegistry on first use.
+	 */
+	private transient ComponentTimer forwardTimer;
+	
 	public OneToManyDirectedComponentAdapter(OneToManyDirectedComponent<A> delegated) {
 		this.delegated = delegated;
 	}
@@ -44,16 +51,27 @@ public class OneToManyDirectedComponentAdapter<A extends OneToManyDirectedCompon
 	@Override
 	public A forwardPropagate(NeuronsActivation input, DirectedComponentsContext context) {
 		
-		LOGGER.info(getComponentType().toString());
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(getComponentType().toString());
+		}
 		
-		long startTime = new Date().getTime();
+		ComponentMetricsRegistry metricsRegistry = ComponentMetricsRegistry.getDefault();
+		long startTime = metricsRegistry.startTimer();
 		A activation =  delegated.forwardPropagate(input, context);
-		long endTime = new Date().getTime();
-		long timeTaken = endTime - startTime;
-		DefaultChainableDirectedComponentAdapter.addTime(timeTaken, delegated.getClass().getSimpleName());
+		metricsRegistry.record(getForwardTimer(), startTime);
 		return activation;
 	}
 
+	private ComponentTimer getForwardTimer() {
+		ComponentTimer timer = forwardTimer;
+		if (timer == null) {
+			timer = ComponentMetricsRegistry.getDefault().getTimer(delegated.getClass().getSimpleName(),
+					ComponentPhase.FORWARD);
+			forwardTimer = timer;
+		}
+		return timer;
+	}
+
 	@Override
 	public NeuralComponentType<?> getComponentType() {
 		return delegated.getComponentType();
@@ -13,16 +13,14 @@
  */
 package org.ml4j.nn.components.onetoone;
 
-import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 import org.ml4j.nn.components.NeuralComponentType;
 import org.ml4j.nn.components.DirectedComponentsContext;
+import org.ml4j.nn.components.metrics.ComponentMetricsRegistry;
+import org.ml4j.nn.components.metrics.ComponentPhase;
+import org.ml4j.nn.components.metrics.ComponentTimer;
+import org.ml4j.nn.components.metrics.ComponentTimerSnapshot;
 import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponent;
 import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponentActivation;
 import org.ml4j.nn.neurons.Neurons;
@@ -41,15 +39,13 @@ public class DefaultChainableDirectedComponentAdapter<A extends DefaultChainable
 	
 	protected DefaultChainableDirectedComponent<A, C> delegated;
 	
-	private static Map<String, AtomicLong> timesByClassName;
-	private static Map<String, AtomicInteger> countsByClassName;
 	protected String name;
 	
-	static {
-		timesByClassName = new HashMap<>();
-		countsByClassName = new HashMap<>();
-	}
-	
+	/**
+	 * The timers of this component indexed by phase ordinal, resolved from the
+	 * default ComponentMetricsRegistry on first use.
+	 */
+	private transient ComponentTimer[] timers;
 	
 	public DefaultChainableDirectedComponentAdapter(DefaultChainableDirectedComponent<A, C> delegated, String name) {
 		this.delegated = delegated;
@@ -61,49 +57,53 @@ public class DefaultChainableDirectedComponentAdapter<A extends DefaultChainable
 		return delegated.getContext(directedComponentsContext, componentIndex);
 	}
 	
+	/**
+	 * Log the total and average times of each phase of each component recorded by
+	 * the default ComponentMetricsRegistry.
+	 */
 	public static void printTimes() {
-		
-		System.out.println("\n");
-		System.out.println("Totals Times by Component:\n");
-		for (Entry<String, AtomicLong> entry : timesByClassName.entrySet()) {
-			System.out.println(entry.getKey() + ":" + entry.getValue().get());
-		}
-		System.out.println("\nAverage Times By Component:\n");
-		for (Entry<String, AtomicLong> entry : timesByClassName.entrySet()) {
-			int count = countsByClassName.get(entry.getKey()).get();
-			System.out.println(entry.getKey() + ":" + entry.getValue().get() / count);
+		List<ComponentTimerSnapshot> snapshots = ComponentMetricsRegistry.getDefault().snapshot();
+		StringBuilder times = new StringBuilder("Times by Component (total ms, average ms, max ms, count):\n");
+		for (ComponentTimerSnapshot snapshot : snapshots) {
+			times.append(snapshot.getPhase().getShortName()).append(':').append(snapshot.getComponentName())
+					.append(':').append(snapshot.getTotalNanos() / 1e6).append(", ")
+					.append(snapshot.getMeanNanos() / 1e6).append(", ").append(snapshot.getMaxNanos() / 1e6)
+					.append(", ").append(snapshot.getCount()).append('\n');
 		}
-		
-	}
-	
-	
-	public static void addTime(long timeTaken, String name) {
-		AtomicLong existingTime = timesByClassName.get(name);
-		if (existingTime == null) {
-			existingTime = new AtomicLong(0);
-			timesByClassName.put(name, existingTime);
-		} 
-		AtomicInteger existingCount = countsByClassName.get(name);
-		if (existingCount == null) {
-			existingCount = new AtomicInteger(0);
-			countsByClassName.put(name, existingCount);
-
-		} 
-		existingTime.addAndGet(timeTaken);
-		existingCount.addAndGet(1);
+		LOGGER.info(times.toString());
 	}
 
 	@Override
 	public A forwardPropagate(NeuronsActivation input, C context) {
-		LOGGER.info(getComponentType().toString());
-		long startTime = new Date().getTime();
-		A activation =delegated.forwardPropagate(input, context);
-		long endTime = new Date().getTime();
-		long timeTaken = endTime - startTime;
-		addTime(timeTaken, "fp:" + name);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(getComponentType().toString());
+		}
+		ComponentMetricsRegistry metricsRegistry = ComponentMetricsRegistry.getDefault();
+		long startTime = metricsRegistry.startTimer();
+		A activation = delegated.forwardPropagate(input, context);
+		metricsRegistry.record(getTimer(ComponentPhase.FORWARD), startTime);
 		return activation;
 	}
 
+	/**
+	 * @param phase The phase timed.
+	 * @return The timer for the phase of this component.
+	 */
+	protected ComponentTimer getTimer(ComponentPhase phase) {
+		ComponentTimer[] resolvedTimers = timers;
+		if (resolvedTimers == null) {
+			resolvedTimers = new ComponentTimer[ComponentPhase.values().length];
+			timers = resolvedTimers;
+		}
+		ComponentTimer timer = resolvedTimers[phase.ordinal()];
+		if (timer == null) {
+			// Racing threads resolve the same timer from the registry
+			timer = ComponentMetricsRegistry.getDefault().getTimer(name, phase);
+			resolvedTimers[phase.ordinal()] = timer;
+		}
+		return timer;
+	}
+
 	@Override
 	public NeuralComponentType<? extends DefaultChainableDirectedComponent<?, ?>> getComponentType() {
 		return delegated.getComponentType();
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.components.onetoone;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Evaluates the independent branches of a bipole graph concurrently on a
+ * fork/join pool, joining on the results of all branches.
+ * 
+ * @author Michael Lavelle
+ */
+final class ForkJoinBranches {
+
+	private ForkJoinBranches() {
+		// Static utility only
+	}
+
+	/**
+	 * @param forkJoinPool The pool to evaluate the branches on, unless already
+	 *                     running within a fork/join pool.
+	 * @param branches     The branches to evaluate.
+	 * @return The results of the branches, in the order of the branches.
+	 */
+	static <T> List<T> invokeAll(ForkJoinPool forkJoinPool, List<Supplier<T>> branches) {
+		List<T> results = new ArrayList<>();
+		if (branches.size() == 1) {
+			results.add(branches.get(0).get());
+			return results;
+		}
+		List<BranchTask<T>> tasks = new ArrayList<>();
+		for (Supplier<T> branch : branches) {
+			tasks.add(new BranchTask<>(branch));
+		}
+		if (ForkJoinTask.inForkJoinPool()) {
+			// Nested graph - fork within the current pool, helping rather than blocking
+			ForkJoinTask.invokeAll(tasks);
+		} else {
+			forkJoinPool.invoke(new BranchTask<>(() -> ForkJoinTask.invokeAll(tasks)));
+		}
+		for (BranchTask<T> task : tasks) {
+			results.add(task.join());
+		}
+		return results;
+	}
+
+	private static class BranchTask<T> extends RecursiveTask<T> {
+
+		/**
+		 * Default serialization id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		private transient Supplier<T> branch;
+
+		public BranchTask(Supplier<T> branch) {
+			this.branch = branch;
+		}
+
+		@Override
+		protected T compute() {
+			return branch.get();
+		}
+	}
+}
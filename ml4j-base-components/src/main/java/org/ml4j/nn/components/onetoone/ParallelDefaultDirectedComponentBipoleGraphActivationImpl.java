@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.components.onetoone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.ml4j.EditableMatrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.axons.AxonsGradient;
+import org.ml4j.nn.components.DirectedComponentActivationLifecycle;
+import org.ml4j.nn.components.DirectedComponentGradient;
+import org.ml4j.nn.components.DirectedComponentGradientImpl;
+import org.ml4j.nn.components.manytoone.ManyToOneDirectedComponentActivation;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponentActivation;
+import org.ml4j.nn.components.onetone.DefaultDirectedComponentBipoleGraph;
+import org.ml4j.nn.components.onetoone.base.DefaultDirectedComponentBipoleGraphActivationBase;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+
+/**
+ * Activation of a ParallelDefaultDirectedComponentBipoleGraphImpl, back
+ * propagating through the activations of the parallel edges concurrently.
+ * 
+ * The gradient with respect to the input of the graph is the sum of the
+ * gradients of the edges, as the input was fanned out to all edges.
+ * 
+ * @author Michael Lavelle
+ */
+public class ParallelDefaultDirectedComponentBipoleGraphActivationImpl
+		extends DefaultDirectedComponentBipoleGraphActivationBase {
+
+	private List<DefaultChainableDirectedComponentActivation> edgeActivations;
+	private ManyToOneDirectedComponentActivation pathCombinationActivation;
+	private ForkJoinPool forkJoinPool;
+	private MatrixFactory matrixFactory;
+
+	public ParallelDefaultDirectedComponentBipoleGraphActivationImpl(DefaultDirectedComponentBipoleGraph bipoleGraph,
+			List<DefaultChainableDirectedComponentActivation> edgeActivations,
+			ManyToOneDirectedComponentActivation pathCombinationActivation, ForkJoinPool forkJoinPool,
+			MatrixFactory matrixFactory) {
+		super(bipoleGraph, pathCombinationActivation.getOutput());
+		this.edgeActivations = edgeActivations;
+		this.pathCombinationActivation = pathCombinationActivation;
+		this.forkJoinPool = forkJoinPool;
+		this.matrixFactory = matrixFactory;
+	}
+
+	@Override
+	public DirectedComponentGradient<NeuronsActivation> backPropagate(
+			DirectedComponentGradient<NeuronsActivation> outerGradient) {
+
+		DirectedComponentGradient<List<NeuronsActivation>> pathCombinationGradient = pathCombinationActivation
+				.backPropagate(outerGradient);
+		List<NeuronsActivation> edgeOutputGradients = pathCombinationGradient.getOutput();
+
+		List<Supplier<DirectedComponentGradient<NeuronsActivation>>> branches = new ArrayList<>();
+		for (int edgeIndex = 0; edgeIndex < edgeActivations.size(); edgeIndex++) {
+			DefaultChainableDirectedComponentActivation edgeActivation = edgeActivations.get(edgeIndex);
+			NeuronsActivation edgeOutputGradient = edgeOutputGradients.get(edgeIndex);
+			// Each edge starts from an empty list, so inherited gradients are only added once
+			branches.add(() -> edgeActivation.backPropagate(new DirectedComponentGradientImpl<>(edgeOutputGradient)));
+		}
+
+		List<DirectedComponentGradient<NeuronsActivation>> edgeGradients = ForkJoinBranches.invokeAll(forkJoinPool,
+				branches);
+
+		List<Supplier<AxonsGradient>> totalTrainableAxonsGradients = new ArrayList<>();
+		totalTrainableAxonsGradients.addAll(pathCombinationGradient.getTotalTrainableAxonsGradients());
+		EditableMatrix inputGradient = null;
+		NeuronsActivation firstEdgeInputGradient = null;
+		for (DirectedComponentGradient<NeuronsActivation> edgeGradient : edgeGradients) {
+			totalTrainableAxonsGradients.addAll(edgeGradient.getTotalTrainableAxonsGradients());
+			if (inputGradient == null) {
+				firstEdgeInputGradient = edgeGradient.getOutput();
+				// Copy, as edges may pass through the same gradient instance
+				inputGradient = firstEdgeInputGradient.getActivations(matrixFactory).dup().asEditableMatrix();
+			} else {
+				inputGradient.addi(edgeGradient.getOutput().getActivations(matrixFactory));
+			}
+		}
+
+		return new DirectedComponentGradientImpl<>(totalTrainableAxonsGradients,
+				new NeuronsActivationImpl(inputGradient, firstEdgeInputGradient.getFeatureOrientation()));
+	}
+
+	@Override
+	public List<DefaultChainableDirectedComponentActivation> decompose() {
+		return Arrays.asList(this);
+	}
+
+	@Override
+	public void close(DirectedComponentActivationLifecycle completedLifeCycleStage) {
+		for (DefaultChainableDirectedComponentActivation edgeActivation : edgeActivations) {
+			edgeActivation.close(completedLifeCycleStage);
+		}
+		pathCombinationActivation.close(completedLifeCycleStage);
+	}
+
+	public List<DefaultChainableDirectedComponentActivation> getEdgeActivations() {
+		return edgeActivations;
+	}
+}
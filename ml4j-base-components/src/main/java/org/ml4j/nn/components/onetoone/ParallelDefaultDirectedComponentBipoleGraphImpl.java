@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.components.onetoone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.ml4j.nn.components.DirectedComponentsContext;
+import org.ml4j.nn.components.manytomany.DefaultDirectedComponentBatch;
+import org.ml4j.nn.components.manytoone.ManyToOneDirectedComponent;
+import org.ml4j.nn.components.manytoone.ManyToOneDirectedComponentActivation;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponent;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponentActivation;
+import org.ml4j.nn.components.onetone.DefaultDirectedComponentBipoleGraph;
+import org.ml4j.nn.components.onetone.DefaultDirectedComponentBipoleGraphActivation;
+import org.ml4j.nn.components.onetoone.base.DefaultDirectedComponentBipoleGraphBase;
+import org.ml4j.nn.neurons.Neurons;
+import org.ml4j.nn.neurons.NeuronsActivation;
+
+/**
+ * DefaultDirectedComponentBipoleGraph which forward propagates each of its
+ * parallel edges concurrently on a fork/join pool, joining at the many-to-one
+ * component combining their outputs - back propagation through the edges is
+ * similarly concurrent.
+ * 
+ * The same input activation is fanned out to all edges, so edges must not
+ * modify their input in place. The component contexts of the
+ * DirectedComponentsContext must be safe for concurrent access, as is the case
+ * for DirectedComponentsContextImpl.
+ * 
+ * @author Michael Lavelle
+ */
+public class ParallelDefaultDirectedComponentBipoleGraphImpl extends DefaultDirectedComponentBipoleGraphBase {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private ManyToOneDirectedComponent<?> pathCombinationComponent;
+
+	private transient ForkJoinPool forkJoinPool;
+
+	/**
+	 * @param inputNeurons             The input neurons of this graph.
+	 * @param outputNeurons            The output neurons of this graph.
+	 * @param parallelComponentBatch   The batch of parallel edges within this
+	 *                                 graph, connecting the input neurons to the
+	 *                                 output neurons.
+	 * @param pathCombinationComponent The component combining the outputs of the
+	 *                                 edges.
+	 * @param forkJoinPool             The pool on which the edges are propagated,
+	 *                                 or null for the common pool.
+	 */
+	public ParallelDefaultDirectedComponentBipoleGraphImpl(Neurons inputNeurons, Neurons outputNeurons,
+			DefaultDirectedComponentBatch parallelComponentBatch, ManyToOneDirectedComponent<?> pathCombinationComponent,
+			ForkJoinPool forkJoinPool) {
+		super(inputNeurons, outputNeurons, parallelComponentBatch);
+		this.pathCombinationComponent = pathCombinationComponent;
+		this.forkJoinPool = forkJoinPool;
+	}
+
+	/**
+	 * @param bipoleGraph              The graph whose edges are to be propagated
+	 *                                 concurrently.
+	 * @param pathCombinationComponent The component combining the outputs of the
+	 *                                 edges.
+	 * @param forkJoinPool             The pool on which the edges are propagated,
+	 *                                 or null for the common pool.
+	 */
+	public ParallelDefaultDirectedComponentBipoleGraphImpl(DefaultDirectedComponentBipoleGraph bipoleGraph,
+			ManyToOneDirectedComponent<?> pathCombinationComponent, ForkJoinPool forkJoinPool) {
+		this(bipoleGraph.getInputNeurons(), bipoleGraph.getOutputNeurons(), bipoleGraph.getEdges(),
+				pathCombinationComponent, forkJoinPool);
+	}
+
+	@Override
+	public DefaultDirectedComponentBipoleGraphActivation forwardPropagate(NeuronsActivation input,
+			DirectedComponentsContext context) {
+
+		List<DefaultChainableDirectedComponent<?, ?>> edges = parallelComponentBatch.getComponents();
+		List<Supplier<DefaultChainableDirectedComponentActivation>> branches = new ArrayList<>();
+		for (int edgeIndex = 0; edgeIndex < edges.size(); edgeIndex++) {
+			DefaultChainableDirectedComponent<?, ?> edge = edges.get(edgeIndex);
+			int componentIndex = edgeIndex;
+			branches.add(() -> forwardPropagate(input, edge, componentIndex, context));
+		}
+
+		List<DefaultChainableDirectedComponentActivation> edgeActivations = ForkJoinBranches
+				.invokeAll(getForkJoinPool(), branches);
+
+		List<NeuronsActivation> edgeOutputs = new ArrayList<>();
+		for (DefaultChainableDirectedComponentActivation edgeActivation : edgeActivations) {
+			edgeOutputs.add(edgeActivation.getOutput());
+		}
+
+		ManyToOneDirectedComponentActivation pathCombinationActivation = pathCombinationComponent
+				.forwardPropagate(edgeOutputs, context);
+
+		return new ParallelDefaultDirectedComponentBipoleGraphActivationImpl(this, edgeActivations,
+				pathCombinationActivation, getForkJoinPool(), context.getMatrixFactory());
+	}
+
+	private <X, Y extends DefaultChainableDirectedComponentActivation> Y forwardPropagate(NeuronsActivation input,
+			DefaultChainableDirectedComponent<? extends Y, X> component, int componentIndex,
+			DirectedComponentsContext context) {
+		return component.forwardPropagate(input, component.getContext(context, componentIndex));
+	}
+
+	@Override
+	public List<DefaultChainableDirectedComponent<?, ?>> decompose() {
+		// The parallel edges cannot be decomposed into a sequential chain
+		return Arrays.asList(this);
+	}
+
+	@Override
+	public DefaultDirectedComponentBipoleGraph dup() {
+		return new ParallelDefaultDirectedComponentBipoleGraphImpl(inputNeurons, outputNeurons,
+				parallelComponentBatch.dup(), pathCombinationComponent.dup(), forkJoinPool);
+	}
+
+	public ManyToOneDirectedComponent<?> getPathCombinationComponent() {
+		return pathCombinationComponent;
+	}
+
+	/**
+	 * @return The pool on which the edges are propagated.
+	 */
+	public ForkJoinPool getForkJoinPool() {
+		return forkJoinPool == null ? ForkJoinPool.commonPool() : forkJoinPool;
+	}
+}
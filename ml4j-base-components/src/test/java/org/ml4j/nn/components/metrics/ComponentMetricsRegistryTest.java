@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.nn.components.metrics;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ComponentMetricsRegistryTest {
+
+  @Test
+  public void testDefaultRegistryIsDisabled() {
+    Assert.assertFalse(ComponentMetricsRegistry.getDefault().isEnabled());
+  }
+
+  @Test
+  public void testGetTimerReturnsTheSameTimer() {
+    ComponentMetricsRegistry registry = new ComponentMetricsRegistry(true);
+    ComponentTimer timer = registry.getTimer("component", ComponentPhase.FORWARD);
+    Assert.assertSame(timer, registry.getTimer("component", ComponentPhase.FORWARD));
+    Assert.assertNotSame(timer, registry.getTimer("component", ComponentPhase.BACKWARD));
+    Assert.assertNotSame(timer, registry.getTimer("other", ComponentPhase.FORWARD));
+  }
+
+  @Test
+  public void testRecordWhenEnabled() {
+    ComponentMetricsRegistry registry = new ComponentMetricsRegistry(true);
+    ComponentTimer timer = registry.getTimer("component", ComponentPhase.FORWARD);
+
+    long startTime = registry.startTimer();
+    registry.record(timer, startTime);
+    registry.record("component", ComponentPhase.FORWARD, registry.startTimer());
+
+    Assert.assertEquals(2, timer.snapshot().getCount());
+  }
+
+  @Test
+  public void testRecordWhenDisabled() {
+    ComponentMetricsRegistry registry = new ComponentMetricsRegistry(false);
+    ComponentTimer timer = registry.getTimer("component", ComponentPhase.FORWARD);
+
+    registry.record(timer, registry.startTimer());
+    registry.record("component", ComponentPhase.FORWARD, registry.startTimer());
+    Assert.assertEquals(0, timer.snapshot().getCount());
+
+    // A timer started while disabled is not recorded once enabled
+    long startTime = registry.startTimer();
+    registry.setEnabled(true);
+    registry.record(timer, startTime);
+    Assert.assertEquals(0, timer.snapshot().getCount());
+
+    registry.record(timer, registry.startTimer());
+    Assert.assertEquals(1, timer.snapshot().getCount());
+  }
+
+  @Test
+  public void testSnapshotIsOrderedByComponentNameAndPhase() {
+    ComponentMetricsRegistry registry = new ComponentMetricsRegistry(true);
+    registry.getTimer("b", ComponentPhase.GRADIENT).record(3);
+    registry.getTimer("b", ComponentPhase.FORWARD).record(2);
+    registry.getTimer("a", ComponentPhase.BACKWARD).record(1);
+
+    List<ComponentTimerSnapshot> snapshots = registry.snapshot();
+    Assert.assertEquals(3, snapshots.size());
+    assertSnapshot(snapshots.get(0), "a", ComponentPhase.BACKWARD, 1);
+    assertSnapshot(snapshots.get(1), "b", ComponentPhase.FORWARD, 2);
+    assertSnapshot(snapshots.get(2), "b", ComponentPhase.GRADIENT, 3);
+  }
+
+  @Test
+  public void testResetKeepsCachedTimersRegistered() {
+    ComponentMetricsRegistry registry = new ComponentMetricsRegistry(true);
+    ComponentTimer timer = registry.getTimer("component", ComponentPhase.FORWARD);
+    timer.record(100);
+
+    registry.reset();
+    Assert.assertEquals(0, registry.snapshot().get(0).getCount());
+
+    // A timer cached before the reset is still the registered timer
+    timer.record(200);
+    Assert.assertSame(timer, registry.getTimer("component", ComponentPhase.FORWARD));
+    Assert.assertEquals(1, registry.snapshot().size());
+    assertSnapshot(registry.snapshot().get(0), "component", ComponentPhase.FORWARD, 200);
+  }
+
+  @Test
+  public void testExport() throws Exception {
+    ComponentMetricsRegistry registry = new ComponentMetricsRegistry(true);
+    registry.getTimer("component", ComponentPhase.FORWARD).record(100);
+    ComponentTimerSnapshot[] exported = new ComponentTimerSnapshot[1];
+    registry.export(snapshots -> exported[0] = snapshots.get(0));
+    assertSnapshot(exported[0], "component", ComponentPhase.FORWARD, 100);
+  }
+
+  private void assertSnapshot(ComponentTimerSnapshot snapshot, String componentName, ComponentPhase phase,
+      long totalNanos) {
+    Assert.assertEquals(componentName, snapshot.getComponentName());
+    Assert.assertEquals(phase, snapshot.getPhase());
+    Assert.assertEquals(1, snapshot.getCount());
+    Assert.assertEquals(totalNanos, snapshot.getTotalNanos());
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.nn.components.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ComponentTimerTest {
+
+  @Test
+  public void testBucketBoundaries() {
+    // The first bucket counts durations up to and including 1024ns
+    Assert.assertEquals(0, ComponentTimer.getBucketIndex(0));
+    Assert.assertEquals(0, ComponentTimer.getBucketIndex(1));
+    Assert.assertEquals(0, ComponentTimer.getBucketIndex(1024));
+    Assert.assertEquals(1, ComponentTimer.getBucketIndex(1025));
+    Assert.assertEquals(1, ComponentTimer.getBucketIndex(2048));
+    Assert.assertEquals(2, ComponentTimer.getBucketIndex(2049));
+
+    // The last bounded bucket counts durations up to and including 2^36ns
+    int lastBucket = ComponentTimer.BOUNDED_BUCKET_COUNT - 1;
+    Assert.assertEquals(1L << 36, ComponentTimer.getBucketUpperBoundNanos(lastBucket));
+    Assert.assertEquals(lastBucket, ComponentTimer.getBucketIndex(1L << 36));
+    Assert.assertEquals(ComponentTimer.BOUNDED_BUCKET_COUNT, ComponentTimer.getBucketIndex((1L << 36) + 1));
+    Assert.assertEquals(ComponentTimer.BOUNDED_BUCKET_COUNT, ComponentTimer.getBucketIndex(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testEachDurationIsCountedByTheBucketBoundingIt() {
+    for (int i = 0; i < ComponentTimer.BOUNDED_BUCKET_COUNT; i++) {
+      long upperBound = ComponentTimer.getBucketUpperBoundNanos(i);
+      Assert.assertEquals(i, ComponentTimer.getBucketIndex(upperBound));
+      if (i > 0) {
+        Assert.assertEquals(i, ComponentTimer.getBucketIndex(ComponentTimer.getBucketUpperBoundNanos(i - 1) + 1));
+      }
+    }
+  }
+
+  @Test
+  public void testSnapshot() {
+    ComponentTimer timer = new ComponentTimer("component", ComponentPhase.FORWARD);
+    timer.record(100);
+    timer.record(1024);
+    timer.record(1500);
+    timer.record(1L << 40);
+    // Negative durations, from a clock adjustment, are recorded as zero
+    timer.record(-5);
+
+    ComponentTimerSnapshot snapshot = timer.snapshot();
+    Assert.assertEquals("component", snapshot.getComponentName());
+    Assert.assertEquals(ComponentPhase.FORWARD, snapshot.getPhase());
+    Assert.assertEquals(5, snapshot.getCount());
+    Assert.assertEquals(100 + 1024 + 1500 + (1L << 40), snapshot.getTotalNanos());
+    Assert.assertEquals(1L << 40, snapshot.getMaxNanos());
+    Assert.assertEquals(snapshot.getTotalNanos() / 5d, snapshot.getMeanNanos(), 0d);
+
+    Assert.assertEquals(ComponentTimer.BOUNDED_BUCKET_COUNT, snapshot.getBucketCount());
+    Assert.assertEquals(3, snapshot.getBucketCount(0));
+    Assert.assertEquals(1, snapshot.getBucketCount(1));
+    Assert.assertEquals(1, snapshot.getBucketCount(snapshot.getBucketCount()));
+
+    Assert.assertEquals(1024, snapshot.getQuantileUpperBoundNanos(0.5));
+    Assert.assertEquals(2048, snapshot.getQuantileUpperBoundNanos(0.8));
+    Assert.assertEquals(1L << 40, snapshot.getQuantileUpperBoundNanos(1));
+  }
+
+  @Test
+  public void testSnapshotIsUnaffectedByLaterRecords() {
+    ComponentTimer timer = new ComponentTimer("component", ComponentPhase.BACKWARD);
+    timer.record(100);
+    ComponentTimerSnapshot snapshot = timer.snapshot();
+    timer.record(100);
+    Assert.assertEquals(1, snapshot.getCount());
+    Assert.assertEquals(1, snapshot.getBucketCount(0));
+    Assert.assertEquals(2, timer.snapshot().getCount());
+  }
+
+  @Test
+  public void testReset() {
+    ComponentTimer timer = new ComponentTimer("component", ComponentPhase.GRADIENT);
+    timer.record(100);
+    timer.record(1L << 40);
+    timer.reset();
+
+    ComponentTimerSnapshot snapshot = timer.snapshot();
+    Assert.assertEquals(0, snapshot.getCount());
+    Assert.assertEquals(0, snapshot.getTotalNanos());
+    Assert.assertEquals(0, snapshot.getMaxNanos());
+    Assert.assertEquals(0, snapshot.getMeanNanos(), 0d);
+    for (int i = 0; i <= snapshot.getBucketCount(); i++) {
+      Assert.assertEquals(0, snapshot.getBucketCount(i));
+    }
+
+    timer.record(1500);
+    Assert.assertEquals(1, timer.snapshot().getCount());
+    Assert.assertEquals(1500, timer.snapshot().getMaxNanos());
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.nn.components.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrometheusTextFileExporterTest {
+
+  private static final String BUCKET = PrometheusTextFileExporter.METRIC_NAME + "_bucket";
+
+  @Test
+  public void testWriteHeader() throws IOException {
+    List<String> lines = write(Collections.emptyList());
+    Assert.assertEquals(Arrays.asList(
+        "# HELP ml4j_component_duration_seconds Duration of each phase of each neural network component.",
+        "# TYPE ml4j_component_duration_seconds histogram"), lines);
+  }
+
+  @Test
+  public void testWriteHistogram() throws IOException {
+    ComponentTimer timer = new ComponentTimer("component", ComponentPhase.FORWARD);
+    timer.record(1000);
+    timer.record(1500);
+    timer.record(2000);
+    timer.record(1L << 40);
+
+    List<String> lines = write(Collections.singletonList(timer.snapshot()));
+
+    // Header, a line per bounded bucket, then the +Inf bucket, sum and count
+    Assert.assertEquals(2 + ComponentTimer.BOUNDED_BUCKET_COUNT + 3, lines.size());
+    String labels = "{component=\"component\",phase=\"forward\"";
+    Assert.assertEquals(BUCKET + labels + ",le=\"1.024E-6\"} 1", lines.get(2));
+    Assert.assertEquals(BUCKET + labels + ",le=\"2.048E-6\"} 3", lines.get(3));
+    Assert.assertEquals(BUCKET + labels + ",le=\"4.096E-6\"} 3", lines.get(4));
+    // Bucket counts are cumulative up to the last bounded bucket, of 2^36ns
+    Assert.assertEquals(BUCKET + labels + ",le=\"68.719476736\"} 3",
+        lines.get(1 + ComponentTimer.BOUNDED_BUCKET_COUNT));
+    Assert.assertEquals(BUCKET + labels + ",le=\"+Inf\"} 4", lines.get(2 + ComponentTimer.BOUNDED_BUCKET_COUNT));
+    Assert.assertEquals(PrometheusTextFileExporter.METRIC_NAME + "_sum" + labels + "} "
+        + (4500 + (1L << 40)) / 1e9, lines.get(3 + ComponentTimer.BOUNDED_BUCKET_COUNT));
+    Assert.assertEquals(PrometheusTextFileExporter.METRIC_NAME + "_count" + labels + "} 4",
+        lines.get(4 + ComponentTimer.BOUNDED_BUCKET_COUNT));
+  }
+
+  @Test
+  public void testWriteEscapesComponentNames() throws IOException {
+    ComponentTimer timer = new ComponentTimer("a\"b\\c\nd", ComponentPhase.GRADIENT);
+    List<String> lines = write(Collections.singletonList(timer.snapshot()));
+    Assert.assertEquals(PrometheusTextFileExporter.METRIC_NAME
+        + "_count{component=\"a\\\"b\\\\c\\nd\",phase=\"gradient\"} 0", lines.get(lines.size() - 1));
+  }
+
+  @Test
+  public void testExportReplacesFile() throws IOException {
+    Path directory = Files.createTempDirectory("metrics");
+    Path path = directory.resolve("ml4j.prom");
+    Files.write(path, "stale".getBytes(StandardCharsets.UTF_8));
+
+    ComponentTimer timer = new ComponentTimer("component", ComponentPhase.BACKWARD);
+    timer.record(1000);
+    List<ComponentTimerSnapshot> snapshots = Collections.singletonList(timer.snapshot());
+    new PrometheusTextFileExporter(path).export(snapshots);
+
+    Assert.assertEquals(write(snapshots), Files.readAllLines(path, StandardCharsets.UTF_8));
+    // No temporary file is left behind
+    try (Stream<Path> files = Files.list(directory)) {
+      Assert.assertEquals(1, files.count());
+    }
+  }
+
+  private List<String> write(List<ComponentTimerSnapshot> snapshots) throws IOException {
+    StringWriter writer = new StringWriter();
+    PrometheusTextFileExporter.write(snapshots, writer);
+    String text = writer.toString();
+    Assert.assertTrue(text.endsWith("\n"));
+    return Arrays.asList(text.split("\n"));
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.nn.components.onetoone;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.nn.axons.AxonsGradient;
+import org.ml4j.nn.components.DirectedComponentGradient;
+import org.ml4j.nn.components.DirectedComponentGradientImpl;
+import org.ml4j.nn.components.DirectedComponentsContext;
+import org.ml4j.nn.components.factories.DirectedComponentFactory;
+import org.ml4j.nn.components.factories.DirectedComponentFactoryAdapter;
+import org.ml4j.nn.components.manytomany.DefaultDirectedComponentBatch;
+import org.ml4j.nn.components.manytoone.ManyToOneDirectedComponent;
+import org.ml4j.nn.components.manytoone.ManyToOneDirectedComponentActivation;
+import org.ml4j.nn.components.manytoone.PathCombinationStrategy;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponent;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponentActivation;
+import org.ml4j.nn.components.onetone.DefaultDirectedComponentBipoleGraph;
+import org.ml4j.nn.components.onetone.DefaultDirectedComponentBipoleGraphActivation;
+import org.ml4j.nn.neurons.Neurons;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+
+/**
+ * Compares the concurrent propagation of ParallelDefaultDirectedComponentBipoleGraphImpl
+ * with propagating the same edges one after another on the calling thread.
+ *
+ * The edges are stubbed linear components, each multiplying its input by its
+ * own weights, and the outputs of the edges are combined by addition.
+ *
+ * @author Michael Lavelle
+ */
+public class ParallelDefaultDirectedComponentBipoleGraphImplTest {
+
+  private static final int INPUT_FEATURE_COUNT = 6;
+
+  private static final int OUTPUT_FEATURE_COUNT = 5;
+
+  private static final int EXAMPLE_COUNT = 7;
+
+  private static final int EDGE_COUNT = 4;
+
+  private MatrixFactory matrixFactory;
+
+  private DirectedComponentsContext context;
+
+  private ForkJoinPool forkJoinPool;
+
+  private List<DefaultChainableDirectedComponent<?, ?>> edges;
+
+  private List<AxonsGradient> edgeAxonsGradients;
+
+  private ManyToOneDirectedComponent<?> pathCombinationComponent;
+
+  private Random random;
+
+  @Before
+  public void setUp() {
+    matrixFactory = new JBlasRowMajorMatrixFactory();
+    context = mock(DirectedComponentsContext.class, invocation -> {
+      if ("getMatrixFactory".equals(invocation.getMethod().getName())) {
+        return matrixFactory;
+      }
+      return RETURNS_DEFAULTS.answer(invocation);
+    });
+    forkJoinPool = new ForkJoinPool(EDGE_COUNT);
+    random = new Random(42);
+    edges = new ArrayList<>();
+    edgeAxonsGradients = new ArrayList<>();
+    for (int edgeIndex = 0; edgeIndex < EDGE_COUNT; edgeIndex++) {
+      AxonsGradient axonsGradient = mock(AxonsGradient.class);
+      edgeAxonsGradients.add(axonsGradient);
+      edges.add(createLinearEdge(createMatrix(OUTPUT_FEATURE_COUNT, INPUT_FEATURE_COUNT), axonsGradient));
+    }
+    pathCombinationComponent = createAdditionComponent();
+  }
+
+  @After
+  public void tearDown() {
+    forkJoinPool.shutdown();
+  }
+
+  @Test
+  public void testForwardPropagationMatchesSequential() {
+
+    NeuronsActivation input = createActivation(INPUT_FEATURE_COUNT);
+
+    DefaultDirectedComponentBipoleGraphActivation activation = createGraph().forwardPropagate(input, context);
+
+    assertEquals(forwardPropagateSequentially(input).getOutput(), activation.getOutput());
+  }
+
+  @Test
+  public void testBackPropagationMatchesSequential() {
+
+    NeuronsActivation input = createActivation(INPUT_FEATURE_COUNT);
+    NeuronsActivation outerGradient = createActivation(OUTPUT_FEATURE_COUNT);
+
+    DirectedComponentGradient<NeuronsActivation> expectedGradient = backPropagateSequentially(input,
+        outerGradient);
+    DirectedComponentGradient<NeuronsActivation> gradient = createGraph().forwardPropagate(input, context)
+        .backPropagate(new DirectedComponentGradientImpl<>(outerGradient));
+
+    assertEquals(expectedGradient.getOutput(), gradient.getOutput());
+
+    // The axons gradients of the edges are collected in edge order
+    List<AxonsGradient> axonsGradients = new ArrayList<>();
+    for (Supplier<AxonsGradient> axonsGradient : gradient.getTotalTrainableAxonsGradients()) {
+      axonsGradients.add(axonsGradient.get());
+    }
+    Assert.assertEquals(edgeAxonsGradients, axonsGradients);
+  }
+
+  @Test
+  public void testFactoryAdapterCreatesParallelGraphsOnlyWhenParallelPaths() {
+
+    DefaultDirectedComponentBipoleGraph sequentialGraph = mock(DefaultDirectedComponentBipoleGraph.class);
+    DirectedComponentFactory directedComponentFactory = mock(DirectedComponentFactory.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "createDirectedComponentBipoleGraph":
+          return sequentialGraph;
+        case "createManyToOneDirectedComponent":
+          return pathCombinationComponent;
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+
+    Assert.assertSame(sequentialGraph, new DirectedComponentFactoryAdapter(directedComponentFactory)
+        .createDirectedComponentBipoleGraph(null, null, edges, PathCombinationStrategy.ADDITION));
+    Assert.assertTrue(new DirectedComponentFactoryAdapter(directedComponentFactory, true)
+        .createDirectedComponentBipoleGraph(null, null, edges, PathCombinationStrategy.ADDITION)
+        instanceof ParallelDefaultDirectedComponentBipoleGraphImpl);
+  }
+
+  private ParallelDefaultDirectedComponentBipoleGraphImpl createGraph() {
+    return new ParallelDefaultDirectedComponentBipoleGraphImpl(new Neurons(INPUT_FEATURE_COUNT, false),
+        new Neurons(OUTPUT_FEATURE_COUNT, false), createBatch(), pathCombinationComponent, forkJoinPool);
+  }
+
+  private DefaultDirectedComponentBatch createBatch() {
+    return mock(DefaultDirectedComponentBatch.class, invocation -> {
+      if ("getComponents".equals(invocation.getMethod().getName())) {
+        return edges;
+      }
+      return RETURNS_DEFAULTS.answer(invocation);
+    });
+  }
+
+  private ManyToOneDirectedComponentActivation forwardPropagateSequentially(NeuronsActivation input) {
+    List<NeuronsActivation> edgeOutputs = new ArrayList<>();
+    for (DefaultChainableDirectedComponent<?, ?> edge : edges) {
+      edgeOutputs.add(forwardPropagateEdge(edge, input).getOutput());
+    }
+    return pathCombinationComponent.forwardPropagate(edgeOutputs, context);
+  }
+
+  private DirectedComponentGradient<NeuronsActivation> backPropagateSequentially(NeuronsActivation input,
+      NeuronsActivation outerGradient) {
+    List<NeuronsActivation> edgeOutputGradients = forwardPropagateSequentially(input)
+        .backPropagate(new DirectedComponentGradientImpl<>(outerGradient)).getOutput();
+    Matrix inputGradient = null;
+    for (int edgeIndex = 0; edgeIndex < edges.size(); edgeIndex++) {
+      Matrix edgeInputGradient = forwardPropagateEdge(edges.get(edgeIndex), input)
+          .backPropagate(new DirectedComponentGradientImpl<>(edgeOutputGradients.get(edgeIndex)))
+          .getOutput().getActivations(matrixFactory);
+      inputGradient = inputGradient == null ? edgeInputGradient : inputGradient.add(edgeInputGradient);
+    }
+    return new DirectedComponentGradientImpl<>(new NeuronsActivationImpl(inputGradient,
+        NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET));
+  }
+
+  @SuppressWarnings("unchecked")
+  private DefaultChainableDirectedComponentActivation forwardPropagateEdge(
+      DefaultChainableDirectedComponent<?, ?> edge, NeuronsActivation input) {
+    return ((DefaultChainableDirectedComponent<DefaultChainableDirectedComponentActivation, DirectedComponentsContext>) edge)
+        .forwardPropagate(input, context);
+  }
+
+  private DefaultChainableDirectedComponent<?, ?> createLinearEdge(Matrix weights, AxonsGradient axonsGradient) {
+    return mock(DefaultChainableDirectedComponent.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "forwardPropagate":
+          NeuronsActivation input = (NeuronsActivation) invocation.getArguments()[0];
+          return createLinearEdgeActivation(weights, input, axonsGradient);
+        case "getContext":
+          return invocation.getArguments()[0];
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  private DefaultChainableDirectedComponentActivation createLinearEdgeActivation(Matrix weights,
+      NeuronsActivation input, AxonsGradient axonsGradient) {
+    NeuronsActivation output = new NeuronsActivationImpl(weights.mmul(input.getActivations(matrixFactory)),
+        NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+    return mock(DefaultChainableDirectedComponentActivation.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "getOutput":
+          return output;
+        case "backPropagate":
+          @SuppressWarnings("unchecked")
+          DirectedComponentGradient<NeuronsActivation> outerGradient =
+              (DirectedComponentGradient<NeuronsActivation>) invocation.getArguments()[0];
+          List<Supplier<AxonsGradient>> axonsGradients = new ArrayList<>(
+              outerGradient.getTotalTrainableAxonsGradients());
+          axonsGradients.add(() -> axonsGradient);
+          return new DirectedComponentGradientImpl<>(axonsGradients, new NeuronsActivationImpl(
+              weights.transpose().mmul(outerGradient.getOutput().getActivations(matrixFactory)),
+              NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET));
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  private ManyToOneDirectedComponent<?> createAdditionComponent() {
+    return mock(ManyToOneDirectedComponent.class, invocation -> {
+      if ("forwardPropagate".equals(invocation.getMethod().getName())) {
+        @SuppressWarnings("unchecked")
+        List<NeuronsActivation> inputs = (List<NeuronsActivation>) invocation.getArguments()[0];
+        return createAdditionActivation(inputs);
+      }
+      return RETURNS_DEFAULTS.answer(invocation);
+    });
+  }
+
+  private ManyToOneDirectedComponentActivation createAdditionActivation(List<NeuronsActivation> inputs) {
+    Matrix sum = inputs.get(0).getActivations(matrixFactory).dup();
+    for (NeuronsActivation input : inputs.subList(1, inputs.size())) {
+      sum = sum.add(input.getActivations(matrixFactory));
+    }
+    NeuronsActivation output = new NeuronsActivationImpl(sum,
+        NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+    return mock(ManyToOneDirectedComponentActivation.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "getOutput":
+          return output;
+        case "backPropagate":
+          @SuppressWarnings("unchecked")
+          DirectedComponentGradient<NeuronsActivation> outerGradient =
+              (DirectedComponentGradient<NeuronsActivation>) invocation.getArguments()[0];
+          // The gradient of a sum with respect to each of its inputs is the outer gradient
+          List<NeuronsActivation> inputGradients = new ArrayList<>();
+          for (int index = 0; index < inputs.size(); index++) {
+            inputGradients.add(outerGradient.getOutput());
+          }
+          return new DirectedComponentGradientImpl<>(outerGradient.getTotalTrainableAxonsGradients(),
+              inputGradients);
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  private NeuronsActivation createActivation(int featureCount) {
+    return new NeuronsActivationImpl(createMatrix(featureCount, EXAMPLE_COUNT),
+        NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+  }
+
+  private Matrix createMatrix(int rows, int columns) {
+    float[] data = new float[rows * columns];
+    for (int index = 0; index < data.length; index++) {
+      data[index] = (float) random.nextGaussian();
+    }
+    return matrixFactory.createMatrixFromRowsByRowsArray(rows, columns, data);
+  }
+
+  private void assertEquals(NeuronsActivation expected, NeuronsActivation actual) {
+    Matrix expectedActivations = expected.getActivations(matrixFactory);
+    Matrix actualActivations = actual.getActivations(matrixFactory);
+    Assert.assertEquals(expectedActivations.getRows(), actualActivations.getRows());
+    Assert.assertEquals(expectedActivations.getColumns(), actualActivations.getColumns());
+    Assert.assertArrayEquals(expectedActivations.getRowByRowArray(), actualActivations.getRowByRowArray(),
+        1e-5f);
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn.neurons;
+
+import java.util.Random;
+
+/**
+ * Seeded per-epoch shuffles of the examples of a training set, shared by the
+ * network trainers and the data set shufflers so that the same seed and epoch
+ * give the same order everywhere.
+ *
+ * The random number generator of an epoch is seeded with the seed plus the
+ * epoch index times a large odd constant, so that consecutive epochs of a seed
+ * do not give correlated seeds, nor overlap with the epochs of nearby seeds.
+ *
+ * @author Michael Lavelle
+ */
+public final class EpochPermutations {
+
+	private static final long EPOCH_SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+	private EpochPermutations() {
+		// Static methods only
+	}
+
+	/**
+	 * @return A random number generator for the epoch, seeded from the seed and
+	 *         the epoch index.
+	 */
+	public static Random createRandom(long seed, int epoch) {
+		return new Random(seed + epoch * EPOCH_SEED_INCREMENT);
+	}
+
+	/**
+	 * @return A uniformly random permutation of the indexes [0, size) for the
+	 *         epoch.
+	 */
+	public static int[] createPermutation(int size, long seed, int epoch) {
+		return createPermutation(size, createRandom(seed, epoch));
+	}
+
+	/**
+	 * @return A uniformly random permutation of the indexes [0, size), by a
+	 *         Fisher-Yates shuffle.
+	 */
+	public static int[] createPermutation(int size, Random random) {
+		int[] permutation = new int[size];
+		for (int i = 0; i < size; i++) {
+			permutation[i] = i;
+		}
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = swap;
+		}
+		return permutation;
+	}
+}
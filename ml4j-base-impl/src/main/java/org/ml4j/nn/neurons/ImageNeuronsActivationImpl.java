@@ -17,6 +17,9 @@ import org.ml4j.FloatModifier;
 import org.ml4j.FloatPredicate;
 import org.ml4j.Matrix;
 import org.ml4j.MatrixFactory;
+import org.ml4j.images.ConvolutionAlgorithm;
+import org.ml4j.images.ConvolutionAlgorithmSelector;
+import org.ml4j.images.ImageConvolution;
 import org.ml4j.images.Images;
 import org.ml4j.images.MultiChannelImages;
 import org.ml4j.images.SingleChannelImages;
@@ -144,6 +147,58 @@ public class ImageNeuronsActivationImpl extends NeuronsActivationImpl implements
 		return imageWithPadding.im2colConvExport(matrixFactory, filterHeight, filterWidth, strideHeight, strideWidth);
 	}
 
+	/**
+	 * Convolve these images with the given weights - equivalent to
+	 * weights.mmul(im2ColConv(...)), but using the algorithm selected by the
+	 * default ConvolutionAlgorithmSelector for the shape of the convolution.
+	 *
+	 * @param weights The weights - a row per output channel, each row spanning
+	 *                the channel, filter row and filter column of these images.
+	 * @return The output of the convolution - a row per output channel.
+	 */
+	public Matrix conv(MatrixFactory matrixFactory, Matrix weights, int filterHeight, int filterWidth,
+			int strideHeight, int strideWidth, int paddingHeight, int paddingWidth) {
+		return conv(matrixFactory, weights, filterHeight, filterWidth, strideHeight, strideWidth, paddingHeight,
+				paddingWidth, ConvolutionAlgorithmSelector.getDefault());
+	}
+
+	/**
+	 * Convolve these images with the given weights - equivalent to
+	 * weights.mmul(im2ColConv(...)), but using the algorithm selected by the
+	 * given selector for the shape of the convolution.
+	 *
+	 * @param weights  The weights - a row per output channel, each row spanning
+	 *                 the channel, filter row and filter column of these images.
+	 * @param selector The selector of the convolution algorithm.
+	 * @return The output of the convolution - a row per output channel.
+	 */
+	public Matrix conv(MatrixFactory matrixFactory, Matrix weights, int filterHeight, int filterWidth,
+			int strideHeight, int strideWidth, int paddingHeight, int paddingWidth,
+			ConvolutionAlgorithmSelector selector) {
+		int channels = neurons.getDepth();
+		if (weights.getColumns() != channels * filterHeight * filterWidth) {
+			throw new IllegalArgumentException("Weights have " + weights.getColumns() + " columns but filters span "
+					+ channels * filterHeight * filterWidth + " input values");
+		}
+		ConvolutionAlgorithm algorithm = selector.select(channels, neurons.getHeight(), neurons.getWidth(),
+				getExampleCount(), filterHeight, filterWidth, strideHeight, strideWidth, paddingHeight, paddingWidth);
+		if (algorithm != ConvolutionAlgorithm.IM2COL) {
+			float[] data = images.getData();
+			if (data.length == getRows() * getExampleCount()) {
+				ImageConvolution convolution = new ImageConvolution(channels, neurons.getHeight(), neurons.getWidth(),
+						getExampleCount(), filterHeight, filterWidth, strideHeight, strideWidth, paddingHeight,
+						paddingWidth);
+				return convolution.convolve(matrixFactory, algorithm, data, weights, selector.getMaxIm2colLength());
+			}
+			// Padded images - fall back to the im2col export
+		}
+		Matrix im2col = im2ColConv(matrixFactory, filterHeight, filterWidth, strideHeight, strideWidth, paddingHeight,
+				paddingWidth);
+		Matrix output = weights.mmul(im2col);
+		im2col.close();
+		return output;
+	}
+
 	@Override
 	public Matrix im2ColPool(MatrixFactory matrixFactory, int filterHeight, int filterWidth, int strideHeight,
 			int strideWidth, int paddingHeight, int paddingWidth) {
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn.neurons;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * Partitions the examples of a NeuronsActivation into consecutive mini-batches.
+ *
+ * The examples of a ROWS_SPAN_FEATURE_SET activation are the columns of a
+ * row-major matrix, so a range of examples is strided and cannot be viewed
+ * in place. Instead the activations are laid out once, on construction, as a
+ * contiguous row-major block per batch - each batch is then obtained without
+ * copying by wrapping its block, rather than by copying the columns of the
+ * batch on every iteration of every epoch.
+ *
+ * The batches returned share the blocks held by this partition, so are
+ * immutable - closing a batch does not invalidate the partition. The examples
+ * of a shuffleable partition may be shuffled between epochs, laying out the
+ * blocks again in place - only a shuffleable partition keeps a reference to
+ * the source activations, which the shuffles are laid out from.
+ *
+ * @author Michael Lavelle
+ */
+public class NeuronsActivationBatches {
+
+	private NeuronsActivationFeatureOrientation featureOrientation;
+
+	private int featureCount;
+
+	private int exampleCount;
+
+	private int batchSize;
+
+	private float[] data;
+
+	private float[][] batchData;
+
+	/**
+	 * @param activations   The activations to partition, which must have
+	 *                      ROWS_SPAN_FEATURE_SET orientation.
+	 * @param batchSize     The number of examples in each batch - the final batch
+	 *                      containing any remainder.
+	 * @param matrixFactory The MatrixFactory used to obtain the activations.
+	 */
+	public NeuronsActivationBatches(NeuronsActivation activations, int batchSize, MatrixFactory matrixFactory) {
+		this(activations, batchSize, matrixFactory, false);
+	}
+
+	/**
+	 * @param activations   The activations to partition, which must have
+	 *                      ROWS_SPAN_FEATURE_SET orientation.
+	 * @param batchSize     The number of examples in each batch - the final batch
+	 *                      containing any remainder.
+	 * @param matrixFactory The MatrixFactory used to obtain the activations.
+	 * @param shuffleable   Whether the examples may be shuffled.
+	 */
+	public NeuronsActivationBatches(NeuronsActivation activations, int batchSize, MatrixFactory matrixFactory,
+			boolean shuffleable) {
+		if (activations.getFeatureOrientation() != NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET) {
+			throw new IllegalArgumentException(
+					"Only neurons actiavation with ROWS_SPAN_FEATURE_SET orientation supported currently");
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		this.featureOrientation = activations.getFeatureOrientation();
+		this.batchSize = batchSize;
+		Matrix matrix = activations.getActivations(matrixFactory);
+		this.featureCount = matrix.getRows();
+		this.exampleCount = matrix.getColumns();
+		float[] data = matrix.getRowByRowArray();
+		this.data = shuffleable ? data : null;
+		int batchCount = (exampleCount - 1) / batchSize + 1;
+		this.batchData = new float[batchCount][];
+		for (int batchIndex = 0; batchIndex < batchCount; batchIndex++) {
+			int startColumnIndex = batchIndex * batchSize;
+			int width = getBatchExampleCount(batchIndex);
+			float[] block = new float[featureCount * width];
+			for (int r = 0; r < featureCount; r++) {
+				System.arraycopy(data, r * exampleCount + startColumnIndex, block, r * width, width);
+			}
+			batchData[batchIndex] = block;
+		}
+	}
+
+	/**
+	 * Lay out the batches again with the examples in the order of the
+	 * permutation. The blocks are overwritten in place, so batches previously
+	 * obtained must no longer be in use.
+	 *
+	 * @param permutation The indexes of the examples, in their new order.
+	 */
+	public void shuffle(int[] permutation) {
+		if (data == null) {
+			throw new IllegalStateException("Batches were not created as shuffleable");
+		}
+		if (permutation.length != exampleCount) {
+			throw new IllegalArgumentException("Permutation of " + permutation.length
+					+ " examples does not match example count " + exampleCount);
+		}
+		for (int batchIndex = 0; batchIndex < batchData.length; batchIndex++) {
+			int startIndex = batchIndex * batchSize;
+			int width = getBatchExampleCount(batchIndex);
+			float[] block = batchData[batchIndex];
+			for (int r = 0; r < featureCount; r++) {
+				int rowStart = r * exampleCount;
+				int blockRowStart = r * width;
+				for (int i = 0; i < width; i++) {
+					block[blockRowStart + i] = data[rowStart + permutation[startIndex + i]];
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The number of batches.
+	 */
+	public int getBatchCount() {
+		return batchData.length;
+	}
+
+	/**
+	 * @param batchIndex The index of the batch.
+	 * @return The number of examples in the batch.
+	 */
+	public int getBatchExampleCount(int batchIndex) {
+		return Math.min(batchSize, exampleCount - batchIndex * batchSize);
+	}
+
+	/**
+	 * @param batchIndex    The index of the batch.
+	 * @param matrixFactory The MatrixFactory used to wrap the batch.
+	 * @return An immutable NeuronsActivation backed by the block of the batch.
+	 */
+	public NeuronsActivation getBatch(int batchIndex, MatrixFactory matrixFactory) {
+		if (batchIndex < 0 || batchIndex >= batchData.length) {
+			throw new IllegalArgumentException("Batch index " + batchIndex + " is out of range");
+		}
+		Matrix batch = matrixFactory.createMatrixFromRowsByRowsArray(featureCount,
+				getBatchExampleCount(batchIndex), batchData[batchIndex]);
+		return new NeuronsActivationImpl(batch, featureOrientation, true);
+	}
+
+	public int getFeatureCount() {
+		return featureCount;
+	}
+
+	public int getExampleCount() {
+		return exampleCount;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.neurons;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+public class NeuronsActivationBatchesTest {
+
+  private MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+
+  @Test
+  public void testEpochPermutationIsReproduciblePermutation() {
+    int[] permutation = EpochPermutations.createPermutation(10, 42, 3);
+
+    Assert.assertArrayEquals(permutation, EpochPermutations.createPermutation(10, 42, 3));
+    int[] sorted = permutation.clone();
+    Arrays.sort(sorted);
+    for (int i = 0; i < sorted.length; i++) {
+      Assert.assertEquals(i, sorted[i]);
+    }
+  }
+
+  @Test
+  public void testShuffleLaysOutBatchesInPermutationOrder() {
+    // Two features of five examples, the second feature ten times the first
+    NeuronsActivationBatches batches = new NeuronsActivationBatches(createActivation(), 2, matrixFactory, true);
+
+    batches.shuffle(new int[] {4, 2, 0, 1, 3});
+
+    Assert.assertArrayEquals(new float[] {4, 2, 40, 20},
+        batches.getBatch(0, matrixFactory).getActivations(matrixFactory).getRowByRowArray(), 0f);
+    Assert.assertArrayEquals(new float[] {0, 1, 0, 10},
+        batches.getBatch(1, matrixFactory).getActivations(matrixFactory).getRowByRowArray(), 0f);
+    Assert.assertArrayEquals(new float[] {3, 30},
+        batches.getBatch(2, matrixFactory).getActivations(matrixFactory).getRowByRowArray(), 0f);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testShuffleOfUnshuffleableBatchesIsRejected() {
+    NeuronsActivationBatches batches = new NeuronsActivationBatches(createActivation(), 2, matrixFactory);
+
+    batches.shuffle(new int[] {4, 2, 0, 1, 3});
+  }
+
+  private NeuronsActivation createActivation() {
+    return new NeuronsActivationImpl(matrixFactory.createMatrixFromRowsByRowsArray(2, 5,
+        new float[] {0, 1, 2, 3, 4, 0, 10, 20, 30, 40}), NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+  }
+}
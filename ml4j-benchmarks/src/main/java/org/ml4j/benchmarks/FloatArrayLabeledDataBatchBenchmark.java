@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.datasets.LabeledData;
+import org.ml4j.nn.datasets.floatarray.FloatArrayLabeledDataBatchImpl;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the conversion of a batch of float array examples and labels into
+ * NeuronsActivations, as performed for every mini-batch during training.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FloatArrayLabeledDataBatchBenchmark {
+
+	@Param({ "784", "3072" })
+	private int featureCount;
+
+	@Param({ "10" })
+	private int labelFeatureCount;
+
+	@Param({ "32", "256" })
+	private int batchSize;
+
+	private MatrixFactory matrixFactory;
+
+	private FloatArrayLabeledDataBatchImpl batch;
+
+	@Setup
+	public void setUp() {
+		matrixFactory = MatrixFactories.create(MatrixFactories.JBLAS);
+		batch = new FloatArrayLabeledDataBatchImpl(featureCount, labelFeatureCount, batchSize);
+		Random random = new Random(1);
+		for (int example = 0; example < batchSize; example++) {
+			float[] data = new float[featureCount];
+			for (int i = 0; i < featureCount; i++) {
+				data[i] = random.nextFloat();
+			}
+			float[] label = new float[labelFeatureCount];
+			label[random.nextInt(labelFeatureCount)] = 1;
+			batch.add(data, label);
+		}
+	}
+
+	@Benchmark
+	public LabeledData<NeuronsActivation, NeuronsActivation> getNeuronActivations() {
+		LabeledData<NeuronsActivation, NeuronsActivation> activations = batch.getNeuronActivations(matrixFactory);
+		activations.getData().close();
+		activations.getLabel().close();
+		return activations;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.images.Images;
+import org.ml4j.images.MultiChannelImages;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the im2col export and import of a batch of multi-channel images, as
+ * performed by each convolutional layer on every forward and backward
+ * propagation.
+ * 
+ * The exported matrices are created through the matrix factory and closed on
+ * each invocation, so the jblasPooled backend recycles the im2col storage
+ * between invocations while the jblas backend allocates it afresh - the
+ * difference between the two measures the cost of that allocation.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class Im2colBenchmark {
+
+	@Param({ MatrixFactories.JBLAS, MatrixFactories.JBLAS_POOLED })
+	private String matrixFactoryName;
+
+	@Param({ "3", "32" })
+	private int channels;
+
+	@Param({ "28", "64" })
+	private int size;
+
+	@Param({ "3", "5" })
+	private int filterSize;
+
+	@Param({ "32" })
+	private int examples;
+
+	private MatrixFactory matrixFactory;
+
+	private Images images;
+
+	private Matrix im2colMatrix;
+
+	@Setup
+	public void setUp() {
+		matrixFactory = MatrixFactories.create(matrixFactoryName);
+		float[] data = new float[channels * size * size * examples];
+		Random random = new Random(1);
+		for (int i = 0; i < data.length; i++) {
+			data[i] = random.nextFloat();
+		}
+		images = new MultiChannelImages(data, channels, size, size, 0, 0, examples);
+		im2colMatrix = images.im2colConvExport(matrixFactory, filterSize, filterSize, 1, 1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		im2colMatrix.close();
+	}
+
+	@Benchmark
+	public Matrix im2colConvExport() {
+		Matrix matrix = images.im2colConvExport(matrixFactory, filterSize, filterSize, 1, 1);
+		matrix.close();
+		return matrix;
+	}
+
+	@Benchmark
+	public Images im2colConvImport() {
+		images.im2colConvImport(matrixFactory, im2colMatrix, filterSize, filterSize, 1, 1);
+		return images;
+	}
+}
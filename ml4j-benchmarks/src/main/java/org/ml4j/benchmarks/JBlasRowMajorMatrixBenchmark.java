@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the JBlasRowMajorMatrix operations on the forward and backward
+ * propagation hot paths, at the shapes of a fully connected layer - a weights
+ * matrix of outputs x inputs, and activations of inputs x batchSize with one
+ * column per example.
+ * 
+ * @author Michael Lavelle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JBlasRowMajorMatrixBenchmark {
+
+	@Param({ MatrixFactories.JBLAS, MatrixFactories.PARALLEL_SGEMM })
+	private String matrixFactoryName;
+
+	@Param({ "784", "4096" })
+	private int inputs;
+
+	@Param({ "100", "1024" })
+	private int outputs;
+
+	@Param({ "32", "256" })
+	private int batchSize;
+
+	private MatrixFactory matrixFactory;
+
+	private Matrix weights;
+
+	private Matrix activations;
+
+	private Matrix otherActivations;
+
+	private float[] columnsByColumnsData;
+
+	private int[] columnIndexes;
+
+	@Setup
+	public void setUp() {
+		matrixFactory = MatrixFactories.create(matrixFactoryName);
+		weights = matrixFactory.createRandn(outputs, inputs);
+		activations = matrixFactory.createRandn(inputs, batchSize);
+		otherActivations = matrixFactory.createRandn(inputs, batchSize);
+		Random random = new Random(1);
+		columnsByColumnsData = new float[inputs * batchSize];
+		for (int i = 0; i < columnsByColumnsData.length; i++) {
+			columnsByColumnsData[i] = random.nextFloat();
+		}
+		columnIndexes = new int[batchSize / 2];
+		for (int i = 0; i < columnIndexes.length; i++) {
+			columnIndexes[i] = random.nextInt(batchSize);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		weights.close();
+		activations.close();
+		otherActivations.close();
+	}
+
+	@Benchmark
+	public Matrix mmul() {
+		return weights.mmul(activations);
+	}
+
+	@Benchmark
+	public Matrix sigmoid() {
+		return activations.sigmoid();
+	}
+
+	@Benchmark
+	public Matrix transpose() {
+		return activations.transpose();
+	}
+
+	@Benchmark
+	public Matrix getColumns() {
+		return activations.getColumns(columnIndexes);
+	}
+
+	@Benchmark
+	public Matrix appendVertically() {
+		return activations.appendVertically(otherActivations);
+	}
+
+	@Benchmark
+	public Matrix createMatrixFromColumnsByColumnsArray() {
+		return matrixFactory.createMatrixFromColumnsByColumnsArray(inputs, batchSize, columnsByColumnsData);
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks;
+
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.jblas.ParallelSgemmMatrixFactory;
+import org.ml4j.jblas.PooledFloatMatrixFactory;
+
+/**
+ * The MatrixFactory backends benchmarked, selected by name from a JMH parameter.
+ * 
+ * @author Michael Lavelle
+ */
+public final class MatrixFactories {
+
+	public static final String JBLAS = "jblas";
+	public static final String JBLAS_POOLED = "jblasPooled";
+	public static final String PARALLEL_SGEMM = "parallelSgemm";
+
+	private MatrixFactories() {
+		// Static factory methods only
+	}
+
+	public static MatrixFactory create(String name) {
+		switch (name) {
+		case JBLAS:
+			return new JBlasRowMajorMatrixFactory();
+		case JBLAS_POOLED:
+			return new JBlasRowMajorMatrixFactory(new PooledFloatMatrixFactory());
+		case PARALLEL_SGEMM:
+			return new ParallelSgemmMatrixFactory();
+		default:
+			throw new IllegalArgumentException("Unknown matrix factory:" + name);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks.training;
+
+import java.util.List;
+
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.activationfunctions.DifferentiableActivationFunction;
+import org.ml4j.nn.activationfunctions.factories.DifferentiableActivationFunctionFactory;
+import org.ml4j.nn.axons.Axons;
+import org.ml4j.nn.axons.TrainableAxons;
+import org.ml4j.nn.components.DirectedComponentsContext;
+import org.ml4j.nn.components.DirectedComponentsContextImpl;
+import org.ml4j.nn.components.factories.DirectedComponentFactory;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponent;
+import org.ml4j.nn.neurons.Neurons;
+import org.ml4j.nn.neurons.Neurons3D;
+import org.ml4j.nn.sessions.Session;
+import org.ml4j.nn.sessions.factories.DefaultSessionFactory;
+import org.ml4j.nn.supervised.SupervisedFeedForwardNeuralNetwork;
+import org.ml4j.nn.supervised.SupervisedFeedForwardNeuralNetworkImpl;
+import org.ml4j.nn.unsupervised.RestrictedBoltzmannMachine;
+import org.ml4j.nn.unsupervised.RestrictedBoltzmannMachineImpl;
+
+/**
+ * Builds the reference networks trained by the TrainingThroughputBenchmark, via
+ * a Session created by a DefaultSessionFactory.
+ * 
+ * @author Michael Lavelle
+ */
+public class ReferenceNetworks {
+
+	/**
+	 * The number of input features of the MLP, residual network and RBM - the
+	 * size of an MNIST image.
+	 */
+	public static final int INPUT_FEATURE_COUNT = 28 * 28;
+
+	public static final int LABEL_FEATURE_COUNT = 10;
+
+	private DirectedComponentFactory directedComponentFactory;
+
+	private DifferentiableActivationFunctionFactory activationFunctionFactory;
+
+	private Session<DefaultChainableDirectedComponent<?, ?>> session;
+
+	public ReferenceNetworks(DirectedComponentFactory directedComponentFactory,
+			DifferentiableActivationFunctionFactory activationFunctionFactory, MatrixFactory matrixFactory) {
+		this.directedComponentFactory = directedComponentFactory;
+		this.activationFunctionFactory = activationFunctionFactory;
+		DirectedComponentsContext directedComponentsContext = new DirectedComponentsContextImpl(matrixFactory, true);
+		this.session = new DefaultSessionFactory<DefaultChainableDirectedComponent<?, ?>>(directedComponentFactory)
+				.createSession(directedComponentsContext);
+	}
+
+	/**
+	 * @return A multi-layer perceptron with two hidden layers.
+	 */
+	public SupervisedFeedForwardNeuralNetwork createMultiLayerPerceptron() {
+		List<DefaultChainableDirectedComponent<?, ?>> components = session
+				.startWithNeurons(new Neurons(INPUT_FEATURE_COUNT, true))
+				.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(512, false))
+				.withActivationFunction(relu())
+				.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(256, false))
+				.withActivationFunction(relu())
+				.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(LABEL_FEATURE_COUNT, false))
+				.withActivationFunction(softmax())
+				.getComponents();
+		return new SupervisedFeedForwardNeuralNetworkImpl(directedComponentFactory, components);
+	}
+
+	/**
+	 * @return A LeNet-style network of two convolution and max pooling stages
+	 *         followed by two fully connected layers, for 28x28 single channel
+	 *         images.
+	 */
+	public SupervisedFeedForwardNeuralNetwork createLeNet() {
+		List<DefaultChainableDirectedComponent<?, ?>> components = session
+				.startWith3DNeurons(new Neurons3D(28, 28, 1, true))
+				.withConvolutionalAxons().withFilterSize(5, 5).withFilterCount(6).withValidPadding()
+				.withConnectionToNeurons(new Neurons3D(24, 24, 6, false))
+				.withActivationFunction(relu())
+				.withMaxPoolingAxons().withFilterSize(2, 2).withStride(2, 2)
+				.withConnectionToNeurons(new Neurons3D(12, 12, 6, false))
+				.withConvolutionalAxons().withFilterSize(5, 5).withFilterCount(16).withValidPadding()
+				.withConnectionToNeurons(new Neurons3D(8, 8, 16, false))
+				.withActivationFunction(relu())
+				.withMaxPoolingAxons().withFilterSize(2, 2).withStride(2, 2)
+				.withConnectionToNeurons(new Neurons3D(4, 4, 16, false))
+				.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(120, false))
+				.withActivationFunction(relu())
+				.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(LABEL_FEATURE_COUNT, false))
+				.withActivationFunction(softmax())
+				.getComponents();
+		return new SupervisedFeedForwardNeuralNetworkImpl(directedComponentFactory, components);
+	}
+
+	/**
+	 * @return A network of two fully connected residual blocks, each of two layers
+	 *         bypassed by a skip connection.
+	 */
+	public SupervisedFeedForwardNeuralNetwork createResidualNetwork() {
+		List<DefaultChainableDirectedComponent<?, ?>> components = session
+				.startWithNeurons(new Neurons(INPUT_FEATURE_COUNT, true))
+				.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(256, false))
+				.withActivationFunction(relu())
+				.withSkipConnection()
+					.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(256, false))
+					.withActivationFunction(relu())
+					.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(256, false))
+				.endSkipConnection()
+				.withActivationFunction(relu())
+				.withSkipConnection()
+					.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(256, false))
+					.withActivationFunction(relu())
+					.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(256, false))
+				.endSkipConnection()
+				.withActivationFunction(relu())
+				.withFullyConnectedAxons().withConnectionToNeurons(new Neurons(LABEL_FEATURE_COUNT, false))
+				.withActivationFunction(softmax())
+				.getComponents();
+		return new SupervisedFeedForwardNeuralNetworkImpl(directedComponentFactory, components);
+	}
+
+	/**
+	 * @param hiddenNeuronCount The number of hidden units.
+	 * @return A RestrictedBoltzmannMachine with sigmoid visible and hidden units,
+	 *         using fully connected axons created by the session's component
+	 *         factory.
+	 */
+	public RestrictedBoltzmannMachine createRestrictedBoltzmannMachine(int hiddenNeuronCount) {
+		Axons<?, ?, ?> axons = directedComponentFactory.createFullyConnectedAxonsComponent(
+				new Neurons(INPUT_FEATURE_COUNT, true), new Neurons(hiddenNeuronCount, true), null, null).getAxons();
+		if (!(axons instanceof TrainableAxons)) {
+			throw new IllegalStateException(
+					"Fully connected axons must be trainable for an RBM, but were:" + axons.getClass());
+		}
+		return new RestrictedBoltzmannMachineImpl((TrainableAxons<?, ?, ?>) axons,
+				activationFunctionFactory.createSigmoidActivationFunction(),
+				activationFunctionFactory.createSigmoidActivationFunction());
+	}
+
+	private DifferentiableActivationFunction relu() {
+		return activationFunctionFactory.createReluActivationFunction();
+	}
+
+	private DifferentiableActivationFunction softmax() {
+		return activationFunctionFactory.createSoftmaxActivationFunction();
+	}
+}
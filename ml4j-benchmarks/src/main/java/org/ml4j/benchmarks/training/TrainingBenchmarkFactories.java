@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks.training;
+
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.activationfunctions.factories.DifferentiableActivationFunctionFactory;
+import org.ml4j.nn.components.factories.DirectedComponentFactory;
+
+/**
+ * Supplies the component and activation function factories used to build the
+ * reference networks - implementations are selected by class name on the
+ * TrainingThroughputBenchmark command line, so that the harness does not depend
+ * on any particular implementation.
+ * 
+ * Implementations must have a public no-argument constructor.
+ * 
+ * @author Michael Lavelle
+ */
+public interface TrainingBenchmarkFactories {
+
+	DirectedComponentFactory createDirectedComponentFactory(MatrixFactory matrixFactory);
+
+	DifferentiableActivationFunctionFactory createActivationFunctionFactory();
+}
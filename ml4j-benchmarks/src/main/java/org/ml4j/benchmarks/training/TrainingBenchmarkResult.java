@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks.training;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The throughput, latency and memory measurements of a reference network
+ * trained by the TrainingThroughputBenchmark.
+ * 
+ * @author Michael Lavelle
+ */
+public class TrainingBenchmarkResult {
+
+	private String networkName;
+	private String matrixFactoryName;
+	private int examplesPerEpoch;
+	private List<Long> epochNanos;
+	private long allocatedBytes;
+	private long peakHeapBytes;
+
+	public TrainingBenchmarkResult(String networkName, String matrixFactoryName, int examplesPerEpoch) {
+		this.networkName = networkName;
+		this.matrixFactoryName = matrixFactoryName;
+		this.examplesPerEpoch = examplesPerEpoch;
+		this.epochNanos = new ArrayList<>();
+	}
+
+	void addEpoch(long nanos, long allocatedBytes, long peakHeapBytes) {
+		this.epochNanos.add(nanos);
+		this.allocatedBytes = this.allocatedBytes + allocatedBytes;
+		this.peakHeapBytes = Math.max(this.peakHeapBytes, peakHeapBytes);
+	}
+
+	public String getNetworkName() {
+		return networkName;
+	}
+
+	public String getMatrixFactoryName() {
+		return matrixFactoryName;
+	}
+
+	public List<Long> getEpochNanos() {
+		return epochNanos;
+	}
+
+	public long getTotalNanos() {
+		return epochNanos.stream().mapToLong(Long::longValue).sum();
+	}
+
+	public double getExamplesPerSecond() {
+		return getTotalNanos() == 0 ? 0 : (double) examplesPerEpoch * epochNanos.size() * 1e9 / getTotalNanos();
+	}
+
+	public double getMeanEpochMillis() {
+		return epochNanos.isEmpty() ? 0 : getTotalNanos() / 1e6 / epochNanos.size();
+	}
+
+	public double getMinEpochMillis() {
+		return epochNanos.stream().mapToLong(Long::longValue).min().orElse(0) / 1e6;
+	}
+
+	/**
+	 * @return The allocation rate in megabytes per second.
+	 */
+	public double getAllocationRate() {
+		return getTotalNanos() == 0 ? 0 : allocatedBytes / 1e6 / (getTotalNanos() / 1e9);
+	}
+
+	public long getPeakHeapBytes() {
+		return peakHeapBytes;
+	}
+
+	public static String getHeader() {
+		return String.format("%-12s %-14s %7s %14s %14s %14s %14s %14s", "network", "matrixFactory", "epochs",
+				"examples/sec", "meanEpochMs", "minEpochMs", "allocMB/sec", "peakHeapMB");
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-12s %-14s %7d %14.1f %14.1f %14.1f %14.1f %14.1f", networkName, matrixFactoryName,
+				epochNanos.size(), getExamplesPerSecond(), getMeanEpochMillis(), getMinEpochMillis(),
+				getAllocationRate(), peakHeapBytes / 1e6);
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.benchmarks.training;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.benchmarks.MatrixFactories;
+import org.ml4j.nn.FeedForwardNeuralNetworkContext;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+import org.ml4j.nn.supervised.FeedForwardNeuralNetworkContextImpl;
+import org.ml4j.nn.supervised.SupervisedFeedForwardNeuralNetwork;
+import org.ml4j.nn.unsupervised.RestrictedBoltzmannMachine;
+import org.ml4j.nn.unsupervised.RestrictedBoltzmannMachineContext;
+import org.ml4j.nn.unsupervised.RestrictedBoltzmannMachineContextImpl;
+
+/**
+ * End-to-end training throughput benchmark for the ReferenceNetworks - an MLP,
+ * a LeNet-style convolutional network, a residual network and an RBM - trained
+ * on synthetic in-memory data, reporting examples per second, per-epoch
+ * latency, allocation rate and peak heap usage for each.
+ * 
+ * Runs headless with no network access, so that builds and MatrixFactory
+ * backends can be compared on the same hardware:
+ * 
+ * <pre>
+ * java -cp target/benchmarks.jar org.ml4j.benchmarks.training.TrainingThroughputBenchmark \
+ *     &lt;TrainingBenchmarkFactories class&gt; [jblas|jblasPooled|parallelSgemm] [epochs] [examples] [batchSize]
+ * </pre>
+ * 
+ * @author Michael Lavelle
+ */
+public class TrainingThroughputBenchmark {
+
+	private static final int WARMUP_EPOCHS = 1;
+
+	private TrainingBenchmarkFactories factories;
+	private String matrixFactoryName;
+	private int epochs;
+	private int examples;
+	private int batchSize;
+
+	public TrainingThroughputBenchmark(TrainingBenchmarkFactories factories, String matrixFactoryName, int epochs,
+			int examples, int batchSize) {
+		this.factories = factories;
+		this.matrixFactoryName = matrixFactoryName;
+		this.epochs = epochs;
+		this.examples = examples;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Train each of the reference networks and report the results.
+	 * 
+	 * @return The results, one for each reference network.
+	 */
+	public List<TrainingBenchmarkResult> run() {
+
+		MatrixFactory matrixFactory = MatrixFactories.create(matrixFactoryName);
+		ReferenceNetworks referenceNetworks = new ReferenceNetworks(
+				factories.createDirectedComponentFactory(matrixFactory), factories.createActivationFunctionFactory(),
+				matrixFactory);
+
+		Random random = new Random(1);
+		NeuronsActivation data = new NeuronsActivationImpl(
+				matrixFactory.createRand(ReferenceNetworks.INPUT_FEATURE_COUNT, examples),
+				NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+		NeuronsActivation labels = new NeuronsActivationImpl(createOneHotLabels(matrixFactory, random),
+				NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+
+		List<TrainingBenchmarkResult> results = new ArrayList<>();
+		results.add(trainSupervised("mlp", referenceNetworks.createMultiLayerPerceptron(), data, labels,
+				matrixFactory));
+		results.add(trainSupervised("lenet", referenceNetworks.createLeNet(), data, labels, matrixFactory));
+		results.add(trainSupervised("residual", referenceNetworks.createResidualNetwork(), data, labels,
+				matrixFactory));
+		results.add(trainRestrictedBoltzmannMachine("rbm", referenceNetworks.createRestrictedBoltzmannMachine(256),
+				data, matrixFactory));
+		return results;
+	}
+
+	private TrainingBenchmarkResult trainSupervised(String networkName, SupervisedFeedForwardNeuralNetwork network,
+			NeuronsActivation data, NeuronsActivation labels, MatrixFactory matrixFactory) {
+		FeedForwardNeuralNetworkContext trainingContext = new FeedForwardNeuralNetworkContextImpl(matrixFactory,
+				true);
+		trainingContext.setTrainingEpochs(1);
+		trainingContext.setTrainingMiniBatchSize(batchSize);
+		trainingContext.setTrainingLearningRate(0.01f);
+		return measure(networkName, () -> network.train(data, labels, trainingContext));
+	}
+
+	private TrainingBenchmarkResult trainRestrictedBoltzmannMachine(String networkName,
+			RestrictedBoltzmannMachine restrictedBoltzmannMachine, NeuronsActivation data,
+			MatrixFactory matrixFactory) {
+		RestrictedBoltzmannMachineContext trainingContext = new RestrictedBoltzmannMachineContextImpl(
+				matrixFactory, true);
+		trainingContext.setTrainingEpochs(1);
+		trainingContext.setTrainingMiniBatchSize(batchSize);
+		trainingContext.setTrainingLearningRate(0.01f);
+		return measure(networkName, () -> restrictedBoltzmannMachine.train(data, trainingContext));
+	}
+
+	/**
+	 * Run the warm-up epochs, then measure each of the benchmark epochs.
+	 */
+	private TrainingBenchmarkResult measure(String networkName, Runnable epoch) {
+		for (int i = 0; i < WARMUP_EPOCHS; i++) {
+			epoch.run();
+		}
+		TrainingBenchmarkResult result = new TrainingBenchmarkResult(networkName, matrixFactoryName, examples);
+		for (int i = 0; i < epochs; i++) {
+			System.gc();
+			resetPeakHeapUsage();
+			long allocatedBytesBefore = getAllocatedBytes();
+			long start = System.nanoTime();
+			epoch.run();
+			long nanos = System.nanoTime() - start;
+			result.addEpoch(nanos, getAllocatedBytes() - allocatedBytesBefore, getPeakHeapUsage());
+		}
+		return result;
+	}
+
+	private Matrix createOneHotLabels(MatrixFactory matrixFactory, Random random) {
+		float[] labelData = new float[ReferenceNetworks.LABEL_FEATURE_COUNT * examples];
+		for (int example = 0; example < examples; example++) {
+			labelData[random.nextInt(ReferenceNetworks.LABEL_FEATURE_COUNT) * examples + example] = 1;
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(ReferenceNetworks.LABEL_FEATURE_COUNT, examples,
+				labelData);
+	}
+
+	/**
+	 * @return The bytes allocated by all live threads - allocations by threads
+	 *         which terminate during an epoch are not included.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+			return 0;
+		}
+		com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		long allocatedBytes = 0;
+		for (long threadAllocatedBytes : allocationMXBean
+				.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+			if (threadAllocatedBytes > 0) {
+				allocatedBytes = allocatedBytes + threadAllocatedBytes;
+			}
+		}
+		return allocatedBytes;
+	}
+
+	private static void resetPeakHeapUsage() {
+		for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (memoryPool.getType() == MemoryType.HEAP) {
+				memoryPool.resetPeakUsage();
+			}
+		}
+	}
+
+	private static long getPeakHeapUsage() {
+		long peakHeapUsage = 0;
+		for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (memoryPool.getType() == MemoryType.HEAP) {
+				peakHeapUsage = peakHeapUsage + memoryPool.getPeakUsage().getUsed();
+			}
+		}
+		return peakHeapUsage;
+	}
+
+	public static void main(String[] args) throws ReflectiveOperationException {
+		if (args.length < 1) {
+			System.err.println("Usage: TrainingThroughputBenchmark <TrainingBenchmarkFactories class> "
+					+ "[jblas|jblasPooled|parallelSgemm] [epochs] [examples] [batchSize]");
+			System.exit(1);
+		}
+		TrainingBenchmarkFactories factories = (TrainingBenchmarkFactories) Class.forName(args[0])
+				.getConstructor().newInstance();
+		String matrixFactoryName = args.length > 1 ? args[1] : "jblas";
+		int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int examples = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+		int batchSize = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+
+		List<TrainingBenchmarkResult> results = new TrainingThroughputBenchmark(factories, matrixFactoryName,
+				epochs, examples, batchSize).run();
+
+		System.out.println(TrainingBenchmarkResult.getHeader());
+		for (TrainingBenchmarkResult result : results) {
+			System.out.println(result);
+		}
+	}
+}
@@ -14,8 +14,8 @@
 package org.ml4j.nn.components;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import org.ml4j.MatrixFactory;
@@ -27,7 +27,7 @@ public class DirectedComponentsContextImpl implements DirectedComponentsContext
 	private boolean isTraining;
 	
 	public DirectedComponentsContextImpl(MatrixFactory matrixFactory, boolean isTraining) {
-		this.contexts = new HashMap<>();
+		this.contexts = new ConcurrentHashMap<>();
 		this.matrixFactory = matrixFactory;
 		this.isTraining = isTraining;
 	}
@@ -41,8 +41,10 @@ public class DirectedComponentsContextImpl implements DirectedComponentsContext
 			return existingContext.getContext();
 		} else {
 			ComponentContext<C> newContext = new ComponentContext<>(component, defaultContextSupplier.get());
-			contexts.put(component, newContext);
-			return newContext.getContext();
+			ComponentContext<C> concurrentlyAddedContext = (ComponentContext<C>) contexts.putIfAbsent(component,
+					newContext);
+			return concurrentlyAddedContext == null ? newContext.getContext()
+					: concurrentlyAddedContext.getContext();
 		}
 	}
 	
@@ -21,6 +21,7 @@ import org.ml4j.nn.datasets.exceptions.FeatureExtractionException;
 import org.ml4j.nn.datasets.exceptions.FeatureExtractionRuntimeException;
 import org.ml4j.nn.datasets.floatarray.FloatArrayLabeledDataSet;
 import org.ml4j.nn.datasets.floatarray.FloatArrayLabeledDataSetImpl;
+import org.ml4j.nn.datasets.util.Shuffler;
 import org.ml4j.nn.datasets.util.StreamUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,11 +69,16 @@ public class LabeledDataSetImpl<E, L> implements LabeledDataSet<E, L> {
 
 	@Override
 	public BatchedLabeledDataSet<E, L> toBatchedLabeledDataSet(int batchSize) {
+		return new BatchedLabeledDataSetImpl<E, L>(() -> StreamUtil.partition(stream(), batchSize));
+	}
 
-		Stream<DataBatch<LabeledData<E, L>>> dataBatchStream = StreamUtil.partition(stream(), batchSize);
-
-		return new BatchedLabeledDataSetImpl<E, L>(() -> dataBatchStream
-				.map(batchOfLabeledData -> batchOfLabeledData));
+	/**
+	 * As toBatchedLabeledDataSet(int), but with the labeled data shuffled through
+	 * the shuffle buffer of the shuffler - differently on each epoch.
+	 */
+	public BatchedLabeledDataSet<E, L> toBatchedLabeledDataSet(int batchSize, Shuffler shuffler) {
+		return new BatchedLabeledDataSetImpl<E, L>(
+				() -> StreamUtil.partition(shuffler.shuffle(stream(), shuffler.nextEpoch()), batchSize));
 	}
 	
 	@Override
@@ -20,6 +20,7 @@ import org.ml4j.nn.datasets.exceptions.FeatureExtractionException;
 import org.ml4j.nn.datasets.exceptions.FeatureExtractionRuntimeException;
 import org.ml4j.nn.datasets.floatarray.FloatArrayLabeledDataSet;
 import org.ml4j.nn.datasets.floatarray.FloatArrayLabeledDataSetImpl;
+import org.ml4j.nn.datasets.util.Prefetcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -101,6 +102,21 @@ public class MultiSourceLabeledDataSetImpl<E, L> implements LabeledDataSet<E, L>
 				.filter(Optional::isPresent).map(Optional::get), featureExtractor.getFeatureCount(), labelMapper.getFeatureCount());
 	}
 	
+	/**
+	 * As toFloatArrayLabeledDataSet(FeatureExtractor, FeatureExtractor,
+	 * FeatureExtractionErrorMode), but with the features extracted - eg. images
+	 * decoded - on the producer threads of the prefetcher, ahead of their
+	 * consumption.
+	 */
+	public FloatArrayLabeledDataSet toFloatArrayLabeledDataSet(FeatureExtractor<E> featureExtractor,
+			FeatureExtractor<L> labelMapper, FeatureExtractionErrorMode featureExtractionErrorMode,
+			Prefetcher prefetcher) {
+		return new FloatArrayLabeledDataSetImpl(() -> prefetcher
+				.prefetch(stream(), l -> toLabeledFloatArray(featureExtractor, labelMapper, l, featureExtractionErrorMode))
+				.filter(Optional::isPresent).map(Optional::get), featureExtractor.getFeatureCount(),
+				labelMapper.getFeatureCount());
+	}
+
 	private Optional<LabeledData<float[], float[]>> toLabeledFloatArray(FeatureExtractor<E> featureExtractor, FeatureExtractor<L> labelMapper, 
 			LabeledData<E, L> labeledData, 
 			FeatureExtractionErrorMode featureExtractionErrorMode) {
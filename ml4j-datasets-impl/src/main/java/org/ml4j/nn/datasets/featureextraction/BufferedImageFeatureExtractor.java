@@ -14,6 +14,13 @@
 package org.ml4j.nn.datasets.featureextraction;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
 
 import org.ml4j.nn.datasets.FeatureExtractor;
@@ -29,6 +36,8 @@ import net.coobird.thumbnailator.Thumbnails;
  */
 public class BufferedImageFeatureExtractor implements FeatureExtractor<BufferedImage> {
 
+	private static final float SCALE = 1f / 255f;
+
 	private int width;
 	private int height;
 
@@ -51,34 +60,128 @@ public class BufferedImageFeatureExtractor implements FeatureExtractor<BufferedI
 
 	@Override
 	public float[] getFeatures(BufferedImage image) throws FeatureExtractionException {
-	
+		float[] data = new float[width * height * 3];
+		getFeatures(image, data, 0, 1);
+		return data;
+	}
+
+	/**
+	 * Write the planar (channel, height, width) features of the image, scaled to
+	 * [0, 1], into the target - feature f at target[offset + f * stride].
+	 *
+	 * With a stride of 1 the features are written contiguously, and with a stride
+	 * of the batch size and an offset of the index of the image within the batch
+	 * they are written straight into column offset of a row-major features x
+	 * examples batch matrix.
+	 *
+	 * Pixels are read in bulk from the raster of the image where it holds 8 bit
+	 * sRGB samples - the common case for decoded and resized images - and a row
+	 * at a time through getRGB otherwise.
+	 */
+	public void getFeatures(BufferedImage image, float[] target, int offset, int stride)
+			throws FeatureExtractionException {
+
 		if (image.getWidth() != width || image.getHeight() != height) {
 			image = resize(image, width, height);
 		}
 
-		float[] data = new float[width * height * 3];
+		if (!readComponentRaster(image, target, offset, stride) && !readPackedRaster(image, target, offset, stride)) {
+			readRGB(image, target, offset, stride);
+		}
+	}
 
-		int ind = 0;
-		for (int w = 0; w < image.getWidth(); w++) {
-			for (int h = 0; h < image.getHeight(); h++) {
-				int color = image.getRGB(h, w);
-
-				// extract each color component
-				int red = (color >>> 16) & 0xFF;
-				double redVal = ((double) red) / 255d;
-				int green = (color >>> 8) & 0xFF;
-				double greenVal = ((double) green) / 255d;
-				int blue = (color >>> 0) & 0xFF;
-				double blueVal = ((double) blue) / 255d;
-				data[ind] = (float) redVal;
-				data[ind + width * height] = (float) greenVal;
-				data[ind + 2 * width * height] = (float) blueVal;
-				ind++;
+	/**
+	 * Read the samples of an image with one 8 bit byte sample per colour
+	 * component, eg. TYPE_3BYTE_BGR and TYPE_4BYTE_ABGR.
+	 *
+	 * @return Whether the image was of a supported type.
+	 */
+	private boolean readComponentRaster(BufferedImage image, float[] target, int offset, int stride) {
+		ColorModel colorModel = image.getColorModel();
+		WritableRaster raster = image.getRaster();
+		if (!(colorModel instanceof ComponentColorModel) || !colorModel.getColorSpace().isCS_sRGB()
+				|| colorModel.isAlphaPremultiplied() || colorModel.getNumColorComponents() != 3
+				|| !(raster.getDataBuffer() instanceof DataBufferByte)
+				|| raster.getDataBuffer().getNumBanks() != 1
+				|| !(raster.getSampleModel() instanceof ComponentSampleModel)) {
+			return false;
+		}
+		ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+		byte[] samples = ((DataBufferByte) raster.getDataBuffer()).getData();
+		int pixelStride = sampleModel.getPixelStride();
+		int scanlineStride = sampleModel.getScanlineStride();
+		int[] bandOffsets = sampleModel.getBandOffsets();
+		int origin = raster.getDataBuffer().getOffset() - raster.getSampleModelTranslateY() * scanlineStride
+				- raster.getSampleModelTranslateX() * pixelStride;
+		int channelLength = width * height;
+		for (int c = 0; c < 3; c++) {
+			int targetIndex = offset + c * channelLength * stride;
+			for (int y = 0; y < height; y++) {
+				int sampleIndex = origin + y * scanlineStride + bandOffsets[c];
+				for (int x = 0; x < width; x++) {
+					target[targetIndex] = (samples[sampleIndex] & 0xFF) * SCALE;
+					sampleIndex += pixelStride;
+					targetIndex += stride;
+				}
 			}
 		}
+		return true;
+	}
 
-		return data;
+	/**
+	 * Read the pixels of an image with each pixel packed into an int, eg.
+	 * TYPE_INT_RGB and TYPE_INT_ARGB - the types produced by resizing.
+	 *
+	 * @return Whether the image was of a supported type.
+	 */
+	private boolean readPackedRaster(BufferedImage image, float[] target, int offset, int stride) {
+		int type = image.getType();
+		WritableRaster raster = image.getRaster();
+		if ((type != BufferedImage.TYPE_INT_RGB && type != BufferedImage.TYPE_INT_ARGB)
+				|| !(raster.getDataBuffer() instanceof DataBufferInt)
+				|| !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+			return false;
+		}
+		int[] pixels = ((DataBufferInt) raster.getDataBuffer()).getData();
+		int scanlineStride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+		int origin = raster.getDataBuffer().getOffset() - raster.getSampleModelTranslateY() * scanlineStride
+				- raster.getSampleModelTranslateX();
+		int channelLength = width * height;
+		for (int y = 0; y < height; y++) {
+			int pixelIndex = origin + y * scanlineStride;
+			int targetIndex = offset + y * width * stride;
+			for (int x = 0; x < width; x++) {
+				putPixel(pixels[pixelIndex++], target, targetIndex, channelLength * stride);
+				targetIndex += stride;
+			}
+		}
+		return true;
+	}
+
+	private void readRGB(BufferedImage image, float[] target, int offset, int stride) {
+		int[] row = new int[width];
+		int channelLength = width * height;
+		for (int y = 0; y < height; y++) {
+			image.getRGB(0, y, width, 1, row, 0, width);
+			int targetIndex = offset + y * width * stride;
+			for (int x = 0; x < width; x++) {
+				putPixel(row[x], target, targetIndex, channelLength * stride);
+				targetIndex += stride;
+			}
+		}
+	}
+
+	private static void putPixel(int color, float[] target, int targetIndex, int channelStride) {
+		target[targetIndex] = ((color >>> 16) & 0xFF) * SCALE;
+		target[targetIndex + channelStride] = ((color >>> 8) & 0xFF) * SCALE;
+		target[targetIndex + 2 * channelStride] = (color & 0xFF) * SCALE;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
 	}
-	
-	
 }
@@ -24,6 +24,7 @@ import org.ml4j.nn.datasets.LabeledData;
 import org.ml4j.nn.datasets.LabeledDataImpl;
 import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationLabeledDataSet;
 import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationLabeledDataSetImpl;
+import org.ml4j.nn.datasets.util.Prefetcher;
 import org.ml4j.nn.neurons.NeuronsActivation;
 import org.ml4j.streams.Streamable;
 
@@ -53,6 +54,17 @@ public class FloatArrayBatchedLabeledDataSetImpl extends BatchedLabeledDataSetIm
 				() -> stream().map(batch -> createLabeledData(matrixFactory, batch)));
 	}
 
+	/**
+	 * As toNeuronsActivationLabeledDataSet(MatrixFactory), but with the batches
+	 * assembled on the producer threads of the prefetcher, ahead of their
+	 * consumption by the training thread.
+	 */
+	public NeuronsActivationLabeledDataSet toNeuronsActivationLabeledDataSet(MatrixFactory matrixFactory,
+			Prefetcher prefetcher) {
+		return new NeuronsActivationLabeledDataSetImpl(
+				() -> prefetcher.prefetch(stream(), batch -> createLabeledData(matrixFactory, batch)));
+	}
+
 
 	private LabeledData<NeuronsActivation, NeuronsActivation> createLabeledData(MatrixFactory matrixFactory,
 			DataBatch<LabeledData<float[], float[]>> batch) {
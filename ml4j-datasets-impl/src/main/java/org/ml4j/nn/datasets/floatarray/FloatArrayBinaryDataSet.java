@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.datasets.floatarray;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.datasets.DataBatch;
+import org.ml4j.nn.datasets.DataSetImpl;
+import org.ml4j.nn.datasets.FloatArrayBatchedDataSetImpl;
+import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationDataSet;
+import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationDataSetImpl;
+import org.ml4j.nn.datasets.util.StreamUtil;
+
+/**
+ * FloatArrayDataSet backed by the features of a binary float array data set
+ * file, written by FloatArrayBinaryDataSetWriter - a replacement for
+ * FloatArrayInputStreamDataSet.
+ *
+ * Batches converted to NeuronsActivations are read straight from the mapped
+ * file into the batch matrices, bypassing the per-example float arrays of the
+ * streams of this data set.
+ *
+ * @author Michael Lavelle
+ */
+public class FloatArrayBinaryDataSet extends DataSetImpl<float[]> implements FloatArrayDataSet {
+
+	private FloatArrayBinaryDataSetReader reader;
+
+	public FloatArrayBinaryDataSet(Path path) throws IOException {
+		this(new FloatArrayBinaryDataSetReader(path));
+	}
+
+	public FloatArrayBinaryDataSet(FloatArrayBinaryDataSetReader reader) {
+		super(() -> stream(reader));
+		this.reader = reader;
+	}
+
+	private static Stream<float[]> stream(FloatArrayBinaryDataSetReader reader) {
+		return LongStream.range(0, reader.getExampleCount()).mapToObj(example -> {
+			float[] features = new float[reader.getFeatureCount()];
+			reader.readFeatures(example, 1, features);
+			return features;
+		});
+	}
+
+	@Override
+	public FloatArrayBatchedDataSet toBatchedDataSet(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		return new BinaryBatchedDataSet(() -> StreamUtil.partition(stream(), batchSize), reader, batchSize);
+	}
+
+	public FloatArrayBinaryDataSetReader getReader() {
+		return reader;
+	}
+
+	private static class BinaryBatchedDataSet extends FloatArrayBatchedDataSetImpl {
+
+		private FloatArrayBinaryDataSetReader reader;
+		private int batchSize;
+
+		public BinaryBatchedDataSet(Supplier<Stream<DataBatch<float[]>>> dataSupplier,
+				FloatArrayBinaryDataSetReader reader, int batchSize) {
+			super(dataSupplier, reader.getFeatureCount());
+			this.reader = reader;
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		public NeuronsActivationDataSet toNeuronsActivationDataSet(MatrixFactory matrixFactory) {
+			long batchCount = (reader.getExampleCount() + batchSize - 1) / batchSize;
+			return new NeuronsActivationDataSetImpl(() -> LongStream.range(0, batchCount).mapToObj(batch -> reader
+					.readFeaturesActivation(matrixFactory, batch * batchSize,
+							(int) Math.min(batchSize, reader.getExampleCount() - batch * batchSize))));
+		}
+	}
+}
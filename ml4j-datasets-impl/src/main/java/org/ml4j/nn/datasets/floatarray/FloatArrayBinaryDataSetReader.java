@@ -0,0 +1,301 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.datasets.floatarray;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+
+/**
+ * Reads a binary float array data set file, in the format described by
+ * FloatArrayBinaryFormat, through memory mappings of the file.
+ *
+ * Ranges of examples are copied straight from the mapped blocks into the
+ * row-major features x examples layout of a batch matrix - a bulk copy per
+ * feature per block - without creating any per-example objects. The file is
+ * mapped in segments of whole blocks of up to 2GB each, so files of any size
+ * can be read. Reads may be made concurrently, and in any order.
+ *
+ * @author Michael Lavelle
+ */
+public class FloatArrayBinaryDataSetReader {
+
+	private Path path;
+	private int featureCount;
+	private int labelFeatureCount;
+	private int blockSize;
+	private long exampleCount;
+	private int blockLength;
+	private int blocksPerSegment;
+	private FloatBuffer[] segments;
+
+	public FloatArrayBinaryDataSetReader(Path path) throws IOException {
+		this.path = path;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(FloatArrayBinaryFormat.HEADER_LENGTH)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					throw new IOException("File " + path + " is too short to be a binary float array data set");
+				}
+			}
+			header.flip();
+			if (header.getInt() != FloatArrayBinaryFormat.MAGIC) {
+				throw new IOException("File " + path + " is not a binary float array data set");
+			}
+			int version = header.getInt();
+			if (version != FloatArrayBinaryFormat.VERSION) {
+				throw new IOException("Unsupported binary float array data set version:" + version);
+			}
+			this.featureCount = header.getInt();
+			this.labelFeatureCount = header.getInt();
+			this.blockSize = header.getInt();
+			header.getInt();
+			this.exampleCount = header.getLong();
+			// Validated as the writer validates its arguments, so that a corrupt header
+			// cannot cause an overflow or a division by zero when reading
+			if (featureCount < 1) {
+				throw new IOException("File " + path + " has a corrupt header - feature count " + featureCount
+						+ " must be at least 1");
+			}
+			if (labelFeatureCount < 0) {
+				throw new IOException("File " + path + " has a corrupt header - label feature count "
+						+ labelFeatureCount + " must not be negative");
+			}
+			if (blockSize < 1) {
+				throw new IOException(
+						"File " + path + " has a corrupt header - block size " + blockSize + " must be at least 1");
+			}
+			if (exampleCount < 0) {
+				throw new IOException("File " + path + " has a corrupt header - example count " + exampleCount
+						+ " must not be negative");
+			}
+			long exampleLength = (long) featureCount + labelFeatureCount;
+			long blockBytes = blockSize * exampleLength * Float.BYTES;
+			if (blockBytes > Integer.MAX_VALUE) {
+				throw new IOException("File " + path + " has a corrupt header - block of " + blockBytes
+						+ " bytes is too large to be mapped");
+			}
+			this.blockLength = (int) (blockBytes / Float.BYTES);
+			long availableExampleCount = (channel.size() - FloatArrayBinaryFormat.HEADER_LENGTH)
+					/ (exampleLength * Float.BYTES);
+			if (exampleCount > availableExampleCount) {
+				throw new IOException("File " + path + " is truncated - expected " + exampleCount + " examples");
+			}
+			long dataLength = exampleCount * exampleLength * Float.BYTES;
+			this.blocksPerSegment = Math.max(1, Integer.MAX_VALUE / (blockLength * Float.BYTES));
+			long segmentLength = (long) blocksPerSegment * blockLength * Float.BYTES;
+			int segmentCount = (int) ((dataLength + segmentLength - 1) / segmentLength);
+			this.segments = new FloatBuffer[segmentCount];
+			for (int s = 0; s < segmentCount; s++) {
+				long position = s * segmentLength;
+				long length = Math.min(segmentLength, dataLength - position);
+				segments[s] = channel
+						.map(FileChannel.MapMode.READ_ONLY, FloatArrayBinaryFormat.HEADER_LENGTH + position, length)
+						.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+			}
+		}
+	}
+
+	/**
+	 * Copy the features of a range of examples into the target, as a row-major
+	 * features x examples matrix.
+	 *
+	 * @param startExample The index of the first example.
+	 * @param count        The number of examples.
+	 * @param target       The target, of length at least featureCount * count.
+	 */
+	public void readFeatures(long startExample, int count, float[] target) {
+		read(startExample, count, target, 0, featureCount);
+	}
+
+	/**
+	 * Copy the labels of a range of examples into the target, as a row-major
+	 * label features x examples matrix.
+	 *
+	 * @param startExample The index of the first example.
+	 * @param count        The number of examples.
+	 * @param target       The target, of length at least labelFeatureCount *
+	 *                     count.
+	 */
+	public void readLabels(long startExample, int count, float[] target) {
+		read(startExample, count, target, featureCount, labelFeatureCount);
+	}
+
+	/**
+	 * Copy the features of the examples indexed by a range of a permutation into
+	 * the target, as a row-major features x examples matrix.
+	 *
+	 * @param permutation The example indexes, eg. a shuffled permutation.
+	 * @param start       The index within the permutation of the first example.
+	 * @param count       The number of examples.
+	 * @param target      The target, of length at least featureCount * count.
+	 */
+	public void readFeatures(int[] permutation, int start, int count, float[] target) {
+		gather(permutation, start, count, target, 0, featureCount);
+	}
+
+	/**
+	 * Copy the labels of the examples indexed by a range of a permutation into
+	 * the target, as a row-major label features x examples matrix.
+	 *
+	 * @param permutation The example indexes, eg. a shuffled permutation.
+	 * @param start       The index within the permutation of the first example.
+	 * @param count       The number of examples.
+	 * @param target      The target, of length at least labelFeatureCount *
+	 *                    count.
+	 */
+	public void readLabels(int[] permutation, int start, int count, float[] target) {
+		gather(permutation, start, count, target, featureCount, labelFeatureCount);
+	}
+
+	/**
+	 * @return The features of a range of examples as a ROWS_SPAN_FEATURE_SET
+	 *         activation.
+	 */
+	public NeuronsActivation readFeaturesActivation(MatrixFactory matrixFactory, long startExample, int count) {
+		float[] features = new float[featureCount * count];
+		readFeatures(startExample, count, features);
+		Matrix matrix = matrixFactory.createMatrixFromRowsByRowsArray(featureCount, count, features);
+		return new NeuronsActivationImpl(matrix, NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+	}
+
+	/**
+	 * @return The labels of a range of examples as a ROWS_SPAN_FEATURE_SET
+	 *         activation.
+	 */
+	public NeuronsActivation readLabelsActivation(MatrixFactory matrixFactory, long startExample, int count) {
+		float[] labels = new float[labelFeatureCount * count];
+		readLabels(startExample, count, labels);
+		Matrix matrix = matrixFactory.createMatrixFromRowsByRowsArray(labelFeatureCount, count, labels);
+		return new NeuronsActivationImpl(matrix, NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+	}
+
+	/**
+	 * @return The features of the examples indexed by a range of a permutation as
+	 *         a ROWS_SPAN_FEATURE_SET activation.
+	 */
+	public NeuronsActivation readFeaturesActivation(MatrixFactory matrixFactory, int[] permutation, int start,
+			int count) {
+		float[] features = new float[featureCount * count];
+		readFeatures(permutation, start, count, features);
+		Matrix matrix = matrixFactory.createMatrixFromRowsByRowsArray(featureCount, count, features);
+		return new NeuronsActivationImpl(matrix, NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+	}
+
+	/**
+	 * @return The labels of the examples indexed by a range of a permutation as a
+	 *         ROWS_SPAN_FEATURE_SET activation.
+	 */
+	public NeuronsActivation readLabelsActivation(MatrixFactory matrixFactory, int[] permutation, int start,
+			int count) {
+		float[] labels = new float[labelFeatureCount * count];
+		readLabels(permutation, start, count, labels);
+		Matrix matrix = matrixFactory.createMatrixFromRowsByRowsArray(labelFeatureCount, count, labels);
+		return new NeuronsActivationImpl(matrix, NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+	}
+
+	/**
+	 * @param valueOffset The index of the first value within the values of an
+	 *                    example - 0 for the features, featureCount for the
+	 *                    labels.
+	 * @param valueCount  The number of values to read per example.
+	 */
+	private void read(long startExample, int count, float[] target, int valueOffset, int valueCount) {
+		if (startExample < 0 || count < 0 || startExample + count > exampleCount) {
+			throw new IllegalArgumentException("Examples [" + startExample + ", " + (startExample + count)
+					+ ") out of range for data set of " + exampleCount + " examples");
+		}
+		if (target.length < valueCount * count) {
+			throw new IllegalArgumentException("Target of length " + target.length + " cannot hold " + count
+					+ " examples of " + valueCount + " values");
+		}
+		int read = 0;
+		while (read < count) {
+			long example = startExample + read;
+			long block = example / blockSize;
+			int exampleInBlock = (int) (example % blockSize);
+			int blockExampleCount = (int) Math.min(blockSize, exampleCount - block * blockSize);
+			int runLength = Math.min(count - read, blockExampleCount - exampleInBlock);
+			FloatBuffer segment = segments[(int) (block / blocksPerSegment)].duplicate();
+			int blockStart = (int) (block % blocksPerSegment) * blockLength;
+			for (int v = 0; v < valueCount; v++) {
+				segment.position(blockStart + (valueOffset + v) * blockExampleCount + exampleInBlock);
+				segment.get(target, v * count + read, runLength);
+			}
+			read = read + runLength;
+		}
+	}
+
+	/**
+	 * As read, but for examples in any order - each value is read individually,
+	 * with absolute gets, rather than as part of a run of examples.
+	 */
+	private void gather(int[] permutation, int start, int count, float[] target, int valueOffset,
+			int valueCount) {
+		if (start < 0 || count < 0 || start + count > permutation.length) {
+			throw new IllegalArgumentException("Range [" + start + ", " + (start + count)
+					+ ") out of range for permutation of " + permutation.length + " examples");
+		}
+		if (target.length < valueCount * count) {
+			throw new IllegalArgumentException("Target of length " + target.length + " cannot hold " + count
+					+ " examples of " + valueCount + " values");
+		}
+		for (int i = 0; i < count; i++) {
+			long example = permutation[start + i];
+			if (example < 0 || example >= exampleCount) {
+				throw new IllegalArgumentException(
+						"Example " + example + " out of range for data set of " + exampleCount + " examples");
+			}
+			long block = example / blockSize;
+			int blockExampleCount = (int) Math.min(blockSize, exampleCount - block * blockSize);
+			FloatBuffer segment = segments[(int) (block / blocksPerSegment)];
+			int index = (int) (block % blocksPerSegment) * blockLength + valueOffset * blockExampleCount
+					+ (int) (example % blockSize);
+			for (int v = 0; v < valueCount; v++) {
+				target[v * count + i] = segment.get(index + v * blockExampleCount);
+			}
+		}
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public int getFeatureCount() {
+		return featureCount;
+	}
+
+	public int getLabelFeatureCount() {
+		return labelFeatureCount;
+	}
+
+	public long getExampleCount() {
+		return exampleCount;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+}
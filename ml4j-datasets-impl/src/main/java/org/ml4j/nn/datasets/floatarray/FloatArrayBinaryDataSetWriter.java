@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.datasets.floatarray;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.ml4j.nn.datasets.LabeledData;
+
+/**
+ * Writes examples, one at a time, to a binary float array data set file in the
+ * format described by FloatArrayBinaryFormat.
+ *
+ * Examples are buffered until a block is full, then transposed into the
+ * column-wise layout of the block and written. The example count in the
+ * header is written on close.
+ *
+ * @author Michael Lavelle
+ */
+public class FloatArrayBinaryDataSetWriter implements Closeable {
+
+	private FileChannel channel;
+	private int featureCount;
+	private int labelFeatureCount;
+	private int blockSize;
+	private float[] blockFeatures;
+	private float[] blockLabels;
+	private int blockExampleCount;
+	private long exampleCount;
+	private ByteBuffer blockBuffer;
+
+	public FloatArrayBinaryDataSetWriter(Path path, int featureCount, int labelFeatureCount) throws IOException {
+		this(path, featureCount, labelFeatureCount, FloatArrayBinaryFormat.DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * @param path              The file to write, which is replaced if it exists.
+	 * @param featureCount      The number of features of each example.
+	 * @param labelFeatureCount The number of label features of each example - 0
+	 *                          for an unlabeled data set.
+	 * @param blockSize         The number of examples in each block.
+	 */
+	public FloatArrayBinaryDataSetWriter(Path path, int featureCount, int labelFeatureCount, int blockSize)
+			throws IOException {
+		if (featureCount < 1) {
+			throw new IllegalArgumentException("Feature count must be at least 1");
+		}
+		if (labelFeatureCount < 0) {
+			throw new IllegalArgumentException("Label feature count must not be negative");
+		}
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be at least 1");
+		}
+		long blockLength = (long) blockSize * (featureCount + labelFeatureCount) * Float.BYTES;
+		if (blockLength > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Block of " + blockLength + " bytes is too large to be mapped");
+		}
+		this.featureCount = featureCount;
+		this.labelFeatureCount = labelFeatureCount;
+		this.blockSize = blockSize;
+		this.blockFeatures = new float[blockSize * featureCount];
+		this.blockLabels = new float[blockSize * labelFeatureCount];
+		this.blockBuffer = ByteBuffer.allocateDirect((int) blockLength).order(ByteOrder.LITTLE_ENDIAN);
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		writeFully(FloatArrayBinaryFormat.encodeHeader(featureCount, labelFeatureCount, blockSize, 0));
+	}
+
+	/**
+	 * Write the labeled data set to the file, replacing it if it exists.
+	 */
+	public static void write(Path path, FloatArrayLabeledDataSet labeledDataSet, int featureCount,
+			int labelFeatureCount) throws IOException {
+		try (FloatArrayBinaryDataSetWriter writer = new FloatArrayBinaryDataSetWriter(path, featureCount,
+				labelFeatureCount); Stream<LabeledData<float[], float[]>> stream = labeledDataSet.stream()) {
+			Iterator<LabeledData<float[], float[]>> iterator = stream.iterator();
+			while (iterator.hasNext()) {
+				LabeledData<float[], float[]> labeledData = iterator.next();
+				writer.write(labeledData.getData(), labeledData.getLabel());
+			}
+		}
+	}
+
+	/**
+	 * Write the unlabeled data set to the file, replacing it if it exists.
+	 */
+	public static void write(Path path, FloatArrayDataSet dataSet, int featureCount) throws IOException {
+		try (FloatArrayBinaryDataSetWriter writer = new FloatArrayBinaryDataSetWriter(path, featureCount, 0);
+				Stream<float[]> stream = dataSet.stream()) {
+			Iterator<float[]> iterator = stream.iterator();
+			while (iterator.hasNext()) {
+				writer.write(iterator.next());
+			}
+		}
+	}
+
+	/**
+	 * Write an example of an unlabeled data set.
+	 */
+	public void write(float[] features) throws IOException {
+		write(features, new float[0]);
+	}
+
+	/**
+	 * Write a labeled example.
+	 */
+	public void write(float[] features, float[] labels) throws IOException {
+		if (channel == null) {
+			throw new IllegalStateException("Writer has been closed");
+		}
+		if (features.length != featureCount) {
+			throw new IllegalArgumentException(
+					"Expected " + featureCount + " features but example has " + features.length);
+		}
+		if (labels.length != labelFeatureCount) {
+			throw new IllegalArgumentException(
+					"Expected " + labelFeatureCount + " label features but example has " + labels.length);
+		}
+		System.arraycopy(features, 0, blockFeatures, blockExampleCount * featureCount, featureCount);
+		System.arraycopy(labels, 0, blockLabels, blockExampleCount * labelFeatureCount, labelFeatureCount);
+		blockExampleCount++;
+		exampleCount++;
+		if (blockExampleCount == blockSize) {
+			flushBlock();
+		}
+	}
+
+	public long getExampleCount() {
+		return exampleCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel == null) {
+			return;
+		}
+		try {
+			flushBlock();
+			channel.position(0);
+			writeFully(FloatArrayBinaryFormat.encodeHeader(featureCount, labelFeatureCount, blockSize, exampleCount));
+			channel.force(false);
+		} finally {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	private void flushBlock() throws IOException {
+		if (blockExampleCount == 0) {
+			return;
+		}
+		blockBuffer.clear();
+		transpose(blockFeatures, featureCount);
+		transpose(blockLabels, labelFeatureCount);
+		blockBuffer.flip();
+		writeFully(blockBuffer);
+		blockExampleCount = 0;
+	}
+
+	/**
+	 * Put the example-wise values of the buffered examples column-wise into the
+	 * block buffer.
+	 */
+	private void transpose(float[] values, int valueCount) {
+		for (int v = 0; v < valueCount; v++) {
+			for (int e = 0; e < blockExampleCount; e++) {
+				blockBuffer.putFloat(values[e * valueCount + v]);
+			}
+		}
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.datasets.floatarray;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The on-disk layout of a binary float array data set.
+ *
+ * A fixed-size little-endian header - magic, version, feature count, label
+ * feature count, block size and example count - is followed by blocks of up to
+ * block size examples. Each block holds its features then its labels, each
+ * column-wise - the values of the first feature for every example of the
+ * block, then those of the second feature, and so on. The examples of a batch
+ * are therefore a contiguous run of floats per feature within each block,
+ * matching the rows of a features x examples row-major matrix.
+ *
+ * Every block but the last holds exactly block size examples, so the position
+ * of any example can be computed directly.
+ *
+ * @author Michael Lavelle
+ */
+final class FloatArrayBinaryFormat {
+
+	static final int MAGIC = 0x4D4C344A;
+
+	static final int VERSION = 1;
+
+	static final int HEADER_LENGTH = 32;
+
+	/**
+	 * The default number of examples in each block.
+	 */
+	static final int DEFAULT_BLOCK_SIZE = 1024;
+
+	private FloatArrayBinaryFormat() {
+		// Constants and header encoding only
+	}
+
+	static ByteBuffer encodeHeader(int featureCount, int labelFeatureCount, int blockSize, long exampleCount) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(featureCount);
+		header.putInt(labelFeatureCount);
+		header.putInt(blockSize);
+		header.putInt(0);
+		header.putLong(exampleCount);
+		header.flip();
+		return header;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.datasets.floatarray;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.datasets.DataBatch;
+import org.ml4j.nn.datasets.LabeledData;
+import org.ml4j.nn.datasets.LabeledDataImpl;
+import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationLabeledDataSet;
+import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationLabeledDataSetImpl;
+import org.ml4j.nn.datasets.util.Prefetcher;
+import org.ml4j.nn.datasets.util.Shuffler;
+import org.ml4j.nn.datasets.util.StreamUtil;
+import org.ml4j.nn.neurons.NeuronsActivation;
+
+/**
+ * FloatArrayLabeledDataSet backed by a binary float array data set file,
+ * written by FloatArrayBinaryDataSetWriter.
+ *
+ * Batches converted to NeuronsActivations are read straight from the mapped
+ * file into the batch matrices, bypassing the per-example float arrays of the
+ * streams of this data set.
+ *
+ * @author Michael Lavelle
+ */
+public class FloatArrayBinaryLabeledDataSet extends FloatArrayLabeledDataSetImpl {
+
+	private FloatArrayBinaryDataSetReader reader;
+
+	public FloatArrayBinaryLabeledDataSet(Path path) throws IOException {
+		this(new FloatArrayBinaryDataSetReader(path));
+	}
+
+	public FloatArrayBinaryLabeledDataSet(FloatArrayBinaryDataSetReader reader) {
+		super(() -> stream(reader), reader.getFeatureCount(), reader.getLabelFeatureCount());
+		this.reader = reader;
+	}
+
+	private static Stream<LabeledData<float[], float[]>> stream(FloatArrayBinaryDataSetReader reader) {
+		return LongStream.range(0, reader.getExampleCount()).mapToObj(example -> readExample(reader, example));
+	}
+
+	private static Stream<LabeledData<float[], float[]>> stream(FloatArrayBinaryDataSetReader reader,
+			int[] permutation) {
+		return Arrays.stream(permutation).mapToObj(example -> readExample(reader, example));
+	}
+
+	private static LabeledData<float[], float[]> readExample(FloatArrayBinaryDataSetReader reader, long example) {
+		float[] features = new float[reader.getFeatureCount()];
+		float[] labels = new float[reader.getLabelFeatureCount()];
+		reader.readFeatures(example, 1, features);
+		reader.readLabels(example, 1, labels);
+		return new LabeledDataImpl<>(features, labels);
+	}
+
+	@Override
+	public FloatArrayBatchedLabeledDataSet toBatchedLabeledDataSet(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		return new BinaryBatchedLabeledDataSet(() -> StreamUtil.partition(stream(), batchSize), reader, batchSize,
+				null);
+	}
+
+	/**
+	 * As toBatchedLabeledDataSet(int), but with the examples of each epoch in the
+	 * order of a permutation from the shuffler - the whole data set is shuffled
+	 * uniformly, rather than through the shuffle buffer.
+	 */
+	@Override
+	public FloatArrayBatchedLabeledDataSet toBatchedLabeledDataSet(int batchSize, Shuffler shuffler) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		if (reader.getExampleCount() > Integer.MAX_VALUE) {
+			throw new UnsupportedOperationException(
+					"Shuffling of more than " + Integer.MAX_VALUE + " examples not supported");
+		}
+		return new BinaryBatchedLabeledDataSet(() -> StreamUtil.partition(
+				stream(reader, shuffler.getPermutation((int) reader.getExampleCount(), shuffler.nextEpoch())),
+				batchSize), reader, batchSize, shuffler);
+	}
+
+	public FloatArrayBinaryDataSetReader getReader() {
+		return reader;
+	}
+
+	private static class BinaryBatchedLabeledDataSet extends FloatArrayBatchedLabeledDataSetImpl {
+
+		private FloatArrayBinaryDataSetReader reader;
+		private int batchSize;
+		private Shuffler shuffler;
+
+		/**
+		 * @param shuffler The shuffler of the examples of each epoch, or null if
+		 *                 the examples are in file order.
+		 */
+		public BinaryBatchedLabeledDataSet(Supplier<Stream<DataBatch<LabeledData<float[], float[]>>>> dataSupplier,
+				FloatArrayBinaryDataSetReader reader, int batchSize, Shuffler shuffler) {
+			super(dataSupplier, reader.getFeatureCount(), reader.getLabelFeatureCount());
+			this.reader = reader;
+			this.batchSize = batchSize;
+			this.shuffler = shuffler;
+		}
+
+		@Override
+		public NeuronsActivationLabeledDataSet toNeuronsActivationLabeledDataSet(MatrixFactory matrixFactory) {
+			long batchCount = (reader.getExampleCount() + batchSize - 1) / batchSize;
+			return new NeuronsActivationLabeledDataSetImpl(() -> {
+				int[] permutation = getPermutation();
+				return LongStream.range(0, batchCount)
+						.mapToObj(batch -> createLabeledData(matrixFactory, batch, permutation));
+			});
+		}
+
+		@Override
+		public NeuronsActivationLabeledDataSet toNeuronsActivationLabeledDataSet(MatrixFactory matrixFactory,
+				Prefetcher prefetcher) {
+			long batchCount = (reader.getExampleCount() + batchSize - 1) / batchSize;
+			return new NeuronsActivationLabeledDataSetImpl(() -> {
+				int[] permutation = getPermutation();
+				return prefetcher.prefetch(LongStream.range(0, batchCount).boxed(),
+						batch -> createLabeledData(matrixFactory, batch, permutation));
+			});
+		}
+
+		private int[] getPermutation() {
+			return shuffler == null ? null
+					: shuffler.getPermutation((int) reader.getExampleCount(), shuffler.nextEpoch());
+		}
+
+		private LabeledData<NeuronsActivation, NeuronsActivation> createLabeledData(MatrixFactory matrixFactory,
+				long batch, int[] permutation) {
+			long startExample = batch * batchSize;
+			int count = (int) Math.min(batchSize, reader.getExampleCount() - startExample);
+			if (permutation == null) {
+				return new LabeledDataImpl<>(reader.readFeaturesActivation(matrixFactory, startExample, count),
+						reader.readLabelsActivation(matrixFactory, startExample, count));
+			}
+			return new LabeledDataImpl<>(
+					reader.readFeaturesActivation(matrixFactory, permutation, (int) startExample, count),
+					reader.readLabelsActivation(matrixFactory, permutation, (int) startExample, count));
+		}
+	}
+}
@@ -25,6 +25,8 @@ import org.ml4j.nn.datasets.LabeledData;
 import org.ml4j.nn.datasets.LabeledDataImpl;
 import org.ml4j.nn.datasets.exceptions.FeatureExtractionException;
 import org.ml4j.nn.datasets.exceptions.FeatureExtractionRuntimeException;
+import org.ml4j.nn.datasets.util.Prefetcher;
+import org.ml4j.nn.datasets.util.Shuffler;
 import org.ml4j.nn.datasets.util.StreamUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,6 +77,20 @@ public class FloatArrayLabeledDataSetImpl implements FloatArrayLabeledDataSet {
 		return new FloatArrayLabeledDataSetImpl(() -> stream().map(l -> toLabeledFloatArray(featureExtractor, labelMapper, l, featureExtractionErrorMode)).filter(Optional::isPresent).map(Optional::get), featureExtractor.getFeatureCount(), labelMapper.getFeatureCount());
 	}
 	
+	/**
+	 * As toFloatArrayLabeledDataSet(FeatureExtractor, FeatureExtractor,
+	 * FeatureExtractionErrorMode), but with the features extracted on the
+	 * producer threads of the prefetcher, ahead of their consumption.
+	 */
+	public FloatArrayLabeledDataSet toFloatArrayLabeledDataSet(FeatureExtractor<float[]> featureExtractor,
+			FeatureExtractor<float[]> labelMapper, FeatureExtractionErrorMode featureExtractionErrorMode,
+			Prefetcher prefetcher) {
+		return new FloatArrayLabeledDataSetImpl(() -> prefetcher
+				.prefetch(stream(), l -> toLabeledFloatArray(featureExtractor, labelMapper, l, featureExtractionErrorMode))
+				.filter(Optional::isPresent).map(Optional::get), featureExtractor.getFeatureCount(),
+				labelMapper.getFeatureCount());
+	}
+
 	private <E, L> Optional<LabeledData<float[], float[]>> toLabeledFloatArray(FeatureExtractor<E> featureExtractor, FeatureExtractor<L> labelMapper, 
 			LabeledData<E, L> labeledData, 
 			FeatureExtractionErrorMode featureExtractionErrorMode) {
@@ -97,4 +113,14 @@ public class FloatArrayLabeledDataSetImpl implements FloatArrayLabeledDataSet {
 		return new FloatArrayBatchedLabeledDataSetImpl(() -> StreamUtil.partition(stream().map(l -> new LabeledDataImpl<>(l.getData(), l.getLabel())), batchSize), featureCount, labelFeatureCount);
 	}
 
+	/**
+	 * As toBatchedLabeledDataSet(int), but with the labeled data shuffled through
+	 * the shuffle buffer of the shuffler - differently on each epoch.
+	 */
+	public FloatArrayBatchedLabeledDataSet toBatchedLabeledDataSet(int batchSize, Shuffler shuffler) {
+		return new FloatArrayBatchedLabeledDataSetImpl(
+				() -> StreamUtil.partition(shuffler.shuffle(stream(), shuffler.nextEpoch()), batchSize), featureCount,
+				labelFeatureCount);
+	}
+
 }
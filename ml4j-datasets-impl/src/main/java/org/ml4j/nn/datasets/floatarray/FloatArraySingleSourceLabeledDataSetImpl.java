@@ -20,6 +20,8 @@ import org.ml4j.nn.datasets.DataLabeler;
 import org.ml4j.nn.datasets.DataSet;
 import org.ml4j.nn.datasets.LabeledData;
 import org.ml4j.nn.datasets.LabeledDataSetImpl;
+import org.ml4j.nn.datasets.util.Shuffler;
+import org.ml4j.nn.datasets.util.StreamUtil;
 
 public class FloatArraySingleSourceLabeledDataSetImpl extends LabeledDataSetImpl<float[], float[]> implements FloatArrayLabeledDataSet {
 
@@ -44,5 +46,12 @@ public class FloatArraySingleSourceLabeledDataSetImpl extends LabeledDataSetImpl
 		return new FloatArrayBatchedLabeledDataSetImpl(super.toBatchedLabeledDataSet(batchSize), featureCount, labelFeatureCount);
 	}
 
+	@Override
+	public FloatArrayBatchedLabeledDataSet toBatchedLabeledDataSet(int batchSize, Shuffler shuffler) {
+		return new FloatArrayBatchedLabeledDataSetImpl(
+				() -> StreamUtil.partition(shuffler.shuffle(stream(), shuffler.nextEpoch()), batchSize), featureCount,
+				labelFeatureCount);
+	}
+
 	
 }
@@ -14,23 +14,88 @@
 package org.ml4j.nn.datasets.images;
 
 import java.nio.file.Path;
+import java.util.List;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
 import org.ml4j.images.Image;
+import org.ml4j.nn.datasets.DataBatch;
 import org.ml4j.nn.datasets.DataLabeler;
 import org.ml4j.nn.datasets.DataSetImpl;
+import org.ml4j.nn.datasets.FeatureExtractor;
+import org.ml4j.nn.datasets.LabeledData;
+import org.ml4j.nn.datasets.LabeledDataImpl;
 import org.ml4j.nn.datasets.LabeledDataSetImpl;
+import org.ml4j.nn.datasets.exceptions.FeatureExtractionException;
+import org.ml4j.nn.datasets.exceptions.FeatureExtractionRuntimeException;
+import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationLabeledDataSet;
+import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationLabeledDataSetImpl;
+import org.ml4j.nn.datasets.util.StreamUtil;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+
+import com.codepoetics.protonpack.StreamUtils;
 
 public class DirectoryImagesLabeledDataSet<L> extends LabeledDataSetImpl<Supplier<Image>, L>
 		implements LabeledImagesDataSet<L> {
 
+	private DirectoryImagesWithPathsDataSet labeledDataSet;
+	private DataLabeler<Path, L> dataLabeler;
+
 	public DirectoryImagesLabeledDataSet(DirectoryImagesWithPathsDataSet labeledDataSet,
 			DataLabeler<Path, L> dataLabeler) {
 		super(new DataSetImpl<>(() -> labeledDataSet.stream()), dataLabeler);
+		this.labeledDataSet = labeledDataSet;
+		this.dataLabeler = dataLabeler;
 	}
 
 	@Override
 	public ImagesDataSet getDataSet() {
 		return new ImagesDataSetImpl(() -> super.getDataSet().stream());
 	}
+
+	/**
+	 * Batches of the labeled images of this data set as NeuronsActivations, the
+	 * images of each batch decoded and resized concurrently by the decoder.
+	 */
+	public NeuronsActivationLabeledDataSet toNeuronsActivationLabeledDataSet(MatrixFactory matrixFactory,
+			FeatureExtractor<L> labelMapper, ImageBatchDecoder imageBatchDecoder, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		return new NeuronsActivationLabeledDataSetImpl(() -> StreamUtil.partition(getLabeledPaths(), batchSize)
+				.map(batch -> createLabeledData(matrixFactory, labelMapper, imageBatchDecoder, batch)));
+	}
+
+	private Stream<LabeledData<Path, L>> getLabeledPaths() {
+		return StreamUtils.zipWithIndex(labeledDataSet.getLabels())
+				.map(i -> new LabeledDataImpl<>(i.getValue(), dataLabeler.getLabel(i.getIndex(), i.getValue())));
+	}
+
+	private LabeledData<NeuronsActivation, NeuronsActivation> createLabeledData(MatrixFactory matrixFactory,
+			FeatureExtractor<L> labelMapper, ImageBatchDecoder imageBatchDecoder, DataBatch<LabeledData<Path, L>> batch) {
+		List<LabeledData<Path, L>> labeledPaths = batch.stream().collect(Collectors.toList());
+		int count = labeledPaths.size();
+		int labelFeatureCount = labelMapper.getFeatureCount();
+		float[] labels = new float[labelFeatureCount * count];
+		for (int example = 0; example < count; example++) {
+			try {
+				float[] label = labelMapper.getFeatures(labeledPaths.get(example).getLabel());
+				for (int f = 0; f < labelFeatureCount; f++) {
+					labels[f * count + example] = label[f];
+				}
+			} catch (FeatureExtractionException e) {
+				throw new FeatureExtractionRuntimeException("Unable to obtain label features", e);
+			}
+		}
+		NeuronsActivation features = imageBatchDecoder.decodeActivation(matrixFactory,
+				labeledPaths.stream().map(LabeledData::getData).collect(Collectors.toList()));
+		Matrix labelsMatrix = matrixFactory.createMatrixFromRowsByRowsArray(labelFeatureCount, count, labels);
+		return new LabeledDataImpl<>(features,
+				new NeuronsActivationImpl(labelsMatrix, NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET));
+	}
 }
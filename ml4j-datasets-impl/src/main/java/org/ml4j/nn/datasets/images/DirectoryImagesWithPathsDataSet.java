@@ -21,10 +21,12 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.imageio.ImageIO;
 
+import org.ml4j.MatrixFactory;
 import org.ml4j.images.Image;
 import org.ml4j.images.MultiChannelImage;
 import org.ml4j.nn.datasets.DataLabeler;
@@ -35,6 +37,9 @@ import org.ml4j.nn.datasets.LabeledDataImpl;
 import org.ml4j.nn.datasets.LabeledDataSetImpl;
 import org.ml4j.nn.datasets.exceptions.FeatureExtractionRuntimeException;
 import org.ml4j.nn.datasets.featureextraction.BufferedImageFeatureExtractor;
+import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationDataSet;
+import org.ml4j.nn.datasets.neuronsactivation.NeuronsActivationDataSetImpl;
+import org.ml4j.nn.datasets.util.StreamUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,20 +50,29 @@ public class DirectoryImagesWithPathsDataSet extends LabeledDataSetImpl<Supplier
 
 	
 	public DirectoryImagesWithPathsDataSet(Path directory, Predicate<Path> pathPredicate) {
-		super(() -> getImages(directory, pathPredicate, null, null));
+		super(() -> getImages(directory, pathPredicate, null, null, null));
 	}
 	
 	public DirectoryImagesWithPathsDataSet(Path directory, Predicate<Path> pathPredicate, int rescaleWidth, int rescaleHeight) {
-		super(() -> getImages(directory, pathPredicate, rescaleWidth, rescaleHeight));
+		super(() -> getImages(directory, pathPredicate, rescaleWidth, rescaleHeight, null));
 	}
 
-	private static Stream<LabeledData<Supplier<Image>, Path>> getImages(Path file, Predicate<Path> pathPredicate, Integer rescaleWidth, Integer rescaleHeight) {
+	/**
+	 * Images are decoded and resized on first access, and thereafter obtained
+	 * from the image cache, until evicted.
+	 */
+	public DirectoryImagesWithPathsDataSet(Path directory, Predicate<Path> pathPredicate, int rescaleWidth,
+			int rescaleHeight, ImageCache imageCache) {
+		super(() -> getImages(directory, pathPredicate, rescaleWidth, rescaleHeight, imageCache));
+	}
+
+	private static Stream<LabeledData<Supplier<Image>, Path>> getImages(Path file, Predicate<Path> pathPredicate, Integer rescaleWidth, Integer rescaleHeight, ImageCache imageCache) {
 		try {
 			if (Files.isDirectory(file)) {
-				return Files.list(file).filter(f -> pathPredicate.test(f)).flatMap(f -> getImages(f, pathPredicate, rescaleWidth, rescaleHeight));
+				return Files.list(file).filter(f -> pathPredicate.test(f)).flatMap(f -> getImages(f, pathPredicate, rescaleWidth, rescaleHeight, imageCache));
 			} else {
 				List<LabeledData<Supplier<Image>, Path>> list = Arrays
-						.asList(new LabeledDataImpl<>(getImage(file, rescaleWidth, rescaleHeight), file));
+						.asList(new LabeledDataImpl<>(getImage(file, rescaleWidth, rescaleHeight, imageCache), file));
 				return list.stream();
 			}
 
@@ -72,8 +86,12 @@ public class DirectoryImagesWithPathsDataSet extends LabeledDataSetImpl<Supplier
 		return getDataSet();
 	}
 
-	private static Supplier<Image> getImage(Path path, Integer rescaleWidth, Integer rescaleHeight) {
-		return () -> getImageFromFile(path, rescaleWidth, rescaleHeight);
+	private static Supplier<Image> getImage(Path path, Integer rescaleWidth, Integer rescaleHeight, ImageCache imageCache) {
+		if (imageCache == null) {
+			return () -> getImageFromFile(path, rescaleWidth, rescaleHeight);
+		}
+		return () -> new MultiChannelImage(imageCache.get(path, rescaleWidth, rescaleHeight,
+				p -> getImageFromFile(p, rescaleWidth, rescaleHeight).getData()), 3, rescaleWidth, rescaleHeight, 0, 0);
 	}
 
 	private static Image getImageFromFile(Path path, Integer rescaleWidth, Integer rescaleHeight) {
@@ -101,6 +119,20 @@ public class DirectoryImagesWithPathsDataSet extends LabeledDataSetImpl<Supplier
 		return new DataSetImpl<>(() -> getLabels());
 	}
 
+	/**
+	 * Batches of the images of this data set as NeuronsActivations, each batch
+	 * decoded and resized concurrently by the decoder.
+	 */
+	public NeuronsActivationDataSet toNeuronsActivationDataSet(MatrixFactory matrixFactory,
+			ImageBatchDecoder imageBatchDecoder, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		return new NeuronsActivationDataSetImpl(() -> StreamUtil.partition(getLabels(), batchSize)
+				.map(batch -> imageBatchDecoder.decodeActivation(matrixFactory,
+						batch.stream().collect(Collectors.toList()))));
+	}
+
 	public <L> LabeledImagesDataSet<L> getLabeledImagesDataSet(DataLabeler<Path, L> pathBasedLabeler) {
 		return new DirectoryImagesLabeledDataSet<L>(this, pathBasedLabeler);
 	}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.datasets.images;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.datasets.exceptions.FeatureExtractionRuntimeException;
+import org.ml4j.nn.datasets.featureextraction.BufferedImageFeatureExtractor;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decodes batches of image files into batch matrices, decoding and resizing
+ * the images of each batch concurrently on a bounded pool of threads.
+ *
+ * The planar (channel, height, width) features of each image are written
+ * straight into the row-major features x examples array backing the batch
+ * matrix, without creating an intermediate Image or float[] per file. If an
+ * ImageCache is provided, images are instead copied from the cache once
+ * decoded.
+ *
+ * @author Michael Lavelle
+ */
+public class ImageBatchDecoder implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageBatchDecoder.class);
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private BufferedImageFeatureExtractor featureExtractor;
+	private int threadCount;
+	private ExecutorService executorService;
+	private ImageCache imageCache;
+
+	/**
+	 * @param width       The width images are resized to.
+	 * @param height      The height images are resized to.
+	 * @param threadCount The number of images decoded concurrently.
+	 */
+	public ImageBatchDecoder(int width, int height, int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException("Thread count must be at least 1");
+		}
+		this.featureExtractor = new BufferedImageFeatureExtractor(width, height);
+		this.threadCount = threadCount;
+		this.executorService = Executors.newFixedThreadPool(threadCount, runnable -> {
+			Thread thread = new Thread(runnable, "ml4j-image-decoder-" + THREAD_COUNT.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @param width       The width images are resized to.
+	 * @param height      The height images are resized to.
+	 * @param threadCount The number of images decoded concurrently.
+	 * @param imageCache  The cache decoded images are obtained from, and added
+	 *                    to on a miss.
+	 */
+	public ImageBatchDecoder(int width, int height, int threadCount, ImageCache imageCache) {
+		this(width, height, threadCount);
+		this.imageCache = imageCache;
+	}
+
+	/**
+	 * Decode the image files into the target, as a row-major features x examples
+	 * matrix with an example per path.
+	 *
+	 * @param paths  The image files.
+	 * @param target The target, of length at least getFeatureCount() *
+	 *               paths.size().
+	 */
+	public void decode(List<Path> paths, float[] target) {
+		int count = paths.size();
+		if (target.length < getFeatureCount() * count) {
+			throw new IllegalArgumentException("Target of length " + target.length + " cannot hold " + count
+					+ " images of " + getFeatureCount() + " features");
+		}
+		List<Callable<Void>> tasks = new ArrayList<>(count);
+		for (int example = 0; example < count; example++) {
+			int index = example;
+			tasks.add(() -> {
+				decode(paths.get(index), target, index, count);
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> future : executorService.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted when decoding images", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new FeatureExtractionRuntimeException("Unable to decode images", e.getCause());
+		}
+	}
+
+	/**
+	 * @return The decoded image files as a ROWS_SPAN_FEATURE_SET activation.
+	 */
+	public NeuronsActivation decodeActivation(MatrixFactory matrixFactory, List<Path> paths) {
+		float[] features = new float[getFeatureCount() * paths.size()];
+		decode(paths, features);
+		Matrix matrix = matrixFactory.createMatrixFromRowsByRowsArray(getFeatureCount(), paths.size(), features);
+		return new NeuronsActivationImpl(matrix, NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+	}
+
+	private void decode(Path path, float[] target, int example, int count) {
+		if (imageCache == null) {
+			decodeFile(path, target, example, count);
+		} else {
+			float[] features = imageCache.get(path, featureExtractor.getWidth(), featureExtractor.getHeight(), p -> {
+				float[] decoded = new float[getFeatureCount()];
+				decodeFile(p, decoded, 0, 1);
+				return decoded;
+			});
+			for (int f = 0; f < features.length; f++) {
+				target[f * count + example] = features[f];
+			}
+		}
+	}
+
+	private void decodeFile(Path path, float[] target, int offset, int stride) {
+		try {
+			LOGGER.debug("Loading image from file:" + path.toFile());
+			BufferedImage bufferedImage = ImageIO.read(path.toFile());
+			if (bufferedImage == null) {
+				throw new IllegalArgumentException("Unable to read file" + path);
+			}
+			featureExtractor.getFeatures(bufferedImage, target, offset, stride);
+		} catch (Exception e) {
+			throw new FeatureExtractionRuntimeException("Unable to read features from file:" + path, e);
+		}
+	}
+
+	public int getFeatureCount() {
+		return featureExtractor.getFeatureCount();
+	}
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	@Override
+	public void close() {
+		executorService.shutdownNow();
+	}
+}
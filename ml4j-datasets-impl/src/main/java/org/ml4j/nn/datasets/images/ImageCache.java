@@ -0,0 +1,272 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.datasets.images;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Cache of the float data of decoded and resized images, so that images are
+ * decoded once rather than once per epoch.
+ *
+ * Entries are keyed on the path and last modified time of the image file and
+ * the size the image is resized to, so a modified file is decoded again. The
+ * data held in memory is bounded by maxMemoryBytes - the least recently used
+ * entries are evicted first. Optionally, evicted entries are spilled to a
+ * memory-mapped file, of at most maxSpillBytes, from which they are read back
+ * rather than decoded again. The file is mapped in segments of up to 256 MB,
+ * the last segment limited to the remaining budget. Space in the spill file is
+ * not reclaimed - once it is full, evicted entries are discarded.
+ *
+ * The cache may be used concurrently. Each get returns a copy of the cached
+ * data, which the caller is free to modify.
+ *
+ * @author Michael Lavelle
+ */
+public class ImageCache implements Closeable {
+
+	private static final long SPILL_SEGMENT_BYTES = 1L << 28;
+
+	private long maxMemoryBytes;
+	private long memoryBytes;
+	private LinkedHashMap<ImageKey, float[]> entries;
+
+	private Path spillFile;
+	private long maxSpillBytes;
+	private FileChannel spillChannel;
+	private List<FloatBuffer> spillSegments;
+	private long spillBytes;
+	private int spillPosition;
+	private Map<ImageKey, SpillEntry> spillEntries;
+
+	private long hits;
+	private long spillHits;
+	private long misses;
+
+	/**
+	 * @param maxMemoryBytes The maximum number of bytes of image data held in
+	 *                       memory.
+	 */
+	public ImageCache(long maxMemoryBytes) {
+		if (maxMemoryBytes < 0) {
+			throw new IllegalArgumentException("Max memory bytes must not be negative");
+		}
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * @param maxMemoryBytes The maximum number of bytes of image data held in
+	 *                       memory.
+	 * @param spillFile      The file evicted entries are spilled to, which is
+	 *                       replaced if it exists and deleted on close.
+	 * @param maxSpillBytes  The maximum size of the spill file.
+	 */
+	public ImageCache(long maxMemoryBytes, Path spillFile, long maxSpillBytes) throws IOException {
+		this(maxMemoryBytes);
+		if (maxSpillBytes < 0) {
+			throw new IllegalArgumentException("Max spill bytes must not be negative");
+		}
+		this.spillFile = spillFile;
+		this.maxSpillBytes = maxSpillBytes;
+		this.spillChannel = FileChannel.open(spillFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.spillSegments = new ArrayList<>();
+		this.spillEntries = new HashMap<>();
+	}
+
+	/**
+	 * Get the data of the image file resized to width x height - from the cache
+	 * if present, otherwise from the decoder, caching the decoded data.
+	 *
+	 * @param path    The image file.
+	 * @param width   The width the image is resized to.
+	 * @param height  The height the image is resized to.
+	 * @param decoder Decodes and resizes the image file on a cache miss.
+	 * @return A copy of the image data.
+	 */
+	public float[] get(Path path, int width, int height, Function<Path, float[]> decoder) {
+		ImageKey key = new ImageKey(path, width, height);
+		float[] data = getCached(key);
+		if (data != null) {
+			return data;
+		}
+		data = decoder.apply(path);
+		put(key, data.clone());
+		return data;
+	}
+
+	private synchronized float[] getCached(ImageKey key) {
+		float[] data = entries.get(key);
+		if (data != null) {
+			hits++;
+			return data.clone();
+		}
+		SpillEntry spillEntry = spillEntries == null ? null : spillEntries.get(key);
+		if (spillEntry != null) {
+			spillHits++;
+			data = new float[spillEntry.length];
+			FloatBuffer segment = spillSegments.get(spillEntry.segment).duplicate();
+			segment.position(spillEntry.position);
+			segment.get(data);
+			put(key, data.clone());
+			return data;
+		}
+		misses++;
+		return null;
+	}
+
+	private synchronized void put(ImageKey key, float[] data) {
+		long bytes = (long) data.length * Float.BYTES;
+		if (bytes > maxMemoryBytes) {
+			spill(key, data);
+			return;
+		}
+		if (entries.put(key, data) == null) {
+			memoryBytes = memoryBytes + bytes;
+		}
+		Iterator<Map.Entry<ImageKey, float[]>> iterator = entries.entrySet().iterator();
+		while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+			Map.Entry<ImageKey, float[]> eldest = iterator.next();
+			iterator.remove();
+			memoryBytes = memoryBytes - (long) eldest.getValue().length * Float.BYTES;
+			spill(eldest.getKey(), eldest.getValue());
+		}
+	}
+
+	private void spill(ImageKey key, float[] data) {
+		if (spillChannel == null || spillEntries.containsKey(key)
+				|| (long) data.length * Float.BYTES > SPILL_SEGMENT_BYTES) {
+			return;
+		}
+		if (spillSegments.isEmpty()
+				|| spillPosition + data.length > spillSegments.get(spillSegments.size() - 1).capacity()) {
+			// The last segment is limited to the remaining budget, in whole floats
+			long segmentBytes = Math.min(SPILL_SEGMENT_BYTES,
+					(maxSpillBytes - spillBytes) / Float.BYTES * Float.BYTES);
+			if (segmentBytes == 0 || (long) data.length * Float.BYTES > segmentBytes) {
+				return;
+			}
+			try {
+				spillSegments.add(spillChannel.map(FileChannel.MapMode.READ_WRITE, spillBytes, segmentBytes)
+						.order(ByteOrder.nativeOrder()).asFloatBuffer());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to extend image cache spill file:" + spillFile, e);
+			}
+			spillBytes = spillBytes + segmentBytes;
+			spillPosition = 0;
+		}
+		FloatBuffer segment = spillSegments.get(spillSegments.size() - 1).duplicate();
+		segment.position(spillPosition);
+		segment.put(data);
+		spillEntries.put(key, new SpillEntry(spillSegments.size() - 1, spillPosition, data.length));
+		spillPosition = spillPosition + data.length;
+	}
+
+	public synchronized long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getSpillHits() {
+		return spillHits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		entries.clear();
+		memoryBytes = 0;
+		if (spillChannel != null) {
+			spillSegments.clear();
+			spillBytes = 0;
+			spillEntries.clear();
+			spillChannel.close();
+			spillChannel = null;
+			Files.deleteIfExists(spillFile);
+		}
+	}
+
+	private static class ImageKey {
+
+		private String path;
+		private long lastModified;
+		private int width;
+		private int height;
+
+		public ImageKey(Path path, int width, int height) {
+			this.path = path.toAbsolutePath().normalize().toString();
+			try {
+				this.lastModified = Files.getLastModifiedTime(path).toMillis();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to read last modified time of file:" + path, e);
+			}
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(path, lastModified, width, height);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ImageKey)) {
+				return false;
+			}
+			ImageKey other = (ImageKey) obj;
+			return path.equals(other.path) && lastModified == other.lastModified && width == other.width
+					&& height == other.height;
+		}
+	}
+
+	private static class SpillEntry {
+
+		private int segment;
+		private int position;
+		private int length;
+
+		public SpillEntry(int segment, int position, int length) {
+			this.segment = segment;
+			this.position = position;
+			this.length = length;
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.datasets.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Produces the elements of a stream ahead of their consumption, on background
+ * threads, so that data loading overlaps with - rather than adds to - the work
+ * of the consumer, eg. training on the previous batch.
+ *
+ * A feeder thread pulls elements from the source stream, running any lazy
+ * stages of its pipeline, and hands each to one of producerCount producer
+ * threads to be transformed - eg. decoded, feature extracted or assembled into
+ * a batch. At most capacity elements are held between being pulled from the
+ * source and being consumed, so the producers block once they are capacity
+ * elements ahead. Elements are delivered in source order, or if unordered in
+ * the order their transforms complete.
+ *
+ * An exception thrown by the source or a transform is rethrown to the consumer
+ * when the failed element is reached. Closing the prefetched stream stops the
+ * background threads and closes the source stream.
+ *
+ * @author Michael Lavelle
+ */
+public class Prefetcher {
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private int producerCount;
+
+	private int capacity;
+
+	private boolean ordered;
+
+	/**
+	 * @param producerCount The number of threads transforming elements
+	 *                      concurrently.
+	 * @param capacity      The maximum number of elements produced ahead of the
+	 *                      consumer.
+	 * @param ordered       Whether elements are delivered in source order, rather
+	 *                      than in the order they are produced.
+	 */
+	public Prefetcher(int producerCount, int capacity, boolean ordered) {
+		if (producerCount < 1) {
+			throw new IllegalArgumentException("Producer count must be at least 1");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1");
+		}
+		this.producerCount = producerCount;
+		this.capacity = capacity;
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Prefetch the elements of the source - the lazy stages of the source
+	 * pipeline run on the single feeder thread.
+	 */
+	public <T> Stream<T> prefetch(Stream<T> source) {
+		return prefetch(source, Function.identity());
+	}
+
+	/**
+	 * Prefetch the transformed elements of the source - the transforms run
+	 * concurrently on the producer threads.
+	 */
+	public <S, T> Stream<T> prefetch(Stream<S> source, Function<S, T> transform) {
+		PrefetchingIterator<S, T> iterator = new PrefetchingIterator<>(source, transform);
+		iterator.start();
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(iterator, ordered ? Spliterator.ORDERED : 0), false)
+				.onClose(iterator::close);
+	}
+
+	public int getProducerCount() {
+		return producerCount;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public boolean isOrdered() {
+		return ordered;
+	}
+
+	private static Thread createThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, "ml4j-prefetch-" + THREAD_COUNT.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private class PrefetchingIterator<S, T> implements Iterator<T> {
+
+		private final CompletableFuture<T> end = new CompletableFuture<>();
+
+		private Stream<S> source;
+		private Function<S, T> transform;
+		private ExecutorService producers;
+		private Thread feeder;
+		private Semaphore permits;
+		private BlockingQueue<CompletableFuture<T>> results;
+		private CompletableFuture<T> next;
+		private volatile boolean closed;
+
+		public PrefetchingIterator(Stream<S> source, Function<S, T> transform) {
+			this.source = source;
+			this.transform = transform;
+			this.producers = Executors.newFixedThreadPool(producerCount, Prefetcher::createThread);
+			this.permits = new Semaphore(capacity);
+			this.results = new LinkedBlockingQueue<>();
+			this.feeder = createThread(this::feed);
+		}
+
+		public void start() {
+			feeder.start();
+		}
+
+		private void feed() {
+			try {
+				Iterator<S> sourceIterator = source.iterator();
+				while (!closed) {
+					permits.acquire();
+					if (!sourceIterator.hasNext()) {
+						permits.release();
+						break;
+					}
+					S element = sourceIterator.next();
+					CompletableFuture<T> result = CompletableFuture.supplyAsync(() -> transform.apply(element),
+							producers);
+					if (ordered) {
+						results.add(result);
+					} else {
+						result.whenComplete((value, exception) -> results.add(result));
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (RuntimeException e) {
+				results.add(CompletableFuture.failedFuture(e));
+			} finally {
+				producers.shutdown();
+				if (!ordered) {
+					awaitProducers();
+				}
+				results.add(end);
+			}
+		}
+
+		private void awaitProducers() {
+			try {
+				while (!producers.awaitTermination(1, TimeUnit.SECONDS)) {
+					if (closed) {
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next == null) {
+				try {
+					next = results.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted when waiting for prefetched element", e);
+				}
+			}
+			return next != end;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			CompletableFuture<T> result = next;
+			next = null;
+			permits.release();
+			try {
+				return result.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IllegalStateException("Unable to prefetch element", e.getCause());
+			}
+		}
+
+		public void close() {
+			closed = true;
+			feeder.interrupt();
+			producers.shutdownNow();
+			source.close();
+		}
+	}
+}
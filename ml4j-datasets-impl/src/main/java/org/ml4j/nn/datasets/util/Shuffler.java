@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.ml4j.nn.datasets.util;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.ml4j.nn.neurons.EpochPermutations;
+
+/**
+ * Shuffles the examples of a data set differently on each epoch, reproducibly
+ * for a given seed.
+ *
+ * Each stream obtained from a shuffled data set is an epoch - the epoch index
+ * is combined with the seed to seed the shuffle of that epoch, as by
+ * EpochPermutations. Random-access sources are shuffled through a permutation
+ * of their example indexes, and pure streams through a shuffle buffer of
+ * bufferSize elements.
+ *
+ * The data sets take the epoch index of each stream from the counter of this
+ * shuffler, by nextEpoch(), as their streams are obtained from suppliers
+ * without an epoch argument. So every stream obtained advances the epoch -
+ * including a stream obtained for some other purpose than training, eg. to
+ * count the batches, and the streams of any other data set shuffled by this
+ * shuffler. To reproduce the order of a run, use one shuffler per data set and
+ * obtain one stream per epoch - or position the counter by setNextEpoch(int),
+ * eg. when resuming training from a given epoch.
+ *
+ * @author Michael Lavelle
+ */
+public class Shuffler {
+
+	private long seed;
+	private int bufferSize;
+	private AtomicInteger epochIndex;
+
+	/**
+	 * @param seed       The seed of the shuffles.
+	 * @param bufferSize The size of the buffer streams are shuffled through.
+	 */
+	public Shuffler(long seed, int bufferSize) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("Buffer size must be at least 1");
+		}
+		this.seed = seed;
+		this.bufferSize = bufferSize;
+		this.epochIndex = new AtomicInteger();
+	}
+
+	/**
+	 * Advance the epoch counter - called by the shuffled data sets once for each
+	 * stream obtained.
+	 * 
+	 * @return The index of the next epoch, starting at 0.
+	 */
+	public int nextEpoch() {
+		return epochIndex.getAndIncrement();
+	}
+
+	/**
+	 * @param epoch The index to be returned by the next call to nextEpoch().
+	 */
+	public void setNextEpoch(int epoch) {
+		if (epoch < 0) {
+			throw new IllegalArgumentException("Epoch must be non-negative");
+		}
+		epochIndex.set(epoch);
+	}
+
+	/**
+	 * @return A random number generator for the epoch, seeded from the seed of
+	 *         this shuffler and the epoch index.
+	 */
+	public Random getRandom(int epoch) {
+		return EpochPermutations.createRandom(seed, epoch);
+	}
+
+	/**
+	 * @return A uniformly random permutation of the indexes [0, size) for the
+	 *         epoch.
+	 */
+	public int[] getPermutation(int size, int epoch) {
+		return EpochPermutations.createPermutation(size, seed, epoch);
+	}
+
+	/**
+	 * @return The stream shuffled through the shuffle buffer, for the epoch.
+	 */
+	public <T> Stream<T> shuffle(Stream<T> stream, int epoch) {
+		return StreamUtil.shuffle(stream, bufferSize, getRandom(epoch));
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+}
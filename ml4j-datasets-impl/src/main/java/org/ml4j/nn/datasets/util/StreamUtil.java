@@ -19,11 +19,16 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Random;
+import java.util.Spliterators;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.ml4j.images.Image;
 import org.ml4j.nn.datasets.DataBatch;
@@ -132,6 +137,45 @@ public class StreamUtil {
 	}
 	
 	
+	/**
+	 * Shuffle a stream through a buffer of bufferSize elements - each element
+	 * output is chosen at random from the buffer, and replaced by the next
+	 * element of the stream. Elements are displaced by up to bufferSize
+	 * positions, so a buffer of at least the stream length gives a uniform
+	 * shuffle, with memory bounded by the buffer for longer streams.
+	 */
+	public static <T> Stream<T> shuffle(Stream<T> stream, int bufferSize, Random random) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("Buffer size must be at least 1");
+		}
+		Iterator<T> iterator = stream.iterator();
+		List<T> buffer = new ArrayList<>();
+		Iterator<T> shuffled = new Iterator<T>() {
+
+			@Override
+			public boolean hasNext() {
+				while (buffer.size() < bufferSize && iterator.hasNext()) {
+					buffer.add(iterator.next());
+				}
+				return !buffer.isEmpty();
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				int last = buffer.size() - 1;
+				int index = random.nextInt(buffer.size());
+				T element = buffer.get(index);
+				buffer.set(index, buffer.get(last));
+				buffer.remove(last);
+				return element;
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(shuffled, 0), false).onClose(stream::close);
+	}
+
 	public static <T> Stream<T> toStream(final ObjectInputStream stream, final Class<T> cls) {
 		return Stream.generate(() -> cls.cast(readObject(stream))).onClose(() -> close(stream)).takeWhile(e -> e != null);
 	}
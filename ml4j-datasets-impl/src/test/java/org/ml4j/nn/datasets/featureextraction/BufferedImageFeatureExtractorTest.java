@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.datasets.featureextraction;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ml4j.nn.datasets.exceptions.FeatureExtractionException;
+
+public class BufferedImageFeatureExtractorTest {
+
+  private static final int WIDTH = 5;
+
+  private static final int HEIGHT = 4;
+
+  /**
+   * Types read from the component raster, from the packed raster, and through
+   * getRGB.
+   */
+  private static final int[] IMAGE_TYPES = new int[] {
+      BufferedImage.TYPE_3BYTE_BGR,
+      BufferedImage.TYPE_4BYTE_ABGR,
+      BufferedImage.TYPE_INT_RGB,
+      BufferedImage.TYPE_INT_ARGB,
+      BufferedImage.TYPE_INT_BGR,
+      BufferedImage.TYPE_USHORT_565_RGB,
+      BufferedImage.TYPE_BYTE_GRAY};
+
+  private BufferedImageFeatureExtractor featureExtractor = new BufferedImageFeatureExtractor(WIDTH, HEIGHT);
+
+  private Random random = new Random(42);
+
+  @Test
+  public void testFeaturesMatchGetRGB() throws FeatureExtractionException {
+    for (int type : IMAGE_TYPES) {
+      BufferedImage image = createImage(type, WIDTH, HEIGHT);
+      Assert.assertArrayEquals("Type " + type, getExpectedFeatures(image), featureExtractor.getFeatures(image), 0f);
+    }
+  }
+
+  @Test
+  public void testFeaturesOfSubimageMatchGetRGB() throws FeatureExtractionException {
+    // The raster of a subimage is translated within the data buffer of its parent
+    for (int type : IMAGE_TYPES) {
+      BufferedImage image = createImage(type, WIDTH + 3, HEIGHT + 2).getSubimage(2, 1, WIDTH, HEIGHT);
+      Assert.assertArrayEquals("Type " + type, getExpectedFeatures(image), featureExtractor.getFeatures(image), 0f);
+    }
+  }
+
+  @Test
+  public void testStridedFeaturesMatchGetRGB() throws FeatureExtractionException {
+    // As written by ImageBatchDecoder, each image into a column of a features x examples matrix
+    int featureCount = featureExtractor.getFeatureCount();
+    int exampleCount = IMAGE_TYPES.length;
+    float[] batch = new float[featureCount * exampleCount];
+    float[][] expectedFeatures = new float[exampleCount][];
+    for (int example = 0; example < exampleCount; example++) {
+      BufferedImage image = createImage(IMAGE_TYPES[example], WIDTH, HEIGHT);
+      expectedFeatures[example] = getExpectedFeatures(image);
+      featureExtractor.getFeatures(image, batch, example, exampleCount);
+    }
+
+    for (int example = 0; example < exampleCount; example++) {
+      float[] column = new float[featureCount];
+      for (int feature = 0; feature < featureCount; feature++) {
+        column[feature] = batch[feature * exampleCount + example];
+      }
+      Assert.assertArrayEquals("Type " + IMAGE_TYPES[example], expectedFeatures[example], column, 0f);
+    }
+  }
+
+  @Test
+  public void testOffsetFeaturesLeaveRestOfTargetUnchanged() throws FeatureExtractionException {
+    int featureCount = featureExtractor.getFeatureCount();
+    for (int type : IMAGE_TYPES) {
+      BufferedImage image = createImage(type, WIDTH, HEIGHT);
+      float[] target = new float[featureCount + 4];
+      target[0] = -1;
+      target[1] = -1;
+      target[featureCount + 2] = -1;
+      target[featureCount + 3] = -1;
+      featureExtractor.getFeatures(image, target, 2, 1);
+
+      float[] features = new float[featureCount];
+      System.arraycopy(target, 2, features, 0, featureCount);
+      Assert.assertArrayEquals("Type " + type, getExpectedFeatures(image), features, 0f);
+      Assert.assertArrayEquals(new float[] {-1, -1, -1, -1},
+          new float[] {target[0], target[1], target[featureCount + 2], target[featureCount + 3]}, 0f);
+    }
+  }
+
+  private BufferedImage createImage(int type, int width, int height) {
+    BufferedImage image = new BufferedImage(width, height, type);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        // Opaque pixels, so that getRGB is not affected by the alpha of ARGB types
+        image.setRGB(x, y, 0xFF000000 | random.nextInt(1 << 24));
+      }
+    }
+    return image;
+  }
+
+  /**
+   * @return The planar (channel, height, width) features of the image, scaled
+   *         to [0, 1], read pixel by pixel through getRGB.
+   */
+  private float[] getExpectedFeatures(BufferedImage image) {
+    int channelLength = image.getWidth() * image.getHeight();
+    float[] features = new float[channelLength * 3];
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        int rgb = image.getRGB(x, y);
+        int index = y * image.getWidth() + x;
+        features[index] = ((rgb >>> 16) & 0xFF) * (1f / 255f);
+        features[channelLength + index] = ((rgb >>> 8) & 0xFF) * (1f / 255f);
+        features[2 * channelLength + index] = (rgb & 0xFF) * (1f / 255f);
+      }
+    }
+    return features;
+  }
+}
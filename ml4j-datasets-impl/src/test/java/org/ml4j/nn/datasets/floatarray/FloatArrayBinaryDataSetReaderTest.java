@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.datasets.floatarray;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.nn.neurons.NeuronsActivation;
+
+public class FloatArrayBinaryDataSetReaderTest {
+
+  private static final int FEATURE_COUNT = 3;
+
+  private static final int LABEL_FEATURE_COUNT = 2;
+
+  private static final int BLOCK_SIZE = 4;
+
+  private MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+
+  @Test
+  public void testRoundTripWithPartialLastBlock() throws IOException {
+    // Ten examples in blocks of four, so the last block holds two
+    Path path = write(10, LABEL_FEATURE_COUNT);
+
+    FloatArrayBinaryDataSetReader reader = new FloatArrayBinaryDataSetReader(path);
+    Assert.assertEquals(FEATURE_COUNT, reader.getFeatureCount());
+    Assert.assertEquals(LABEL_FEATURE_COUNT, reader.getLabelFeatureCount());
+    Assert.assertEquals(BLOCK_SIZE, reader.getBlockSize());
+    Assert.assertEquals(10, reader.getExampleCount());
+
+    // Whole data set, a range spanning all three blocks, and the partial block alone
+    assertRange(reader, 0, 10);
+    assertRange(reader, 3, 6);
+    assertRange(reader, 8, 2);
+  }
+
+  @Test
+  public void testRoundTripUnlabeled() throws IOException {
+    Path path = write(7, 0);
+
+    FloatArrayBinaryDataSetReader reader = new FloatArrayBinaryDataSetReader(path);
+    Assert.assertEquals(0, reader.getLabelFeatureCount());
+    Assert.assertEquals(7, reader.getExampleCount());
+
+    assertRange(reader, 0, 7);
+    assertRange(reader, 2, 5);
+  }
+
+  @Test
+  public void testReadActivationsByPermutation() throws IOException {
+    Path path = write(10, LABEL_FEATURE_COUNT);
+    int[] permutation = new int[] {9, 2, 5, 0, 8, 3, 7, 1, 6, 4};
+
+    FloatArrayBinaryDataSetReader reader = new FloatArrayBinaryDataSetReader(path);
+
+    // A range of the permutation which reads from every block, in no order
+    NeuronsActivation features = reader.readFeaturesActivation(matrixFactory, permutation, 1, 6);
+    NeuronsActivation labels = reader.readLabelsActivation(matrixFactory, permutation, 1, 6);
+
+    Assert.assertEquals(FEATURE_COUNT, features.getRows());
+    Assert.assertEquals(6, features.getColumns());
+    Assert.assertArrayEquals(expected(permutation, 1, 6, 0, FEATURE_COUNT),
+        features.getActivations(matrixFactory).getRowByRowArray(), 0f);
+    Assert.assertArrayEquals(expected(permutation, 1, 6, FEATURE_COUNT, LABEL_FEATURE_COUNT),
+        labels.getActivations(matrixFactory).getRowByRowArray(), 0f);
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncatedFileIsRejected() throws IOException {
+    Path path = write(10, LABEL_FEATURE_COUNT);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - Float.BYTES);
+    }
+    new FloatArrayBinaryDataSetReader(path);
+  }
+
+  @Test(expected = IOException.class)
+  public void testZeroBlockSizeIsRejected() throws IOException {
+    Path path = Files.createTempFile("float-array", ".bin");
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(FloatArrayBinaryFormat.encodeHeader(FEATURE_COUNT, LABEL_FEATURE_COUNT, 0, 0));
+    }
+    new FloatArrayBinaryDataSetReader(path);
+  }
+
+  @Test(expected = IOException.class)
+  public void testNegativeLabelFeatureCountIsRejected() throws IOException {
+    Path path = Files.createTempFile("float-array", ".bin");
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(FloatArrayBinaryFormat.encodeHeader(FEATURE_COUNT, -1, BLOCK_SIZE, 0));
+    }
+    new FloatArrayBinaryDataSetReader(path);
+  }
+
+  @Test(expected = IOException.class)
+  public void testOverflowingBlockIsRejected() throws IOException {
+    Path path = Files.createTempFile("float-array", ".bin");
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(FloatArrayBinaryFormat.encodeHeader(1 << 20, 0, 1 << 20, 0));
+    }
+    new FloatArrayBinaryDataSetReader(path);
+  }
+
+  private void assertRange(FloatArrayBinaryDataSetReader reader, int start, int count) {
+    int[] identity = new int[(int) reader.getExampleCount()];
+    for (int i = 0; i < identity.length; i++) {
+      identity[i] = i;
+    }
+    float[] features = new float[FEATURE_COUNT * count];
+    reader.readFeatures(start, count, features);
+    Assert.assertArrayEquals(expected(identity, start, count, 0, FEATURE_COUNT), features, 0f);
+
+    float[] labels = new float[reader.getLabelFeatureCount() * count];
+    reader.readLabels(start, count, labels);
+    Assert.assertArrayEquals(
+        expected(identity, start, count, FEATURE_COUNT, reader.getLabelFeatureCount()), labels, 0f);
+  }
+
+  /**
+   * Write examples whose values encode the example index and value index, so
+   * that any misplaced value is detected.
+   */
+  private Path write(int exampleCount, int labelFeatureCount) throws IOException {
+    Path path = Files.createTempFile("float-array", ".bin");
+    try (FloatArrayBinaryDataSetWriter writer = new FloatArrayBinaryDataSetWriter(path, FEATURE_COUNT,
+        labelFeatureCount, BLOCK_SIZE)) {
+      for (int example = 0; example < exampleCount; example++) {
+        float[] features = new float[FEATURE_COUNT];
+        for (int f = 0; f < FEATURE_COUNT; f++) {
+          features[f] = value(example, f);
+        }
+        float[] labels = new float[labelFeatureCount];
+        for (int l = 0; l < labelFeatureCount; l++) {
+          labels[l] = value(example, FEATURE_COUNT + l);
+        }
+        writer.write(features, labels);
+      }
+    }
+    return path;
+  }
+
+  /**
+   * @return The expected row-major values x examples matrix of the examples
+   *         indexed by a range of the permutation.
+   */
+  private float[] expected(int[] permutation, int start, int count, int valueOffset, int valueCount) {
+    float[] expected = new float[valueCount * count];
+    for (int v = 0; v < valueCount; v++) {
+      for (int i = 0; i < count; i++) {
+        expected[v * count + i] = value(permutation[start + i], valueOffset + v);
+      }
+    }
+    return expected;
+  }
+
+  private float value(int example, int valueIndex) {
+    return example * 100 + valueIndex + 1;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.datasets.images;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ImageCacheTest {
+
+  private static final int IMAGE_LENGTH = 4;
+
+  private static final long IMAGE_BYTES = IMAGE_LENGTH * Float.BYTES;
+
+  private int decodeCount;
+
+  @Test
+  public void testEvictedEntryIsReadBackFromSpillFile() throws IOException {
+    Path directory = Files.createTempDirectory("image-cache");
+    Path first = createImageFile(directory, "first");
+    Path second = createImageFile(directory, "second");
+
+    try (ImageCache cache = new ImageCache(IMAGE_BYTES, directory.resolve("spill"), 1 << 10)) {
+      cache.get(first, 2, 2, decoder(1));
+      cache.get(second, 2, 2, decoder(2));
+
+      // The first image was evicted by the second, and is read back rather than decoded
+      Assert.assertArrayEquals(image(1), cache.get(first, 2, 2, decoder(1)), 0f);
+      Assert.assertEquals(2, decodeCount);
+      Assert.assertEquals(1, cache.getSpillHits());
+    }
+  }
+
+  @Test
+  public void testSpillIsLimitedToBudgetBelowSegmentSize() throws IOException {
+    Path directory = Files.createTempDirectory("image-cache");
+    Path first = createImageFile(directory, "first");
+    Path second = createImageFile(directory, "second");
+    Path third = createImageFile(directory, "third");
+
+    // Room in memory for one image, and in the spill file for one more
+    try (ImageCache cache = new ImageCache(IMAGE_BYTES, directory.resolve("spill"), IMAGE_BYTES + 2)) {
+      cache.get(first, 2, 2, decoder(1));
+      cache.get(second, 2, 2, decoder(2));
+      cache.get(third, 2, 2, decoder(3));
+
+      // The first image was spilled, and the second discarded once the spill file was full
+      Assert.assertArrayEquals(image(1), cache.get(first, 2, 2, decoder(1)), 0f);
+      Assert.assertEquals(3, decodeCount);
+      Assert.assertEquals(1, cache.getSpillHits());
+      Assert.assertArrayEquals(image(2), cache.get(second, 2, 2, decoder(2)), 0f);
+      Assert.assertEquals(4, decodeCount);
+    }
+  }
+
+  private Function<Path, float[]> decoder(int value) {
+    return path -> {
+      decodeCount++;
+      return image(value);
+    };
+  }
+
+  private float[] image(int value) {
+    float[] data = new float[IMAGE_LENGTH];
+    for (int i = 0; i < IMAGE_LENGTH; i++) {
+      data[i] = value * 10 + i;
+    }
+    return data;
+  }
+
+  private Path createImageFile(Path directory, String name) throws IOException {
+    return Files.createFile(directory.resolve(name));
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.datasets.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrefetcherTest {
+
+  private static final long TIMEOUT_MILLIS = 10000;
+
+  @Test
+  public void testOrderedDelivery() {
+    // Transforms take random times, so complete out of source order
+    Random random = new Random(42);
+    int[] sleepMillis = IntStream.range(0, 50).map(i -> random.nextInt(5)).toArray();
+    Prefetcher prefetcher = new Prefetcher(4, 8, true);
+
+    List<Integer> delivered;
+    try (Stream<Integer> prefetched = prefetcher.prefetch(IntStream.range(0, 50).boxed(), i -> {
+      sleep(sleepMillis[i]);
+      return i * 2;
+    })) {
+      delivered = prefetched.collect(Collectors.toList());
+    }
+
+    Assert.assertEquals(IntStream.range(0, 50).map(i -> i * 2).boxed().collect(Collectors.toList()), delivered);
+  }
+
+  @Test
+  public void testUnorderedDelivery() {
+    // The first element is only produced once another has been delivered
+    CountDownLatch firstDelivered = new CountDownLatch(1);
+    Prefetcher prefetcher = new Prefetcher(2, 4, false);
+
+    List<Integer> delivered = new ArrayList<>();
+    try (Stream<Integer> prefetched = prefetcher.prefetch(IntStream.range(0, 10).boxed(), i -> {
+      if (i == 0) {
+        await(firstDelivered);
+      }
+      return i;
+    })) {
+      Iterator<Integer> iterator = prefetched.iterator();
+      delivered.add(iterator.next());
+      firstDelivered.countDown();
+      iterator.forEachRemaining(delivered::add);
+    }
+
+    Assert.assertNotEquals(0, delivered.get(0).intValue());
+    Assert.assertEquals(10, delivered.size());
+    Assert.assertEquals(IntStream.range(0, 10).boxed().collect(Collectors.toSet()), new HashSet<>(delivered));
+  }
+
+  @Test
+  public void testBackpressureCapsElementsInFlight() {
+    int capacity = 3;
+    AtomicInteger pulled = new AtomicInteger();
+    Prefetcher prefetcher = new Prefetcher(2, capacity, true);
+
+    try (Stream<Integer> prefetched = prefetcher.prefetch(
+        IntStream.range(0, 100).boxed().peek(i -> pulled.incrementAndGet()), i -> i)) {
+      Iterator<Integer> iterator = prefetched.iterator();
+
+      // Nothing consumed, so the feeder stops once capacity elements are in flight
+      awaitCondition(() -> pulled.get() == capacity);
+      sleep(100);
+      Assert.assertEquals(capacity, pulled.get());
+
+      for (int consumed = 1; consumed <= 100; consumed++) {
+        Assert.assertEquals(consumed - 1, iterator.next().intValue());
+        Assert.assertTrue(pulled.get() <= capacity + consumed);
+      }
+      Assert.assertFalse(iterator.hasNext());
+    }
+    Assert.assertEquals(100, pulled.get());
+  }
+
+  @Test
+  public void testTransformExceptionReachesConsumer() {
+    for (boolean ordered : new boolean[] {true, false}) {
+      IllegalStateException failure = new IllegalStateException("Unable to transform");
+      Prefetcher prefetcher = new Prefetcher(2, 4, ordered);
+
+      List<Integer> delivered = new ArrayList<>();
+      try (Stream<Integer> prefetched = prefetcher.prefetch(IntStream.range(0, 10).boxed(), i -> {
+        if (i == 3) {
+          throw failure;
+        }
+        return i;
+      })) {
+        prefetched.forEach(delivered::add);
+        Assert.fail("Expected the transform exception to be rethrown");
+      } catch (IllegalStateException e) {
+        Assert.assertSame(failure, e);
+      }
+
+      if (ordered) {
+        Assert.assertEquals(List.of(0, 1, 2), delivered);
+      }
+      Assert.assertFalse(delivered.contains(3));
+    }
+  }
+
+  @Test
+  public void testSourceExceptionReachesConsumer() {
+    IllegalArgumentException failure = new IllegalArgumentException("Unable to read");
+    Prefetcher prefetcher = new Prefetcher(2, 4, true);
+
+    List<Integer> delivered = new ArrayList<>();
+    try (Stream<Integer> prefetched = prefetcher.prefetch(IntStream.range(0, 10).boxed().map(i -> {
+      if (i == 3) {
+        throw failure;
+      }
+      return i;
+    }))) {
+      prefetched.forEach(delivered::add);
+      Assert.fail("Expected the source exception to be rethrown");
+    } catch (IllegalArgumentException e) {
+      Assert.assertSame(failure, e);
+    }
+
+    Assert.assertEquals(List.of(0, 1, 2), delivered);
+  }
+
+  @Test
+  public void testEarlyCloseStopsFeeder() {
+    for (boolean ordered : new boolean[] {true, false}) {
+      for (int consumedCount : new int[] {0, 1, 5}) {
+        Set<Thread> threadsBefore = getPrefetchThreads();
+        AtomicInteger pulled = new AtomicInteger();
+        AtomicBoolean sourceClosed = new AtomicBoolean();
+        Prefetcher prefetcher = new Prefetcher(2, 2, ordered);
+
+        // An unbounded source, so the feeder is blocked waiting for a permit when closed
+        Stream<Integer> prefetched = prefetcher.prefetch(Stream.iterate(0, i -> i + 1)
+            .peek(i -> pulled.incrementAndGet()).onClose(() -> sourceClosed.set(true)), i -> i);
+        Iterator<Integer> iterator = prefetched.iterator();
+        for (int i = 0; i < consumedCount; i++) {
+          iterator.next();
+        }
+        awaitCondition(() -> pulled.get() == consumedCount + prefetcher.getCapacity());
+        prefetched.close();
+
+        Assert.assertTrue(sourceClosed.get());
+        awaitCondition(() -> {
+          Set<Thread> threads = getPrefetchThreads();
+          threads.removeAll(threadsBefore);
+          return threads.isEmpty();
+        });
+        Assert.assertEquals(consumedCount + prefetcher.getCapacity(), pulled.get());
+      }
+    }
+  }
+
+  private Set<Thread> getPrefetchThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(t -> t.isAlive() && t.getName().startsWith("ml4j-prefetch-")).collect(Collectors.toSet());
+  }
+
+  private void awaitCondition(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        Assert.fail("Timed out waiting for condition");
+      }
+      sleep(10);
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      Assert.assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.datasets.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShufflerTest {
+
+  private static final long SEED = 42;
+
+  private static final int SIZE = 100;
+
+  @Test
+  public void testNextEpochCountsFromZero() {
+    Shuffler shuffler = new Shuffler(SEED, 10);
+    Assert.assertEquals(0, shuffler.nextEpoch());
+    Assert.assertEquals(1, shuffler.nextEpoch());
+    Assert.assertEquals(2, shuffler.nextEpoch());
+
+    shuffler.setNextEpoch(5);
+    Assert.assertEquals(5, shuffler.nextEpoch());
+    Assert.assertEquals(6, shuffler.nextEpoch());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeNextEpochIsRejected() {
+    new Shuffler(SEED, 10).setNextEpoch(-1);
+  }
+
+  @Test
+  public void testSeededPermutationsAreDeterministic() {
+    int[] permutation = new Shuffler(SEED, 10).getPermutation(SIZE, 3);
+    assertPermutation(permutation);
+    Assert.assertArrayEquals(permutation, new Shuffler(SEED, 10).getPermutation(SIZE, 3));
+    Assert.assertFalse(Arrays.equals(permutation, new Shuffler(SEED + 1, 10).getPermutation(SIZE, 3)));
+  }
+
+  @Test
+  public void testPermutationsDifferAcrossEpochs() {
+    Shuffler shuffler = new Shuffler(SEED, 10);
+    int[] first = shuffler.getPermutation(SIZE, 0);
+    int[] second = shuffler.getPermutation(SIZE, 1);
+    assertPermutation(first);
+    assertPermutation(second);
+    Assert.assertFalse(Arrays.equals(first, second));
+  }
+
+  @Test
+  public void testSeededShufflesAreDeterministic() {
+    List<Integer> shuffled = shuffle(new Shuffler(SEED, 10), 3);
+    Assert.assertEquals(shuffled, shuffle(new Shuffler(SEED, 10), 3));
+    Assert.assertNotEquals(shuffled, shuffle(new Shuffler(SEED + 1, 10), 3));
+    Assert.assertNotEquals(shuffled, shuffle(new Shuffler(SEED, 10), 4));
+  }
+
+  @Test
+  public void testBufferOfAtLeastStreamLengthGivesPermutation() {
+    for (int bufferSize : new int[] {SIZE, SIZE * 2}) {
+      List<Integer> shuffled = shuffle(new Shuffler(SEED, bufferSize), 0);
+      Assert.assertNotEquals(range(), shuffled);
+      Assert.assertEquals(range(), shuffled.stream().sorted().collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void testEachStreamObtainedIsAnEpoch() {
+    // As the shuffled data sets obtain their streams
+    Shuffler shuffler = new Shuffler(SEED, SIZE);
+    Supplier<Stream<Integer>> shuffledStreams = () -> shuffler.shuffle(range().stream(), shuffler.nextEpoch());
+
+    List<Integer> first = shuffledStreams.get().collect(Collectors.toList());
+    List<Integer> second = shuffledStreams.get().collect(Collectors.toList());
+    Assert.assertNotEquals(first, second);
+    Assert.assertEquals(shuffle(new Shuffler(SEED, SIZE), 0), first);
+    Assert.assertEquals(shuffle(new Shuffler(SEED, SIZE), 1), second);
+    Assert.assertEquals(2, shuffler.nextEpoch());
+
+    // Resuming from the second epoch reproduces its order
+    Shuffler resumed = new Shuffler(SEED, SIZE);
+    resumed.setNextEpoch(1);
+    Assert.assertEquals(second, resumed.shuffle(range().stream(), resumed.nextEpoch())
+        .collect(Collectors.toList()));
+  }
+
+  private List<Integer> shuffle(Shuffler shuffler, int epoch) {
+    return shuffler.shuffle(range().stream(), epoch).collect(Collectors.toList());
+  }
+
+  private List<Integer> range() {
+    return IntStream.range(0, SIZE).boxed().collect(Collectors.toList());
+  }
+
+  private void assertPermutation(int[] permutation) {
+    int[] sorted = permutation.clone();
+    Arrays.sort(sorted);
+    Assert.assertArrayEquals(IntStream.range(0, permutation.length).toArray(), sorted);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.datasets.util;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamUtilTest {
+
+  private static final long SEED = 42;
+
+  private static final int SIZE = 100;
+
+  @Test
+  public void testShuffleIsDeterministicForSeed() {
+    List<Integer> shuffled = shuffle(10, new Random(SEED));
+    Assert.assertEquals(shuffled, shuffle(10, new Random(SEED)));
+    Assert.assertNotEquals(shuffled, shuffle(10, new Random(SEED + 1)));
+  }
+
+  @Test
+  public void testShuffleWithBufferOfAtLeastStreamLengthGivesPermutation() {
+    for (int bufferSize : new int[] {SIZE, SIZE + 1, SIZE * 10}) {
+      List<Integer> shuffled = shuffle(bufferSize, new Random(SEED));
+      Assert.assertNotEquals(range(), shuffled);
+      Assert.assertEquals(range(), shuffled.stream().sorted().collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void testShuffleDisplacementIsBoundedByBuffer() {
+    int bufferSize = 10;
+    List<Integer> shuffled = shuffle(bufferSize, new Random(SEED));
+    Assert.assertEquals(range(), shuffled.stream().sorted().collect(Collectors.toList()));
+    // An element enters the buffer only once the elements bufferSize before it have
+    for (int position = 0; position < SIZE; position++) {
+      Assert.assertTrue(shuffled.get(position) < position + bufferSize);
+    }
+  }
+
+  @Test
+  public void testShuffleWithBufferOfOneKeepsOrder() {
+    Assert.assertEquals(range(), shuffle(1, new Random(SEED)));
+  }
+
+  @Test
+  public void testShuffleClosesSource() {
+    AtomicBoolean closed = new AtomicBoolean();
+    Stream<Integer> source = range().stream().onClose(() -> closed.set(true));
+    try (Stream<Integer> shuffled = StreamUtil.shuffle(source, 10, new Random(SEED))) {
+      Assert.assertEquals(SIZE, shuffled.count());
+    }
+    Assert.assertTrue(closed.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroBufferSizeIsRejected() {
+    StreamUtil.shuffle(range().stream(), 0, new Random(SEED));
+  }
+
+  private List<Integer> shuffle(int bufferSize, Random random) {
+    return StreamUtil.shuffle(range().stream(), bufferSize, random).collect(Collectors.toList());
+  }
+
+  private List<Integer> range() {
+    return IntStream.range(0, SIZE).boxed().collect(Collectors.toList());
+  }
+}
@@ -14,7 +14,8 @@
 
 package org.ml4j.nn.unsupervised;
 
-import org.ml4j.EditableMatrix;
+import java.util.function.Supplier;
+
 import org.ml4j.Matrix;
 import org.ml4j.MatrixFactory;
 import org.ml4j.nn.activationfunctions.ActivationFunction;
@@ -26,10 +27,10 @@ import org.ml4j.nn.axons.factories.AxonsFactory;
 import org.ml4j.nn.layers.RestrictedBoltzmannLayer;
 import org.ml4j.nn.layers.RestrictedBoltzmannLayerActivation;
 import org.ml4j.nn.layers.RestrictedBoltzmannLayerImpl;
+import org.ml4j.nn.layers.UndirectedLayerContext;
 import org.ml4j.nn.neurons.Neurons;
 import org.ml4j.nn.neurons.NeuronsActivation;
-import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
-import org.ml4j.nn.neurons.NeuronsActivationImpl;
+import org.ml4j.nn.neurons.NeuronsActivationBatches;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +46,15 @@ public class RestrictedBoltzmannMachineImpl implements RestrictedBoltzmannMachin
 
   private RestrictedBoltzmannLayer<TrainableAxons<?, ?, ?>> restrictedBoltzmannLayer;
 
+  private int gibbsSamplingSteps = 1;
+
+  private boolean persistentContrastiveDivergence;
+
+  /**
+   * The sampled visible states of the persistent Gibbs chains, carried across mini-batches.
+   */
+  private transient NeuronsActivation fantasyParticles;
+
   public RestrictedBoltzmannMachineImpl(
       RestrictedBoltzmannLayer<TrainableAxons<?, ?, ?>> restrictedBoltzmannLayer) {
     this.restrictedBoltzmannLayer = restrictedBoltzmannLayer;
@@ -79,7 +89,36 @@ public class RestrictedBoltzmannMachineImpl implements RestrictedBoltzmannMachin
 
   @Override
   public RestrictedBoltzmannMachine dup() {
-    return new RestrictedBoltzmannMachineImpl(restrictedBoltzmannLayer.dup());
+    RestrictedBoltzmannMachineImpl dup =
+        new RestrictedBoltzmannMachineImpl(restrictedBoltzmannLayer.dup());
+    dup.setGibbsSamplingSteps(gibbsSamplingSteps);
+    dup.setPersistentContrastiveDivergence(persistentContrastiveDivergence);
+    return dup;
+  }
+
+  /**
+   * Set the number of Gibbs sampling steps k taken from the start of the chain to the
+   * negative statistics on each mini-batch - 1, the default, for CD-1.
+   * 
+   * @param gibbsSamplingSteps The number of Gibbs sampling steps.
+   */
+  public void setGibbsSamplingSteps(int gibbsSamplingSteps) {
+    if (gibbsSamplingSteps < 1) {
+      throw new IllegalArgumentException("Gibbs sampling steps must be at least 1");
+    }
+    this.gibbsSamplingSteps = gibbsSamplingSteps;
+  }
+
+  /**
+   * Set whether to train with persistent contrastive divergence - continuing the Gibbs chains
+   * of the negative statistics from the fantasy particles of the previous mini-batch, rather
+   * than restarting them at the data. The fantasy particles are initialised to the first
+   * mini-batch of each call to train.
+   * 
+   * @param persistentContrastiveDivergence Whether to use persistent contrastive divergence.
+   */
+  public void setPersistentContrastiveDivergence(boolean persistentContrastiveDivergence) {
+    this.persistentContrastiveDivergence = persistentContrastiveDivergence;
   }
 
   /*
@@ -126,7 +165,16 @@ public class RestrictedBoltzmannMachineImpl implements RestrictedBoltzmannMachin
     LOGGER.info("Training the RestrictedBoltzmannMachine for " + numberOfEpochs + " epochs");
 
     NeuronsActivation data = null;
-    NeuronsActivation lastReconstructions = null;
+    Supplier<NeuronsActivation> lastReconstructions = null;
+
+    fantasyParticles = null;
+
+    // Lay out the mini-batches once, rather than copying the columns of each batch on every epoch
+    NeuronsActivationBatches batches = null;
+    if (trainingContext.getTrainingMiniBatchSize() != null) {
+      batches = new NeuronsActivationBatches(trainingActivations,
+          trainingContext.getTrainingMiniBatchSize(), trainingContext.getMatrixFactory());
+    }
 
     for (int i = 0; i < numberOfEpochs; i++) {
 
@@ -137,243 +185,150 @@ public class RestrictedBoltzmannMachineImpl implements RestrictedBoltzmannMachin
         lastReconstructions = trainOnBatch(data, trainingContext);
 
         LOGGER.info("Epoch:" + (i + 1) + " Average Reconstruction Error:"
-            + getAverageReconstructionError(trainingContext.getMatrixFactory(),trainingActivations, lastReconstructions));
+            + getAverageReconstructionError(trainingContext.getMatrixFactory(),trainingActivations, lastReconstructions.get()));
 
       } else {
-        int miniBatchSize = trainingContext.getTrainingMiniBatchSize();
-        int numberOfTrainingElements = trainingActivations.getActivations(trainingContext.getMatrixFactory()).getColumns();
-        int numberOfBatches = (numberOfTrainingElements - 1) / miniBatchSize + 1;
+        int numberOfBatches = batches.getBatchCount();
         for (int batchIndex = 0; batchIndex < numberOfBatches; batchIndex++) {
-          int startColumnIndex = batchIndex * miniBatchSize;
-          int endColumnIndex =
-              Math.min(startColumnIndex + miniBatchSize - 1, numberOfTrainingElements - 1);
-          int[] colIndexes = new int[endColumnIndex - startColumnIndex + 1];
-          for (int c = startColumnIndex; c <= endColumnIndex; c++) {
-        	  colIndexes[c - startColumnIndex] = c;
-          }
-
-          Matrix dataBatch = trainingActivations.getActivations(trainingContext.getMatrixFactory()).getColumns(colIndexes);
 
           NeuronsActivation batchDataActivations =
-              new NeuronsActivationImpl(dataBatch, trainingActivations.getFeatureOrientation());
+              batches.getBatch(batchIndex, trainingContext.getMatrixFactory());
           data = batchDataActivations;
           
           lastReconstructions = trainOnBatch(data, trainingContext);
 
-          LOGGER.trace("Epoch:" + i + " batch " + batchIndex + " Average Reconstruction Error:"
-              + getAverageReconstructionError(trainingContext.getMatrixFactory(), batchDataActivations, lastReconstructions));
-
-          batchIndex++;
+          if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Epoch:" + i + " batch " + batchIndex + " Average Reconstruction Error:"
+                + getAverageReconstructionError(trainingContext.getMatrixFactory(), batchDataActivations, lastReconstructions.get()));
+          }
 
         }
         LOGGER.info("Epoch:" + i + " Average Reconstruction Error:"
-            + getAverageReconstructionError(trainingContext.getMatrixFactory(), data, lastReconstructions));
+            + getAverageReconstructionError(trainingContext.getMatrixFactory(), data, lastReconstructions.get()));
       }
     }
   }
 
 
-  private NeuronsActivation trainOnBatch(NeuronsActivation data,
+  /**
+   * Adjust the weights by CD-k, or PCD-k, on the mini-batch.
+   * 
+   * @return A supplier of the reconstruction of the data, for logging.
+   */
+  private Supplier<NeuronsActivation> trainOnBatch(NeuronsActivation data,
       RestrictedBoltzmannMachineContext trainingContext) {
 
-    NeuronsActivation visibleActivations = data;
-
-    RestrictedBoltzmannSamplingActivation samplingActivation =
-        performGibbsSampling(data, 1, trainingContext);
-
-    RestrictedBoltzmannLayerActivation firstHiddenNeuronsDataActivation =
-        samplingActivation.getFirstHiddenNeuronsActivation();
-    RestrictedBoltzmannLayerActivation firstVisibleNeuronsReconstructionLayerActivation =
-        samplingActivation.getFirstVisibleNeuronsReconstructionLayerActivation();
-
-    RestrictedBoltzmannLayerActivation lastVisibleNeuronsReconstructionLayerActivation =
-        samplingActivation.getLastVisibleNeuronsReconstructionLayerActivation();
+    UndirectedLayerContext layerContext = trainingContext.getLayerContext();
+    MatrixFactory matrixFactory = trainingContext.getMatrixFactory();
 
-    // Perform up to 1 gibbs sampling steps
-    for (int c = 0; c < 1; c++) {
+    // Push the visible data to the hidden neurons
+    RestrictedBoltzmannLayerActivation hiddenNeuronsDataActivation =
+        restrictedBoltzmannLayer.activateHiddenNeuronsFromVisibleNeuronsData(data, layerContext);
 
-      // Push the visible data to the hidden neurons
-
-      RestrictedBoltzmannLayerActivation hiddenNeuronsDataActivation =
-          restrictedBoltzmannLayer.activateHiddenNeuronsFromVisibleNeuronsData(visibleActivations,
-              trainingContext.getLayerContext());
-
-      if (firstHiddenNeuronsDataActivation == null) {
-        firstHiddenNeuronsDataActivation = hiddenNeuronsDataActivation;
+    // Start the chain at the data, or from the fantasy particles of the previous mini-batch
+    RestrictedBoltzmannLayerActivation hiddenNeuronsChainActivation = hiddenNeuronsDataActivation;
+    if (persistentContrastiveDivergence) {
+      if (fantasyParticles == null) {
+        fantasyParticles = data;
       }
+      hiddenNeuronsChainActivation = restrictedBoltzmannLayer
+          .activateHiddenNeuronsFromVisibleNeuronsData(fantasyParticles, layerContext);
+    }
 
-      // Push a hidden neuron sample to the visible neurons to get a reconstruction
-
-      RestrictedBoltzmannLayerActivation visibleNeuronsReconstructionLayerActivation =
-    		  restrictedBoltzmannLayer.activateVisibleNeuronsFromHiddenNeuronsSample(
-              firstHiddenNeuronsDataActivation, trainingContext.getLayerContext());
+    RestrictedBoltzmannLayerActivation visibleNeuronsReconstructionLayerActivation = null;
 
-      lastVisibleNeuronsReconstructionLayerActivation = visibleNeuronsReconstructionLayerActivation;
+    for (int step = 0; step < gibbsSamplingSteps; step++) {
 
-      if (firstVisibleNeuronsReconstructionLayerActivation == null) {
-        firstVisibleNeuronsReconstructionLayerActivation =
-            visibleNeuronsReconstructionLayerActivation;
-      }
+      // Push a hidden neuron sample to the visible neurons to get a reconstruction
+      visibleNeuronsReconstructionLayerActivation =
+          restrictedBoltzmannLayer.activateVisibleNeuronsFromHiddenNeuronsSample(
+              hiddenNeuronsChainActivation, layerContext);
+
+      // Push the reconstruction back to the hidden neurons
+      hiddenNeuronsChainActivation =
+          restrictedBoltzmannLayer.activateHiddenNeuronsFromVisibleNeuronsReconstruction(
+              visibleNeuronsReconstructionLayerActivation, layerContext);
+    }
 
-      visibleActivations =
-          visibleNeuronsReconstructionLayerActivation.getVisibleActivationProbablities();
+    // The positive statistics are of the data and the hidden probabilities driven by the data, in
+    // both modes - the probabilities rather than a sample, to avoid adding sampling noise
+    Matrix positiveVisible = hiddenNeuronsDataActivation.getSynapsesActivation()
+        .getAxonsActivation().getPostDropoutInput().get().getActivations(matrixFactory);
+    Matrix positiveHidden =
+        hiddenNeuronsDataActivation.getHiddenActivationProbabilities().getActivations(matrixFactory);
 
-    }
+    // The negative statistics are of the end of the chain
+    Matrix negativeVisible = hiddenNeuronsChainActivation.getSynapsesActivation()
+        .getAxonsActivation().getPostDropoutInput().get().getActivations(matrixFactory);
+    Matrix negativeHidden =
+        hiddenNeuronsChainActivation.getHiddenActivationProbabilities().getActivations(matrixFactory);
 
-    NeuronsActivation lastReconstructions =
-        lastVisibleNeuronsReconstructionLayerActivation.getVisibleActivationProbablities();
-
-    RestrictedBoltzmannLayerActivation contrastiveDivergenceActivation =
-    		restrictedBoltzmannLayer.activateHiddenNeuronsFromVisibleNeuronsReconstruction(
-            lastVisibleNeuronsReconstructionLayerActivation, trainingContext.getLayerContext());
-
-    // Calculate the statistics and the weight adjustment
-    Matrix adjustment = getWeightsAdjustment(firstHiddenNeuronsDataActivation,
-        firstVisibleNeuronsReconstructionLayerActivation, contrastiveDivergenceActivation,
-        trainingContext);
-        
-    int[] rows = new int[adjustment.getRows() - 1];
-    for (int r = 0; r < rows.length; r++) {
-    	rows[r] = r + 1;
-    }
-    
-    int[] columns = new int[adjustment.getColumns() - 1];
-    for (int c = 0; c < columns.length; c++) {
-    	columns[c] = c + 1;
-    }
-    
-    Matrix weightAdjustment = adjustment.get(rows, columns);
-    
-    Matrix leftToRightBiases = adjustment.getRow(0).getColumns(columns);
-    Matrix rightToLeftBiases = adjustment.getColumn(0).getRows(rows);
-    
-    AxonWeightsAdjustment axonWeightsAdjustment = new AxonWeightsAdjustmentImpl(weightAdjustment.transpose(), leftToRightBiases.transpose(), rightToLeftBiases);
+    AxonWeightsAdjustment axonWeightsAdjustment = getAxonWeightsAdjustment(positiveVisible,
+        positiveHidden, negativeVisible, negativeHidden, trainingContext.getTrainingLearningRate());
 
     restrictedBoltzmannLayer.getPrimaryAxons().adjustAxonWeights(axonWeightsAdjustment,
         AxonWeightsAdjustmentDirection.ADDITION);
 
-    return lastReconstructions;
-
+    if (persistentContrastiveDivergence) {
+      // Continue the chains from sampled visible states, so that they remain Gibbs chains rather
+      // than a mean-field iteration of the probabilities
+      fantasyParticles = visibleNeuronsReconstructionLayerActivation
+          .getVisibleActivationBinarySample(matrixFactory);
+      // The chain did not start at the data, so reconstruct the data for logging
+      return () -> restrictedBoltzmannLayer.activateVisibleNeuronsFromHiddenNeuronsProbabilities(
+          hiddenNeuronsDataActivation, layerContext).getVisibleActivationProbablities();
+    } else {
+      NeuronsActivation reconstructions = visibleNeuronsReconstructionLayerActivation
+          .getVisibleActivationProbablities();
+      return () -> reconstructions;
+    }
   }
 
-  private Matrix getWeightsAdjustment(
-      RestrictedBoltzmannLayerActivation hiddenNeuronsDataActivation,
-      RestrictedBoltzmannLayerActivation visibleNeuronsReconstructionLayerActivation,
-      RestrictedBoltzmannLayerActivation contrastiveDivergenceActivation,
-      RestrictedBoltzmannMachineContext trainingContext) {
+  /**
+   * Obtain the contrastive divergence adjustment of the weights and biases - the difference
+   * between the positive (data) and negative (reconstruction) statistics, averaged over the
+   * examples and scaled by the learning rate.
+   * 
+   * <p>The weight statistics are a single hidden x visible^T matrix product over the examples of
+   * both phases side by side - with the negative phase visible activations negated, the product
+   * is the difference of the statistics. The bias statistics are the row sums of the
+   * activations.
+   */
+  private AxonWeightsAdjustment getAxonWeightsAdjustment(Matrix positiveVisible,
+      Matrix positiveHidden, Matrix negativeVisible, Matrix negativeHidden, float learningRate) {
 
-    // Calculate positive statisics
-	  
-    NeuronsActivation visibleAxonsDataActivationsWithoutBiasActivation = hiddenNeuronsDataActivation
-        .getSynapsesActivation().getAxonsActivation().getPostDropoutInput().get();
-    
-    NeuronsActivation hiddenAxonsDataActivationsWithoutBiasTransposed =
-        visibleNeuronsReconstructionLayerActivation.getSynapsesActivation().getAxonsActivation()
-            .getPostDropoutInput().get();
-
-    NeuronsActivationWithPossibleBiasUnit hiddenAxonsDataActivationsWithoutBias =
-        new NeuronsActivationWithPossibleBiasUnit(
-        		hiddenAxonsDataActivationsWithoutBiasTransposed.getActivations(trainingContext.getMatrixFactory()).asEditableMatrix(),
-            false,
-            NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET, false);
-    
-    NeuronsActivationWithPossibleBiasUnit hiddenAxonsDataActivations = hiddenAxonsDataActivationsWithoutBias.withBiasUnit(
-    		restrictedBoltzmannLayer.getHiddenNeurons().hasBiasUnit(), trainingContext);
-    
-    NeuronsActivationWithPossibleBiasUnit visibleAxonsDataActivationsWithoutBias =
-            new NeuronsActivationWithPossibleBiasUnit(
-            		visibleAxonsDataActivationsWithoutBiasActivation.getActivations(trainingContext.getMatrixFactory()).asEditableMatrix(),
-                false,
-                NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET, false);
-    
-    
-    NeuronsActivationWithPossibleBiasUnit visibleAxonsDataActivations = visibleAxonsDataActivationsWithoutBias.withBiasUnit(
-    		restrictedBoltzmannLayer.getVisibleNeurons().hasBiasUnit(), trainingContext);
-
-    Matrix positiveStatistics = getContrastiveDivergenceStatistics(visibleAxonsDataActivations,
-        hiddenAxonsDataActivations, trainingContext);
-
-    // Calculate negative statistics
-
-    // Push the reconstruction to the hidden neurons to get an activation we can use to
-    // calculate
-    // contrastive divergence statisitics.
-
-    NeuronsActivation visibleAxonsReconstructionActivationsWithoutBias =
-        contrastiveDivergenceActivation.getSynapsesActivation().getAxonsActivation()
-            .getPostDropoutInput().get();
-
-    NeuronsActivation hiddenAxonsReconstructionActivationsWithoutBias =
-        contrastiveDivergenceActivation.getHiddenActivationProbabilities();
-
-    NeuronsActivationWithPossibleBiasUnit hiddenAxonsReconstructionActivations =
-        new NeuronsActivationWithPossibleBiasUnit(
-            hiddenAxonsReconstructionActivationsWithoutBias.getActivations(trainingContext.getMatrixFactory()).asEditableMatrix(), false,
-            NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET, false).withBiasUnit(restrictedBoltzmannLayer.getHiddenNeurons().hasBiasUnit(),
-                trainingContext);
-    
-    NeuronsActivationWithPossibleBiasUnit visibleAxonsReconstructionActivations =
-            new NeuronsActivationWithPossibleBiasUnit(
-            		visibleAxonsReconstructionActivationsWithoutBias.getActivations(trainingContext.getMatrixFactory()).asEditableMatrix(), false,
-                NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET, false).withBiasUnit(restrictedBoltzmannLayer.getVisibleNeurons().hasBiasUnit(),
-                    trainingContext);
-
-    Matrix negativeStatistics =
-        getContrastiveDivergenceStatistics(visibleAxonsReconstructionActivations,
-            hiddenAxonsReconstructionActivations, trainingContext);
-    
-    Matrix adjustment =
-        positiveStatistics.sub(negativeStatistics).mul(trainingContext.getTrainingLearningRate());
-
-    return adjustment;
+    // The negative phase of PCD may have a different number of examples - the fantasy particles
+    float negativeScale = (float) positiveVisible.getColumns() / negativeVisible.getColumns();
 
-  }
+    float scale = learningRate / positiveVisible.getColumns();
 
-  private Matrix getContrastiveDivergenceStatistics(
-      NeuronsActivationWithPossibleBiasUnit visibleNeuronsActivation,
-      NeuronsActivationWithPossibleBiasUnit hiddenNeuronsActivation,
-      RestrictedBoltzmannMachineContext trainingContext) {
+    Matrix negatedNegativeVisible = negativeVisible.mul(-negativeScale);
+    Matrix visible = positiveVisible.appendHorizontally(negatedNegativeVisible);
+    Matrix hidden = positiveHidden.appendHorizontally(negativeHidden);
+    Matrix visibleTransposed = visible.transpose();
 
-    if (visibleNeuronsActivation
-        .getFeatureOrientation() != NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET) {
-      throw new IllegalArgumentException(
-          "Visible neurons activation must be columns span feature" + " set");
-    }
+    Matrix weightsAdjustment = hidden.mmul(visibleTransposed).asEditableMatrix().muli(scale);
 
-    if (hiddenNeuronsActivation
-        .getFeatureOrientation() != NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET) {
-      throw new IllegalArgumentException(
-          "Hidden neurons activation must be columns span feature" + " set");
+    Matrix leftToRightBiasesAdjustment = null;
+    if (restrictedBoltzmannLayer.getHiddenNeurons().hasBiasUnit()) {
+      Matrix negativeHiddenSums = negativeHidden.rowSums().asEditableMatrix().muli(negativeScale);
+      leftToRightBiasesAdjustment = positiveHidden.rowSums().asEditableMatrix()
+          .subi(negativeHiddenSums).muli(scale);
+      negativeHiddenSums.close();
+    }
+    Matrix rightToLeftBiasesAdjustment = null;
+    if (restrictedBoltzmannLayer.getVisibleNeurons().hasBiasUnit()) {
+      rightToLeftBiasesAdjustment = visible.rowSums().asEditableMatrix().muli(scale);
     }
 
-    return getAveragePairwiseColumnProducts(visibleNeuronsActivation.getActivations(),
-            hiddenNeuronsActivation.getActivations(), trainingContext.getMatrixFactory());
-  }
-
-  private Matrix getAveragePairwiseColumnProducts(Matrix matrix1, Matrix matrix2,
-	      MatrixFactory matrixFactory) {
-	    EditableMatrix result = matrixFactory.createMatrix(matrix1.getRows(), matrix2.getRows()).asEditableMatrix();
-
-	    for (int i = 0; i < matrix1.getColumns(); i++) {
-	      Matrix vector1 = matrix1.getColumn(i);
-	      Matrix vector2 = matrix2.getColumn(i);
-
-	      result.addi(getPairwiseVectorProduct(vector1, vector2, matrixFactory));
-	    }
-	    return result.div(matrix1.getRows());
-
-	  }
+    negatedNegativeVisible.close();
+    visible.close();
+    hidden.close();
+    visibleTransposed.close();
 
-	  private Matrix getPairwiseVectorProduct(Matrix vector1, Matrix vector2,
-	      MatrixFactory matrixFactory) {
-	    EditableMatrix result = matrixFactory.createMatrix(vector1.getRows(), vector2.getRows()).asEditableMatrix();
-	    for (int i = 0; i < vector1.getRows(); i++) {
-	      for (int j = 0; j < vector2.getRows(); j++) {
-	        result.put(i, j, vector1.get(i, 0) * vector2.get(j, 0));
-	      }
-	    }
-	    return result;
-	  }
+    return new AxonWeightsAdjustmentImpl(weightsAdjustment, leftToRightBiasesAdjustment,
+        rightToLeftBiasesAdjustment);
+  }
 
   private double getAverageReconstructionError(MatrixFactory matrixFactory, NeuronsActivation data,
       NeuronsActivation reconstructions) {
@@ -393,24 +348,25 @@ public class RestrictedBoltzmannMachineImpl implements RestrictedBoltzmannMachin
 
     NeuronsActivation visibleActivations = initialVisibleActivations;
 
-    // Perform up to 1 gibbs sampling steps
+    // Perform up to cdn gibbs sampling steps
     for (int c = 0; c < cdn; c++) {
 
       // Push the visible data to the hidden neurons
 
       RestrictedBoltzmannLayerActivation hiddenNeuronsDataActivation =
-    		  restrictedBoltzmannLayer.activateHiddenNeuronsFromVisibleNeuronsData(visibleActivations,
+          restrictedBoltzmannLayer.activateHiddenNeuronsFromVisibleNeuronsData(visibleActivations,
               context.getLayerContext());
 
       if (firstHiddenNeuronsDataActivation == null) {
         firstHiddenNeuronsDataActivation = hiddenNeuronsDataActivation;
       }
 
-      // Push a hidden neuron sample to the visible neurons to get a reconstruction
+      // Push a sample of this step's hidden activations to the visible neurons to get a
+      // reconstruction, advancing the chain
 
       RestrictedBoltzmannLayerActivation visibleNeuronsReconstructionLayerActivation =
-    		  restrictedBoltzmannLayer.activateVisibleNeuronsFromHiddenNeuronsSample(
-              firstHiddenNeuronsDataActivation, context.getLayerContext());
+          restrictedBoltzmannLayer.activateVisibleNeuronsFromHiddenNeuronsSample(
+              hiddenNeuronsDataActivation, context.getLayerContext());
 
       lastVisibleNeuronsReconstructionLayerActivation = visibleNeuronsReconstructionLayerActivation;
 
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.unsupervised;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.nn.axons.AxonWeightsAdjustment;
+import org.ml4j.nn.axons.AxonsActivationImpl;
+import org.ml4j.nn.axons.TrainableAxons;
+import org.ml4j.nn.layers.RestrictedBoltzmannLayer;
+import org.ml4j.nn.layers.RestrictedBoltzmannLayerActivation;
+import org.ml4j.nn.layers.RestrictedBoltzmannLayerActivationImpl;
+import org.ml4j.nn.neurons.Neurons;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+import org.ml4j.nn.synapses.UndirectedSynapsesActivation;
+import org.ml4j.nn.synapses.UndirectedSynapsesActivationImpl;
+
+/**
+ * Tests the Gibbs chains of CD-k and PCD-k against a deterministic layer - the
+ * hidden activations are W.v and the reconstructions W^T.h, the hidden
+ * probabilities stand in for their sample, and a visible sample is the
+ * reconstruction thresholded at 0.5 - so that each step of a chain gives a
+ * known, different result.
+ *
+ * @author Michael Lavelle
+ */
+public class RestrictedBoltzmannMachineImplTest {
+
+  private static final float DELTA = 1e-4f;
+
+  private static final float LEARNING_RATE = 0.1f;
+
+  private MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+
+  private Matrix weights = matrixFactory.createMatrixFromRowsByRowsArray(2, 3,
+      new float[] {0.5f, -0.25f, 0.75f, -0.5f, 1f, 0.25f});
+
+  private Matrix data = matrixFactory.createMatrixFromRowsByRowsArray(3, 4,
+      new float[] {1, 0, 1, 1, 0, 1, 1, 0, 1, 1, 0, 0});
+
+  private List<Matrix> hiddenActivationInputs = new ArrayList<>();
+
+  private List<AxonWeightsAdjustment> adjustments = new ArrayList<>();
+
+  @Test
+  public void testGibbsSamplingAdvancesChain() {
+    RestrictedBoltzmannMachineImpl machine = new RestrictedBoltzmannMachineImpl(createLayer());
+
+    NeuronsActivation oneStepReconstruction = machine.performGibbsSampling(createActivation(data), 1,
+        createContext(null)).getLastVisibleNeuronsReconstructionLayerActivation()
+        .getVisibleActivationProbablities();
+    NeuronsActivation twoStepReconstruction = machine.performGibbsSampling(createActivation(data), 2,
+        createContext(null)).getLastVisibleNeuronsReconstructionLayerActivation()
+        .getVisibleActivationProbablities();
+
+    assertEquals(reconstruct(data, 1), oneStepReconstruction.getActivations(matrixFactory));
+    assertEquals(reconstruct(data, 2), twoStepReconstruction.getActivations(matrixFactory));
+  }
+
+  @Test
+  public void testContrastiveDivergenceTakesGibbsSamplingSteps() {
+    RestrictedBoltzmannMachineImpl machine = new RestrictedBoltzmannMachineImpl(createLayer());
+
+    machine.train(createActivation(data), createContext(null));
+    machine.setGibbsSamplingSteps(2);
+    machine.train(createActivation(data), createContext(null));
+
+    // The layer weights are fixed, so CD-1 and CD-2 differ only in their negative statistics
+    Assert.assertEquals(2, adjustments.size());
+    assertEquals(getExpectedAdjustment(1), adjustments.get(0).getConnectionWeights());
+    assertEquals(getExpectedAdjustment(2), adjustments.get(1).getConnectionWeights());
+    Assert.assertNotEquals(adjustments.get(0).getConnectionWeights().getRowByRowArray()[0],
+        adjustments.get(1).getConnectionWeights().getRowByRowArray()[0], DELTA);
+  }
+
+  @Test
+  public void testPersistentContrastiveDivergenceContinuesChainAcrossBatches() {
+    RestrictedBoltzmannMachineImpl machine = new RestrictedBoltzmannMachineImpl(createLayer());
+    machine.setPersistentContrastiveDivergence(true);
+
+    machine.train(createActivation(data), createContext(2));
+
+    Matrix firstBatch = matrixFactory.createMatrixFromRowsByRowsArray(3, 2, new float[] {1, 0, 0, 1, 1, 1});
+    Matrix secondBatch = matrixFactory.createMatrixFromRowsByRowsArray(3, 2, new float[] {1, 1, 1, 0, 0, 0});
+
+    // Each batch activates the hidden neurons from its data and from the fantasy particles -
+    // the first batch for the first chain, then a sample of the end of the previous batch's chain
+    Assert.assertEquals(4, hiddenActivationInputs.size());
+    assertEquals(firstBatch, hiddenActivationInputs.get(0));
+    assertEquals(firstBatch, hiddenActivationInputs.get(1));
+    assertEquals(secondBatch, hiddenActivationInputs.get(2));
+    assertEquals(sample(reconstruct(firstBatch, 1)), hiddenActivationInputs.get(3));
+  }
+
+  /**
+   * @return The visible reconstruction after the steps of the chain from the
+   *         visible activations.
+   */
+  private Matrix reconstruct(Matrix visible, int steps) {
+    Matrix reconstruction = visible;
+    for (int step = 0; step < steps; step++) {
+      reconstruction = weights.transpose().mmul(weights.mmul(reconstruction));
+    }
+    return reconstruction;
+  }
+
+  /**
+   * @return The CD-k weights adjustment of the data - the difference of the
+   *         data and chain hidden x visible^T statistics, scaled by the learning
+   *         rate over the example count.
+   */
+  private Matrix getExpectedAdjustment(int steps) {
+    Matrix chainVisible = reconstruct(data, steps);
+    Matrix positive = weights.mmul(data).mmul(data.transpose());
+    Matrix negative = weights.mmul(chainVisible).mmul(chainVisible.transpose());
+    return positive.sub(negative).mul(LEARNING_RATE / data.getColumns());
+  }
+
+  private RestrictedBoltzmannMachineContext createContext(Integer miniBatchSize) {
+    RestrictedBoltzmannMachineContext context = new RestrictedBoltzmannMachineContextImpl(matrixFactory, true);
+    context.setTrainingEpochs(1);
+    context.setTrainingLearningRate(LEARNING_RATE);
+    context.setTrainingMiniBatchSize(miniBatchSize);
+    return context;
+  }
+
+  @SuppressWarnings("unchecked")
+  private RestrictedBoltzmannLayer<TrainableAxons<?, ?, ?>> createLayer() {
+    TrainableAxons<?, ?, ?> axons = mock(TrainableAxons.class, invocation -> {
+      if ("adjustAxonWeights".equals(invocation.getMethod().getName())) {
+        adjustments.add((AxonWeightsAdjustment) invocation.getArguments()[0]);
+        return null;
+      }
+      return RETURNS_DEFAULTS.answer(invocation);
+    });
+    return mock(RestrictedBoltzmannLayer.class, invocation -> {
+      Object argument = invocation.getArguments().length == 0 ? null : invocation.getArguments()[0];
+      switch (invocation.getMethod().getName()) {
+        case "activateHiddenNeuronsFromVisibleNeuronsData":
+          Matrix visible = ((NeuronsActivation) argument).getActivations(matrixFactory);
+          hiddenActivationInputs.add(visible);
+          return activateHiddenNeurons(visible);
+        case "activateHiddenNeuronsFromVisibleNeuronsReconstruction":
+          return activateHiddenNeurons(((RestrictedBoltzmannLayerActivation) argument)
+              .getVisibleActivationProbablities().getActivations(matrixFactory));
+        case "activateVisibleNeuronsFromHiddenNeuronsSample":
+        case "activateVisibleNeuronsFromHiddenNeuronsProbabilities":
+          return activateVisibleNeurons(((RestrictedBoltzmannLayerActivation) argument)
+              .getHiddenActivationProbabilities().getActivations(matrixFactory));
+        case "getPrimaryAxons":
+          return axons;
+        case "getVisibleNeurons":
+          return new Neurons(weights.getColumns(), false);
+        case "getHiddenNeurons":
+          return new Neurons(weights.getRows(), false);
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  private RestrictedBoltzmannLayerActivation activateHiddenNeurons(Matrix visible) {
+    NeuronsActivation hidden = createActivation(weights.mmul(visible));
+    return createLayerActivation(createActivation(visible), hidden, null, hidden);
+  }
+
+  private RestrictedBoltzmannLayerActivation activateVisibleNeurons(Matrix hidden) {
+    NeuronsActivation input = createActivation(hidden);
+    NeuronsActivation visible = createActivation(weights.transpose().mmul(hidden));
+    return new RestrictedBoltzmannLayerActivationImpl(createSynapsesActivation(input, visible), visible,
+        input) {
+
+      @Override
+      public NeuronsActivation getVisibleActivationBinarySample(MatrixFactory matrixFactory) {
+        return createActivation(sample(visible.getActivations(matrixFactory)));
+      }
+    };
+  }
+
+  /**
+   * @return The deterministic stand-in for a binary sample of the probabilities.
+   */
+  private Matrix sample(Matrix probabilities) {
+    float[] sample = probabilities.getRowByRowArray().clone();
+    for (int i = 0; i < sample.length; i++) {
+      sample[i] = sample[i] > 0.5f ? 1f : 0f;
+    }
+    return matrixFactory.createMatrixFromRowsByRowsArray(probabilities.getRows(), probabilities.getColumns(),
+        sample);
+  }
+
+  private RestrictedBoltzmannLayerActivation createLayerActivation(NeuronsActivation input,
+      NeuronsActivation output, NeuronsActivation visibleProbabilities, NeuronsActivation hiddenProbabilities) {
+    return new RestrictedBoltzmannLayerActivationImpl(createSynapsesActivation(input, output),
+        visibleProbabilities, hiddenProbabilities);
+  }
+
+  private UndirectedSynapsesActivation createSynapsesActivation(NeuronsActivation input,
+      NeuronsActivation output) {
+    return new UndirectedSynapsesActivationImpl(null, input,
+        new AxonsActivationImpl(null, null, () -> input, output, null, null), output);
+  }
+
+  private NeuronsActivation createActivation(Matrix matrix) {
+    return new NeuronsActivationImpl(matrix, NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+  }
+
+  private void assertEquals(Matrix expected, Matrix actual) {
+    Assert.assertEquals(expected.getRows(), actual.getRows());
+    Assert.assertEquals(expected.getColumns(), actual.getColumns());
+    Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), DELTA);
+  }
+}
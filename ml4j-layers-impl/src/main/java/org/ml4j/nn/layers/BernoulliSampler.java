@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn.layers;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+
+/**
+ * Draws binary samples from Bernoulli probabilities in a single pass, writing
+ * 1 where a uniform random number falls below the probability and 0 elsewhere.
+ *
+ * Each chunk of the probabilities is sampled with its own generator, split
+ * from the root generator of this sampler on the calling thread, so chunks of
+ * large arrays can be sampled in parallel without contention - and for a
+ * seeded sampler the samples do not depend on the threads the chunks run on.
+ *
+ * @author Michael Lavelle
+ */
+public class BernoulliSampler {
+
+  /**
+   * The minimum number of elements for which sampling is performed in parallel.
+   */
+  static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /**
+   * The number of elements in each chunk.
+   */
+  static final int CHUNK_SIZE = 1 << 14;
+
+  private static final float UNIT_FLOAT = 0x1.0p-24f;
+
+  private static final BernoulliSampler DEFAULT_INSTANCE = new BernoulliSampler();
+
+  private SplittableRandom random;
+
+  public BernoulliSampler() {
+    this.random = new SplittableRandom();
+  }
+
+  /**
+   * @param seed The seed of the root generator.
+   */
+  public BernoulliSampler(long seed) {
+    this.random = new SplittableRandom(seed);
+  }
+
+  /**
+   * @return A shared, unseeded sampler.
+   */
+  public static BernoulliSampler getDefaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  /**
+   * @param probabilities The probabilities to sample from.
+   * @param matrixFactory The matrix factory.
+   * @return A binary sample of the probabilities, with the same orientation.
+   */
+  public NeuronsActivation sample(NeuronsActivation probabilities, MatrixFactory matrixFactory) {
+    Matrix activations = probabilities.getActivations(matrixFactory);
+    float[] sample = new float[activations.getRows() * activations.getColumns()];
+    sample(activations.getRowByRowArray(), sample);
+    return new NeuronsActivationImpl(matrixFactory.createMatrixFromRowsByRowsArray(
+        activations.getRows(), activations.getColumns(), sample),
+        probabilities.getFeatureOrientation());
+  }
+
+  /**
+   * Sample from the probabilities into the target - which may be the same
+   * array as the probabilities for in-place sampling.
+   */
+  public void sample(float[] probabilities, float[] target) {
+    if (target.length != probabilities.length) {
+      throw new IllegalArgumentException("Probabilities and target lengths do not match");
+    }
+    int length = probabilities.length;
+    int chunkCount = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    SplittableRandom[] randoms = split(chunkCount);
+    if (length < PARALLEL_THRESHOLD) {
+      for (int chunk = 0; chunk < chunkCount; chunk++) {
+        sample(probabilities, target, chunk, length, randoms[chunk]);
+      }
+    } else {
+      IntStream.range(0, chunkCount).parallel()
+          .forEach(chunk -> sample(probabilities, target, chunk, length, randoms[chunk]));
+    }
+  }
+
+  private synchronized SplittableRandom[] split(int count) {
+    SplittableRandom[] randoms = new SplittableRandom[count];
+    for (int i = 0; i < count; i++) {
+      randoms[i] = random.split();
+    }
+    return randoms;
+  }
+
+  private static void sample(float[] probabilities, float[] target, int chunk, int length,
+      SplittableRandom random) {
+    int end = Math.min(length, (chunk + 1) * CHUNK_SIZE);
+    for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+      // The top 24 bits of a random int give a uniform float in [0, 1)
+      float uniform = (random.nextInt() >>> 8) * UNIT_FLOAT;
+      target[i] = probabilities[i] > uniform ? 1f : 0f;
+    }
+  }
+}
@@ -68,6 +68,12 @@ public abstract class FeedForwardLayerBase<A extends Axons<?, ?, ?>, L extends F
 
 	protected DirectedComponentFactory directedComponentFactory;
 
+	/**
+	 * The chain compiled from the current configuration of this layer - null until
+	 * first used, or once invalidated.
+	 */
+	private transient volatile CompiledChain compiledChain;
+
 	/**
 	 * @param primaryAxons       The primary Axons
 	 * @param activationFunction The primary activation function
@@ -122,21 +128,33 @@ public abstract class FeedForwardLayerBase<A extends Axons<?, ?, ?>, L extends F
 
 	@Override
 	public List<DefaultChainableDirectedComponent<?, ?>> getComponents() {
-		List<DefaultChainableDirectedComponent<?, ?>> components = new ArrayList<>();
-		Objects.requireNonNull(primaryAxons, "primaryAxons");
-		components.addAll(getSynapses(directedComponentFactory, matrixFactory, primaryAxons, primaryActivationFunction,
-				withBatchNorm));
-		return components;
+		return new ArrayList<>(getCompiledChain().components);
 	}
 
+	/**
+	 * @return The chain of the components of this layer, compiled once and reused
+	 *         until the axons or configuration of this layer change.
+	 */
 	protected TrailingActivationFunctionDirectedComponentChain createChain() {
-		
-		DefaultDirectedComponentChain synapseChain = directedComponentFactory.createDirectedComponentChain(getSynapses(
-				directedComponentFactory, matrixFactory, primaryAxons, primaryActivationFunction, withBatchNorm));
-		
-		List<DefaultChainableDirectedComponent<? extends ChainableDirectedComponentActivation<NeuronsActivation>, ?>> chainableComponents = new ArrayList<>();
-		chainableComponents.addAll(synapseChain.decompose());
-		return new TrailingActivationFunctionDirectedComponentChainImpl(directedComponentFactory, chainableComponents);
+		return getCompiledChain().chain;
+	}
+
+	/**
+	 * Discard the compiled chain of this layer, so that it is compiled again from
+	 * the current axons and configuration on next use - to be called by subclasses
+	 * which change either.
+	 */
+	protected void invalidateChain() {
+		compiledChain = null;
+	}
+
+	private CompiledChain getCompiledChain() {
+		CompiledChain chain = compiledChain;
+		if (chain == null || !chain.isCompiledFrom(this)) {
+			chain = new CompiledChain(this);
+			compiledChain = chain;
+		}
+		return chain;
 	}
 
 	@Override
@@ -144,10 +162,12 @@ public abstract class FeedForwardLayerBase<A extends Axons<?, ?, ?>, L extends F
 			DirectedLayerContext directedLayerContext) {
 		LOGGER.debug(directedLayerContext.toString() + ":Forward propagating through layer");
 
-		DirectedComponentsContext componentsContext = new DirectedComponentsContextImpl(
+		CompiledChain chain = getCompiledChain();
+
+		DirectedComponentsContext componentsContext = chain.getComponentsContext(
 				directedLayerContext.getMatrixFactory(), directedLayerContext.isTrainingContext());
 
-		TrailingActivationFunctionDirectedComponentChainActivation activation = createChain()
+		TrailingActivationFunctionDirectedComponentChainActivation activation = chain.chain
 				.forwardPropagate(inputNeuronsActivation, componentsContext);
 
 		return new DirectedLayerActivationImpl(this, activation, directedLayerContext);
@@ -161,7 +181,8 @@ public abstract class FeedForwardLayerBase<A extends Axons<?, ?, ?>, L extends F
 
 	@Override
 	public List<DefaultChainableDirectedComponent<?, ?>> decompose() {
-		return getComponents().stream().flatMap(c -> c.decompose().stream()).collect(Collectors.toList());
+		return getCompiledChain().components.stream().flatMap(c -> c.decompose().stream())
+				.collect(Collectors.toList());
 	}
 	
 	@Override
@@ -212,6 +233,65 @@ public abstract class FeedForwardLayerBase<A extends Axons<?, ?, ?>, L extends F
 	public Neurons getOutputNeurons() {
 		return trailingActivationFunctionDirectedComponentChain.getOutputNeurons();
 	}
-	
-	
+
+	/**
+	 * The components of a layer composed into a chain once, together with the
+	 * configuration they were composed from and the components contexts reused
+	 * across forward propagations.
+	 */
+	private static class CompiledChain {
+
+		private Axons<?, ?, ?> primaryAxons;
+		private DifferentiableActivationFunction primaryActivationFunction;
+		private boolean withBatchNorm;
+		private DirectedComponentFactory directedComponentFactory;
+		private MatrixFactory matrixFactory;
+
+		private List<DefaultChainableDirectedComponent<?, ?>> components;
+		private TrailingActivationFunctionDirectedComponentChain chain;
+
+		private volatile DirectedComponentsContext trainingComponentsContext;
+		private volatile DirectedComponentsContext componentsContext;
+
+		public CompiledChain(FeedForwardLayerBase<?, ?> layer) {
+			Objects.requireNonNull(layer.primaryAxons, "primaryAxons");
+			this.primaryAxons = layer.primaryAxons;
+			this.primaryActivationFunction = layer.primaryActivationFunction;
+			this.withBatchNorm = layer.withBatchNorm;
+			this.directedComponentFactory = layer.directedComponentFactory;
+			this.matrixFactory = layer.matrixFactory;
+			this.components = getSynapses(directedComponentFactory, matrixFactory, primaryAxons,
+					primaryActivationFunction, withBatchNorm);
+			DefaultDirectedComponentChain synapseChain = directedComponentFactory
+					.createDirectedComponentChain(components);
+			List<DefaultChainableDirectedComponent<? extends ChainableDirectedComponentActivation<NeuronsActivation>, ?>> chainableComponents = new ArrayList<>();
+			chainableComponents.addAll(synapseChain.decompose());
+			this.chain = new TrailingActivationFunctionDirectedComponentChainImpl(directedComponentFactory,
+					chainableComponents);
+		}
+
+		public boolean isCompiledFrom(FeedForwardLayerBase<?, ?> layer) {
+			return primaryAxons == layer.primaryAxons && primaryActivationFunction == layer.primaryActivationFunction
+					&& withBatchNorm == layer.withBatchNorm
+					&& directedComponentFactory == layer.directedComponentFactory
+					&& matrixFactory == layer.matrixFactory;
+		}
+
+		/**
+		 * @return A components context for the matrix factory and training mode, reused
+		 *         while they are unchanged.
+		 */
+		public DirectedComponentsContext getComponentsContext(MatrixFactory matrixFactory, boolean isTraining) {
+			DirectedComponentsContext context = isTraining ? trainingComponentsContext : componentsContext;
+			if (context == null || context.getMatrixFactory() != matrixFactory) {
+				context = new DirectedComponentsContextImpl(matrixFactory, isTraining);
+				if (isTraining) {
+					trainingComponentsContext = context;
+				} else {
+					componentsContext = context;
+				}
+			}
+			return context;
+		}
+	}
 }
@@ -16,6 +16,7 @@ import org.ml4j.nn.components.manytoone.PathCombinationStrategy;
 import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponent;
 import org.ml4j.nn.components.onetone.DefaultDirectedComponentBipoleGraph;
 import org.ml4j.nn.components.onetone.DefaultDirectedComponentChain;
+import org.ml4j.nn.components.onetoone.ParallelDefaultDirectedComponentBipoleGraphImpl;
 import org.ml4j.nn.components.onetoone.TrailingActivationFunctionDirectedComponentChainImpl;
 import org.ml4j.nn.neurons.Neurons;
 import org.ml4j.nn.neurons.NeuronsActivation;
@@ -31,6 +32,7 @@ public class ResidualBlockLayerImpl extends AbstractFeedForwardLayer<Axons<?, ?,
 	private FeedForwardLayer<?, ?> layer2;
 	private DirectedComponentFactory directedComponentFactory;
 	private AxonsFactory axonsFactory;
+	private boolean parallelPaths;
 
 	/**
 	 * @param directedComponentFactory
@@ -41,12 +43,29 @@ public class ResidualBlockLayerImpl extends AbstractFeedForwardLayer<Axons<?, ?,
 	 */
 	public ResidualBlockLayerImpl(DirectedComponentFactory directedComponentFactory, AxonsFactory axonsFactory,
 			FeedForwardLayer<?, ?> layer1, FeedForwardLayer<?, ?> layer2, MatrixFactory matrixFactory) {
-		super(directedComponentFactory, createComponentChain(directedComponentFactory, axonsFactory, layer1, layer2, matrixFactory),
-				matrixFactory);
+		this(directedComponentFactory, axonsFactory, layer1, layer2, matrixFactory, false);
+	}
+
+	/**
+	 * @param directedComponentFactory
+	 * @param axonsFactory
+	 * @param layer1
+	 * @param layer2
+	 * @param matrixFactory
+	 * @param parallelPaths Whether the preceding chain and the skip connection
+	 *                      are propagated concurrently, on the common fork/join
+	 *                      pool.
+	 */
+	public ResidualBlockLayerImpl(DirectedComponentFactory directedComponentFactory, AxonsFactory axonsFactory,
+			FeedForwardLayer<?, ?> layer1, FeedForwardLayer<?, ?> layer2, MatrixFactory matrixFactory,
+			boolean parallelPaths) {
+		super(directedComponentFactory, createComponentChain(directedComponentFactory, axonsFactory, layer1, layer2,
+				matrixFactory, parallelPaths), matrixFactory);
 		this.layer1 = layer1;
 		this.layer2 = layer2;
 		this.directedComponentFactory = directedComponentFactory;
 		this.axonsFactory = axonsFactory;
+		this.parallelPaths = parallelPaths;
 	}
 
 	private static DefaultDirectedComponentChain createPrecedingChain(
@@ -78,7 +97,7 @@ public class ResidualBlockLayerImpl extends AbstractFeedForwardLayer<Axons<?, ?,
 
 	private static DefaultDirectedComponentChain createComponentChain(
 			DirectedComponentFactory directedComponentFactory, AxonsFactory axonsFactory, FeedForwardLayer<?, ?> layer1,
-			FeedForwardLayer<?, ?> layer2, MatrixFactory matrixFactory) {
+			FeedForwardLayer<?, ?> layer2, MatrixFactory matrixFactory, boolean parallelPaths) {
 
 		// Final activation function component
 		DifferentiableActivationFunctionComponent finalActivationFunctionComponent = directedComponentFactory
@@ -118,6 +137,10 @@ public class ResidualBlockLayerImpl extends AbstractFeedForwardLayer<Axons<?, ?,
 		// TODO - remove nulls
 		DefaultDirectedComponentBipoleGraph parallelGraph = directedComponentFactory.createDirectedComponentBipoleGraph(null, null,
 				parallelChains, PathCombinationStrategy.ADDITION);
+		if (parallelPaths) {
+			parallelGraph = new ParallelDefaultDirectedComponentBipoleGraphImpl(parallelGraph,
+					directedComponentFactory.createManyToOneDirectedComponent(PathCombinationStrategy.ADDITION), null);
+		}
 
 		// Residual block component list is composed of the parallel chain graph
 		// followed by the final activation function
@@ -153,7 +176,7 @@ public class ResidualBlockLayerImpl extends AbstractFeedForwardLayer<Axons<?, ?,
 	@Override
 	public ResidualBlockLayerImpl dup() {
 		return new ResidualBlockLayerImpl(directedComponentFactory, axonsFactory, layer1.dup(), layer2.dup(),
-				matrixFactory);
+				matrixFactory, parallelPaths);
 	}
 
 	@Override
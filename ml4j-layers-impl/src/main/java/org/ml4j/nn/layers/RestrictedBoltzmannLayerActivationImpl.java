@@ -14,11 +14,8 @@
 
 package org.ml4j.nn.layers;
 
-import org.ml4j.EditableMatrix;
-import org.ml4j.Matrix;
 import org.ml4j.MatrixFactory;
 import org.ml4j.nn.neurons.NeuronsActivation;
-import org.ml4j.nn.neurons.NeuronsActivationImpl;
 import org.ml4j.nn.synapses.UndirectedSynapsesActivation;
 
 public class RestrictedBoltzmannLayerActivationImpl implements RestrictedBoltzmannLayerActivation {
@@ -66,19 +63,6 @@ public class RestrictedBoltzmannLayerActivationImpl implements RestrictedBoltzma
 
   private NeuronsActivation getBinarySample(NeuronsActivation probablities,
       MatrixFactory matrixFactory) {
-    Matrix rand = matrixFactory.createRand(probablities.getRows(),
-        probablities.getColumns());
-    Matrix res = probablities.getActivations(matrixFactory).sub(rand);
-    EditableMatrix sample = matrixFactory.createMatrix(probablities.getRows(),
-        probablities.getColumns()).asEditableMatrix();
-    for (int r = 0; r < sample.getRows(); r++) {
-      for (int c = 0; c < sample.getColumns(); c++) {
-
-        if (res.get(r, c) > 0) {
-          sample.put(r, c, 1);
-        }
-      }
-    }
-    return new NeuronsActivationImpl(sample, probablities.getFeatureOrientation());
+    return BernoulliSampler.getDefaultInstance().sample(probablities, matrixFactory);
   }
 }
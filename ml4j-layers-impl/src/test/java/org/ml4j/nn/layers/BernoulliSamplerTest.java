@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.layers;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BernoulliSamplerTest {
+
+  private static final long SEED = 42;
+
+  /**
+   * Below the parallel threshold, so sampled sequentially.
+   */
+  private static final int SEQUENTIAL_LENGTH = BernoulliSampler.PARALLEL_THRESHOLD / 2;
+
+  /**
+   * Above the parallel threshold, so sampled in parallel chunks.
+   */
+  private static final int PARALLEL_LENGTH = BernoulliSampler.PARALLEL_THRESHOLD * 4;
+
+  @Test
+  public void testSamplesAreBinary() {
+    assertBinary(SEQUENTIAL_LENGTH);
+    assertBinary(PARALLEL_LENGTH);
+  }
+
+  @Test
+  public void testCertainProbabilitiesAreSampledExactly() {
+    for (int length : new int[] {SEQUENTIAL_LENGTH, PARALLEL_LENGTH}) {
+      float[] zeros = new float[length];
+      float[] ones = new float[length];
+      Arrays.fill(ones, 1f);
+      Assert.assertEquals(0, count(sample(new BernoulliSampler(SEED), zeros)));
+      Assert.assertEquals(length, count(sample(new BernoulliSampler(SEED), ones)));
+    }
+  }
+
+  @Test
+  public void testSeededSamplesAreDeterministic() {
+    for (int length : new int[] {SEQUENTIAL_LENGTH, PARALLEL_LENGTH}) {
+      float[] probabilities = createProbabilities(length);
+      float[] first = sample(new BernoulliSampler(SEED), probabilities);
+      float[] second = sample(new BernoulliSampler(SEED), probabilities);
+      float[] otherSeed = sample(new BernoulliSampler(SEED + 1), probabilities);
+      Assert.assertArrayEquals(first, second, 0f);
+      Assert.assertFalse(Arrays.equals(first, otherSeed));
+    }
+  }
+
+  @Test
+  public void testSampleFrequencyMatchesProbability() {
+    for (int length : new int[] {SEQUENTIAL_LENGTH, PARALLEL_LENGTH}) {
+      for (float probability : new float[] {0.1f, 0.5f, 0.8f}) {
+        float[] probabilities = new float[length];
+        Arrays.fill(probabilities, probability);
+        float frequency = (float) count(sample(new BernoulliSampler(SEED), probabilities)) / length;
+        Assert.assertEquals(probability, frequency, 0.01f);
+      }
+    }
+  }
+
+  @Test
+  public void testSamplesInPlace() {
+    float[] probabilities = createProbabilities(SEQUENTIAL_LENGTH);
+    float[] expected = sample(new BernoulliSampler(SEED), probabilities);
+    new BernoulliSampler(SEED).sample(probabilities, probabilities);
+    Assert.assertArrayEquals(expected, probabilities, 0f);
+  }
+
+  private void assertBinary(int length) {
+    for (float value : sample(new BernoulliSampler(SEED), createProbabilities(length))) {
+      Assert.assertTrue(value == 0f || value == 1f);
+    }
+  }
+
+  private float[] sample(BernoulliSampler sampler, float[] probabilities) {
+    float[] sample = new float[probabilities.length];
+    sampler.sample(probabilities, sample);
+    return sample;
+  }
+
+  private int count(float[] sample) {
+    int count = 0;
+    for (float value : sample) {
+      if (value == 1f) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private float[] createProbabilities(int length) {
+    Random random = new Random(SEED);
+    float[] probabilities = new float[length];
+    for (int i = 0; i < length; i++) {
+      probabilities[i] = random.nextFloat();
+    }
+    return probabilities;
+  }
+}
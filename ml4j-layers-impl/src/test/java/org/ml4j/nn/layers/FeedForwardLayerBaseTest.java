@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.layers;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.activationfunctions.DifferentiableActivationFunction;
+import org.ml4j.nn.axons.Axons;
+import org.ml4j.nn.components.NeuralComponentBaseType;
+import org.ml4j.nn.components.NeuralComponentType;
+import org.ml4j.nn.components.activationfunctions.DifferentiableActivationFunctionComponent;
+import org.ml4j.nn.components.axons.DirectedAxonsComponent;
+import org.ml4j.nn.components.factories.DirectedComponentFactory;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponent;
+import org.ml4j.nn.components.onetone.DefaultDirectedComponentBipoleGraph;
+import org.ml4j.nn.components.onetone.DefaultDirectedComponentChain;
+import org.ml4j.nn.components.onetone.TrailingActivationFunctionDirectedComponentChain;
+import org.ml4j.nn.neurons.Neurons;
+
+/**
+ * Tests that FeedForwardLayerBase compiles its component chain once, reuses it
+ * until invalidated or until its axons change, and exposes the components of
+ * the chain it runs.
+ *
+ * The component factory is stubbed, recording the axons of each axons
+ * component it creates.
+ *
+ * @author Michael Lavelle
+ */
+public class FeedForwardLayerBaseTest {
+
+  private DirectedComponentFactory directedComponentFactory;
+
+  private List<Axons<?, ?, ?>> axonsComponentAxons;
+
+  private FeedForwardLayerImpl layer;
+
+  @Before
+  public void setUp() {
+    axonsComponentAxons = new ArrayList<>();
+    directedComponentFactory = createDirectedComponentFactory();
+    layer = new FeedForwardLayerImpl(directedComponentFactory, createAxons(),
+        mock(DifferentiableActivationFunction.class), mock(MatrixFactory.class), false);
+    axonsComponentAxons.clear();
+  }
+
+  @Test
+  public void testChainIsReusedAcrossCalls() {
+    TrailingActivationFunctionDirectedComponentChain chain = layer.createChain();
+    List<DefaultChainableDirectedComponent<?, ?>> components = layer.getComponents();
+
+    Assert.assertSame(chain, layer.createChain());
+    assertSameComponents(components, layer.getComponents());
+    Assert.assertEquals(layer.decompose(), layer.decompose());
+
+    // Compiled once, on first use
+    Assert.assertEquals(1, axonsComponentAxons.size());
+  }
+
+  @Test
+  public void testChainIsRebuiltAfterInvalidation() {
+    TrailingActivationFunctionDirectedComponentChain chain = layer.createChain();
+    List<DefaultChainableDirectedComponent<?, ?>> components = layer.getComponents();
+
+    layer.invalidateChain();
+
+    Assert.assertNotSame(chain, layer.createChain());
+    Assert.assertNotSame(components.get(0), layer.getComponents().get(0));
+    Assert.assertEquals(2, axonsComponentAxons.size());
+    Assert.assertSame(layer.createChain(), layer.createChain());
+  }
+
+  @Test
+  public void testChainIsRebuiltAfterAxonsSwap() {
+    TrailingActivationFunctionDirectedComponentChain chain = layer.createChain();
+    Axons<?, ?, ?> axons = createAxons();
+
+    layer.primaryAxons = axons;
+
+    Assert.assertNotSame(chain, layer.createChain());
+    Assert.assertEquals(2, axonsComponentAxons.size());
+    Assert.assertSame(axons, axonsComponentAxons.get(1));
+    Assert.assertSame(layer.createChain(), layer.createChain());
+  }
+
+  @Test
+  public void testGetComponentsReturnsRunningComponents() {
+    List<DefaultChainableDirectedComponent<?, ?>> decomposed = new ArrayList<>();
+    for (DefaultChainableDirectedComponent<?, ?> component : layer.getComponents()) {
+      decomposed.addAll(component.decompose());
+    }
+
+    assertSameComponents(decomposed, layer.createChain().getComponents());
+    assertSameComponents(decomposed, layer.decompose());
+
+    // A copy is returned, so the running components cannot be modified
+    layer.getComponents().clear();
+    Assert.assertEquals(1, layer.getComponents().size());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullPrimaryAxonsIsRejected() {
+    layer.primaryAxons = null;
+    layer.createChain();
+  }
+
+  private void assertSameComponents(List<? extends DefaultChainableDirectedComponent<?, ?>> expected,
+      List<? extends DefaultChainableDirectedComponent<?, ?>> actual) {
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Assert.assertSame(expected.get(i), actual.get(i));
+    }
+  }
+
+  private Axons<?, ?, ?> createAxons() {
+    Neurons leftNeurons = new Neurons(3, false);
+    Neurons rightNeurons = new Neurons(2, false);
+    return mock(Axons.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "getLeftNeurons":
+          return leftNeurons;
+        case "getRightNeurons":
+          return rightNeurons;
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private DirectedComponentFactory createDirectedComponentFactory() {
+    return mock(DirectedComponentFactory.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "createDirectedAxonsComponent":
+          axonsComponentAxons.add((Axons<?, ?, ?>) invocation.getArguments()[0]);
+          return createComponent(DirectedAxonsComponent.class, null);
+        case "createDifferentiableActivationFunctionComponent":
+          return createComponent(DifferentiableActivationFunctionComponent.class,
+              NeuralComponentType.createSubType(NeuralComponentBaseType.ACTIVATION_FUNCTION, "TEST"));
+        case "createDirectedComponentChain":
+          return createComposite(DefaultDirectedComponentChain.class,
+              (List<DefaultChainableDirectedComponent<?, ?>>) invocation.getArguments()[0]);
+        case "createDirectedComponentBipoleGraph":
+          return createComposite(DefaultDirectedComponentBipoleGraph.class,
+              (List<DefaultChainableDirectedComponent<?, ?>>) invocation.getArguments()[2]);
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  /**
+   * @return A stubbed component which decomposes into itself.
+   */
+  private <C> C createComponent(Class<C> componentClass, NeuralComponentType<?> componentType) {
+    return mock(componentClass, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "decompose":
+          List<Object> decomposed = new ArrayList<>();
+          decomposed.add(invocation.getMock());
+          return decomposed;
+        case "getComponentType":
+          return componentType;
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  /**
+   * @return A stubbed component which decomposes into the decompositions of its
+   *         components.
+   */
+  private <C> C createComposite(Class<C> componentClass, List<DefaultChainableDirectedComponent<?, ?>> components) {
+    List<DefaultChainableDirectedComponent<?, ?>> componentsCopy = new ArrayList<>(components);
+    return mock(componentClass, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "getComponents":
+          return componentsCopy;
+        case "decompose":
+          List<DefaultChainableDirectedComponent<?, ?>> decomposed = new ArrayList<>();
+          for (DefaultChainableDirectedComponent<?, ?> component : componentsCopy) {
+            decomposed.addAll(component.decompose());
+          }
+          return decomposed;
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+}
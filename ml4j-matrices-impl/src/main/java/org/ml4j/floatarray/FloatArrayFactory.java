@@ -5,4 +5,14 @@ import java.io.Serializable;
 public interface FloatArrayFactory extends Serializable {
 
 	float[] createFloatArray(int length);
+
+	/**
+	 * Notify the factory that an array it may have created is no longer in use,
+	 * allowing it to be recycled. No-op by default.
+	 * 
+	 * @param array The array to release.
+	 */
+	default void release(float[] array) {
+		// No-op by default
+	}
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.floatarray;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * FloatArrayFactory which recycles released arrays, pooling them by length so
+ * that identically sized arrays - eg. the backing data of identically shaped
+ * matrices allocated on every iteration - are reused rather than reallocated.
+ *
+ * The pool is keyed by exact length rather than by size class, as a pooled
+ * array cannot be handed out as a shorter view - a float[] has a fixed length,
+ * and its users, eg. jblas FloatMatrix, require the length of their data to
+ * match their dimensions exactly. Matrices of any shape with the same number of
+ * elements share a pool, which covers the repeated allocations of a training
+ * loop, where every iteration allocates matrices of the same shapes.
+ *
+ * Only arrays created by this factory are recycled - any other array passed to
+ * release(float[]) is ignored. Arrays taken from the pool are zeroed before
+ * being returned, so the factory is a drop-in replacement for
+ * DefaultFloatArrayFactory.
+ *
+ * Hit, miss and leak statistics are maintained - a leak being an array created
+ * by this factory which was garbage collected without having been released.
+ *
+ * @author Michael Lavelle
+ */
+public class PooledFloatArrayFactory implements FloatArrayFactory {
+
+	/**
+	 * Default serialization id
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The default maximum number of released arrays of each length to retain.
+	 */
+	public static final int DEFAULT_MAX_POOLED_ARRAYS_PER_LENGTH = 16;
+
+	private int maxPooledArraysPerLength;
+
+	private transient Map<Integer, Deque<float[]>> pooledArraysByLength;
+
+	/**
+	 * The arrays created by this factory which have not yet been released - weakly
+	 * referenced, and compared by identity as arrays do not override equals.
+	 */
+	private transient Map<float[], Boolean> outstandingArrays;
+
+	private long hitCount;
+
+	private long missCount;
+
+	private long releaseCount;
+
+	private long discardCount;
+
+	private transient long outstandingCount;
+
+	public PooledFloatArrayFactory() {
+		this(DEFAULT_MAX_POOLED_ARRAYS_PER_LENGTH);
+	}
+
+	/**
+	 * @param maxPooledArraysPerLength The maximum number of released arrays of each
+	 *                                 length to retain - arrays released beyond this
+	 *                                 are left to the garbage collector.
+	 */
+	public PooledFloatArrayFactory(int maxPooledArraysPerLength) {
+		if (maxPooledArraysPerLength < 0) {
+			throw new IllegalArgumentException("Max pooled arrays per length must not be negative");
+		}
+		this.maxPooledArraysPerLength = maxPooledArraysPerLength;
+	}
+
+	@Override
+	public synchronized float[] createFloatArray(int length) {
+		Deque<float[]> pooledArrays = getPooledArraysByLength().get(length);
+		float[] array;
+		if (pooledArrays != null && !pooledArrays.isEmpty()) {
+			array = pooledArrays.pop();
+			Arrays.fill(array, 0f);
+			hitCount++;
+		} else {
+			array = new float[length];
+			missCount++;
+		}
+		getOutstandingArrays().put(array, Boolean.TRUE);
+		outstandingCount++;
+		return array;
+	}
+
+	@Override
+	public synchronized void release(float[] array) {
+		if (array == null || getOutstandingArrays().remove(array) == null) {
+			// Not created by this factory, or already released
+			return;
+		}
+		outstandingCount--;
+		releaseCount++;
+		Deque<float[]> pooledArrays = getPooledArraysByLength().computeIfAbsent(array.length,
+				length -> new ArrayDeque<>());
+		if (pooledArrays.size() < maxPooledArraysPerLength) {
+			pooledArrays.push(array);
+		} else {
+			discardCount++;
+		}
+	}
+
+	/**
+	 * Discard all pooled arrays.
+	 */
+	public synchronized void clear() {
+		getPooledArraysByLength().clear();
+	}
+
+	/**
+	 * @return The number of arrays created from the pool.
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return The number of arrays newly allocated as none of the requested length
+	 *         were pooled.
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return The number of arrays released back to this factory.
+	 */
+	public synchronized long getReleaseCount() {
+		return releaseCount;
+	}
+
+	/**
+	 * @return The number of released arrays not retained as the pool for their
+	 *         length was full.
+	 */
+	public synchronized long getDiscardCount() {
+		return discardCount;
+	}
+
+	/**
+	 * @return The number of arrays created by this factory which are still
+	 *         reachable and have not been released.
+	 */
+	public synchronized long getOutstandingCount() {
+		return getOutstandingArrays().size();
+	}
+
+	/**
+	 * @return The number of arrays created by this factory which were garbage
+	 *         collected without having been released.
+	 */
+	public synchronized long getLeakCount() {
+		return outstandingCount - getOutstandingArrays().size();
+	}
+
+	/**
+	 * @return The number of floats currently held in the pool.
+	 */
+	public synchronized long getPooledFloatCount() {
+		long pooledFloatCount = 0;
+		for (Map.Entry<Integer, Deque<float[]>> entry : getPooledArraysByLength().entrySet()) {
+			pooledFloatCount = pooledFloatCount + (long) entry.getKey() * entry.getValue().size();
+		}
+		return pooledFloatCount;
+	}
+
+	public int getMaxPooledArraysPerLength() {
+		return maxPooledArraysPerLength;
+	}
+
+	private Map<Integer, Deque<float[]>> getPooledArraysByLength() {
+		if (pooledArraysByLength == null) {
+			pooledArraysByLength = new HashMap<>();
+		}
+		return pooledArraysByLength;
+	}
+
+	private Map<float[], Boolean> getOutstandingArrays() {
+		if (outstandingArrays == null) {
+			outstandingArrays = new WeakHashMap<>();
+		}
+		return outstandingArrays;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "PooledFloatArrayFactory [hits=" + hitCount + ", misses=" + missCount + ", releases=" + releaseCount
+				+ ", discards=" + discardCount + ", outstanding=" + getOutstandingCount() + ", leaks="
+				+ getLeakCount() + ", pooledFloats=" + getPooledFloatCount() + "]";
+	}
+}
@@ -12,4 +12,14 @@ public interface FloatMatrixFactory extends Serializable {
 
 	FloatMatrix create(int rows, int columns, float[] data);
 
+	/**
+	 * Notify the factory that a FloatMatrix it may have created is no longer in use,
+	 * allowing its storage to be recycled. No-op by default.
+	 * 
+	 * @param matrix The FloatMatrix to release.
+	 */
+	default void release(FloatMatrix matrix) {
+		// No-op by default
+	}
+
 }
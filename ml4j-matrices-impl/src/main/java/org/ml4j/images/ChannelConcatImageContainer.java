@@ -103,11 +103,11 @@ public abstract class ChannelConcatImageContainer<I extends ImageContainer<I>> e
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (I subImage : channelConcatImages) {
-			subImage.populateIm2colConvExport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth, channels);
-			startIndex = startIndex
-					+ windowWidth * windowHeight * examples * filterHeight * filterWidth * subImage.getChannels();
-		}
+		int[] startIndexes = getStartIndexes(channelConcatImages, startIndex,
+				windowWidth * windowHeight * examples * filterHeight * filterWidth);
+		forEachIndex(channelConcatImages.size(), isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				i -> channelConcatImages.get(i).populateIm2colConvExport(data, startIndexes[i], filterHeight, filterWidth,
+						strideHeight, strideWidth, channels));
 	}
 
 	public void populateIm2colPoolExport(float[] data, int startIndex, int filterHeight, int filterWidth, int strideHeight,
@@ -116,10 +116,10 @@ public abstract class ChannelConcatImageContainer<I extends ImageContainer<I>> e
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (I subImage : channelConcatImages) {
-			subImage.populateIm2colPoolExport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth, channels);
-			startIndex = startIndex + examples * subImage.getChannels() * windowWidth * windowHeight;
-		}
+		int[] startIndexes = getStartIndexes(channelConcatImages, startIndex, examples * windowWidth * windowHeight);
+		forEachIndex(channelConcatImages.size(), isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				i -> channelConcatImages.get(i).populateIm2colPoolExport(data, startIndexes[i], filterHeight, filterWidth,
+						strideHeight, strideWidth, channels));
 	}
 	
 	public void populateIm2colConvImport(float[] data, int startIndex, int filterHeight, int filterWidth, int strideHeight,
@@ -128,11 +128,11 @@ public abstract class ChannelConcatImageContainer<I extends ImageContainer<I>> e
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (I subImage : channelConcatImages) {
-			subImage.populateIm2colConvImport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth, channels);
-			startIndex = startIndex
-					+ windowWidth * windowHeight * examples * filterHeight * filterWidth * subImage.getChannels();
-		}
+		int[] startIndexes = getStartIndexes(channelConcatImages, startIndex,
+				windowWidth * windowHeight * examples * filterHeight * filterWidth);
+		forEachIndex(channelConcatImages.size(), isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				i -> channelConcatImages.get(i).populateIm2colConvImport(data, startIndexes[i], filterHeight, filterWidth,
+						strideHeight, strideWidth, channels));
 	}
 
 	public void populateIm2colPoolImport(float[] data, int startIndex, int filterHeight, int filterWidth, int strideHeight,
@@ -141,10 +141,10 @@ public abstract class ChannelConcatImageContainer<I extends ImageContainer<I>> e
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (I subImage : channelConcatImages) {
-			subImage.populateIm2colPoolImport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth, channels);
-			startIndex = startIndex + examples * subImage.getChannels() * windowWidth * windowHeight;
-		}
+		int[] startIndexes = getStartIndexes(channelConcatImages, startIndex, examples * windowWidth * windowHeight);
+		forEachIndex(channelConcatImages.size(), isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				i -> channelConcatImages.get(i).populateIm2colPoolImport(data, startIndexes[i], filterHeight, filterWidth,
+						strideHeight, strideWidth, channels));
 	}
 
 	@Override
@@ -0,0 +1,31 @@
+package org.ml4j.images;
+
+/**
+ * The algorithms available for convolving images with a set of filters.
+ *
+ * @author Michael Lavelle
+ */
+public enum ConvolutionAlgorithm {
+
+	/**
+	 * Export the full im2col matrix of the images and multiply by the weights.
+	 */
+	IM2COL,
+
+	/**
+	 * Export the im2col matrix for a chunk of examples at a time, multiplying each
+	 * chunk by the weights - bounding the size of the im2col buffer.
+	 */
+	TILED_IM2COL,
+
+	/**
+	 * Accumulate each filter weight times the shifted input directly into the
+	 * output, without any intermediate buffer.
+	 */
+	DIRECT,
+
+	/**
+	 * Winograd F(2x2,3x3) minimal filtering - for 3x3 filters with stride 1 only.
+	 */
+	WINOGRAD;
+}
@@ -0,0 +1,146 @@
+package org.ml4j.images;
+
+/**
+ * Selects a ConvolutionAlgorithm by the shape of a convolution.
+ *
+ * Convolutions whose filters span few input values (eg. a first layer over
+ * RGB images) make a poor shape for a matrix multiply, so are convolved
+ * directly - provided the batch is large enough for the innermost loop of the
+ * direct convolution, which runs along the examples, and the output of each
+ * output channel small enough to stay in cache over the repeated passes made
+ * over it, one per filter weight. Otherwise the full im2col matrix is used while it fits within the
+ * configured maximum length, beyond which 3x3 stride 1 convolutions use
+ * Winograd F(2x2,3x3) and others a tiled im2col.
+ *
+ * @author Michael Lavelle
+ */
+public class ConvolutionAlgorithmSelector {
+
+	/**
+	 * The default maximum number of input values spanned by each filter for which
+	 * direct convolution is selected - eg. 3 channels of 3x3.
+	 */
+	public static final int DEFAULT_DIRECT_MAX_FILTER_LENGTH = 27;
+
+	/**
+	 * The default minimum number of examples for which direct convolution is
+	 * selected.
+	 */
+	public static final int DEFAULT_DIRECT_MIN_EXAMPLES = 8;
+
+	/**
+	 * The default maximum number of output values per output channel for which
+	 * direct convolution is selected - 256KB.
+	 */
+	public static final long DEFAULT_DIRECT_MAX_OUTPUT_LENGTH = 1L << 16;
+
+	/**
+	 * The default maximum number of floats in a full im2col matrix - 64MB.
+	 */
+	public static final long DEFAULT_MAX_IM2COL_LENGTH = 1L << 24;
+
+	private static final ConvolutionAlgorithmSelector DEFAULT_SELECTOR = new ConvolutionAlgorithmSelector();
+
+	private int directMaxFilterLength;
+
+	private int directMinExamples;
+
+	private long directMaxOutputLength;
+
+	private long maxIm2colLength;
+
+	private boolean winogradEnabled;
+
+	public ConvolutionAlgorithmSelector() {
+		this(DEFAULT_DIRECT_MAX_FILTER_LENGTH, DEFAULT_MAX_IM2COL_LENGTH, true);
+	}
+
+	/**
+	 * @param directMaxFilterLength The maximum number of input values spanned by
+	 *                              each filter for which direct convolution is
+	 *                              selected.
+	 * @param maxIm2colLength       The maximum number of floats in a full im2col
+	 *                              matrix - also the size of each chunk of a
+	 *                              tiled im2col.
+	 * @param winogradEnabled       Whether Winograd may be selected for 3x3 stride
+	 *                              1 convolutions.
+	 */
+	public ConvolutionAlgorithmSelector(int directMaxFilterLength, long maxIm2colLength, boolean winogradEnabled) {
+		this(directMaxFilterLength, DEFAULT_DIRECT_MIN_EXAMPLES, DEFAULT_DIRECT_MAX_OUTPUT_LENGTH, maxIm2colLength,
+				winogradEnabled);
+	}
+
+	/**
+	 * @param directMaxFilterLength The maximum number of input values spanned by
+	 *                              each filter for which direct convolution is
+	 *                              selected.
+	 * @param directMinExamples     The minimum number of examples for which
+	 *                              direct convolution is selected.
+	 * @param directMaxOutputLength The maximum number of output values per output
+	 *                              channel for which direct convolution is
+	 *                              selected.
+	 * @param maxIm2colLength       The maximum number of floats in a full im2col
+	 *                              matrix - also the size of each chunk of a
+	 *                              tiled im2col.
+	 * @param winogradEnabled       Whether Winograd may be selected for 3x3 stride
+	 *                              1 convolutions.
+	 */
+	public ConvolutionAlgorithmSelector(int directMaxFilterLength, int directMinExamples, long directMaxOutputLength,
+			long maxIm2colLength, boolean winogradEnabled) {
+		if (maxIm2colLength < 1) {
+			throw new IllegalArgumentException("Max im2col length must be at least 1");
+		}
+		this.directMaxFilterLength = directMaxFilterLength;
+		this.directMinExamples = directMinExamples;
+		this.directMaxOutputLength = directMaxOutputLength;
+		this.maxIm2colLength = maxIm2colLength;
+		this.winogradEnabled = winogradEnabled;
+	}
+
+	/**
+	 * @return The selector with the default thresholds.
+	 */
+	public static ConvolutionAlgorithmSelector getDefault() {
+		return DEFAULT_SELECTOR;
+	}
+
+	public ConvolutionAlgorithm select(int channels, int height, int width, int examples, int filterHeight,
+			int filterWidth, int strideHeight, int strideWidth, int paddingHeight, int paddingWidth) {
+		int filterLength = channels * filterHeight * filterWidth;
+		int outputHeight = ImageConvolution.getOutputSize(height, paddingHeight, filterHeight, strideHeight);
+		int outputWidth = ImageConvolution.getOutputSize(width, paddingWidth, filterWidth, strideWidth);
+		long outputLength = (long) outputHeight * outputWidth * examples;
+		if (filterLength <= directMaxFilterLength && examples >= directMinExamples
+				&& outputLength <= directMaxOutputLength) {
+			return ConvolutionAlgorithm.DIRECT;
+		}
+		long im2colLength = filterLength * outputLength;
+		if (im2colLength <= maxIm2colLength) {
+			return ConvolutionAlgorithm.IM2COL;
+		}
+		if (winogradEnabled && filterHeight == 3 && filterWidth == 3 && strideHeight == 1 && strideWidth == 1) {
+			return ConvolutionAlgorithm.WINOGRAD;
+		}
+		return ConvolutionAlgorithm.TILED_IM2COL;
+	}
+
+	public int getDirectMaxFilterLength() {
+		return directMaxFilterLength;
+	}
+
+	public int getDirectMinExamples() {
+		return directMinExamples;
+	}
+
+	public long getDirectMaxOutputLength() {
+		return directMaxOutputLength;
+	}
+
+	public long getMaxIm2colLength() {
+		return maxIm2colLength;
+	}
+
+	public boolean isWinogradEnabled() {
+		return winogradEnabled;
+	}
+}
@@ -1,12 +1,33 @@
 package org.ml4j.images;
 
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
 import org.ml4j.FloatModifier;
 import org.ml4j.FloatPredicate;
 import org.ml4j.Matrix;
 import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
 
 public abstract class ImageContainerBase<I extends ImageContainer<I>> implements ImageContainer<I> {
 
+	/**
+	 * The system property configuring the minimum number of floats in an im2col
+	 * matrix for which its export or import is partitioned across cores.
+	 */
+	public static final String IM2COL_PARALLEL_THRESHOLD_PROPERTY = "ml4j.im2col.parallelThreshold";
+
+	/**
+	 * The default minimum number of floats in an im2col matrix for which its
+	 * export or import is partitioned across cores.
+	 */
+	public static final int DEFAULT_IM2COL_PARALLEL_THRESHOLD = 1 << 16;
+
+	private static volatile int im2colParallelThreshold = Integer.getInteger(IM2COL_PARALLEL_THRESHOLD_PROPERTY,
+			DEFAULT_IM2COL_PARALLEL_THRESHOLD);
+
 	protected int width;
 	protected int height;
 	protected int paddingHeight = 0;
@@ -78,8 +99,87 @@ public abstract class ImageContainerBase<I extends ImageContainer<I>> implements
 
 	public abstract I dup();
 
+	/**
+	 * @return The minimum number of floats in an im2col matrix for which its
+	 *         export or import is partitioned across cores.
+	 */
+	public static int getIm2colParallelThreshold() {
+		return im2colParallelThreshold;
+	}
+
+	/**
+	 * @param threshold The minimum number of floats in an im2col matrix for which
+	 *                  its export or import is partitioned across cores -
+	 *                  Integer.MAX_VALUE to keep all im2col sequential.
+	 */
+	public static void setIm2colParallelThreshold(int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Im2col parallel threshold must not be negative");
+		}
+		im2colParallelThreshold = threshold;
+	}
+
+	/**
+	 * @return Whether the export or import of an im2col matrix of this container
+	 *         with the given filter and window dimensions should be partitioned
+	 *         across cores.
+	 */
+	protected boolean isIm2colParallel(int filterHeight, int filterWidth, int windowHeight, int windowWidth) {
+		long im2colLength = (long) getChannels() * filterHeight * filterWidth * windowHeight * windowWidth * examples;
+		return im2colLength >= im2colParallelThreshold;
+	}
+
+	/**
+	 * Apply the action to each index in [0, count) - in parallel on the common
+	 * fork/join pool if requested, in which case the actions must write to
+	 * disjoint ranges.
+	 */
+	protected static void forEachIndex(int count, boolean parallel, IntConsumer action) {
+		IntStream indexes = IntStream.range(0, count);
+		if (parallel && count > 1) {
+			indexes = indexes.parallel();
+		}
+		indexes.forEach(action);
+	}
+
+	/**
+	 * @param subImages        The channel-concatenated sub-images.
+	 * @param startIndex       The start index of the first sub-image.
+	 * @param lengthPerChannel The length of the data of each channel.
+	 * @return The start index of each sub-image.
+	 */
+	protected static int[] getStartIndexes(List<? extends ImageContainer<?>> subImages, int startIndex,
+			int lengthPerChannel) {
+		int[] startIndexes = new int[subImages.size()];
+		for (int i = 0; i < startIndexes.length; i++) {
+			startIndexes[i] = startIndex;
+			startIndex = startIndex + lengthPerChannel * subImages.get(i).getChannels();
+		}
+		return startIndexes;
+	}
+
 	public abstract I softDup();
 
+	/**
+	 * Create a zeroed matrix and populate its row by row data. The matrix is
+	 * created by the matrix factory where its row by row array is known to be its
+	 * backing data - so that eg. a JBlasRowMajorMatrixFactory with a pooled
+	 * FloatMatrixFactory recycles the storage of im2col matrices once closed - and
+	 * from a new array otherwise.
+	 */
+	protected static Matrix createIm2colMatrix(MatrixFactory matrixFactory, int rows, int columns,
+			Consumer<float[]> populator) {
+		if (matrixFactory instanceof JBlasRowMajorMatrixFactory) {
+			Matrix matrix = matrixFactory.createZeros(rows, columns);
+			populator.accept(matrix.getRowByRowArray());
+			return matrix;
+		} else {
+			float[] data = new float[rows * columns];
+			populator.accept(data);
+			return matrixFactory.createMatrixFromRowsByRowsArray(rows, columns, data);
+		}
+	}
+
 	@Override
 	public Matrix im2colConvExport(MatrixFactory matrixFactory, int filterHeight, int filterWidth, int strideHeight,
 			int strideWidth) {
@@ -87,10 +187,9 @@ public abstract class ImageContainerBase<I extends ImageContainer<I>> implements
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		float[] data = new float[getChannels() * filterWidth * filterHeight * windowWidth * windowHeight * examples];
-		populateIm2colConvExport(data, 0, filterHeight, filterWidth, strideHeight, strideWidth, getChannels());
-		return matrixFactory.createMatrixFromRowsByRowsArray(getChannels() * filterWidth * filterHeight,
-				windowWidth * windowHeight * examples, data);
+		return createIm2colMatrix(matrixFactory, getChannels() * filterWidth * filterHeight,
+				windowWidth * windowHeight * examples, data -> populateIm2colConvExport(data, 0, filterHeight,
+						filterWidth, strideHeight, strideWidth, getChannels()));
 	}
 	
 	@Override
@@ -107,10 +206,9 @@ public abstract class ImageContainerBase<I extends ImageContainer<I>> implements
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		float[] data = new float[getChannels() * filterWidth * filterHeight * windowWidth * windowHeight * examples];
-		populateIm2colPoolExport(data, 0, filterHeight, filterWidth, strideHeight, strideWidth, getChannels());
-		return matrixFactory.createMatrixFromRowsByRowsArray(filterWidth * filterHeight,
-				windowWidth * windowHeight * examples * getChannels(), data);
+		return createIm2colMatrix(matrixFactory, filterWidth * filterHeight,
+				windowWidth * windowHeight * examples * getChannels(), data -> populateIm2colPoolExport(data, 0,
+						filterHeight, filterWidth, strideHeight, strideWidth, getChannels()));
 	}
 	
 	@Override
@@ -0,0 +1,387 @@
+package org.ml4j.images;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+/**
+ * Convolves unpadded image data with a set of filters without exporting the
+ * full im2col matrix of the images.
+ *
+ * The input data is laid out as for a MultiChannelImages - channel, then row,
+ * then column, with the examples innermost. The weights are a row-major
+ * matrix with a row per output channel, each row spanning the channel, filter
+ * row and filter column of the input - as for a multiplication of the weights
+ * by im2colConvExport. The output is the row-major matrix that multiplication
+ * would produce - a row per output channel, each row spanning the output row,
+ * then output column, with the examples innermost.
+ *
+ * Out-of-range input positions are treated as zero padding, so no padded copy
+ * of the input is made.
+ *
+ * @author Michael Lavelle
+ */
+public class ImageConvolution {
+
+	/**
+	 * The minimum number of multiply-adds for which a convolution is evaluated in
+	 * parallel.
+	 */
+	static final long PARALLEL_THRESHOLD = 1 << 20;
+
+	private int channels;
+	private int height;
+	private int width;
+	private int examples;
+	private int filterHeight;
+	private int filterWidth;
+	private int strideHeight;
+	private int strideWidth;
+	private int paddingHeight;
+	private int paddingWidth;
+	private int outputHeight;
+	private int outputWidth;
+
+	public ImageConvolution(int channels, int height, int width, int examples, int filterHeight, int filterWidth,
+			int strideHeight, int strideWidth, int paddingHeight, int paddingWidth) {
+		this.channels = channels;
+		this.height = height;
+		this.width = width;
+		this.examples = examples;
+		this.filterHeight = filterHeight;
+		this.filterWidth = filterWidth;
+		this.strideHeight = strideHeight;
+		this.strideWidth = strideWidth;
+		this.paddingHeight = paddingHeight;
+		this.paddingWidth = paddingWidth;
+		this.outputHeight = getOutputSize(height, paddingHeight, filterHeight, strideHeight);
+		this.outputWidth = getOutputSize(width, paddingWidth, filterWidth, strideWidth);
+	}
+
+	/**
+	 * @return The number of output windows along a dimension, as for
+	 *         im2colConvExport.
+	 */
+	public static int getOutputSize(int size, int padding, int filterSize, int stride) {
+		int windowSpan = size + 2 * padding - filterSize + 1;
+		return stride == 1 ? windowSpan : (windowSpan + 1) / stride;
+	}
+
+	/**
+	 * Convolve the input with the weights using the given algorithm.
+	 *
+	 * @param matrixFactory   The MatrixFactory used to create the output, and any
+	 *                        im2col chunks.
+	 * @param algorithm       The algorithm - IM2COL being a TILED_IM2COL of a
+	 *                        single chunk.
+	 * @param input           The unpadded input data.
+	 * @param weights         The weights - a row per output channel.
+	 * @param maxIm2colLength The maximum number of floats in each im2col chunk.
+	 * @return The output of the convolution - a row per output channel.
+	 */
+	public Matrix convolve(MatrixFactory matrixFactory, ConvolutionAlgorithm algorithm, float[] input,
+			Matrix weights, long maxIm2colLength) {
+		if (input.length != channels * height * width * examples) {
+			throw new IllegalArgumentException("Input length " + input.length + " does not match the image dimensions");
+		}
+		if (weights.getColumns() != getFilterLength()) {
+			throw new IllegalArgumentException("Weights have " + weights.getColumns() + " columns but filters span "
+					+ getFilterLength() + " input values");
+		}
+		int outputChannels = weights.getRows();
+		float[] output;
+		switch (algorithm) {
+		case DIRECT:
+			output = direct(input, weights.getRowByRowArray(), outputChannels);
+			break;
+		case WINOGRAD:
+			output = winograd(input, weights.getRowByRowArray(), outputChannels);
+			break;
+		case IM2COL:
+			output = tiledIm2col(matrixFactory, input, weights, Long.MAX_VALUE);
+			break;
+		case TILED_IM2COL:
+			output = tiledIm2col(matrixFactory, input, weights, maxIm2colLength);
+			break;
+		default:
+			throw new UnsupportedOperationException("Convolution algorithm " + algorithm + " not supported");
+		}
+		return matrixFactory.createMatrixFromRowsByRowsArray(outputChannels, getOutputLength(), output);
+	}
+
+	/**
+	 * Accumulates each filter weight times the correspondingly shifted input into
+	 * the output. The innermost loop runs along the contiguous examples of both
+	 * the input and output. Output channels are evaluated in parallel for large
+	 * convolutions.
+	 */
+	float[] direct(float[] input, float[] weights, int outputChannels) {
+		int outputLength = getOutputLength();
+		float[] output = new float[outputChannels * outputLength];
+		IntStream range = IntStream.range(0, outputChannels);
+		if ((long) outputChannels * outputLength * getFilterLength() >= PARALLEL_THRESHOLD) {
+			range = range.parallel();
+		}
+		range.forEach(outputChannel -> direct(input, weights, output, outputChannel * outputLength,
+				outputChannel * getFilterLength()));
+		return output;
+	}
+
+	private void direct(float[] input, float[] weights, float[] output, int outputOffset, int weightsOffset) {
+		for (int c = 0; c < channels; c++) {
+			for (int i = 0; i < filterHeight; i++) {
+				for (int j = 0; j < filterWidth; j++) {
+					float weight = weights[weightsOffset + (c * filterHeight + i) * filterWidth + j];
+					if (weight == 0) {
+						continue;
+					}
+					for (int y = 0; y < outputHeight; y++) {
+						int inputRow = y * strideHeight - paddingHeight + i;
+						if (inputRow < 0 || inputRow >= height) {
+							continue;
+						}
+						for (int x = 0; x < outputWidth; x++) {
+							int inputColumn = x * strideWidth - paddingWidth + j;
+							if (inputColumn < 0 || inputColumn >= width) {
+								continue;
+							}
+							int inputIndex = ((c * height + inputRow) * width + inputColumn) * examples;
+							int outputIndex = outputOffset + (y * outputWidth + x) * examples;
+							for (int e = 0; e < examples; e++) {
+								output[outputIndex + e] += weight * input[inputIndex + e];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Winograd F(2x2,3x3) - each 2x2 output tile is computed from a 4x4 input tile
+	 * with 16 rather than 36 multiplies per channel, the filters being transformed
+	 * once up front. The transforms run across all examples of a tile at once,
+	 * and rows of tiles are evaluated in parallel for large convolutions.
+	 */
+	float[] winograd(float[] input, float[] weights, int outputChannels) {
+		if (filterHeight != 3 || filterWidth != 3 || strideHeight != 1 || strideWidth != 1) {
+			throw new UnsupportedOperationException("Winograd convolution only supported for 3x3 filters with stride 1");
+		}
+		float[] transformedWeights = new float[outputChannels * channels * 16];
+		for (int f = 0; f < outputChannels * channels; f++) {
+			transformFilter(weights, f * 9, transformedWeights, f * 16);
+		}
+		float[] output = new float[outputChannels * getOutputLength()];
+		int tileRows = (outputHeight + 1) / 2;
+		IntStream range = IntStream.range(0, tileRows);
+		if ((long) outputChannels * getOutputLength() * getFilterLength() >= PARALLEL_THRESHOLD) {
+			range = range.parallel();
+		}
+		range.forEach(tileRow -> winograd(input, transformedWeights, output, outputChannels, tileRow));
+		return output;
+	}
+
+	/**
+	 * U = G g G^T for the 3x3 filter g.
+	 */
+	private static void transformFilter(float[] weights, int offset, float[] transformed, int transformedOffset) {
+		float[] gg = new float[12];
+		for (int j = 0; j < 3; j++) {
+			float g0 = weights[offset + j];
+			float g1 = weights[offset + 3 + j];
+			float g2 = weights[offset + 6 + j];
+			gg[j] = g0;
+			gg[3 + j] = (g0 + g1 + g2) * 0.5f;
+			gg[6 + j] = (g0 - g1 + g2) * 0.5f;
+			gg[9 + j] = g2;
+		}
+		for (int r = 0; r < 4; r++) {
+			float a = gg[r * 3];
+			float b = gg[r * 3 + 1];
+			float c = gg[r * 3 + 2];
+			transformed[transformedOffset + r * 4] = a;
+			transformed[transformedOffset + r * 4 + 1] = (a + b + c) * 0.5f;
+			transformed[transformedOffset + r * 4 + 2] = (a - b + c) * 0.5f;
+			transformed[transformedOffset + r * 4 + 3] = c;
+		}
+	}
+
+	private void winograd(float[] input, float[] transformedWeights, float[] output, int outputChannels,
+			int tileRow) {
+		int outputLength = getOutputLength();
+		int tileColumns = (outputWidth + 1) / 2;
+		float[] transformedInput = new float[channels * 16 * examples];
+		float[] product = new float[16 * examples];
+		int[] inputIndexes = new int[16];
+		float[] d = new float[16];
+		float[] t = new float[16];
+		for (int tileColumn = 0; tileColumn < tileColumns; tileColumn++) {
+			int startRow = tileRow * 2 - paddingHeight;
+			int startColumn = tileColumn * 2 - paddingWidth;
+			for (int c = 0; c < channels; c++) {
+				for (int r = 0; r < 4; r++) {
+					for (int s = 0; s < 4; s++) {
+						int inputRow = startRow + r;
+						int inputColumn = startColumn + s;
+						inputIndexes[r * 4 + s] = inputRow < 0 || inputRow >= height || inputColumn < 0
+								|| inputColumn >= width ? -1 : ((c * height + inputRow) * width + inputColumn) * examples;
+					}
+				}
+				int transformedOffset = c * 16 * examples;
+				for (int e = 0; e < examples; e++) {
+					for (int k = 0; k < 16; k++) {
+						d[k] = inputIndexes[k] < 0 ? 0f : input[inputIndexes[k] + e];
+					}
+					// B^T d
+					for (int j = 0; j < 4; j++) {
+						t[j] = d[j] - d[8 + j];
+						t[4 + j] = d[4 + j] + d[8 + j];
+						t[8 + j] = d[8 + j] - d[4 + j];
+						t[12 + j] = d[4 + j] - d[12 + j];
+					}
+					// (B^T d) B
+					for (int r = 0; r < 16; r = r + 4) {
+						transformedInput[transformedOffset + r * examples + e] = t[r] - t[r + 2];
+						transformedInput[transformedOffset + (r + 1) * examples + e] = t[r + 1] + t[r + 2];
+						transformedInput[transformedOffset + (r + 2) * examples + e] = t[r + 2] - t[r + 1];
+						transformedInput[transformedOffset + (r + 3) * examples + e] = t[r + 1] - t[r + 3];
+					}
+				}
+			}
+			for (int o = 0; o < outputChannels; o++) {
+				Arrays.fill(product, 0f);
+				for (int c = 0; c < channels; c++) {
+					int weightsOffset = (o * channels + c) * 16;
+					int transformedOffset = c * 16 * examples;
+					for (int k = 0; k < 16; k++) {
+						float u = transformedWeights[weightsOffset + k];
+						int productOffset = k * examples;
+						int inputOffset = transformedOffset + productOffset;
+						for (int e = 0; e < examples; e++) {
+							product[productOffset + e] += u * transformedInput[inputOffset + e];
+						}
+					}
+				}
+				int outputRow = tileRow * 2;
+				int outputColumn = tileColumn * 2;
+				boolean secondRow = outputRow + 1 < outputHeight;
+				boolean secondColumn = outputColumn + 1 < outputWidth;
+				int outputIndex = o * outputLength + (outputRow * outputWidth + outputColumn) * examples;
+				for (int e = 0; e < examples; e++) {
+					// A^T M A
+					float r00 = m(product, 0, e) + m(product, 4, e) + m(product, 8, e);
+					float r01 = m(product, 1, e) + m(product, 5, e) + m(product, 9, e);
+					float r02 = m(product, 2, e) + m(product, 6, e) + m(product, 10, e);
+					float r03 = m(product, 3, e) + m(product, 7, e) + m(product, 11, e);
+					float r10 = m(product, 4, e) - m(product, 8, e) - m(product, 12, e);
+					float r11 = m(product, 5, e) - m(product, 9, e) - m(product, 13, e);
+					float r12 = m(product, 6, e) - m(product, 10, e) - m(product, 14, e);
+					float r13 = m(product, 7, e) - m(product, 11, e) - m(product, 15, e);
+					output[outputIndex + e] = r00 + r01 + r02;
+					if (secondColumn) {
+						output[outputIndex + examples + e] = r01 - r02 - r03;
+					}
+					if (secondRow) {
+						int nextRowIndex = outputIndex + outputWidth * examples;
+						output[nextRowIndex + e] = r10 + r11 + r12;
+						if (secondColumn) {
+							output[nextRowIndex + examples + e] = r11 - r12 - r13;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private float m(float[] product, int k, int e) {
+		return product[k * examples + e];
+	}
+
+	/**
+	 * Exports the im2col matrix of as many examples at a time as fit within
+	 * maxIm2colLength, multiplying each chunk by the weights and scattering the
+	 * product into the output columns of its examples. The chunk buffer is reused
+	 * between chunks.
+	 */
+	float[] tiledIm2col(MatrixFactory matrixFactory, float[] input, Matrix weights, long maxIm2colLength) {
+		int outputChannels = weights.getRows();
+		int windows = outputHeight * outputWidth;
+		long exampleIm2colLength = (long) getFilterLength() * windows;
+		int chunkExamples = (int) Math.max(1, Math.min(examples, maxIm2colLength / exampleIm2colLength));
+		float[] output = new float[outputChannels * windows * examples];
+		float[] im2col = null;
+		for (int startExample = 0; startExample < examples; startExample = startExample + chunkExamples) {
+			int exampleCount = Math.min(chunkExamples, examples - startExample);
+			int im2colLength = getFilterLength() * windows * exampleCount;
+			if (im2col == null || im2col.length != im2colLength) {
+				im2col = new float[im2colLength];
+			}
+			populateIm2col(input, im2col, startExample, exampleCount);
+			Matrix chunk = matrixFactory.createMatrixFromRowsByRowsArray(getFilterLength(), windows * exampleCount,
+					im2col);
+			Matrix product = weights.mmul(chunk);
+			float[] productData = product.getRowByRowArray();
+			for (int o = 0; o < outputChannels; o++) {
+				for (int window = 0; window < windows; window++) {
+					System.arraycopy(productData, (o * windows + window) * exampleCount, output,
+							(o * windows + window) * examples + startExample, exampleCount);
+				}
+			}
+			product.close();
+		}
+		return output;
+	}
+
+	/**
+	 * Populates the im2col matrix of the examples in [startExample, startExample +
+	 * exampleCount), zeroing the entries of out-of-range input positions.
+	 */
+	void populateIm2col(float[] input, float[] im2col, int startExample, int exampleCount) {
+		int windows = outputHeight * outputWidth;
+		for (int c = 0; c < channels; c++) {
+			for (int i = 0; i < filterHeight; i++) {
+				for (int j = 0; j < filterWidth; j++) {
+					int rowOffset = ((c * filterHeight + i) * filterWidth + j) * windows * exampleCount;
+					for (int y = 0; y < outputHeight; y++) {
+						int inputRow = y * strideHeight - paddingHeight + i;
+						for (int x = 0; x < outputWidth; x++) {
+							int inputColumn = x * strideWidth - paddingWidth + j;
+							int targetIndex = rowOffset + (y * outputWidth + x) * exampleCount;
+							if (inputRow < 0 || inputRow >= height || inputColumn < 0 || inputColumn >= width) {
+								Arrays.fill(im2col, targetIndex, targetIndex + exampleCount, 0f);
+							} else {
+								System.arraycopy(input,
+										((c * height + inputRow) * width + inputColumn) * examples + startExample,
+										im2col, targetIndex, exampleCount);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The number of input values spanned by each filter.
+	 */
+	public int getFilterLength() {
+		return channels * filterHeight * filterWidth;
+	}
+
+	/**
+	 * @return The number of columns of the output.
+	 */
+	public int getOutputLength() {
+		return outputHeight * outputWidth * examples;
+	}
+
+	public int getOutputHeight() {
+		return outputHeight;
+	}
+
+	public int getOutputWidth() {
+		return outputWidth;
+	}
+}
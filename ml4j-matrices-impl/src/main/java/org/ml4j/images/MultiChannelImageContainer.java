@@ -92,11 +92,12 @@ public abstract class MultiChannelImageContainer<I extends ImageContainer<I>> ex
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (ImageContainer<?> subImage : getChannelConcatImages()) {
-			subImage.populateIm2colConvExport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth, channels);
-			startIndex = startIndex
-					+ windowWidth * windowHeight * examples * filterHeight * filterWidth * subImage.getChannels();
-		}
+		List<I> subImages = getChannelConcatImages();
+		int[] startIndexes = getStartIndexes(subImages, startIndex,
+				windowWidth * windowHeight * examples * filterHeight * filterWidth);
+		forEachIndex(subImages.size(), isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				i -> subImages.get(i).populateIm2colConvExport(data, startIndexes[i], filterHeight, filterWidth,
+						strideHeight, strideWidth, channels));
 	}
 	
 	@Override
@@ -106,11 +107,12 @@ public abstract class MultiChannelImageContainer<I extends ImageContainer<I>> ex
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (ImageContainer<?> subImage : getChannelConcatImages()) {
-			subImage.populateIm2colConvImport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth, channels);
-			startIndex = startIndex
-					+ windowWidth * windowHeight * examples * filterHeight * filterWidth * subImage.getChannels();
-		}
+		List<I> subImages = getChannelConcatImages();
+		int[] startIndexes = getStartIndexes(subImages, startIndex,
+				windowWidth * windowHeight * examples * filterHeight * filterWidth);
+		forEachIndex(subImages.size(), isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				i -> subImages.get(i).populateIm2colConvImport(data, startIndexes[i], filterHeight, filterWidth,
+						strideHeight, strideWidth, channels));
 	}
 
 	@Override
@@ -120,10 +122,11 @@ public abstract class MultiChannelImageContainer<I extends ImageContainer<I>> ex
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (ImageContainer<?> subImage : getChannelConcatImages()) {
-			subImage.populateIm2colPoolExport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth, channels);
-			startIndex = startIndex + examples * subImage.getChannels() * windowWidth * windowHeight;
-		}
+		List<I> subImages = getChannelConcatImages();
+		int[] startIndexes = getStartIndexes(subImages, startIndex, examples * windowWidth * windowHeight);
+		forEachIndex(subImages.size(), isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				i -> subImages.get(i).populateIm2colPoolExport(data, startIndexes[i], filterHeight, filterWidth,
+						strideHeight, strideWidth, channels));
 	}
 	
 	@Override
@@ -133,10 +136,11 @@ public abstract class MultiChannelImageContainer<I extends ImageContainer<I>> ex
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (ImageContainer<?> subImage : getChannelConcatImages()) {
-			subImage.populateIm2colPoolImport(data, startIndex, filterHeight, filterWidth, strideHeight, strideWidth, channels);
-			startIndex = startIndex + examples * subImage.getChannels() * windowWidth * windowHeight;
-		}
+		List<I> subImages = getChannelConcatImages();
+		int[] startIndexes = getStartIndexes(subImages, startIndex, examples * windowWidth * windowHeight);
+		forEachIndex(subImages.size(), isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				i -> subImages.get(i).populateIm2colPoolImport(data, startIndexes[i], filterHeight, filterWidth,
+						strideHeight, strideWidth, channels));
 	}
 
 	@Override
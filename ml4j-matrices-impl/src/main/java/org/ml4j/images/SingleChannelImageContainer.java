@@ -71,9 +71,9 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 			if (sourceH >= 0 && targetH >= 0 && sourceH < this.height && targetH < height) {
 				if (strideWidth == 1) {
 					int startW2 = Math.max(startWidth - paddingWidth, 0);
-					int widthToCopy = Math.min(width - paddingWidth + (forIm2col2 ? 0 : startWidth),
-							this.width - startW2);
 					int startW = Math.max(paddingWidth - startWidth, 0);
+					int widthToCopy = Math.min(Math.min(width - paddingWidth + (forIm2col2 ? 0 : startWidth),
+							this.width - startW2), width - startW);
 					System.arraycopy(this.data, this.startIndex + sourceH * this.width * examples + startW2 * examples,
 							data, startIndex + targetH * width * examples + startW * examples,
 							examples * (widthToCopy));
@@ -81,7 +81,7 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 					int widthToCopy = 1;
 					int startW2 = startWidth - paddingWidth;
 					int startW = Math.max(paddingWidth - startWidth, 0);
-					for (int w = startW2; w < this.width; w += strideWidth) {
+					for (int w = startW2; w < this.width && startW < width; w += strideWidth) {
 						if (w >= 0) {
 							System.arraycopy(this.data,
 									this.startIndex + sourceH * this.width * examples + w * examples, data,
@@ -105,15 +105,15 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 			if (sourceH >= 0 && targetH >= 0 && sourceH < this.height && targetH < height) {
 				if (strideWidth == 1) {
 					int startW2 = Math.max(startWidth - paddingWidth, 0);
-					int widthToCopy = Math.min(width - paddingWidth + (forIm2col2 ? 0 : startWidth),
-							this.width - startW2);
 					int startW = Math.max(paddingWidth - startWidth, 0);
+					int widthToCopy = Math.min(Math.min(width - paddingWidth + (forIm2col2 ? 0 : startWidth),
+							this.width - startW2), width - startW);
 					JavaBlas.raxpy(examples * widthToCopy, 1, data, startIndex + targetH * width * examples + startW * examples, 1, this.data, this.startIndex + sourceH * this.width * examples + startW2 * examples, 1);
 				} else {
 					int widthToCopy = 1;
 					int startW2 = startWidth - paddingWidth;
 					int startW = Math.max(paddingWidth - startWidth, 0);
-					for (int w = startW2; w < this.width; w += strideWidth) {
+					for (int w = startW2; w < this.width && startW < width; w += strideWidth) {
 						if (w >= 0) {
 							JavaBlas.raxpy(examples * widthToCopy, 1, data, startIndex + targetH * width * examples + startW * examples, 1, this.data, this.startIndex + sourceH * this.width * examples + w * examples, 1);
 							startW = startW + 1;
@@ -142,13 +142,10 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (int h = 0; h < filterHeight; h++) {
-			for (int w = 0; w < filterWidth; w++) {
-				populateDataSubImage(data, startIndex, h, w, windowHeight, windowWidth, strideHeight, strideWidth,
-						false);
-				startIndex = startIndex + getSubImageDataLength(windowHeight, windowWidth);
-			}
-		}
+		int subImageDataLength = getSubImageDataLength(windowHeight, windowWidth);
+		forEachIndex(filterHeight * filterWidth, isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				offset -> populateDataSubImage(data, startIndex + offset * subImageDataLength, offset / filterWidth,
+						offset % filterWidth, windowHeight, windowWidth, strideHeight, strideWidth, false));
 	}
 	
 	@Override
@@ -174,13 +171,10 @@ public abstract class SingleChannelImageContainer<I extends ImageContainer<I>> e
 		int windowSpanHeight = height + 2 * paddingHeight - filterHeight + 1;
 		int windowWidth = strideWidth == 1 ? windowSpanWidth : (windowSpanWidth + 1) / strideWidth;
 		int windowHeight = strideHeight == 1 ? windowSpanHeight : (windowSpanHeight + 1) / strideHeight;
-		for (int h = 0; h < filterHeight; h++) {
-			for (int w = 0; w < filterWidth; w++) {
-				populateDataSubImage(data, startIndex, h, w, windowHeight, windowWidth, strideHeight, strideWidth,
-						true);
-				startIndex = startIndex + getSubImageDataLength(windowHeight, windowWidth) * channels;
-			}
-		}
+		int subImageDataLength = getSubImageDataLength(windowHeight, windowWidth) * channels;
+		forEachIndex(filterHeight * filterWidth, isIm2colParallel(filterHeight, filterWidth, windowHeight, windowWidth),
+				offset -> populateDataSubImage(data, startIndex + offset * subImageDataLength, offset / filterWidth,
+						offset % filterWidth, windowHeight, windowWidth, strideHeight, strideWidth, true));
 	}
 	
 	@Override
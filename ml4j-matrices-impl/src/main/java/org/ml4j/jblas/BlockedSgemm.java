@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.jblas;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Pure-Java, cache-blocked, fork/join parallel single precision matrix
+ * multiplication over column-major arrays - the layout of jblas FloatMatrix
+ * data.
+ *
+ * The result is split recursively, along whichever of its rows or columns spans
+ * more blocks, into tiles of at most ROW_BLOCK_SIZE rows by COLUMN_BLOCK_SIZE
+ * columns, each computed independently on the fork/join pool - so that results
+ * with few columns but many rows are also parallelised. Within a tile the inner
+ * dimension is blocked so that the block of the left hand matrix being
+ * multiplied stays resident in cache, and the innermost loop is a contiguous
+ * multiply-add down a column.
+ *
+ * @author Michael Lavelle
+ */
+final class BlockedSgemm {
+
+	/**
+	 * The maximum number of result columns computed by a single task.
+	 */
+	static final int COLUMN_BLOCK_SIZE = 64;
+
+	/**
+	 * The maximum number of result rows computed by a single task, and the number
+	 * of rows of the left hand matrix in each cache block.
+	 */
+	static final int ROW_BLOCK_SIZE = 256;
+
+	/**
+	 * The number of columns of the left hand matrix in each cache block.
+	 */
+	static final int INNER_BLOCK_SIZE = 128;
+
+	/**
+	 * Below this number of multiply-adds the multiplication is computed on the
+	 * calling thread.
+	 */
+	static final long PARALLEL_THRESHOLD = 64L * 64L * 64L;
+
+	private BlockedSgemm() {
+		// Static methods only
+	}
+
+	/**
+	 * Compute c = a * b, overwriting c - which must not be the same array as a or
+	 * b, as it is cleared before the product is accumulated into it.
+	 *
+	 * @param m The number of rows of a and c.
+	 * @param n The number of columns of b and c.
+	 * @param k The number of columns of a and rows of b.
+	 * @param a The column-major data of a.
+	 * @param b The column-major data of b.
+	 * @param c The column-major data of c.
+	 */
+	static void gemm(int m, int n, int k, float[] a, float[] b, float[] c) {
+		if (a.length < m * k || b.length < k * n || c.length < m * n) {
+			throw new IllegalArgumentException("Array lengths do not match the matrix dimensions");
+		}
+		if (c == a || c == b) {
+			throw new IllegalArgumentException("The result must not share its data with either operand");
+		}
+		Arrays.fill(c, 0, m * n, 0f);
+		if ((long) m * n * k < PARALLEL_THRESHOLD || (n <= COLUMN_BLOCK_SIZE && m <= ROW_BLOCK_SIZE)) {
+			gemmTile(m, k, a, b, c, 0, m, 0, n);
+		} else {
+			ForkJoinPool.commonPool().invoke(new GemmTask(m, k, a, b, c, 0, m, 0, n));
+		}
+	}
+
+	/**
+	 * Accumulate the rows [startRow, endRow) of the columns [startColumn,
+	 * endColumn) of a * b into c.
+	 */
+	private static void gemmTile(int m, int k, float[] a, float[] b, float[] c, int startRow, int endRow,
+			int startColumn, int endColumn) {
+		for (int innerStart = 0; innerStart < k; innerStart += INNER_BLOCK_SIZE) {
+			int innerEnd = Math.min(k, innerStart + INNER_BLOCK_SIZE);
+			for (int rowStart = startRow; rowStart < endRow; rowStart += ROW_BLOCK_SIZE) {
+				int rowEnd = Math.min(endRow, rowStart + ROW_BLOCK_SIZE);
+				for (int j = startColumn; j < endColumn; j++) {
+					int cOffset = j * m;
+					int bOffset = j * k;
+					for (int p = innerStart; p < innerEnd; p++) {
+						// Zero elements of b are not skipped, so that infinities and NaNs in a
+						// propagate to c as they would with BLAS
+						float bValue = b[bOffset + p];
+						int aOffset = p * m;
+						for (int i = rowStart; i < rowEnd; i++) {
+							c[cOffset + i] += a[aOffset + i] * bValue;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static class GemmTask extends RecursiveAction {
+
+		/**
+		 * Default serialization id.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		private final int m;
+		private final int k;
+		private final float[] a;
+		private final float[] b;
+		private final float[] c;
+		private final int startRow;
+		private final int endRow;
+		private final int startColumn;
+		private final int endColumn;
+
+		GemmTask(int m, int k, float[] a, float[] b, float[] c, int startRow, int endRow, int startColumn,
+				int endColumn) {
+			this.m = m;
+			this.k = k;
+			this.a = a;
+			this.b = b;
+			this.c = c;
+			this.startRow = startRow;
+			this.endRow = endRow;
+			this.startColumn = startColumn;
+			this.endColumn = endColumn;
+		}
+
+		@Override
+		protected void compute() {
+			int rowBlocks = (endRow - startRow + ROW_BLOCK_SIZE - 1) / ROW_BLOCK_SIZE;
+			int columnBlocks = (endColumn - startColumn + COLUMN_BLOCK_SIZE - 1) / COLUMN_BLOCK_SIZE;
+			if (rowBlocks <= 1 && columnBlocks <= 1) {
+				gemmTile(m, k, a, b, c, startRow, endRow, startColumn, endColumn);
+			} else if (columnBlocks >= rowBlocks) {
+				// Split on a block boundary so that tiles remain whole blocks
+				int midColumn = startColumn + (columnBlocks / 2) * COLUMN_BLOCK_SIZE;
+				invokeAll(new GemmTask(m, k, a, b, c, startRow, endRow, startColumn, midColumn),
+						new GemmTask(m, k, a, b, c, startRow, endRow, midColumn, endColumn));
+			} else {
+				int midRow = startRow + (rowBlocks / 2) * ROW_BLOCK_SIZE;
+				invokeAll(new GemmTask(m, k, a, b, c, startRow, midRow, startColumn, endColumn),
+						new GemmTask(m, k, a, b, c, midRow, endRow, startColumn, endColumn));
+			}
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.jblas;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Single-pass elementwise kernels for activation functions and their
+ * gradients, operating directly on the backing data of FloatMatrices.
+ *
+ * Each kernel reads each source element and writes each target element once -
+ * the source and target may be the same array for in-place evaluation. Arrays
+ * of at least PARALLEL_THRESHOLD elements are split into chunks evaluated in
+ * parallel on the common fork/join pool.
+ *
+ * @author Michael Lavelle
+ */
+final class FusedActivationKernels {
+
+	/**
+	 * The minimum number of elements for which a kernel is evaluated in parallel.
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * The number of elements in each parallel chunk.
+	 */
+	static final int CHUNK_SIZE = 1 << 14;
+
+	/**
+	 * The maximum number of columns in each parallel chunk of a column-wise
+	 * kernel.
+	 */
+	static final int COLUMN_CHUNK_SIZE = 256;
+
+	private FusedActivationKernels() {
+		// Static kernels only
+	}
+
+	/**
+	 * An elementwise kernel over the range [start, end) of the source and target.
+	 */
+	@FunctionalInterface
+	private interface RangeKernel {
+		void apply(float[] source, float[] target, int start, int end);
+	}
+
+	static void sigmoid(float[] source, float[] target) {
+		evaluate(source, target, FusedActivationKernels::sigmoid);
+	}
+
+	static void tanh(float[] source, float[] target) {
+		evaluate(source, target, FusedActivationKernels::tanh);
+	}
+
+	static void relu(float[] source, float[] target) {
+		evaluate(source, target, FusedActivationKernels::relu);
+	}
+
+	/**
+	 * @param source The sigmoid outputs.
+	 */
+	static void sigmoidGradient(float[] source, float[] target) {
+		evaluate(source, target, FusedActivationKernels::sigmoidGradient);
+	}
+
+	/**
+	 * @param source The tanh outputs.
+	 */
+	static void tanhGradient(float[] source, float[] target) {
+		evaluate(source, target, FusedActivationKernels::tanhGradient);
+	}
+
+	/**
+	 * @param source The relu inputs.
+	 */
+	static void reluGradient(float[] source, float[] target) {
+		evaluate(source, target, FusedActivationKernels::reluGradient);
+	}
+
+	/**
+	 * Softmax over each column of row-major data - subtracting the maximum of each
+	 * column before exponentiation for numerical stability.
+	 *
+	 * Columns are strided in row-major data, so each pass runs along the
+	 * contiguous rows, accumulating per-column maxima and sums. Ranges of columns
+	 * are evaluated in parallel for large arrays, each range of around CHUNK_SIZE
+	 * elements - so that tall arrays with few columns are split into narrow
+	 * ranges rather than evaluated sequentially.
+	 *
+	 * @param rows    The number of rows.
+	 * @param columns The number of columns.
+	 */
+	static void softmax(float[] source, float[] target, int rows, int columns) {
+		if (target.length != source.length || source.length != rows * columns) {
+			throw new IllegalArgumentException("Source and target lengths do not match the dimensions");
+		}
+		int chunkColumns = Math.max(1, Math.min(COLUMN_CHUNK_SIZE, CHUNK_SIZE / Math.max(1, rows)));
+		if (source.length < PARALLEL_THRESHOLD || columns <= chunkColumns) {
+			softmax(source, target, rows, columns, 0, columns);
+		} else {
+			int chunkCount = (columns + chunkColumns - 1) / chunkColumns;
+			IntStream.range(0, chunkCount).parallel().forEach(chunk -> softmax(source, target, rows, columns,
+					chunk * chunkColumns, Math.min(columns, (chunk + 1) * chunkColumns)));
+		}
+	}
+
+	private static void evaluate(float[] source, float[] target, RangeKernel kernel) {
+		if (target.length != source.length) {
+			throw new IllegalArgumentException("Source and target lengths do not match");
+		}
+		int length = source.length;
+		if (length < PARALLEL_THRESHOLD) {
+			kernel.apply(source, target, 0, length);
+		} else {
+			int chunkCount = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			IntStream.range(0, chunkCount).parallel().forEach(chunk -> kernel.apply(source, target,
+					chunk * CHUNK_SIZE, Math.min(length, (chunk + 1) * CHUNK_SIZE)));
+		}
+	}
+
+	private static void sigmoid(float[] source, float[] target, int start, int end) {
+		for (int i = start; i < end; i++) {
+			target[i] = 1f / (1f + (float) Math.exp(-source[i]));
+		}
+	}
+
+	private static void tanh(float[] source, float[] target, int start, int end) {
+		for (int i = start; i < end; i++) {
+			target[i] = (float) Math.tanh(source[i]);
+		}
+	}
+
+	private static void relu(float[] source, float[] target, int start, int end) {
+		for (int i = start; i < end; i++) {
+			target[i] = source[i] > 0 ? source[i] : 0f;
+		}
+	}
+
+	private static void sigmoidGradient(float[] source, float[] target, int start, int end) {
+		for (int i = start; i < end; i++) {
+			float output = source[i];
+			target[i] = output * (1f - output);
+		}
+	}
+
+	private static void tanhGradient(float[] source, float[] target, int start, int end) {
+		for (int i = start; i < end; i++) {
+			float output = source[i];
+			target[i] = 1f - output * output;
+		}
+	}
+
+	private static void reluGradient(float[] source, float[] target, int start, int end) {
+		for (int i = start; i < end; i++) {
+			target[i] = source[i] > 0 ? 1f : 0f;
+		}
+	}
+
+	private static void softmax(float[] source, float[] target, int rows, int columns, int startColumn,
+			int endColumn) {
+		int width = endColumn - startColumn;
+		float[] max = new float[width];
+		Arrays.fill(max, Float.NEGATIVE_INFINITY);
+		for (int r = 0; r < rows; r++) {
+			int offset = r * columns + startColumn;
+			for (int c = 0; c < width; c++) {
+				if (source[offset + c] > max[c]) {
+					max[c] = source[offset + c];
+				}
+			}
+		}
+		float[] sum = new float[width];
+		for (int r = 0; r < rows; r++) {
+			int offset = r * columns + startColumn;
+			for (int c = 0; c < width; c++) {
+				float exp = (float) Math.exp(source[offset + c] - max[c]);
+				target[offset + c] = exp;
+				sum[c] = sum[c] + exp;
+			}
+		}
+		for (int c = 0; c < width; c++) {
+			sum[c] = 1f / sum[c];
+		}
+		for (int r = 0; r < rows; r++) {
+			int offset = r * columns + startColumn;
+			for (int c = 0; c < width; c++) {
+				target[offset + c] = target[offset + c] * sum[c];
+			}
+		}
+	}
+}
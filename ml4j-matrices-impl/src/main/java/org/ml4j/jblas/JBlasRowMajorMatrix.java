@@ -36,6 +36,12 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 	public FloatMatrix matrix;
 	private FloatMatrixFactory floatMatrixFactory;
 	private boolean immutable;
+	
+	/**
+	 * Whether the backing FloatMatrix is shared with another JBlasRowMajorMatrix -
+	 * if so it must not be released to the FloatMatrixFactory on close.
+	 */
+	private boolean backingMatrixShared;
 
 	public JBlasRowMajorMatrix(FloatMatrixFactory floatMatrixFactory, FloatMatrix matrix, boolean immutable) {
 		this.matrix = matrix;
@@ -43,17 +49,21 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		this.immutable = immutable;
 	}
 
-	private FloatMatrix getFloatMatrix() {
+	protected FloatMatrix getFloatMatrix() {
 		return getMatrix();
 	}
 
+	protected FloatMatrixFactory getFloatMatrixFactory() {
+		return floatMatrixFactory;
+	}
+
 	/**
 	 * Create a new JBlas FloatMatrix from the Matrix.
 	 * 
 	 * @param matrix The matrix we want to convert to a FloatMatrix.
 	 * @return The resulting FloatMatrix.
 	 */
-	private FloatMatrix createJBlasFloatMatrix(Matrix matrix) {
+	protected FloatMatrix createJBlasFloatMatrix(Matrix matrix) {
 		if (matrix instanceof JBlasRowMajorMatrix) {
 			return ((JBlasRowMajorMatrix) matrix).getFloatMatrix();
 		} else {
@@ -65,6 +75,18 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 		return new JBlasRowMajorMatrix(floatMatrixFactory, matrix, immutable);
 	}
 
+	/**
+	 * Create a JBlasRowMajorMatrix which shares its backing FloatMatrix with an
+	 * existing JBlasRowMajorMatrix, marking both as sharing so that neither releases
+	 * the FloatMatrix to the FloatMatrixFactory on close.
+	 */
+	private Matrix createSharedJBlasMatrix(FloatMatrix matrix, Matrix owner) {
+		((JBlasRowMajorMatrix) owner).backingMatrixShared = true;
+		JBlasRowMajorMatrix sharedMatrix = (JBlasRowMajorMatrix) createJBlasMatrix(matrix, false);
+		sharedMatrix.backingMatrixShared = true;
+		return sharedMatrix;
+	}
+
 	@Override
 	public Matrix add(Matrix other) {
 		if (other.getRows() != this.getRows()) {
@@ -144,7 +166,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 	}
 
 	public Matrix copy(Matrix other) {
-		return createJBlasMatrix(getMatrix().copy(createJBlasFloatMatrix(other)), false);
+		return createSharedJBlasMatrix(getMatrix().copy(createJBlasFloatMatrix(other)), this);
 	}
 
 	@Override
@@ -233,8 +255,8 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 	}
 
 	public Matrix mmul(Matrix other, Matrix target) {
-		return createJBlasMatrix(getMatrix().mmuli(createJBlasFloatMatrix(other), createJBlasFloatMatrix(target)),
-				false);
+		return createSharedJBlasMatrix(getMatrix().mmuli(createJBlasFloatMatrix(other), createJBlasFloatMatrix(target)),
+				target);
 	}
 
 	@Override
@@ -484,13 +506,98 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 
 	@Override
 	public Matrix sigmoid() {
-		FloatMatrix result = MatrixFunctions
-				.expi(getMatrix().muli(-1, floatMatrixFactory.create(getColumns(), getRows())));
-		result.addi(1);
-		MatrixFunctions.powi(result, -1);
+		FloatMatrix result = floatMatrixFactory.create(getColumns(), getRows());
+		FusedActivationKernels.sigmoid(getMatrix().data, result.data);
+		return createJBlasMatrix(result, false);
+	}
+
+	public EditableMatrix sigmoidi() {
+		FusedActivationKernels.sigmoid(getMatrix().data, getMatrix().data);
+		return this;
+	}
+
+	/**
+	 * @return The gradient of the sigmoid function, where this matrix contains the
+	 *         sigmoid outputs.
+	 */
+	public Matrix sigmoidGradient() {
+		FloatMatrix result = floatMatrixFactory.create(getColumns(), getRows());
+		FusedActivationKernels.sigmoidGradient(getMatrix().data, result.data);
+		return createJBlasMatrix(result, false);
+	}
+
+	public EditableMatrix sigmoidGradienti() {
+		FusedActivationKernels.sigmoidGradient(getMatrix().data, getMatrix().data);
+		return this;
+	}
+
+	public Matrix tanh() {
+		FloatMatrix result = floatMatrixFactory.create(getColumns(), getRows());
+		FusedActivationKernels.tanh(getMatrix().data, result.data);
+		return createJBlasMatrix(result, false);
+	}
+
+	public EditableMatrix tanhi() {
+		FusedActivationKernels.tanh(getMatrix().data, getMatrix().data);
+		return this;
+	}
+
+	/**
+	 * @return The gradient of the tanh function, where this matrix contains the
+	 *         tanh outputs.
+	 */
+	public Matrix tanhGradient() {
+		FloatMatrix result = floatMatrixFactory.create(getColumns(), getRows());
+		FusedActivationKernels.tanhGradient(getMatrix().data, result.data);
 		return createJBlasMatrix(result, false);
 	}
 
+	public EditableMatrix tanhGradienti() {
+		FusedActivationKernels.tanhGradient(getMatrix().data, getMatrix().data);
+		return this;
+	}
+
+	public Matrix relu() {
+		FloatMatrix result = floatMatrixFactory.create(getColumns(), getRows());
+		FusedActivationKernels.relu(getMatrix().data, result.data);
+		return createJBlasMatrix(result, false);
+	}
+
+	public EditableMatrix relui() {
+		FusedActivationKernels.relu(getMatrix().data, getMatrix().data);
+		return this;
+	}
+
+	/**
+	 * @return The gradient of the relu function, where this matrix contains the
+	 *         relu inputs.
+	 */
+	public Matrix reluGradient() {
+		FloatMatrix result = floatMatrixFactory.create(getColumns(), getRows());
+		FusedActivationKernels.reluGradient(getMatrix().data, result.data);
+		return createJBlasMatrix(result, false);
+	}
+
+	public EditableMatrix reluGradienti() {
+		FusedActivationKernels.reluGradient(getMatrix().data, getMatrix().data);
+		return this;
+	}
+
+	/**
+	 * @return The softmax of each column, with the column maximum subtracted before
+	 *         exponentiation.
+	 */
+	public Matrix softmax() {
+		FloatMatrix result = floatMatrixFactory.create(getColumns(), getRows());
+		FusedActivationKernels.softmax(getMatrix().data, result.data, getRows(), getColumns());
+		return createJBlasMatrix(result, false);
+	}
+
+	public EditableMatrix softmaxi() {
+		FusedActivationKernels.softmax(getMatrix().data, getMatrix().data, getRows(), getColumns());
+		return this;
+	}
+
 	public float[] toColumnByColumnArray() {
 		float[] result = new float[getRows() * getColumns()];
 		int index = 0;
@@ -506,6 +613,9 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 	@Override
 	public void close() {
 		if (this.matrix != null) {
+			if (!backingMatrixShared) {
+				floatMatrixFactory.release(this.matrix);
+			}
 			this.matrix = null;
 		}
 	}
@@ -562,7 +672,7 @@ public class JBlasRowMajorMatrix implements Matrix, EditableMatrix, InterrimMatr
 
 	@Override
 	public Matrix softDup() {
-		return createJBlasMatrix(softDupFloatMatrix(getMatrix()), false);
+		return createSharedJBlasMatrix(softDupFloatMatrix(getMatrix()), this);
 	}
 	
 	public FloatMatrix softDupFloatMatrix(FloatMatrix matrix) {
@@ -37,6 +37,19 @@ public class JBlasRowMajorMatrixFactory implements MatrixFactory {
 		this.floatMatrixFactory = new DefaultFloatMatrixFactory();
 	}
 
+	/**
+	 * @param floatMatrixFactory The FloatMatrixFactory used to create the backing
+	 *                           FloatMatrices - eg. a PooledFloatMatrixFactory to
+	 *                           recycle the storage of closed matrices.
+	 */
+	public JBlasRowMajorMatrixFactory(FloatMatrixFactory floatMatrixFactory) {
+		this.floatMatrixFactory = floatMatrixFactory;
+	}
+
+	public FloatMatrixFactory getFloatMatrixFactory() {
+		return floatMatrixFactory;
+	}
+
 	@Override
 	public Matrix createOnes(int rows, int columns) {
 		return createJBlasMatrix(FloatMatrix.ones(columns, rows));
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.jblas;
+
+import org.jblas.FloatMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.floatmatrix.FloatMatrixFactory;
+
+/**
+ * MatrixFactory creating matrices whose multiplications are computed by a
+ * pure-Java, cache-blocked, fork/join parallel SGEMM, giving predictable
+ * multicore throughput independently of the native BLAS available to jblas.
+ * 
+ * As with any MatrixFactory, the backend is selected for a network by passing
+ * the factory to its DirectedComponentsContext.
+ * 
+ * @author Michael Lavelle
+ */
+public class ParallelSgemmMatrixFactory extends JBlasRowMajorMatrixFactory {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public ParallelSgemmMatrixFactory() {
+		super();
+	}
+
+	public ParallelSgemmMatrixFactory(FloatMatrixFactory floatMatrixFactory) {
+		super(floatMatrixFactory);
+	}
+
+	@Override
+	protected Matrix createJBlasMatrix(FloatMatrix matrix) {
+		return new ParallelSgemmRowMajorMatrix(getFloatMatrixFactory(), matrix, false);
+	}
+
+	@Override
+	protected Matrix createInterrimJBlasMatrix(FloatMatrix matrix) {
+		return new ParallelSgemmRowMajorMatrix(getFloatMatrixFactory(), matrix, false);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.jblas;
+
+import org.jblas.FloatMatrix;
+import org.ml4j.Matrix;
+import org.ml4j.floatmatrix.FloatMatrixFactory;
+
+/**
+ * JBlasRowMajorMatrix whose matrix multiplications are computed by the pure-Java
+ * BlockedSgemm rather than the native BLAS loaded by jblas - all other operations
+ * are unchanged.
+ * 
+ * @author Michael Lavelle
+ */
+public class ParallelSgemmRowMajorMatrix extends JBlasRowMajorMatrix {
+
+	/**
+	 * Default serialization id.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public ParallelSgemmRowMajorMatrix(FloatMatrixFactory floatMatrixFactory, FloatMatrix matrix,
+			boolean immutable) {
+		super(floatMatrixFactory, matrix, immutable);
+	}
+
+	@Override
+	protected Matrix createJBlasMatrix(FloatMatrix matrix, boolean immutable) {
+		return new ParallelSgemmRowMajorMatrix(getFloatMatrixFactory(), matrix, immutable);
+	}
+
+	@Override
+	public Matrix mmul(Matrix other) {
+		if (other.getRows() != getColumns()) {
+			throw new IllegalArgumentException("Matrix dimensions do not match for multiplication");
+		}
+		FloatMatrix result = getFloatMatrixFactory().create(other.getColumns(), getRows());
+		multiply(other, result);
+		return createJBlasMatrix(result, false);
+	}
+
+	@Override
+	public Matrix mmul(Matrix other, Matrix target) {
+		if (other.getRows() != getColumns()) {
+			throw new IllegalArgumentException("Matrix dimensions do not match for multiplication");
+		}
+		if (target.getRows() != getRows() || target.getColumns() != other.getColumns()) {
+			throw new IllegalArgumentException("Target dimensions do not match for multiplication");
+		}
+		FloatMatrix result = createJBlasFloatMatrix(target);
+		if (result.data == getFloatMatrix().data || result.data == createJBlasFloatMatrix(other).data) {
+			// BlockedSgemm clears the result before accumulating into it, so multiply
+			// into scratch storage when the target shares its data with an operand
+			FloatMatrix scratch = getFloatMatrixFactory().create(result.getRows(), result.getColumns());
+			multiply(other, scratch);
+			System.arraycopy(scratch.data, 0, result.data, 0, result.getLength());
+			getFloatMatrixFactory().release(scratch);
+		} else {
+			multiply(other, result);
+		}
+		return target;
+	}
+
+	/**
+	 * The backing FloatMatrices hold the transposes of the row-major matrices, so
+	 * the transpose of this * other is computed as other^T * this^T.
+	 */
+	private void multiply(Matrix other, FloatMatrix result) {
+		FloatMatrix left = createJBlasFloatMatrix(other);
+		FloatMatrix right = getFloatMatrix();
+		BlockedSgemm.gemm(left.getRows(), right.getColumns(), left.getColumns(), left.data, right.data,
+				result.data);
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.jblas;
+
+import org.jblas.FloatMatrix;
+import org.ml4j.floatarray.PooledFloatArrayFactory;
+import org.ml4j.floatmatrix.FloatMatrixFactory;
+
+/**
+ * FloatMatrixFactory which recycles the backing data of released FloatMatrices
+ * via a PooledFloatArrayFactory.
+ * 
+ * Used with a JBlasRowMajorMatrixFactory, the backing data of a
+ * JBlasRowMajorMatrix is released on close() so that identically shaped
+ * matrices - eg. activations and im2col matrices allocated on every iteration -
+ * reuse the same storage.
+ * 
+ * Only matrices created via create(int, int) are pooled - ownership of the
+ * storage is tracked per FloatMatrix rather than per array, so releasing any
+ * other FloatMatrix - eg. one wrapping caller supplied data, which may be the
+ * data of a pooled matrix - never recycles the storage.
+ * 
+ * @author Michael Lavelle
+ */
+public class PooledFloatMatrixFactory implements FloatMatrixFactory {
+
+	/**
+	 * Default serialization id
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private PooledFloatArrayFactory floatArrayFactory;
+
+	public PooledFloatMatrixFactory() {
+		this(new PooledFloatArrayFactory());
+	}
+
+	public PooledFloatMatrixFactory(PooledFloatArrayFactory floatArrayFactory) {
+		this.floatArrayFactory = floatArrayFactory;
+	}
+
+	@Override
+	public FloatMatrix create(float[][] data) {
+		return new FloatMatrix(data);
+	}
+
+	@Override
+	public FloatMatrix create(int rows, int columns) {
+		return new PooledFloatMatrix(rows, columns, floatArrayFactory.createFloatArray(rows * columns));
+	}
+
+	@Override
+	public FloatMatrix create(int rows, int columns, float[] data) {
+		return new FloatMatrix(rows, columns, data);
+	}
+
+	@Override
+	public void release(FloatMatrix matrix) {
+		if (matrix instanceof PooledFloatMatrix) {
+			floatArrayFactory.release(matrix.data);
+		}
+	}
+
+	/**
+	 * @return The PooledFloatArrayFactory backing this factory, providing the hit,
+	 *         miss and leak statistics.
+	 */
+	public PooledFloatArrayFactory getFloatArrayFactory() {
+		return floatArrayFactory;
+	}
+
+	@Override
+	public String toString() {
+		return "PooledFloatMatrixFactory [" + floatArrayFactory + "]";
+	}
+
+	/**
+	 * A FloatMatrix which owns storage created by the PooledFloatArrayFactory.
+	 */
+	private static class PooledFloatMatrix extends FloatMatrix {
+
+		/**
+		 * Default serialization id
+		 */
+		private static final long serialVersionUID = 1L;
+
+		private PooledFloatMatrix(int rows, int columns, float[] data) {
+			super(rows, columns, data);
+		}
+	}
+}
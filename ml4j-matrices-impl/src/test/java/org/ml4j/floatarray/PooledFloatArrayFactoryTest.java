@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.floatarray;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PooledFloatArrayFactoryTest {
+
+  @Test
+  public void testReleasedArrayIsReusedForSameLengthAndZeroed() {
+    PooledFloatArrayFactory factory = new PooledFloatArrayFactory();
+    float[] array = factory.createFloatArray(12);
+    array[3] = 1;
+    factory.release(array);
+
+    // The pool is keyed by length, so eg. 3x4 and 2x6 matrices share arrays
+    float[] reused = factory.createFloatArray(12);
+    Assert.assertSame(array, reused);
+    Assert.assertEquals(0, reused[3], 0f);
+    Assert.assertEquals(1, factory.getHitCount());
+    Assert.assertEquals(1, factory.getMissCount());
+  }
+
+  @Test
+  public void testReleasedArrayIsNotReusedForOtherLengths() {
+    PooledFloatArrayFactory factory = new PooledFloatArrayFactory();
+    factory.release(factory.createFloatArray(12));
+
+    // Arrays are handed out at exactly the requested length
+    Assert.assertEquals(11, factory.createFloatArray(11).length);
+    Assert.assertEquals(13, factory.createFloatArray(13).length);
+    Assert.assertEquals(0, factory.getHitCount());
+    Assert.assertEquals(12, factory.getPooledFloatCount());
+  }
+
+  @Test
+  public void testArraysReleasedBeyondMaxPooledAreDiscarded() {
+    PooledFloatArrayFactory factory = new PooledFloatArrayFactory(1);
+    float[] first = factory.createFloatArray(12);
+    float[] second = factory.createFloatArray(12);
+    factory.release(first);
+    factory.release(second);
+
+    Assert.assertEquals(2, factory.getReleaseCount());
+    Assert.assertEquals(1, factory.getDiscardCount());
+    Assert.assertEquals(12, factory.getPooledFloatCount());
+  }
+
+  @Test
+  public void testArraysNotCreatedByFactoryAreIgnored() {
+    PooledFloatArrayFactory factory = new PooledFloatArrayFactory();
+    float[] array = factory.createFloatArray(12);
+    factory.release(new float[12]);
+    factory.release(array);
+    factory.release(array);
+
+    Assert.assertEquals(1, factory.getReleaseCount());
+    Assert.assertEquals(0, factory.getOutstandingCount());
+    Assert.assertEquals(12, factory.getPooledFloatCount());
+  }
+}
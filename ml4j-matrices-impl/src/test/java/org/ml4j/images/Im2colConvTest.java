@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.images;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+/**
+ * Regression tests for the im2col export and import of images, comparing the
+ * export with the im2col matrix of ImageConvolution and checking the import is
+ * its adjoint - so that no gradient is added by the import for input values
+ * the export does not read. Each test runs on both the sequential and the
+ * parallel im2col path.
+ *
+ * @author Michael Lavelle
+ */
+public class Im2colConvTest {
+
+  private static final float DELTA = 1e-3f;
+
+  /**
+   * Channels, height, width, examples, filter height, filter width, stride
+   * height, stride width, padding height and padding width.
+   */
+  private static final int[][] SHAPES = new int[][] {
+      {1, 6, 6, 2, 3, 3, 1, 1, 0, 0},
+      {2, 7, 7, 3, 3, 3, 1, 1, 0, 0},
+      {2, 7, 7, 3, 5, 5, 1, 1, 1, 1},
+      {3, 8, 8, 2, 3, 3, 1, 1, 1, 1},
+      {2, 9, 9, 2, 3, 3, 2, 2, 1, 1},
+      {1, 5, 5, 1, 2, 2, 1, 1, 0, 0}};
+
+  private MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+
+  private Random random = new Random(42);
+
+  private int parallelThreshold = ImageContainerBase.getIm2colParallelThreshold();
+
+  @After
+  public void tearDown() {
+    ImageContainerBase.setIm2colParallelThreshold(parallelThreshold);
+  }
+
+  @Test
+  public void testExportMatchesIm2col() {
+    ImageContainerBase.setIm2colParallelThreshold(Integer.MAX_VALUE);
+    assertExportMatchesIm2col();
+  }
+
+  @Test
+  public void testParallelExportMatchesIm2col() {
+    ImageContainerBase.setIm2colParallelThreshold(0);
+    assertExportMatchesIm2col();
+  }
+
+  @Test
+  public void testImportIsAdjointOfExport() {
+    ImageContainerBase.setIm2colParallelThreshold(Integer.MAX_VALUE);
+    assertImportIsAdjointOfExport();
+  }
+
+  @Test
+  public void testParallelImportIsAdjointOfExport() {
+    ImageContainerBase.setIm2colParallelThreshold(0);
+    assertImportIsAdjointOfExport();
+  }
+
+  private void assertExportMatchesIm2col() {
+    for (int[] shape : SHAPES) {
+      float[] input = createData(shape[0] * shape[1] * shape[2] * shape[3]);
+      Assert.assertArrayEquals(im2col(shape, input), export(shape, input.clone()), 0f);
+    }
+  }
+
+  private void assertImportIsAdjointOfExport() {
+    for (int[] shape : SHAPES) {
+      float[] input = createData(shape[0] * shape[1] * shape[2] * shape[3]);
+      float[] im2col = createData(im2col(shape, input).length);
+
+      float[] imported = new float[input.length];
+      createImages(shape, imported).im2colConvImport(matrixFactory,
+          matrixFactory.createMatrixFromRowsByRowsArray(1, im2col.length, im2col), shape[4], shape[5], shape[6],
+          shape[7]);
+
+      // <export(x), y> == <x, import(y)>
+      Assert.assertEquals(dot(export(shape, input), im2col), dot(input, imported), DELTA);
+    }
+  }
+
+  private float[] export(int[] shape, float[] input) {
+    return createImages(shape, input).im2colConvExport(matrixFactory, shape[4], shape[5], shape[6], shape[7])
+        .getRowByRowArray();
+  }
+
+  private float[] im2col(int[] shape, float[] input) {
+    ImageConvolution convolution = new ImageConvolution(shape[0], shape[1], shape[2], shape[3], shape[4],
+        shape[5], shape[6], shape[7], shape[8], shape[9]);
+    float[] im2col = new float[convolution.getFilterLength() * convolution.getOutputLength()];
+    convolution.populateIm2col(input, im2col, 0, shape[3]);
+    return im2col;
+  }
+
+  private MultiChannelImages createImages(int[] shape, float[] data) {
+    return new MultiChannelImages(data, shape[0], shape[1], shape[2], shape[8], shape[9], shape[3]);
+  }
+
+  private float dot(float[] first, float[] second) {
+    double dot = 0;
+    for (int i = 0; i < first.length; i++) {
+      dot += first[i] * second[i];
+    }
+    return (float) dot;
+  }
+
+  private float[] createData(int length) {
+    float[] data = new float[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (float) random.nextGaussian();
+    }
+    return data;
+  }
+}
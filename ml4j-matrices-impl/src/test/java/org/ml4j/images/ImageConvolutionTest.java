@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.images;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+public class ImageConvolutionTest {
+
+  private static final float DELTA = 1e-4f;
+
+  private MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+
+  private Random random = new Random(42);
+
+  @Test
+  public void testDirectMatchesIm2col() {
+    assertDirectMatchesIm2col(3, 8, 8, 4, 3, 3, 1, 1, 0, 0, 5);
+    assertDirectMatchesIm2col(2, 7, 9, 3, 3, 3, 1, 1, 1, 1, 4);
+    assertDirectMatchesIm2col(2, 9, 9, 2, 5, 5, 2, 2, 2, 2, 3);
+    assertDirectMatchesIm2col(1, 6, 5, 1, 2, 3, 1, 2, 0, 1, 2);
+  }
+
+  @Test
+  public void testWinogradMatchesIm2col() {
+    assertWinogradMatchesIm2col(3, 8, 8, 4, 0, 0, 5);
+    // Odd output dimensions leave partial 2x2 output tiles
+    assertWinogradMatchesIm2col(2, 7, 9, 3, 1, 1, 4);
+    assertWinogradMatchesIm2col(4, 5, 6, 1, 0, 1, 3);
+  }
+
+  @Test
+  public void testConvolveMatchesIm2colForAllAlgorithms() {
+    ImageConvolution convolution = new ImageConvolution(3, 8, 8, 6, 3, 3, 1, 1, 1, 1);
+    float[] input = createData(3 * 8 * 8 * 6);
+    Matrix weights = matrixFactory.createMatrixFromRowsByRowsArray(4, convolution.getFilterLength(),
+        createData(4 * convolution.getFilterLength()));
+
+    float[] expected = convolution.convolve(matrixFactory, ConvolutionAlgorithm.IM2COL, input, weights,
+        Long.MAX_VALUE).getRowByRowArray();
+
+    for (ConvolutionAlgorithm algorithm : ConvolutionAlgorithm.values()) {
+      // A small maximum length splits the tiled im2col into several chunks
+      Matrix output = convolution.convolve(matrixFactory, algorithm, input, weights,
+          convolution.getFilterLength() * 64 * 2);
+      Assert.assertEquals(4, output.getRows());
+      Assert.assertEquals(convolution.getOutputLength(), output.getColumns());
+      Assert.assertArrayEquals(expected, output.getRowByRowArray(), DELTA);
+    }
+  }
+
+  @Test
+  public void testSelectorSelectsDirectOnlyForSmallFiltersOutputsAndSufficientBatches() {
+    ConvolutionAlgorithmSelector selector = ConvolutionAlgorithmSelector.getDefault();
+
+    // An RGB first layer over a batch of small images
+    Assert.assertEquals(ConvolutionAlgorithm.DIRECT, selector.select(3, 32, 32, 32, 3, 3, 1, 1, 0, 0));
+
+    // A single example leaves nothing to vectorise along in the innermost loop
+    Assert.assertEquals(ConvolutionAlgorithm.IM2COL, selector.select(3, 32, 32, 1, 3, 3, 1, 1, 0, 0));
+
+    // The output of each channel no longer fits in cache
+    Assert.assertEquals(ConvolutionAlgorithm.IM2COL, selector.select(3, 224, 224, 8, 3, 3, 1, 1, 1, 1));
+
+    // Filters spanning many input values
+    Assert.assertEquals(ConvolutionAlgorithm.IM2COL, selector.select(32, 16, 16, 32, 3, 3, 1, 1, 1, 1));
+  }
+
+  private void assertDirectMatchesIm2col(int channels, int height, int width, int examples, int filterHeight,
+      int filterWidth, int strideHeight, int strideWidth, int paddingHeight, int paddingWidth,
+      int outputChannels) {
+    ImageConvolution convolution = new ImageConvolution(channels, height, width, examples, filterHeight,
+        filterWidth, strideHeight, strideWidth, paddingHeight, paddingWidth);
+    float[] input = createData(channels * height * width * examples);
+    float[] weights = createData(outputChannels * convolution.getFilterLength());
+    Assert.assertArrayEquals(im2col(convolution, examples, input, weights, outputChannels),
+        convolution.direct(input, weights, outputChannels), DELTA);
+  }
+
+  private void assertWinogradMatchesIm2col(int channels, int height, int width, int examples,
+      int paddingHeight, int paddingWidth, int outputChannels) {
+    ImageConvolution convolution = new ImageConvolution(channels, height, width, examples, 3, 3, 1, 1,
+        paddingHeight, paddingWidth);
+    float[] input = createData(channels * height * width * examples);
+    float[] weights = createData(outputChannels * convolution.getFilterLength());
+    Assert.assertArrayEquals(im2col(convolution, examples, input, weights, outputChannels),
+        convolution.winograd(input, weights, outputChannels), DELTA);
+  }
+
+  /**
+   * The im2col convolution, multiplying the weights by the im2col matrix of all
+   * examples without a matrix factory.
+   */
+  private float[] im2col(ImageConvolution convolution, int examples, float[] input, float[] weights,
+      int outputChannels) {
+    int filterLength = convolution.getFilterLength();
+    int outputLength = convolution.getOutputLength();
+    float[] im2col = new float[filterLength * outputLength];
+    convolution.populateIm2col(input, im2col, 0, examples);
+    float[] output = new float[outputChannels * outputLength];
+    for (int o = 0; o < outputChannels; o++) {
+      for (int k = 0; k < filterLength; k++) {
+        float weight = weights[o * filterLength + k];
+        for (int column = 0; column < outputLength; column++) {
+          output[o * outputLength + column] += weight * im2col[k * outputLength + column];
+        }
+      }
+    }
+    return output;
+  }
+
+  private float[] createData(int length) {
+    float[] data = new float[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (float) random.nextGaussian();
+    }
+    return data;
+  }
+}
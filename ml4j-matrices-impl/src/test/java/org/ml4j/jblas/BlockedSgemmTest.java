@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.jblas;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BlockedSgemmTest {
+
+  @Test
+  public void testSmallProductMatchesReference() {
+    assertProductMatchesReference(5, 7, 3);
+  }
+
+  @Test
+  public void testWideProductMatchesReference() {
+    // Parallel, split over the columns of the result
+    assertProductMatchesReference(30, 500, 70);
+  }
+
+  @Test
+  public void testTallProductMatchesReference() {
+    // Parallel, with fewer columns than a column block, split over the rows
+    assertProductMatchesReference(2000, 10, 40);
+  }
+
+  @Test
+  public void testProductWithPartialBlocksMatchesReference() {
+    assertProductMatchesReference(BlockedSgemm.ROW_BLOCK_SIZE * 2 + 3,
+        BlockedSgemm.COLUMN_BLOCK_SIZE * 3 + 5, BlockedSgemm.INNER_BLOCK_SIZE + 1);
+  }
+
+  @Test
+  public void testResultIsOverwritten() {
+    float[] a = new float[] {1, 2};
+    float[] b = new float[] {3};
+    float[] c = new float[] {100, 100};
+
+    BlockedSgemm.gemm(2, 1, 1, a, b, c);
+
+    Assert.assertArrayEquals(new float[] {3, 6}, c, 0f);
+  }
+
+  @Test
+  public void testInfinityTimesZeroIsNaN() {
+    // a is 2 x 1, b is 1 x 1
+    float[] a = new float[] {Float.POSITIVE_INFINITY, Float.NaN};
+    float[] b = new float[] {0f};
+    float[] c = new float[2];
+
+    BlockedSgemm.gemm(2, 1, 1, a, b, c);
+
+    Assert.assertTrue(Float.isNaN(c[0]));
+    Assert.assertTrue(Float.isNaN(c[1]));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testResultSharingDataWithOperandIsRejected() {
+    float[] a = new float[4];
+    float[] b = new float[4];
+
+    BlockedSgemm.gemm(2, 2, 2, a, b, a);
+  }
+
+  private void assertProductMatchesReference(int m, int n, int k) {
+    Random random = new Random(42);
+    float[] a = createRandomData(m * k, random);
+    float[] b = createRandomData(k * n, random);
+    float[] c = new float[m * n];
+
+    BlockedSgemm.gemm(m, n, k, a, b, c);
+
+    Assert.assertArrayEquals(referenceProduct(m, n, k, a, b), c, 1e-3f);
+  }
+
+  private float[] createRandomData(int length, Random random) {
+    float[] data = new float[length];
+    for (int i = 0; i < length; i++) {
+      // Include exact zeros, which must not be treated specially
+      data[i] = random.nextInt(4) == 0 ? 0f : (float) random.nextGaussian();
+    }
+    return data;
+  }
+
+  /**
+   * The column-major product of column-major a and b, accumulated in double
+   * precision.
+   */
+  private float[] referenceProduct(int m, int n, int k, float[] a, float[] b) {
+    float[] c = new float[m * n];
+    for (int i = 0; i < m; i++) {
+      for (int j = 0; j < n; j++) {
+        double sum = 0;
+        for (int p = 0; p < k; p++) {
+          sum += (double) a[p * m + i] * b[j * k + p];
+        }
+        c[j * m + i] = (float) sum;
+      }
+    }
+    return c;
+  }
+}
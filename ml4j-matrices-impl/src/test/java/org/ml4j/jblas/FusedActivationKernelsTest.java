@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.jblas;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FusedActivationKernelsTest {
+
+  @Test
+  public void testSoftmaxOfNonSquareMatrixMatchesReference() {
+    assertSoftmaxMatchesReference(7, 13);
+  }
+
+  @Test
+  public void testSoftmaxOfWideMatrixMatchesReference() {
+    // Large enough to be evaluated in parallel ranges of columns
+    assertSoftmaxMatchesReference(10, 10000);
+  }
+
+  @Test
+  public void testSoftmaxOfTallMatrixMatchesReference() {
+    // Large enough to be evaluated in parallel, with fewer columns than a
+    // column chunk
+    assertSoftmaxMatchesReference(2000, 50);
+  }
+
+  @Test
+  public void testSoftmaxInPlace() {
+    int rows = 5;
+    int columns = 3;
+    float[] source = createRandomData(rows, columns, 1);
+    float[] expected = referenceSoftmax(source, rows, columns);
+
+    FusedActivationKernels.softmax(source, source, rows, columns);
+
+    Assert.assertArrayEquals(expected, source, 1e-6f);
+  }
+
+  @Test
+  public void testSoftmaxOfLargeInputsIsStable() {
+    float[] source = new float[] {1000f, 1000f, 999f, 1001f};
+    float[] target = new float[4];
+
+    FusedActivationKernels.softmax(source, target, 2, 2);
+
+    // Each column differs by one, so the larger value has probability 1 / (1 + 1/e)
+    float larger = (float) (1 / (1 + Math.exp(-1)));
+    Assert.assertEquals(larger, target[0], 1e-6f);
+    Assert.assertEquals(1 - larger, target[2], 1e-6f);
+    Assert.assertEquals(1 - larger, target[1], 1e-6f);
+    Assert.assertEquals(larger, target[3], 1e-6f);
+  }
+
+  private void assertSoftmaxMatchesReference(int rows, int columns) {
+    float[] source = createRandomData(rows, columns, 42);
+    float[] target = new float[rows * columns];
+
+    FusedActivationKernels.softmax(source, target, rows, columns);
+
+    Assert.assertArrayEquals(referenceSoftmax(source, rows, columns), target, 1e-5f);
+    for (int c = 0; c < columns; c++) {
+      double columnSum = 0;
+      for (int r = 0; r < rows; r++) {
+        columnSum += target[r * columns + c];
+      }
+      Assert.assertEquals(1d, columnSum, 1e-5d);
+    }
+  }
+
+  private float[] createRandomData(int rows, int columns, long seed) {
+    Random random = new Random(seed);
+    float[] data = new float[rows * columns];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (float) random.nextGaussian() * 5;
+    }
+    return data;
+  }
+
+  /**
+   * Softmax over each column of row-major data, evaluated in double precision
+   * one column at a time.
+   */
+  private float[] referenceSoftmax(float[] source, int rows, int columns) {
+    float[] result = new float[rows * columns];
+    for (int c = 0; c < columns; c++) {
+      double max = Double.NEGATIVE_INFINITY;
+      for (int r = 0; r < rows; r++) {
+        max = Math.max(max, source[r * columns + c]);
+      }
+      double sum = 0;
+      for (int r = 0; r < rows; r++) {
+        sum += Math.exp(source[r * columns + c] - max);
+      }
+      for (int r = 0; r < rows; r++) {
+        result[r * columns + c] = (float) (Math.exp(source[r * columns + c] - max) / sum);
+      }
+    }
+    return result;
+  }
+}
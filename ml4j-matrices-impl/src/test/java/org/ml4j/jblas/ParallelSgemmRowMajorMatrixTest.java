@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.jblas;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+
+public class ParallelSgemmRowMajorMatrixTest {
+
+  private MatrixFactory jblasMatrixFactory;
+
+  private MatrixFactory parallelSgemmMatrixFactory;
+
+  @Before
+  public void setUp() {
+    jblasMatrixFactory = new JBlasRowMajorMatrixFactory();
+    parallelSgemmMatrixFactory = new ParallelSgemmMatrixFactory();
+  }
+
+  @Test
+  public void testMmulMatchesJBlas() {
+    assertMmulMatchesJBlas(7, 11, 5);
+    assertMmulMatchesJBlas(40, 300, 90);
+    assertMmulMatchesJBlas(1500, 12, 60);
+  }
+
+  @Test
+  public void testMmulIntoTargetMatchesJBlas() {
+    Random random = new Random(42);
+    float[] left = createRandomData(50 * 70, random);
+    float[] right = createRandomData(70 * 30, random);
+
+    Matrix expected = jblasMatrixFactory.createMatrixFromRowsByRowsArray(50, 70, left.clone())
+        .mmul(jblasMatrixFactory.createMatrixFromRowsByRowsArray(70, 30, right.clone()));
+    Matrix target = parallelSgemmMatrixFactory.createZeros(50, 30);
+    Matrix actual = parallelSgemmMatrixFactory.createMatrixFromRowsByRowsArray(50, 70, left.clone())
+        .mmul(parallelSgemmMatrixFactory.createMatrixFromRowsByRowsArray(70, 30, right.clone()), target);
+
+    Assert.assertSame(target, actual);
+    Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), 1e-3f);
+  }
+
+  @Test
+  public void testMmulIntoOperandMatchesJBlas() {
+    Random random = new Random(42);
+    float[] left = createRandomData(20 * 20, random);
+    float[] right = createRandomData(20 * 20, random);
+
+    Matrix expected = jblasMatrixFactory.createMatrixFromRowsByRowsArray(20, 20, left.clone())
+        .mmul(jblasMatrixFactory.createMatrixFromRowsByRowsArray(20, 20, right.clone()));
+
+    // The target is the left hand operand, so must not be cleared before use
+    Matrix leftMatrix = parallelSgemmMatrixFactory.createMatrixFromRowsByRowsArray(20, 20, left.clone());
+    leftMatrix.mmul(parallelSgemmMatrixFactory.createMatrixFromRowsByRowsArray(20, 20, right.clone()),
+        leftMatrix);
+
+    Assert.assertArrayEquals(expected.getRowByRowArray(), leftMatrix.getRowByRowArray(), 1e-3f);
+  }
+
+  private void assertMmulMatchesJBlas(int rows, int columns, int inner) {
+    Random random = new Random(42);
+    float[] left = createRandomData(rows * inner, random);
+    float[] right = createRandomData(inner * columns, random);
+
+    Matrix expected = jblasMatrixFactory.createMatrixFromRowsByRowsArray(rows, inner, left.clone())
+        .mmul(jblasMatrixFactory.createMatrixFromRowsByRowsArray(inner, columns, right.clone()));
+    Matrix actual = parallelSgemmMatrixFactory.createMatrixFromRowsByRowsArray(rows, inner, left.clone())
+        .mmul(parallelSgemmMatrixFactory.createMatrixFromRowsByRowsArray(inner, columns, right.clone()));
+
+    Assert.assertEquals(expected.getRows(), actual.getRows());
+    Assert.assertEquals(expected.getColumns(), actual.getColumns());
+    Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), 1e-3f);
+  }
+
+  private float[] createRandomData(int length, Random random) {
+    float[] data = new float[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (float) random.nextGaussian();
+    }
+    return data;
+  }
+}
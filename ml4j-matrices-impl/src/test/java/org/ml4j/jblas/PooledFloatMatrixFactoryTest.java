@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.jblas;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+
+public class PooledFloatMatrixFactoryTest {
+
+  private PooledFloatMatrixFactory floatMatrixFactory;
+
+  private JBlasRowMajorMatrixFactory matrixFactory;
+
+  @Before
+  public void setUp() {
+    floatMatrixFactory = new PooledFloatMatrixFactory();
+    matrixFactory = new JBlasRowMajorMatrixFactory(floatMatrixFactory);
+  }
+
+  @Test
+  public void testClosedMatrixStorageIsRecycled() {
+
+    Matrix matrix = matrixFactory.createZeros(3, 4);
+    float[] data = matrix.getRowByRowArray();
+    matrix.close();
+
+    Matrix recycledMatrix = matrixFactory.createZeros(3, 4);
+
+    Assert.assertSame(data, recycledMatrix.getRowByRowArray());
+    Assert.assertEquals(1, floatMatrixFactory.getFloatArrayFactory().getHitCount());
+  }
+
+  @Test
+  public void testClosingWrapperOfPooledDataDoesNotRecycleIt() {
+
+    Matrix pooledMatrix = matrixFactory.createZeros(3, 4);
+    for (int row = 0; row < 3; row++) {
+      for (int column = 0; column < 4; column++) {
+        pooledMatrix.asEditableMatrix().put(row, column, row * 4 + column + 1);
+      }
+    }
+
+    // Wrap the data of the pooled matrix without copying, as eg. an image
+    // activation does, and close the wrapper
+    Matrix wrapper = matrixFactory.createMatrixFromRowsByRowsArray(3, 4, pooledMatrix.getRowByRowArray());
+    wrapper.close();
+
+    // Allocating again must not reuse, and so zero, the data of the pooled matrix
+    Matrix allocatedMatrix = matrixFactory.createZeros(3, 4);
+    allocatedMatrix.asEditableMatrix().put(0, 0, -1);
+
+    Assert.assertNotSame(pooledMatrix.getRowByRowArray(), allocatedMatrix.getRowByRowArray());
+    Assert.assertEquals(0, floatMatrixFactory.getFloatArrayFactory().getHitCount());
+    for (int row = 0; row < 3; row++) {
+      for (int column = 0; column < 4; column++) {
+        Assert.assertEquals(row * 4 + column + 1, pooledMatrix.get(row, column), 0f);
+      }
+    }
+  }
+
+  @Test
+  public void testClosingWrapperOfCallerDataDoesNotPoolIt() {
+
+    float[] data = new float[12];
+    Matrix wrapper = matrixFactory.createMatrixFromRowsByRowsArray(3, 4, data);
+    wrapper.close();
+
+    Assert.assertEquals(0, floatMatrixFactory.getFloatArrayFactory().getReleaseCount());
+    Assert.assertNotSame(data, matrixFactory.createZeros(3, 4).getRowByRowArray());
+  }
+}
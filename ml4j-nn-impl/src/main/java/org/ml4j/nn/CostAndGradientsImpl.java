@@ -17,6 +17,7 @@ package org.ml4j.nn;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.ml4j.EditableMatrix;
 import org.ml4j.nn.axons.AxonsGradient;
 import org.ml4j.nn.axons.AxonsGradientImpl;
 
@@ -58,6 +59,10 @@ public class CostAndGradientsImpl implements CostAndGradients {
   public List<AxonsGradient> getTotalTrainableAxonsGradients() {
     return totalTrainableAxonsGradients;
   }
+
+  public int getNumberOfTrainingExamples() {
+    return numberOfTrainingExamples;
+  }
   
   /**
    * @return The average gradients.
@@ -74,6 +79,76 @@ public class CostAndGradientsImpl implements CostAndGradients {
     return averages;
   }
 
+  /**
+   * Divides the total gradients by the number of training examples in place, avoiding
+   * the allocation of new gradient matrices - the total gradients should not be used
+   * once this method has been called.
+   * 
+   * @return The average gradients, backed by the matrices of the total gradients.
+   */
+  public List<AxonsGradient> averageTrainableAxonsGradientsInPlace() {
+
+    List<AxonsGradient> averages = new ArrayList<>();
+    for (AxonsGradient total : getTotalTrainableAxonsGradients()) {
+      EditableMatrix weightsGradient = total.getWeightsGradient().asEditableMatrix();
+      weightsGradient.divi(numberOfTrainingExamples);
+      EditableMatrix leftToRightBiasGradient = null;
+      if (total.getLeftToRightBiasGradient() != null) {
+        leftToRightBiasGradient = total.getLeftToRightBiasGradient().asEditableMatrix();
+        leftToRightBiasGradient.divi(numberOfTrainingExamples);
+      }
+      averages.add(new AxonsGradientImpl(total.getAxons(), weightsGradient, leftToRightBiasGradient));
+    }
+    return averages;
+  }
+
+  /**
+   * All-reduce a list of CostAndGradients computed on separate batches into a single
+   * CostAndGradients over all their training examples.
+   * 
+   * The total gradients of the first element are summed into in place.
+   * 
+   * @param costAndGradientsList The CostAndGradients to sum, all for the same axons.
+   * @return The summed CostAndGradients.
+   */
+  public static CostAndGradientsImpl sum(List<CostAndGradientsImpl> costAndGradientsList) {
+
+    CostAndGradientsImpl first = costAndGradientsList.get(0);
+    if (costAndGradientsList.size() == 1) {
+      return first;
+    }
+
+    float totalCost = 0;
+    int numberOfTrainingExamples = 0;
+    for (CostAndGradientsImpl costAndGradients : costAndGradientsList) {
+      totalCost = totalCost + costAndGradients.getTotalCost();
+      numberOfTrainingExamples = numberOfTrainingExamples
+          + costAndGradients.getNumberOfTrainingExamples();
+    }
+
+    List<AxonsGradient> summedGradients = new ArrayList<>();
+    int axonsCount = first.getTotalTrainableAxonsGradients().size();
+    for (int axonsIndex = 0; axonsIndex < axonsCount; axonsIndex++) {
+      AxonsGradient firstGradient = first.getTotalTrainableAxonsGradients().get(axonsIndex);
+      EditableMatrix weightsGradient = firstGradient.getWeightsGradient().asEditableMatrix();
+      EditableMatrix leftToRightBiasGradient = firstGradient.getLeftToRightBiasGradient() == null
+          ? null : firstGradient.getLeftToRightBiasGradient().asEditableMatrix();
+      for (int index = 1; index < costAndGradientsList.size(); index++) {
+        AxonsGradient gradient = costAndGradientsList.get(index)
+            .getTotalTrainableAxonsGradients().get(axonsIndex);
+        weightsGradient.addi(gradient.getWeightsGradient());
+        gradient.getWeightsGradient().close();
+        if (leftToRightBiasGradient != null) {
+          leftToRightBiasGradient.addi(gradient.getLeftToRightBiasGradient());
+          gradient.getLeftToRightBiasGradient().close();
+        }
+      }
+      summedGradients.add(new AxonsGradientImpl(firstGradient.getAxons(), weightsGradient, 
+          leftToRightBiasGradient));
+    }
+    return new CostAndGradientsImpl(totalCost, summedGradients, numberOfTrainingExamples);
+  }
+
 @Override
 public void close() {
     for (AxonsGradient axonsGradient : totalTrainableAxonsGradients) {
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn;
+
+/**
+ * Controls how often the cost is evaluated when training, keeping a running
+ * exponentially weighted estimate of the average cost.
+ *
+ * The cost is evaluated on every evaluationInterval-th iteration, and on the
+ * final batch of each epoch when training from activations - optionally on a
+ * random sample of sampleSize examples of the batch rather than the whole
+ * batch. On other iterations only the gradients are computed, and the current
+ * estimate is reported in place of the cost of the batch. Each evaluated
+ * average cost is folded into the estimate with weight smoothing.
+ *
+ * @author Michael Lavelle
+ */
+public class CostEstimator {
+
+	private int evaluationInterval;
+
+	private Integer sampleSize;
+
+	private float smoothing;
+
+	private Float estimate;
+
+	/**
+	 * @param evaluationInterval The number of iterations between evaluations of
+	 *                           the cost.
+	 * @param sampleSize         The number of examples of a batch the cost is
+	 *                           evaluated on, or null for the whole batch.
+	 * @param smoothing          The weight, in (0, 1], of each evaluated cost in
+	 *                           the estimate.
+	 */
+	public CostEstimator(int evaluationInterval, Integer sampleSize, float smoothing) {
+		if (evaluationInterval < 1) {
+			throw new IllegalArgumentException("Evaluation interval must be at least 1");
+		}
+		if (sampleSize != null && sampleSize < 1) {
+			throw new IllegalArgumentException("Sample size must be at least 1");
+		}
+		if (!(smoothing > 0 && smoothing <= 1)) {
+			throw new IllegalArgumentException("Smoothing must be in (0, 1]");
+		}
+		this.evaluationInterval = evaluationInterval;
+		this.sampleSize = sampleSize;
+		this.smoothing = smoothing;
+	}
+
+	/**
+	 * @return Whether the cost is evaluated on the iteration.
+	 */
+	public boolean isEvaluationIteration(int iterationIndex) {
+		return iterationIndex % evaluationInterval == 0;
+	}
+
+	/**
+	 * Fold an evaluated average cost into the estimate - the first evaluated cost
+	 * becomes the estimate.
+	 *
+	 * @return The updated estimate.
+	 */
+	public synchronized float update(float averageCost) {
+		estimate = estimate == null ? averageCost : smoothing * averageCost + (1 - smoothing) * estimate;
+		return estimate;
+	}
+
+	/**
+	 * @return The estimate of the average cost, or null if no cost has been
+	 *         evaluated.
+	 */
+	public synchronized Float getEstimate() {
+		return estimate;
+	}
+
+	/**
+	 * Discard the estimate.
+	 */
+	public synchronized void reset() {
+		estimate = null;
+	}
+
+	public int getEvaluationInterval() {
+		return evaluationInterval;
+	}
+
+	public Integer getSampleSize() {
+		return sampleSize;
+	}
+
+	public float getSmoothing() {
+		return smoothing;
+	}
+}
@@ -16,16 +16,25 @@ package org.ml4j.nn;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.ml4j.InterrimMatrix;
+import org.ml4j.EditableMatrix;
 import org.ml4j.Matrix;
 import org.ml4j.nn.activationfunctions.ActivationFunctionBaseType;
 import org.ml4j.nn.activationfunctions.DifferentiableActivationFunction;
@@ -33,6 +42,7 @@ import org.ml4j.nn.axons.AxonWeightsAdjustment;
 import org.ml4j.nn.axons.AxonWeightsAdjustmentDirection;
 import org.ml4j.nn.axons.AxonWeightsAdjustmentImpl;
 import org.ml4j.nn.axons.AxonsGradient;
+import org.ml4j.nn.axons.AxonsGradientImpl;
 import org.ml4j.nn.axons.TrainableAxons;
 import org.ml4j.nn.components.DirectedComponentActivationLifecycle;
 import org.ml4j.nn.components.NeuralComponentBaseType;
@@ -44,18 +54,19 @@ import org.ml4j.nn.components.onetone.TrailingActivationFunctionDirectedComponen
 import org.ml4j.nn.components.onetone.TrailingActivationFunctionDirectedComponentChainActivation;
 import org.ml4j.nn.components.onetoone.TrailingActivationFunctionDirectedComponentChainImpl;
 import org.ml4j.nn.costfunctions.CostFunction;
-import org.ml4j.nn.costfunctions.CostFunctionGradient;
 import org.ml4j.nn.costfunctions.CrossEntropyCostFunction;
 import org.ml4j.nn.costfunctions.DeltaRuleCostFunctionGradientImpl;
 import org.ml4j.nn.costfunctions.MultiClassCrossEntropyCostFunction;
 import org.ml4j.nn.costfunctions.SumSquaredErrorCostFunction;
 import org.ml4j.nn.datasets.LabeledData;
 import org.ml4j.nn.datasets.LabeledDataSet;
+import org.ml4j.nn.neurons.EpochPermutations;
 import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationBatches;
 import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
-import org.ml4j.nn.neurons.NeuronsActivationImpl;
 import org.ml4j.nn.optimisation.GradientDescentOptimisationStrategy;
 import org.ml4j.nn.optimisation.TrainingLearningRateAdjustmentStrategy;
+import org.ml4j.nn.supervised.FeedForwardNeuralNetworkContextImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,8 +85,25 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 	
 	protected GradientAccumulator gradientAccumulator;
 
+	private Long shuffleSeed;
+
+	private CostEstimator costEstimator;
+
+	/**
+	 * The random number generator of the sampled costs of the current training
+	 * call, seeded from the shuffle seed - or null to sample with
+	 * ThreadLocalRandom.
+	 */
+	private transient Random costSampleRandom;
+
 	private C lastEpochTrainingContext;
 
+	/**
+	 * Reusable per-axons buffers for weight adjustments, keyed by axons index.
+	 */
+	private transient Map<Integer, Matrix> weightsAdjustmentBuffers;
+	private transient Map<Integer, Matrix> biasAdjustmentBuffers;
+
 	/**
 	 * Default serialization id.
 	 */
@@ -108,6 +136,8 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 	protected void train(NeuronsActivation trainingDataActivations, NeuronsActivation trainingLabelActivations,
 			C trainingContext) {
 
+		resetCostEstimator();
+
 		if (trainingDataActivations
 				.getFeatureOrientation() != NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET) {
 			throw new IllegalArgumentException(
@@ -124,7 +154,7 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 
 		LOGGER.info("Training the FeedForwardNeuralNetwork for " + numberOfEpochs + " epochs");
 
-		CostAndGradients costAndGradients = null;
+		CostAndGradientsImpl costAndGradients = null;
 
 		int iterationIndex = 0;
 
@@ -132,6 +162,17 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 				|| lastEpochTrainingContext.getLastTrainingEpochIndex() == null) ? 0
 						: (lastEpochTrainingContext.getLastTrainingEpochIndex() + 1);
 
+		// Lay out the mini-batches once, rather than copying the columns of each batch on every epoch
+		NeuronsActivationBatches dataBatches = null;
+		NeuronsActivationBatches labelBatches = null;
+		if (trainingContext.getTrainingMiniBatchSize() != null) {
+			int miniBatchSize = trainingContext.getTrainingMiniBatchSize();
+			dataBatches = new NeuronsActivationBatches(trainingDataActivations, miniBatchSize,
+					trainingContext.getMatrixFactory(), shuffleSeed != null);
+			labelBatches = new NeuronsActivationBatches(trainingLabelActivations, miniBatchSize,
+					trainingContext.getMatrixFactory(), shuffleSeed != null);
+		}
+
 		for (int epochIndex = epochStartIndex; epochIndex < epochStartIndex + numberOfEpochs; epochIndex++) {
 
 			if (trainingContext.getTrainingMiniBatchSize() == null) {
@@ -142,69 +183,41 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 				// Timings.printTimings();
 				int batchIndex = epochIndex;
 
-				List<AxonsGradient> averageTrainableAxonsGradients = costAndGradients
-						.getAverageTrainableAxonsGradients();
-
-				adjustConnectionWeights(trainingContext, averageTrainableAxonsGradients, epochIndex, batchIndex,
-						iterationIndex);
-
-				for (AxonsGradient axonsGradient : averageTrainableAxonsGradients) {
-					axonsGradient.getWeightsGradient().close();
-					if (axonsGradient.getLeftToRightBiasGradient() != null) {
-						axonsGradient.getLeftToRightBiasGradient().close();
-					}
-					if (axonsGradient.getRightToLeftBiasGradient() != null) {
-						axonsGradient.getRightToLeftBiasGradient().close();
-					}
-				}
+				// Average, scale and apply the total gradients in place, releasing them afterwards
+				adjustConnectionWeights(trainingContext, costAndGradients, epochIndex, batchIndex, iterationIndex);
 
 				iterationIndex++;
 			} else {
-				int miniBatchSize = trainingContext.getTrainingMiniBatchSize();
-				Matrix activations = trainingDataActivations.getActivations(trainingContext.getMatrixFactory());
-				int numberOfTrainingElements = trainingDataActivations.getExampleCount();
-				int numberOfBatches = (numberOfTrainingElements - 1) / miniBatchSize + 1;
+				if (shuffleSeed != null) {
+					int[] permutation = EpochPermutations.createPermutation(dataBatches.getExampleCount(),
+							shuffleSeed, epochIndex);
+					dataBatches.shuffle(permutation);
+					labelBatches.shuffle(permutation);
+				}
+				int numberOfBatches = dataBatches.getBatchCount();
 				for (int batchIndex = 0; batchIndex < numberOfBatches; batchIndex++) {
-					int startColumnIndex = batchIndex * miniBatchSize;
-					int endColumnIndex = Math.min(startColumnIndex + miniBatchSize - 1, numberOfTrainingElements - 1);
-					int[] columnsIndexes = new int[endColumnIndex - startColumnIndex + 1];
-					for (int c = startColumnIndex; c <= endColumnIndex; c++) {
-						columnsIndexes[c - startColumnIndex] = c;
-					}
-					try (InterrimMatrix dataBatch = activations.getColumns(columnsIndexes).asInterrimMatrix();
-							InterrimMatrix labelBatch = trainingLabelActivations
-									.getActivations(trainingContext.getMatrixFactory()).getColumns(columnsIndexes)
-									.asInterrimMatrix()) {
 
-						NeuronsActivation batchDataActivations = new NeuronsActivationImpl(dataBatch,
-								trainingDataActivations.getFeatureOrientation());
+					NeuronsActivation batchDataActivations = dataBatches.getBatch(batchIndex,
+							trainingContext.getMatrixFactory());
 
-						NeuronsActivation batchLabelActivations = new NeuronsActivationImpl(labelBatch,
-								trainingLabelActivations.getFeatureOrientation());
+					NeuronsActivation batchLabelActivations = labelBatches.getBatch(batchIndex,
+							trainingContext.getMatrixFactory());
 
-						costAndGradients = getCostAndGradients(batchDataActivations, batchLabelActivations,
-								trainingContext);
+					// The cost of the final batch is always evaluated, as it is logged for the epoch
+					costAndGradients = getCostAndGradients(trailingActivationFunctionComponentChain,
+							batchDataActivations, batchLabelActivations, trainingContext,
+							isCostEvaluated(iterationIndex) || batchIndex == numberOfBatches - 1);
 
-						LOGGER.debug("Epoch:" + epochIndex + " batch " + batchIndex + " Cost:"
-								+ costAndGradients.getAverageCost());
-						// Timings.printTimings();
+					LOGGER.debug("Epoch:" + epochIndex + " batch " + batchIndex + " Cost:"
+							+ costAndGradients.getAverageCost());
+					// Timings.printTimings();
 
-						List<AxonsGradient> averageTrainableAxonsGradients = costAndGradients
-								.getAverageTrainableAxonsGradients();
+					// Average, scale and apply the total gradients in place, releasing them afterwards
+					adjustConnectionWeights(trainingContext, costAndGradients, epochIndex, batchIndex, iterationIndex);
 
-						adjustConnectionWeights(trainingContext, averageTrainableAxonsGradients, epochIndex, batchIndex,
-								iterationIndex);
+					batchDataActivations.close();
+					batchLabelActivations.close();
 
-						for (AxonsGradient axonsGradient : averageTrainableAxonsGradients) {
-							axonsGradient.getWeightsGradient().close();
-							if (axonsGradient.getLeftToRightBiasGradient() != null) {
-								axonsGradient.getLeftToRightBiasGradient().close();
-							}
-							if (axonsGradient.getRightToLeftBiasGradient() != null) {
-								axonsGradient.getRightToLeftBiasGradient().close();
-							}
-						}
-					}
 					iterationIndex++;
 				}
 
@@ -217,7 +230,8 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 	}
 
 	protected void train(LabeledDataSet<NeuronsActivation, NeuronsActivation> trainingDataSet, C trainingContext) {
-		
+
+		resetCostEstimator();
 
 		final int numberOfEpochs = trainingContext.getTrainingEpochs();
 
@@ -260,8 +274,9 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 									+ "orientation supported currently");
 						}
 
-						CostAndGradients costAndGradients = getCostAndGradients(batchDataActivations,
-								batchLabelActivations, trainingContext);
+						CostAndGradientsImpl costAndGradients = getCostAndGradients(
+								trailingActivationFunctionComponentChain, batchDataActivations, batchLabelActivations,
+								trainingContext, isCostEvaluated(iterationIndex.get()));
 
 						costAndGradientsList.add(costAndGradients);
 
@@ -269,21 +284,9 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 								+ costAndGradients.getAverageCost());
 						// Timings.printTimings();
 
-						List<AxonsGradient> averageTrainableAxonsGradients = costAndGradients
-								.getAverageTrainableAxonsGradients();
-
-						adjustConnectionWeights(trainingContext, averageTrainableAxonsGradients, epochIndex2,
-								batchIndex.get(), iterationIndex.get());
-
-						for (AxonsGradient axonsGradient : averageTrainableAxonsGradients) {
-							axonsGradient.getWeightsGradient().close();
-							if (axonsGradient.getLeftToRightBiasGradient() != null) {
-								axonsGradient.getLeftToRightBiasGradient().close();
-							}
-							if (axonsGradient.getRightToLeftBiasGradient() != null) {
-								axonsGradient.getRightToLeftBiasGradient().close();
-							}
-						}
+						// Average, scale and apply the total gradients in place, releasing them afterwards
+						adjustConnectionWeights(trainingContext, costAndGradients, epochIndex2, batchIndex.get(),
+								iterationIndex.get());
 
 						iterationIndex.addAndGet(1);
 						batchIndex.addAndGet(1);
@@ -292,8 +295,8 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 
 				}
 
-				LOGGER.info("Epoch:" + epochIndex + " Cost:"
-						+ costAndGradientsList.get(costAndGradientsList.size() - 1).getAverageCost());
+				LOGGER.info("Epoch:" + epochIndex + " Cost:" + getEpochAverageCost(
+						costAndGradientsList.get(costAndGradientsList.size() - 1).getAverageCost()));
 
 				lastEpochTrainingContext = trainingContext;
 			}
@@ -303,11 +306,15 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 	protected void train(Supplier<Stream<LabeledData<NeuronsActivation, NeuronsActivation>>> trainingDataSet, C trainingContext,
 			Consumer<Float> epochAverageCostHandler) {
 
+		resetCostEstimator();
+
 		final int numberOfEpochs = trainingContext.getTrainingEpochs();
 
 		LOGGER.info("Training the FeedForwardNeuralNetwork for " + numberOfEpochs + " epochs");
 
-		List<CostAndGradients> costAndGradientsList = new ArrayList<>();
+		// Only the most recent CostAndGradients is retained, so that earlier gradients
+		// can be released as soon as they have been accumulated
+		AtomicReference<CostAndGradients> lastCostAndGradients = new AtomicReference<>();
 
 		AtomicInteger iterationIndex = new AtomicInteger(0);
 
@@ -347,10 +354,11 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 								+ "orientation supported currently");
 					}
 
-					CostAndGradients costAndGradients = getCostAndGradients(batchDataActivations, batchLabelActivations,
-							trainingContext);
+					CostAndGradients costAndGradients = getCostAndGradients(trailingActivationFunctionComponentChain,
+							batchDataActivations, batchLabelActivations, trainingContext,
+							isCostEvaluated(iterationIndex.get()));
 					
-					costAndGradientsList.add(costAndGradients);
+					lastCostAndGradients.set(costAndGradients);
 					
 
 					LOGGER.debug("Epoch:" + epochIndex2 + " batch " + batchIndex + " Cost:"
@@ -358,54 +366,405 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 					
 					Optional<Future<List<AxonsGradient>>> averageAxonsGradientsResult = gradientAccumulator.submitCostAndGradients(costAndGradients);
 		
-					if (averageAxonsGradientsResult.isPresent()) {
-	
-						List<AxonsGradient> averageTrainableAxonsGradients;
+					applyAverageAxonsGradients(averageAxonsGradientsResult, trainingContext, epochIndex2,
+							batchIndex.get(), iterationIndex.get());
+					
+					batchDataActivations.close();
+					batchLabelActivations.close();
+
+					iterationIndex.addAndGet(1);
+					batchIndex.addAndGet(1);
+				});
+				
+			}
+				// Release any gradients still held back by the accumulator at the end of the epoch
+				if (gradientAccumulator instanceof FlushableGradientAccumulator) {
+					applyAverageAxonsGradients(((FlushableGradientAccumulator) gradientAccumulator).flush(),
+							trainingContext, epochIndex, batchIndex.get(), iterationIndex.get());
+				}
+				float epochAverageCost = getEpochAverageCost(lastCostAndGradients.get().getAverageCost());
+				epochAverageCostHandler.accept(epochAverageCost);
+				LOGGER.debug("Epoch:" + epochIndex + " Cost:" + epochAverageCost);
+				lastEpochTrainingContext = trainingContext;
+			}
+		}
+	}
+
+	/**
+	 * Train this network synchronously data-parallel - each group of workerCount
+	 * batches is forward and back propagated concurrently, each batch through its
+	 * own replica of the component chain, and the resulting gradients are
+	 * all-reduced into a single weight update which is applied to every replica.
+	 * 
+	 * @param trainingDataSet         Supplier of a stream of training batches for
+	 *                                each epoch.
+	 * @param trainingContext         The training context.
+	 * @param epochAverageCostHandler Handler for the average cost of the final
+	 *                                update of each epoch.
+	 * @param workerCount             The number of batches to propagate
+	 *                                concurrently.
+	 */
+	protected void train(Supplier<Stream<LabeledData<NeuronsActivation, NeuronsActivation>>> trainingDataSet,
+			C trainingContext, Consumer<Float> epochAverageCostHandler, int workerCount) {
+
+		resetCostEstimator();
+
+		final int numberOfEpochs = trainingContext.getTrainingEpochs();
+
+		LOGGER.info("Training the FeedForwardNeuralNetwork for " + numberOfEpochs + " epochs with " + workerCount
+				+ " workers");
+
+		// The first worker uses the component chain of this network, the others use
+		// replicas which are kept in sync by applying every weight adjustment to each
+		List<TrailingActivationFunctionDirectedComponentChain> workerComponentChains = new ArrayList<>();
+		workerComponentChains.add(trailingActivationFunctionComponentChain);
+		for (int workerIndex = 1; workerIndex < workerCount; workerIndex++) {
+			workerComponentChains.add(trailingActivationFunctionComponentChain.dup());
+		}
+
+		// Each worker propagates within its own context, so that the state of the
+		// directed components context is not shared between concurrent propagations
+		List<FeedForwardNeuralNetworkContext> workerContexts = new ArrayList<>();
+		for (int workerIndex = 0; workerIndex < workerCount; workerIndex++) {
+			workerContexts.add(createWorkerContext(trainingContext));
+		}
+
+		SynchronousGradientAccumulator synchronousGradientAccumulator = new SynchronousGradientAccumulator(
+				workerCount);
+
+		ExecutorService executorService = Executors.newFixedThreadPool(workerCount);
+
+		int iterationIndex = 0;
+
+		int epochStartIndex = (lastEpochTrainingContext == null
+				|| lastEpochTrainingContext.getLastTrainingEpochIndex() == null) ? 0
+						: (lastEpochTrainingContext.getLastTrainingEpochIndex() + 1);
+
+		try {
+			for (int epochIndex = epochStartIndex; epochIndex < epochStartIndex + numberOfEpochs; epochIndex++) {
+
+				try (Stream<LabeledData<NeuronsActivation, NeuronsActivation>> trainingDataStream = trainingDataSet
+						.get()) {
+
+					Iterator<LabeledData<NeuronsActivation, NeuronsActivation>> batchIterator = trainingDataStream
+							.iterator();
+
+					int batchIndex = 0;
+
+					while (batchIterator.hasNext()) {
+
+						List<LabeledData<NeuronsActivation, NeuronsActivation>> batches = new ArrayList<>();
+						while (batchIterator.hasNext() && batches.size() < workerCount) {
+							LabeledData<NeuronsActivation, NeuronsActivation> batch = batchIterator.next();
+							if (batch.getData()
+									.getFeatureOrientation() != NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET
+									|| batch.getLabel()
+											.getFeatureOrientation() != NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET) {
+								throw new IllegalArgumentException("Only neurons actiavation with ROWS_SPAN_FEATURE_SET "
+										+ "orientation supported currently");
+							}
+							batches.add(batch);
+						}
+
+						boolean evaluateCost = isCostEvaluated(iterationIndex);
+						List<Future<CostAndGradientsImpl>> workerResults = new ArrayList<>();
+						for (int workerIndex = 0; workerIndex < batches.size(); workerIndex++) {
+							TrailingActivationFunctionDirectedComponentChain workerComponentChain = workerComponentChains
+									.get(workerIndex);
+							FeedForwardNeuralNetworkContext workerContext = workerContexts.get(workerIndex);
+							LabeledData<NeuronsActivation, NeuronsActivation> batch = batches.get(workerIndex);
+							// Seeded in worker order, so that the sampled costs do not depend on the
+							// order in which the workers run
+							Random workerCostSampleRandom = costSampleRandom == null ? null
+									: new Random(costSampleRandom.nextLong());
+							workerResults.add(executorService.submit(() -> computeCostAndGradients(workerComponentChain,
+									batch.getData(), batch.getLabel(), workerContext, evaluateCost,
+									workerCostSampleRandom)));
+						}
+
+						List<List<TrainableAxons<?, ?, ?>>> replicaTrainableAxons = new ArrayList<>();
+						Optional<Future<List<AxonsGradient>>> averageAxonsGradientsResult = Optional.empty();
 						try {
-							averageTrainableAxonsGradients = averageAxonsGradientsResult.get().get();
-						
-							adjustConnectionWeights(trainingContext, averageTrainableAxonsGradients, epochIndex2,
-									batchIndex.get(), iterationIndex.get());
-		
+							for (int workerIndex = 0; workerIndex < workerResults.size(); workerIndex++) {
+								CostAndGradientsImpl costAndGradients = workerResults.get(workerIndex).get();
+								if (workerIndex > 0) {
+									replicaTrainableAxons.add(costAndGradients.getTotalTrainableAxonsGradients()
+											.stream().map(AxonsGradient::getAxons).collect(Collectors.toList()));
+								}
+								averageAxonsGradientsResult = synchronousGradientAccumulator
+										.submitCostAndGradients(costAndGradients);
+							}
+							if (!averageAxonsGradientsResult.isPresent()) {
+								averageAxonsGradientsResult = synchronousGradientAccumulator.flush();
+							}
+							List<AxonsGradient> averageTrainableAxonsGradients = averageAxonsGradientsResult.get()
+									.get();
+
+							adjustConnectionWeights(trainingContext, averageTrainableAxonsGradients,
+									replicaTrainableAxons, epochIndex, batchIndex, iterationIndex);
+
+							// Replicas which did not receive a batch in this group were not
+							// adjusted, so re-synchronise them from the updated chain
+							for (int workerIndex = batches.size(); workerIndex < workerCount; workerIndex++) {
+								workerComponentChains.set(workerIndex, trailingActivationFunctionComponentChain.dup());
+							}
+
+							LOGGER.debug("Epoch:" + epochIndex + " batch " + batchIndex + " Cost:"
+									+ synchronousGradientAccumulator.getLastAverageCost());
+
 							for (AxonsGradient axonsGradient : averageTrainableAxonsGradients) {
 								axonsGradient.getWeightsGradient().close();
 								if (axonsGradient.getLeftToRightBiasGradient() != null) {
 									axonsGradient.getLeftToRightBiasGradient().close();
 								}
-								if (axonsGradient.getRightToLeftBiasGradient() != null) {
-									axonsGradient.getRightToLeftBiasGradient().close();
-								}
 							}
-						
 						} catch (InterruptedException e) {
-							LOGGER.error("Interrupted when waiting for response from gradient accumulator", e);
+							Thread.currentThread().interrupt();
+							throw new IllegalStateException("Interrupted when waiting for data-parallel workers", e);
 						} catch (ExecutionException e) {
-							LOGGER.error("Execution exception when waiting for response from gradient accumulator", e);
+							throw new IllegalStateException("Execution exception in data-parallel worker", e);
+						}
+
+						for (LabeledData<NeuronsActivation, NeuronsActivation> batch : batches) {
+							batch.getData().close();
+							batch.getLabel().close();
 						}
+
+						batchIndex = batchIndex + batches.size();
+						iterationIndex++;
 					}
-					
-					batchDataActivations.close();
-					batchLabelActivations.close();
+				}
 
-					iterationIndex.addAndGet(1);
-					batchIndex.addAndGet(1);
-				});
-				
+				float epochAverageCost = getEpochAverageCost(synchronousGradientAccumulator.getLastAverageCost());
+				epochAverageCostHandler.accept(epochAverageCost);
+				LOGGER.debug("Epoch:" + epochIndex + " Cost:" + epochAverageCost);
+				lastEpochTrainingContext = trainingContext;
 			}
-				CostAndGradients costAndGradients = costAndGradientsList.get(costAndGradientsList.size() - 1);
-				costAndGradientsList.clear();
-				epochAverageCostHandler
-						.accept(costAndGradients.getAverageCost());
-				LOGGER.debug("Epoch:" + epochIndex + " Cost:"
-						+ costAndGradients.getAverageCost());
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	/**
+	 * Train this network asynchronously against an in-process parameter server -
+	 * workerCount workers each pull batches from the shared stream and compute
+	 * gradients on their own replica of the component chain, without waiting for
+	 * each other. Updates are applied to the component chain of this network as
+	 * the parameter server releases them, and each worker refreshes its replica
+	 * only once it is more than maxStaleness updates behind.
+	 * 
+	 * The first batch is trained synchronously on the component chain of this
+	 * network, to establish the trainable axons that updates are applied to.
+	 * 
+	 * @param trainingDataSet         Supplier of a stream of training batches for
+	 *                                each epoch.
+	 * @param trainingContext         The training context.
+	 * @param epochAverageCostHandler Handler for the average cost of the final
+	 *                                update of each epoch.
+	 * @param workerCount             The number of worker threads.
+	 * @param maxStaleness            The maximum number of updates a worker's
+	 *                                replica may lag behind.
+	 */
+	protected void trainAsynchronously(
+			Supplier<Stream<LabeledData<NeuronsActivation, NeuronsActivation>>> trainingDataSet, C trainingContext,
+			Consumer<Float> epochAverageCostHandler, int workerCount, int maxStaleness) {
+		trainAsynchronously(trainingDataSet, trainingContext, epochAverageCostHandler, workerCount, maxStaleness, 1);
+	}
+
+	/**
+	 * Train this network asynchronously against an in-process parameter server,
+	 * averaging the gradients of gradientsPerUpdate batches into each update
+	 * rather than applying the gradients of each batch - gradients are
+	 * accumulated until enough have been submitted, and any remaining at the end
+	 * of an epoch are applied as a final update.
+	 * 
+	 * @param trainingDataSet         Supplier of a stream of training batches for
+	 *                                each epoch.
+	 * @param trainingContext         The training context.
+	 * @param epochAverageCostHandler Handler for the average cost of the final
+	 *                                update of each epoch.
+	 * @param workerCount             The number of worker threads.
+	 * @param maxStaleness            The maximum number of updates a worker's
+	 *                                replica may lag behind.
+	 * @param gradientsPerUpdate      The number of batch gradients averaged into
+	 *                                each update.
+	 */
+	protected void trainAsynchronously(
+			Supplier<Stream<LabeledData<NeuronsActivation, NeuronsActivation>>> trainingDataSet, C trainingContext,
+			Consumer<Float> epochAverageCostHandler, int workerCount, int maxStaleness, int gradientsPerUpdate) {
+
+		resetCostEstimator();
+
+		final int numberOfEpochs = trainingContext.getTrainingEpochs();
+
+		LOGGER.info("Training the FeedForwardNeuralNetwork asynchronously for " + numberOfEpochs + " epochs with "
+				+ workerCount + " workers, max staleness " + maxStaleness + " and " + gradientsPerUpdate
+				+ " gradients per update");
+
+		ParameterServerGradientAccumulator parameterServer = new ParameterServerGradientAccumulator(maxStaleness,
+				gradientsPerUpdate);
+
+		ExecutorService executorService = Executors.newFixedThreadPool(workerCount);
+
+		AtomicInteger iterationIndex = new AtomicInteger(0);
+
+		List<TrainableAxons<?, ?, ?>> masterTrainableAxons = null;
+
+		int epochStartIndex = (lastEpochTrainingContext == null
+				|| lastEpochTrainingContext.getLastTrainingEpochIndex() == null) ? 0
+						: (lastEpochTrainingContext.getLastTrainingEpochIndex() + 1);
+
+		try {
+			for (int epochIndex = epochStartIndex; epochIndex < epochStartIndex + numberOfEpochs; epochIndex++) {
+
+				final int epochIndex2 = epochIndex;
+
+				try (Stream<LabeledData<NeuronsActivation, NeuronsActivation>> trainingDataStream = trainingDataSet
+						.get()) {
+
+					Iterator<LabeledData<NeuronsActivation, NeuronsActivation>> batchIterator = trainingDataStream
+							.iterator();
+
+					AtomicInteger batchIndex = new AtomicInteger(0);
+
+					if (masterTrainableAxons == null) {
+						if (!batchIterator.hasNext()) {
+							continue;
+						}
+						LabeledData<NeuronsActivation, NeuronsActivation> firstBatch = batchIterator.next();
+						CostAndGradientsImpl costAndGradients = getCostAndGradients(firstBatch.getData(),
+								firstBatch.getLabel(), trainingContext);
+						masterTrainableAxons = costAndGradients.getTotalTrainableAxonsGradients().stream()
+								.map(AxonsGradient::getAxons).collect(Collectors.toList());
+						applyParameterServerUpdate(parameterServer, parameterServer.submitCostAndGradients(costAndGradients),
+								masterTrainableAxons, trainingContext, epochIndex, batchIndex.getAndIncrement(),
+								iterationIndex);
+						firstBatch.getData().close();
+						firstBatch.getLabel().close();
+					}
+
+					final List<TrainableAxons<?, ?, ?>> masterAxons = masterTrainableAxons;
+
+					List<Future<?>> workers = new ArrayList<>();
+					for (int workerIndex = 0; workerIndex < workerCount; workerIndex++) {
+						// Seeded in worker order, so that the workers neither share nor contend on
+						// one generator
+						Random workerCostSampleRandom = costSampleRandom == null ? null
+								: new Random(costSampleRandom.nextLong());
+						workers.add(executorService.submit(() -> {
+
+							TrailingActivationFunctionDirectedComponentChain replica = null;
+							long replicaUpdateCount = 0;
+							FeedForwardNeuralNetworkContext workerContext = createWorkerContext(trainingContext);
+
+							while (true) {
+								LabeledData<NeuronsActivation, NeuronsActivation> batch;
+								int workerBatchIndex;
+								synchronized (batchIterator) {
+									if (!batchIterator.hasNext()) {
+										break;
+									}
+									batch = batchIterator.next();
+									workerBatchIndex = batchIndex.getAndIncrement();
+								}
+
+								if (replica == null || parameterServer.isStale(replicaUpdateCount)) {
+									parameterServer.getWeightsLock().readLock().lock();
+									try {
+										replica = trailingActivationFunctionComponentChain.dup();
+										replicaUpdateCount = parameterServer.getAppliedUpdateCount();
+									} finally {
+										parameterServer.getWeightsLock().readLock().unlock();
+									}
+								}
+
+								CostAndGradientsImpl costAndGradients = computeCostAndGradients(replica,
+										batch.getData(), batch.getLabel(), workerContext,
+										isCostEvaluated(iterationIndex.get()), workerCostSampleRandom);
+
+								applyParameterServerUpdate(parameterServer,
+										parameterServer.submitCostAndGradients(costAndGradients), masterAxons,
+										trainingContext, epochIndex2, workerBatchIndex, iterationIndex);
+
+								batch.getData().close();
+								batch.getLabel().close();
+							}
+							return null;
+						}));
+					}
+
+					for (Future<?> worker : workers) {
+						worker.get();
+					}
+
+					applyParameterServerUpdate(parameterServer, parameterServer.flush(), masterTrainableAxons,
+							trainingContext, epochIndex, batchIndex.get(), iterationIndex);
+
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted when waiting for asynchronous workers", e);
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Execution exception in asynchronous worker", e);
+				}
+
+				float epochAverageCost = getEpochAverageCost(parameterServer.getLastAverageCost());
+				epochAverageCostHandler.accept(epochAverageCost);
+				LOGGER.debug("Epoch:" + epochIndex + " Cost:" + epochAverageCost);
 				lastEpochTrainingContext = trainingContext;
 			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	private void applyParameterServerUpdate(ParameterServerGradientAccumulator parameterServer,
+			Optional<Future<List<AxonsGradient>>> averageAxonsGradientsResult,
+			List<TrainableAxons<?, ?, ?>> masterTrainableAxons, C trainingContext, int epochIndex, int batchIndex,
+			AtomicInteger iterationIndex) {
+
+		if (!averageAxonsGradientsResult.isPresent()) {
+			return;
+		}
+
+		parameterServer.getWeightsLock().writeLock().lock();
+		try {
+			List<AxonsGradient> averageTrainableAxonsGradients = averageAxonsGradientsResult.get().get();
+
+			// The gradients may reference the axons of a worker's replica, so apply them
+			// to the corresponding master axons
+			List<AxonsGradient> masterAxonsGradients = new ArrayList<>();
+			for (int axonsIndex = 0; axonsIndex < averageTrainableAxonsGradients.size(); axonsIndex++) {
+				AxonsGradient axonsGradient = averageTrainableAxonsGradients.get(axonsIndex);
+				masterAxonsGradients.add(new AxonsGradientImpl(masterTrainableAxons.get(axonsIndex),
+						axonsGradient.getWeightsGradient(), axonsGradient.getLeftToRightBiasGradient()));
+			}
+
+			adjustConnectionWeights(trainingContext, masterAxonsGradients, epochIndex, batchIndex,
+					iterationIndex.getAndIncrement());
+			parameterServer.onUpdateApplied();
+
+			for (AxonsGradient axonsGradient : averageTrainableAxonsGradients) {
+				axonsGradient.getWeightsGradient().close();
+				if (axonsGradient.getLeftToRightBiasGradient() != null) {
+					axonsGradient.getLeftToRightBiasGradient().close();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted when waiting for response from parameter server", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Execution exception when waiting for response from parameter server",
+					e);
+		} finally {
+			parameterServer.getWeightsLock().writeLock().unlock();
 		}
 	}
 
 	protected void train(Stream<LabeledData<NeuronsActivation, NeuronsActivation>> trainingDataActivations,
 			C trainingContext) {
 
+		resetCostEstimator();
+
 		int iterationIndex = 0;
 
 		int epochStartIndex = (lastEpochTrainingContext == null
@@ -417,27 +776,14 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 		trainingDataActivations.forEach(labeledData -> {
 
 			if (trainingContext.getTrainingMiniBatchSize() == null) {
-				CostAndGradients costAndGradients = getCostAndGradients(labeledData.getData(), labeledData.getLabel(),
+				CostAndGradientsImpl costAndGradients = getCostAndGradients(labeledData.getData(), labeledData.getLabel(),
 						trainingContext);
 
 				LOGGER.info("Epoch:" + epochIndex + " Cost:" + costAndGradients.getAverageCost());
 				int batchIndex = epochIndex;
 
-				List<AxonsGradient> averageTrainableAxonsGradients = costAndGradients
-						.getAverageTrainableAxonsGradients();
-
-				adjustConnectionWeights(trainingContext, averageTrainableAxonsGradients, epochIndex, batchIndex,
-						iterationIndex);
-
-				for (AxonsGradient axonsGradient : averageTrainableAxonsGradients) {
-					axonsGradient.getWeightsGradient().close();
-					if (axonsGradient.getLeftToRightBiasGradient() != null) {
-						axonsGradient.getLeftToRightBiasGradient().close();
-					}
-					if (axonsGradient.getRightToLeftBiasGradient() != null) {
-						axonsGradient.getRightToLeftBiasGradient().close();
-					}
-				}
+				// Average, scale and apply the total gradients in place, releasing them afterwards
+				adjustConnectionWeights(trainingContext, costAndGradients, epochIndex, batchIndex, iterationIndex);
 
 			} else {
 				throw new IllegalArgumentException("Training batch mini batch size not supported");
@@ -450,6 +796,49 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 
 	protected CostAndGradientsImpl getCostAndGradients(NeuronsActivation inputActivations,
 			NeuronsActivation desiredOutputActivations, C trainingContext) {
+		return getCostAndGradients(trailingActivationFunctionComponentChain, inputActivations,
+				desiredOutputActivations, trainingContext);
+	}
+
+	/**
+	 * Obtain the cost and gradients for a forward and back propagation through the
+	 * specified component chain - either the chain of this network, or a replica of
+	 * it when training data-parallel.
+	 */
+	protected CostAndGradientsImpl getCostAndGradients(TrailingActivationFunctionDirectedComponentChain componentChain,
+			NeuronsActivation inputActivations, NeuronsActivation desiredOutputActivations, C trainingContext) {
+		return getCostAndGradients(componentChain, inputActivations, desiredOutputActivations, trainingContext, true);
+	}
+
+	/**
+	 * Obtain the cost and gradients for a forward and back propagation through the
+	 * specified component chain, evaluating the cost only if evaluateCost is true -
+	 * otherwise the current estimate of the CostEstimator stands in for the cost.
+	 */
+	protected CostAndGradientsImpl getCostAndGradients(TrailingActivationFunctionDirectedComponentChain componentChain,
+			NeuronsActivation inputActivations, NeuronsActivation desiredOutputActivations, C trainingContext,
+			boolean evaluateCost) {
+		return computeCostAndGradients(componentChain, inputActivations, desiredOutputActivations, trainingContext,
+				evaluateCost, costSampleRandom);
+	}
+
+	/**
+	 * Create the context a concurrent worker propagates within - with the matrix
+	 * factory and listeners of the training context, but its own directed
+	 * components context.
+	 */
+	private FeedForwardNeuralNetworkContext createWorkerContext(C trainingContext) {
+		FeedForwardNeuralNetworkContext workerContext = new FeedForwardNeuralNetworkContextImpl(
+				trainingContext.getMatrixFactory(), true);
+		workerContext.setForwardPropagationListener(trainingContext.getForwardPropagationListener());
+		workerContext.setBackPropagationListener(trainingContext.getBackPropagationListener());
+		return workerContext;
+	}
+
+	private CostAndGradientsImpl computeCostAndGradients(
+			TrailingActivationFunctionDirectedComponentChain componentChain, NeuronsActivation inputActivations,
+			NeuronsActivation desiredOutputActivations, FeedForwardNeuralNetworkContext trainingContext,
+			boolean evaluateCost, Random costSampleRandom) {
 
 		int numberOfTrainingExamples = inputActivations.getColumns();
 
@@ -467,21 +856,35 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 		final CostFunction costFunction = getCostFunction();
 
 		// Forward propagate the trainingDataActivations through the entire Network
-		ForwardPropagation forwardPropagation = forwardPropagate(inputActivations, trainingContext);
+		ForwardPropagation forwardPropagation = forwardPropagate(componentChain, inputActivations, trainingContext);
+
+		DeltaRuleCostFunctionGradientImpl costFunctionGradient = new DeltaRuleCostFunctionGradientImpl(
+				trainingContext.getMatrixFactory(), costFunction, desiredOutputActivations,
+				forwardPropagation.getOutput());
 
-		// Obtain the cost from the cost function
-		LOGGER.debug("Calculating total cost function cost");
+		float totalCostWithRegularisation;
+		Float costEstimate = costEstimator == null ? null : costEstimator.getEstimate();
+		if (evaluateCost || costEstimate == null) {
+			// Obtain the cost from the cost function - computing the deltas in the same pass if the
+			// delta rule applies
+			LOGGER.debug("Calculating total cost function cost");
 
-		float totalCost = costFunction.getTotalCost(
-				desiredOutputActivations.getActivations(trainingContext.getMatrixFactory()),
-				forwardPropagation.getOutput().getActivations(trainingContext.getMatrixFactory()));
+			float totalCost = costEstimator == null || costEstimator.getSampleSize() == null
+					? costFunctionGradient.getTotalCost(componentChain.getFinalComponent().getActivationFunction())
+					: costFunctionGradient.getSampledTotalCost(costEstimator.getSampleSize(),
+							costSampleRandom == null ? ThreadLocalRandom.current() : costSampleRandom);
 
-		float totalRegularisationCost = forwardPropagation.getTotalRegularisationCost(trainingContext);
+			float totalRegularisationCost = forwardPropagation.getTotalRegularisationCost(trainingContext);
 
-		float totalCostWithRegularisation = totalCost + totalRegularisationCost;
+			totalCostWithRegularisation = totalCost + totalRegularisationCost;
 
-		CostFunctionGradient costFunctionGradient = new DeltaRuleCostFunctionGradientImpl(trainingContext.getMatrixFactory(), costFunction,
-				desiredOutputActivations, forwardPropagation.getOutput());
+			if (costEstimator != null) {
+				costEstimator.update(totalCostWithRegularisation / numberOfTrainingExamples);
+			}
+		} else {
+			// Skip the cost, reporting the estimate so that accumulated and logged costs remain meaningful
+			totalCostWithRegularisation = costEstimate * numberOfTrainingExamples;
+		}
 		//forwardPropagation.getOutput().close();
 
 
@@ -517,6 +920,92 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 
 	}
 
+	private void applyAverageAxonsGradients(Optional<Future<List<AxonsGradient>>> averageAxonsGradientsResult,
+			C trainingContext, int epochIndex, int batchIndex, int iterationIndex) {
+
+		if (averageAxonsGradientsResult.isPresent()) {
+
+			List<AxonsGradient> averageTrainableAxonsGradients;
+			try {
+				averageTrainableAxonsGradients = averageAxonsGradientsResult.get().get();
+
+				adjustConnectionWeights(trainingContext, averageTrainableAxonsGradients, epochIndex, batchIndex,
+						iterationIndex);
+
+				for (AxonsGradient axonsGradient : averageTrainableAxonsGradients) {
+					axonsGradient.getWeightsGradient().close();
+					if (axonsGradient.getLeftToRightBiasGradient() != null) {
+						axonsGradient.getLeftToRightBiasGradient().close();
+					}
+					if (axonsGradient.getRightToLeftBiasGradient() != null) {
+						axonsGradient.getRightToLeftBiasGradient().close();
+					}
+				}
+
+			} catch (InterruptedException e) {
+				LOGGER.error("Interrupted when waiting for response from gradient accumulator", e);
+			} catch (ExecutionException e) {
+				LOGGER.error("Execution exception when waiting for response from gradient accumulator", e);
+			}
+		}
+	}
+
+	/**
+	 * Set the GradientAccumulator used when training from a stream of batches -
+	 * eg. a MicroBatchGradientAccumulator to emulate a larger batch size.
+	 * 
+	 * @param gradientAccumulator The gradient accumulator.
+	 */
+	public void setGradientAccumulator(GradientAccumulator gradientAccumulator) {
+		this.gradientAccumulator = gradientAccumulator;
+	}
+
+	/**
+	 * Set the seed of the shuffle of the training examples on each epoch when
+	 * training mini-batches from activations - null, the default, to train the
+	 * mini-batches in a fixed order.
+	 * 
+	 * @param shuffleSeed The shuffle seed, or null.
+	 */
+	public void setShuffleSeed(Long shuffleSeed) {
+		this.shuffleSeed = shuffleSeed;
+	}
+
+	/**
+	 * Set the CostEstimator controlling how often the cost is evaluated when
+	 * training - null, the default, to evaluate the cost of every batch. When set,
+	 * the epoch average cost reported is the running estimate of the estimator,
+	 * which is reset at the start of each training call. The sampled costs are
+	 * reproducible when the shuffle seed is set.
+	 * 
+	 * @param costEstimator The cost estimator, or null.
+	 */
+	public void setCostEstimator(CostEstimator costEstimator) {
+		this.costEstimator = costEstimator;
+	}
+
+	/**
+	 * Discard the estimate of the CostEstimator at the start of a training call,
+	 * so that the costs reported are those of this call only, and restart the
+	 * random number generator of the sampled costs from the shuffle seed.
+	 */
+	private void resetCostEstimator() {
+		if (costEstimator != null) {
+			costEstimator.reset();
+		}
+		// Seeded as the epoch before the first, so as not to repeat the shuffle of any epoch
+		costSampleRandom = shuffleSeed == null ? null : EpochPermutations.createRandom(shuffleSeed, -1);
+	}
+
+	private boolean isCostEvaluated(int iterationIndex) {
+		return costEstimator == null || costEstimator.isEvaluationIteration(iterationIndex);
+	}
+
+	private float getEpochAverageCost(float lastAverageCost) {
+		Float costEstimate = costEstimator == null ? null : costEstimator.getEstimate();
+		return costEstimate == null ? lastAverageCost : costEstimate;
+	}
+
 	protected float getTrainingLearningRate(C trainingContext, int epochIndex, int batchIndex, int iterationIndex) {
 
 		TrainingLearningRateAdjustmentStrategy adjustmentStrategy = trainingContext
@@ -542,50 +1031,157 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 		return axonsGradient;
 	}
 
+	/**
+	 * Adjust the connection weights using the total gradients of a
+	 * CostAndGradients, averaging and learning-rate scaling them in a single in-place
+	 * pass, and close the gradients afterwards.
+	 */
+	private void adjustConnectionWeights(C trainingContext, CostAndGradientsImpl costAndGradients, int epochIndex,
+			int batchIndex, int iterationIndex) {
+		adjustConnectionWeights(trainingContext, costAndGradients.getTotalTrainableAxonsGradients(),
+				1f / costAndGradients.getNumberOfTrainingExamples(), Collections.emptyList(), epochIndex, batchIndex,
+				iterationIndex);
+		costAndGradients.close();
+	}
+
 	private void adjustConnectionWeights(C trainingContext, List<AxonsGradient> trainableAxonsGradients, int epochIndex,
 			int batchIndex, int iterationIndex) {
+		adjustConnectionWeights(trainingContext, trainableAxonsGradients, 1f, Collections.emptyList(), epochIndex,
+				batchIndex, iterationIndex);
+	}
+
+	private void adjustConnectionWeights(C trainingContext, List<AxonsGradient> trainableAxonsGradients,
+			List<List<TrainableAxons<?, ?, ?>>> replicaTrainableAxons, int epochIndex, int batchIndex,
+			int iterationIndex) {
+		adjustConnectionWeights(trainingContext, trainableAxonsGradients, 1f, replicaTrainableAxons, epochIndex,
+				batchIndex, iterationIndex);
+	}
+
+	/**
+	 * Adjust the connection weights of the axons referenced by the gradients, and
+	 * apply the same adjustments to the corresponding axons of any replica chains so
+	 * that the replicas remain in sync.
+	 * 
+	 * The gradients are owned by this method until it returns, and are scaled in
+	 * place to become the weight adjustments - only where an optimisation strategy
+	 * returns gradients of its own are these scaled into reusable per-axons buffers
+	 * instead, so no matrices are allocated per iteration.
+	 * 
+	 * @param gradientScale         The scale to average the gradients by - eg. one
+	 *                              over the number of training examples for total
+	 *                              gradients, or one for average gradients.
+	 * @param replicaTrainableAxons For each replica, the trainable axons in the same
+	 *                              order as the gradients.
+	 */
+	private void adjustConnectionWeights(C trainingContext, List<AxonsGradient> trainableAxonsGradients,
+			float gradientScale, List<List<TrainableAxons<?, ?, ?>>> replicaTrainableAxons, int epochIndex,
+			int batchIndex, int iterationIndex) {
+
+		float learningRate = getTrainingLearningRate(trainingContext, epochIndex, batchIndex, iterationIndex);
+		boolean hasOptimisationStrategy = trainingContext.getGradientDescentOptimisationStrategy() != null;
+
 		int axonsIndex = 0;
 		for (AxonsGradient axonsGradient : trainableAxonsGradients) {
 			TrainableAxons<?, ?, ?> trainableAxons = axonsGradient.getAxons();
-			// Transpose the axon gradients into matrices that correspond to the orientation
-			// of the
-			// connection weights ( COLUMNS_SPAN_FEATURE_SET )
-			AxonsGradient adjustedAxonsGradient = getAdjustedAxonsGradient(axonsGradient, axonsIndex, trainingContext,
-					epochIndex, batchIndex, iterationIndex);
-			// Adjust the weights of each set of Axons by subtracting the learning-rate
-			// scaled
-			// gradient matrices
-			Matrix weightsGradient = adjustedAxonsGradient.getWeightsGradient();
-			
-			try (InterrimMatrix weightsAdjustment = weightsGradient
-					.mul((float) getTrainingLearningRate(trainingContext, epochIndex, batchIndex, iterationIndex))
-					.asInterrimMatrix()) {
-				AxonWeightsAdjustment axonWeightsAdjustment = null;
-				if (trainableAxons.getLeftNeurons().hasBiasUnit()) {
-					try (InterrimMatrix biasAdjustment = adjustedAxonsGradient.getLeftToRightBiasGradient()
-							.mul(getTrainingLearningRate(trainingContext, epochIndex, batchIndex, iterationIndex))
-							.asInterrimMatrix()) {
-						axonWeightsAdjustment = new AxonWeightsAdjustmentImpl(weightsAdjustment, biasAdjustment);
-						trainableAxons.adjustAxonWeights(axonWeightsAdjustment,
-								AxonWeightsAdjustmentDirection.SUBTRACTION);
+			boolean hasBiasUnit = trainableAxons.getLeftNeurons().hasBiasUnit();
+
+			Matrix weightsAdjustment;
+			Matrix biasAdjustment = null;
+			if (!hasOptimisationStrategy) {
+				// Fuse the averaging and the learning-rate scaling into a single pass
+				weightsAdjustment = axonsGradient.getWeightsGradient().asEditableMatrix()
+						.muli(learningRate * gradientScale);
+				if (hasBiasUnit) {
+					biasAdjustment = axonsGradient.getLeftToRightBiasGradient().asEditableMatrix()
+							.muli(learningRate * gradientScale);
+				}
+			} else {
+				// The optimisation strategy expects average gradients
+				if (gradientScale != 1f) {
+					axonsGradient.getWeightsGradient().asEditableMatrix().muli(gradientScale);
+					if (axonsGradient.getLeftToRightBiasGradient() != null) {
+						axonsGradient.getLeftToRightBiasGradient().asEditableMatrix().muli(gradientScale);
 					}
-				} else {
-					axonWeightsAdjustment = new AxonWeightsAdjustmentImpl(weightsAdjustment);
-					trainableAxons.adjustAxonWeights(axonWeightsAdjustment,
-							AxonWeightsAdjustmentDirection.SUBTRACTION);
 				}
-			
+				AxonsGradient adjustedAxonsGradient = getAdjustedAxonsGradient(axonsGradient, axonsIndex,
+						trainingContext, epochIndex, batchIndex, iterationIndex);
+				weightsAdjustment = scale(adjustedAxonsGradient.getWeightsGradient(),
+						axonsGradient.getWeightsGradient(), learningRate, getWeightsAdjustmentBuffers(), axonsIndex,
+						trainingContext);
+				if (hasBiasUnit) {
+					biasAdjustment = scale(adjustedAxonsGradient.getLeftToRightBiasGradient(),
+							axonsGradient.getLeftToRightBiasGradient(), learningRate, getBiasAdjustmentBuffers(),
+							axonsIndex, trainingContext);
+				}
+			}
+
+			// Adjust the weights of each set of Axons by subtracting the learning-rate
+			// scaled gradient matrices
+			AxonWeightsAdjustment axonWeightsAdjustment = biasAdjustment == null
+					? new AxonWeightsAdjustmentImpl(weightsAdjustment)
+					: new AxonWeightsAdjustmentImpl(weightsAdjustment, biasAdjustment);
+			trainableAxons.adjustAxonWeights(axonWeightsAdjustment, AxonWeightsAdjustmentDirection.SUBTRACTION);
+			for (List<TrainableAxons<?, ?, ?>> replica : replicaTrainableAxons) {
+				replica.get(axonsIndex).adjustAxonWeights(axonWeightsAdjustment,
+						AxonWeightsAdjustmentDirection.SUBTRACTION);
 			}
-				
 
-			
 			axonsIndex++;
 		}
 	}
 
+	/**
+	 * Scale an adjusted gradient by the learning rate - in place if it is the
+	 * gradient owned by the update path, otherwise into a reusable buffer for the
+	 * axons so the optimisation strategy's own matrices are left untouched.
+	 */
+	private Matrix scale(Matrix adjustedGradient, Matrix ownedGradient, float learningRate,
+			Map<Integer, Matrix> buffers, int axonsIndex, C trainingContext) {
+		if (adjustedGradient == ownedGradient) {
+			return ownedGradient.asEditableMatrix().muli(learningRate);
+		}
+		Matrix buffer = buffers.get(axonsIndex);
+		if (buffer == null || buffer.getRows() != adjustedGradient.getRows()
+				|| buffer.getColumns() != adjustedGradient.getColumns()) {
+			buffer = trainingContext.getMatrixFactory().createZeros(adjustedGradient.getRows(),
+					adjustedGradient.getColumns());
+			buffers.put(axonsIndex, buffer);
+		}
+		// The row by row array of a matrix is not guaranteed to be its backing data,
+		// so only read from it, writing through the EditableMatrix
+		float[] adjustedData = adjustedGradient.getRowByRowArray();
+		int columns = adjustedGradient.getColumns();
+		EditableMatrix editableBuffer = buffer.asEditableMatrix();
+		for (int row = 0; row < adjustedGradient.getRows(); row++) {
+			for (int column = 0; column < columns; column++) {
+				editableBuffer.put(row, column, adjustedData[row * columns + column] * learningRate);
+			}
+		}
+		return buffer;
+	}
+
+	private Map<Integer, Matrix> getWeightsAdjustmentBuffers() {
+		if (weightsAdjustmentBuffers == null) {
+			weightsAdjustmentBuffers = new HashMap<>();
+		}
+		return weightsAdjustmentBuffers;
+	}
+
+	private Map<Integer, Matrix> getBiasAdjustmentBuffers() {
+		if (biasAdjustmentBuffers == null) {
+			biasAdjustmentBuffers = new HashMap<>();
+		}
+		return biasAdjustmentBuffers;
+	}
+
 	@Override
 	public ForwardPropagation forwardPropagate(NeuronsActivation inputActivation,
 			FeedForwardNeuralNetworkContext context) {
+		return forwardPropagate(trailingActivationFunctionComponentChain, inputActivation, context);
+	}
+
+	protected ForwardPropagation forwardPropagate(TrailingActivationFunctionDirectedComponentChain componentChain,
+			NeuronsActivation inputActivation, FeedForwardNeuralNetworkContext context) {
 
 		// int endLayerIndex = context.getEndLayerIndex() == null ? (getNumberOfLayers()
 		// - 1) : context.getEndLayerIndex();
@@ -593,7 +1189,7 @@ public abstract class FeedForwardNeuralNetworkBase<C extends FeedForwardNeuralNe
 		LOGGER.debug("Forward propagating through FeedForwardNeuralNetwork");
 
 		// Forward propagate through the layers
-		TrailingActivationFunctionDirectedComponentChainActivation activation = trailingActivationFunctionComponentChain
+		TrailingActivationFunctionDirectedComponentChainActivation activation = componentChain
 				.forwardPropagate(inputActivation, context.getDirectedComponentsContext());
 
 		// Construct a forward propagation
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Future;
+
+import org.ml4j.nn.axons.AxonsGradient;
+
+/**
+ * A GradientAccumulator which may hold submitted gradients back across several
+ * submissions, and which can be flushed to release an update for whatever has
+ * been accumulated - eg. at the end of an epoch.
+ * 
+ * @author Michael Lavelle
+ */
+public interface FlushableGradientAccumulator extends GradientAccumulator {
+
+	/**
+	 * @return The average gradients of any pending submissions, or an empty
+	 *         Optional if there are none.
+	 */
+	Optional<Future<List<AxonsGradient>>> flush();
+}
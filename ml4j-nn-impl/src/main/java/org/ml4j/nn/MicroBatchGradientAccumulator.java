@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import org.ml4j.EditableMatrix;
+import org.ml4j.nn.axons.AxonsGradient;
+import org.ml4j.nn.axons.AxonsGradientImpl;
+
+/**
+ * GradientAccumulator which emulates a large batch size by accumulating the
+ * total gradients of a number of smaller micro-batches, releasing a single
+ * averaged update once the final micro-batch has been submitted.
+ *
+ * The total gradients of the first micro-batch of each update are adopted as
+ * the running sums and the totals of subsequent micro-batches are added in
+ * place and closed, so only one set of gradients per axons is held at a time.
+ * The running sums are divided in place to produce the average, and are owned
+ * by the caller once released.
+ *
+ * @author Michael Lavelle
+ */
+public class MicroBatchGradientAccumulator implements FlushableGradientAccumulator {
+
+	private int microBatchCount;
+
+	private List<AxonsGradient> accumulatedTotalGradients;
+
+	private float accumulatedTotalCost;
+
+	private int accumulatedTrainingExampleCount;
+
+	private int accumulatedMicroBatchCount;
+
+	private float lastAverageCost;
+
+	/**
+	 * @param microBatchCount The number of micro-batches to accumulate into each
+	 *                        update.
+	 */
+	public MicroBatchGradientAccumulator(int microBatchCount) {
+		if (microBatchCount < 1) {
+			throw new IllegalArgumentException("Micro-batch count must be at least 1");
+		}
+		this.microBatchCount = microBatchCount;
+	}
+
+	@Override
+	public synchronized Optional<Future<List<AxonsGradient>>> submitCostAndGradients(
+			CostAndGradients costAndGradients) {
+		if (!(costAndGradients instanceof CostAndGradientsImpl)) {
+			throw new IllegalArgumentException(
+					"Only CostAndGradientsImpl supported currently, but was:" + costAndGradients.getClass());
+		}
+		accumulate((CostAndGradientsImpl) costAndGradients);
+		if (accumulatedMicroBatchCount < microBatchCount) {
+			return Optional.empty();
+		}
+		return flush();
+	}
+
+	@Override
+	public synchronized Optional<Future<List<AxonsGradient>>> flush() {
+		if (accumulatedMicroBatchCount == 0) {
+			return Optional.empty();
+		}
+		List<AxonsGradient> averageGradients = new ArrayList<>();
+		for (AxonsGradient totalGradient : accumulatedTotalGradients) {
+			EditableMatrix weightsGradient = totalGradient.getWeightsGradient().asEditableMatrix();
+			weightsGradient.divi(accumulatedTrainingExampleCount);
+			EditableMatrix leftToRightBiasGradient = null;
+			if (totalGradient.getLeftToRightBiasGradient() != null) {
+				leftToRightBiasGradient = totalGradient.getLeftToRightBiasGradient().asEditableMatrix();
+				leftToRightBiasGradient.divi(accumulatedTrainingExampleCount);
+			}
+			averageGradients
+					.add(new AxonsGradientImpl(totalGradient.getAxons(), weightsGradient, leftToRightBiasGradient));
+		}
+		lastAverageCost = accumulatedTotalCost / accumulatedTrainingExampleCount;
+
+		accumulatedTotalGradients = null;
+		accumulatedTotalCost = 0;
+		accumulatedTrainingExampleCount = 0;
+		accumulatedMicroBatchCount = 0;
+
+		return Optional.of(CompletableFuture.completedFuture(averageGradients));
+	}
+
+	public int getMicroBatchCount() {
+		return microBatchCount;
+	}
+
+	/**
+	 * @return The average cost over all the examples of the most recent update.
+	 */
+	public synchronized float getLastAverageCost() {
+		return lastAverageCost;
+	}
+
+	private void accumulate(CostAndGradientsImpl costAndGradients) {
+		List<AxonsGradient> totalGradients = costAndGradients.getTotalTrainableAxonsGradients();
+		if (accumulatedTotalGradients == null) {
+			accumulatedTotalGradients = new ArrayList<>(totalGradients);
+		} else {
+			for (int axonsIndex = 0; axonsIndex < totalGradients.size(); axonsIndex++) {
+				AxonsGradient accumulatedGradient = accumulatedTotalGradients.get(axonsIndex);
+				AxonsGradient totalGradient = totalGradients.get(axonsIndex);
+				accumulatedGradient.getWeightsGradient().asEditableMatrix().addi(totalGradient.getWeightsGradient());
+				totalGradient.getWeightsGradient().close();
+				if (accumulatedGradient.getLeftToRightBiasGradient() != null) {
+					accumulatedGradient.getLeftToRightBiasGradient().asEditableMatrix()
+							.addi(totalGradient.getLeftToRightBiasGradient());
+					totalGradient.getLeftToRightBiasGradient().close();
+				}
+			}
+		}
+		accumulatedTotalCost = accumulatedTotalCost + costAndGradients.getTotalCost();
+		accumulatedTrainingExampleCount = accumulatedTrainingExampleCount
+				+ costAndGradients.getNumberOfTrainingExamples();
+		accumulatedMicroBatchCount++;
+	}
+}
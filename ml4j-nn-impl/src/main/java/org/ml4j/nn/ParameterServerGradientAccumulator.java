@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.ml4j.nn.axons.AxonsGradient;
+
+/**
+ * GradientAccumulator acting as an in-process parameter server for asynchronous
+ * training with bounded staleness.
+ *
+ * Workers submit CostAndGradients concurrently without waiting on each other -
+ * an empty Optional means the gradients have been accumulated but no update is
+ * due yet, otherwise the returned Future contains the average of the
+ * accumulated gradients, to be applied to the master weights while holding the
+ * write lock of getWeightsLock() and followed by a call to onUpdateApplied().
+ *
+ * Workers compute on their own copy of the weights, and may continue to do so
+ * until it is more than maxStaleness updates behind the master weights - see
+ * isStale(long) - at which point they must refresh their copy while holding the
+ * read lock.
+ *
+ * @author Michael Lavelle
+ */
+public class ParameterServerGradientAccumulator implements FlushableGradientAccumulator {
+
+	private int maxStaleness;
+
+	private int gradientsPerUpdate;
+
+	private List<CostAndGradientsImpl> pendingCostAndGradients;
+
+	private AtomicLong appliedUpdateCount;
+
+	private ReadWriteLock weightsLock;
+
+	private float lastAverageCost;
+
+	/**
+	 * @param maxStaleness       The maximum number of updates a worker's copy of the
+	 *                           weights may lag behind the master weights.
+	 * @param gradientsPerUpdate The number of submitted CostAndGradients to average
+	 *                           into each update.
+	 */
+	public ParameterServerGradientAccumulator(int maxStaleness, int gradientsPerUpdate) {
+		if (maxStaleness < 0) {
+			throw new IllegalArgumentException("Max staleness must not be negative");
+		}
+		if (gradientsPerUpdate < 1) {
+			throw new IllegalArgumentException("Gradients per update must be at least 1");
+		}
+		this.maxStaleness = maxStaleness;
+		this.gradientsPerUpdate = gradientsPerUpdate;
+		this.pendingCostAndGradients = new ArrayList<>();
+		this.appliedUpdateCount = new AtomicLong(0);
+		this.weightsLock = new ReentrantReadWriteLock();
+	}
+
+	/**
+	 * @param maxStaleness The maximum number of updates a worker's copy of the
+	 *                     weights may lag behind the master weights.
+	 */
+	public ParameterServerGradientAccumulator(int maxStaleness) {
+		this(maxStaleness, 1);
+	}
+
+	@Override
+	public synchronized Optional<Future<List<AxonsGradient>>> submitCostAndGradients(
+			CostAndGradients costAndGradients) {
+		if (!(costAndGradients instanceof CostAndGradientsImpl)) {
+			throw new IllegalArgumentException(
+					"Only CostAndGradientsImpl supported currently, but was:" + costAndGradients.getClass());
+		}
+		pendingCostAndGradients.add((CostAndGradientsImpl) costAndGradients);
+		if (pendingCostAndGradients.size() < gradientsPerUpdate) {
+			return Optional.empty();
+		}
+		return flush();
+	}
+
+	@Override
+	public synchronized Optional<Future<List<AxonsGradient>>> flush() {
+		if (pendingCostAndGradients.isEmpty()) {
+			return Optional.empty();
+		}
+		CostAndGradients summedCostAndGradients = CostAndGradientsImpl.sum(pendingCostAndGradients);
+		lastAverageCost = summedCostAndGradients.getAverageCost();
+		pendingCostAndGradients = new ArrayList<>();
+		return Optional.of(new SimpleAverageAxonsGradientsFuture(summedCostAndGradients));
+	}
+
+	/**
+	 * Notify the parameter server that an update has been applied to the master
+	 * weights.
+	 */
+	public void onUpdateApplied() {
+		appliedUpdateCount.incrementAndGet();
+	}
+
+	/**
+	 * @return The number of updates applied to the master weights.
+	 */
+	public long getAppliedUpdateCount() {
+		return appliedUpdateCount.get();
+	}
+
+	/**
+	 * @param workerUpdateCount The applied update count at the time a worker last
+	 *                          refreshed its copy of the weights.
+	 * @return Whether the worker's copy of the weights is more than maxStaleness
+	 *         updates behind the master weights.
+	 */
+	public boolean isStale(long workerUpdateCount) {
+		return appliedUpdateCount.get() - workerUpdateCount > maxStaleness;
+	}
+
+	/**
+	 * @return The lock guarding the master weights - held for writing while
+	 *         applying updates, and for reading while workers refresh their copies.
+	 */
+	public ReadWriteLock getWeightsLock() {
+		return weightsLock;
+	}
+
+	public int getMaxStaleness() {
+		return maxStaleness;
+	}
+
+	/**
+	 * @return The average cost of the most recent update.
+	 */
+	public synchronized float getLastAverageCost() {
+		return lastAverageCost;
+	}
+}
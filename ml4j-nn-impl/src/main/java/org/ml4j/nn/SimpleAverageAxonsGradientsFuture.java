@@ -10,6 +10,8 @@ public class SimpleAverageAxonsGradientsFuture implements Future<List<AxonsGradi
 	
 	private CostAndGradients costAndGradients;
 	
+	private List<AxonsGradient> averageTrainableAxonsGradients;
+	
 	public SimpleAverageAxonsGradientsFuture(CostAndGradients costAndGradients) {
 		this.costAndGradients = costAndGradients;
 	}
@@ -30,13 +32,22 @@ public class SimpleAverageAxonsGradientsFuture implements Future<List<AxonsGradi
 	}
 
 	@Override
-	public List<AxonsGradient> get() {
-		return costAndGradients.getAverageTrainableAxonsGradients();
+	public synchronized List<AxonsGradient> get() {
+		if (averageTrainableAxonsGradients == null) {
+			// The submitted gradients are owned by the accumulator, so average them in place
+			if (costAndGradients instanceof CostAndGradientsImpl) {
+				averageTrainableAxonsGradients = ((CostAndGradientsImpl) costAndGradients)
+						.averageTrainableAxonsGradientsInPlace();
+			} else {
+				averageTrainableAxonsGradients = costAndGradients.getAverageTrainableAxonsGradients();
+			}
+		}
+		return averageTrainableAxonsGradients;
 	}
 
 	@Override
 	public List<AxonsGradient> get(long timeout, TimeUnit unit) {
-		return costAndGradients.getAverageTrainableAxonsGradients();
+		return get();
 	}
 
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Future;
+
+import org.ml4j.nn.axons.AxonsGradient;
+
+/**
+ * GradientAccumulator for synchronous data-parallel training.
+ *
+ * Collects the CostAndGradients computed by a fixed number of workers, each on
+ * its own mini-batch, and once every worker has submitted all-reduces them into
+ * a single list of average AxonsGradients - an empty Optional is returned to all
+ * but the final submission of each round.
+ *
+ * The total gradients of the first submission are summed into in place, so the
+ * submitted CostAndGradients should not be used by the caller once reduced.
+ *
+ * @author Michael Lavelle
+ */
+public class SynchronousGradientAccumulator implements FlushableGradientAccumulator {
+
+	private int workerCount;
+
+	private List<CostAndGradientsImpl> pendingCostAndGradients;
+
+	private float lastAverageCost;
+
+	/**
+	 * @param workerCount The number of CostAndGradients to accumulate before each
+	 *                    weight update.
+	 */
+	public SynchronousGradientAccumulator(int workerCount) {
+		if (workerCount < 1) {
+			throw new IllegalArgumentException("Worker count must be at least 1");
+		}
+		this.workerCount = workerCount;
+		this.pendingCostAndGradients = new ArrayList<>();
+	}
+
+	@Override
+	public synchronized Optional<Future<List<AxonsGradient>>> submitCostAndGradients(
+			CostAndGradients costAndGradients) {
+		if (!(costAndGradients instanceof CostAndGradientsImpl)) {
+			throw new IllegalArgumentException(
+					"Only CostAndGradientsImpl supported currently, but was:" + costAndGradients.getClass());
+		}
+		pendingCostAndGradients.add((CostAndGradientsImpl) costAndGradients);
+		if (pendingCostAndGradients.size() < workerCount) {
+			return Optional.empty();
+		}
+		return flush();
+	}
+
+	@Override
+	public synchronized Optional<Future<List<AxonsGradient>>> flush() {
+		if (pendingCostAndGradients.isEmpty()) {
+			return Optional.empty();
+		}
+		CostAndGradients reducedCostAndGradients = CostAndGradientsImpl.sum(pendingCostAndGradients);
+		lastAverageCost = reducedCostAndGradients.getAverageCost();
+		pendingCostAndGradients = new ArrayList<>();
+		return Optional.of(new SimpleAverageAxonsGradientsFuture(reducedCostAndGradients));
+	}
+
+	public int getWorkerCount() {
+		return workerCount;
+	}
+
+	/**
+	 * @return The average cost over all the examples of the most recent reduction.
+	 */
+	public synchronized float getLastAverageCost() {
+		return lastAverageCost;
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn.costfunctions;
+
+import java.util.stream.IntStream;
+
+import org.ml4j.Matrix;
+
+/**
+ * Single-pass kernels for the total costs of the cost functions, operating on
+ * the row-major data of the desired and actual outputs.
+ *
+ * Each kernel reads each element of the outputs once, accumulating the cost in
+ * double precision without allocating intermediate matrices - optionally
+ * writing the delta rule deltas (actual - desired) in the same pass. Arrays of
+ * at least PARALLEL_THRESHOLD elements are split into chunks evaluated in
+ * parallel on the common fork/join pool.
+ *
+ * @author Michael Lavelle
+ */
+final class CostFunctionKernels {
+
+	/**
+	 * The minimum number of elements for which a kernel is evaluated in parallel.
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * The number of elements in each parallel chunk.
+	 */
+	static final int CHUNK_SIZE = 1 << 14;
+
+	/**
+	 * The bound probabilities are limited to before taking logs, so that
+	 * saturated outputs give a large but finite cost.
+	 */
+	static final double LOG_LIMIT = 1e-11;
+
+	private CostFunctionKernels() {
+		// Static kernels only
+	}
+
+	/**
+	 * The cost of the elements in the range [start, end) of the outputs, writing
+	 * the deltas for the range if deltas is not null.
+	 */
+	@FunctionalInterface
+	interface CostKernel {
+		double apply(float[] desired, float[] actual, float[] deltas, int start, int end);
+	}
+
+	static final CostKernel CROSS_ENTROPY = CostFunctionKernels::crossEntropy;
+
+	static final CostKernel MULTI_CLASS_CROSS_ENTROPY = CostFunctionKernels::multiClassCrossEntropy;
+
+	static final CostKernel SUM_SQUARED_ERROR = CostFunctionKernels::sumSquaredError;
+
+	/**
+	 * @return The kernel of the cost function, or null if there is none.
+	 */
+	static CostKernel getKernel(CostFunction costFunction) {
+		if (costFunction instanceof CrossEntropyCostFunction) {
+			return CROSS_ENTROPY;
+		} else if (costFunction instanceof MultiClassCrossEntropyCostFunction) {
+			return MULTI_CLASS_CROSS_ENTROPY;
+		} else if (costFunction instanceof SumSquaredErrorCostFunction) {
+			return SUM_SQUARED_ERROR;
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * @return The total cost of the actual outputs.
+	 */
+	static float getTotalCost(CostKernel kernel, Matrix desiredOutputs, Matrix actualOutputs) {
+		validate(desiredOutputs, actualOutputs);
+		return getTotalCost(kernel, desiredOutputs.getRowByRowArray(), actualOutputs.getRowByRowArray(), null);
+	}
+
+	static void validate(Matrix desiredOutputs, Matrix actualOutputs) {
+		if (actualOutputs.getColumns() != desiredOutputs.getColumns()) {
+			throw new IllegalArgumentException("Mismatched column count between desired and actual outputs");
+		}
+		if (actualOutputs.getRows() != desiredOutputs.getRows()) {
+			throw new IllegalArgumentException("Mismatched row count between desired and actual outputs");
+		}
+	}
+
+	/**
+	 * @param deltas The target of the deltas - actual - desired - of the same
+	 *               length as the outputs, or null.
+	 * @return The total cost of the actual outputs.
+	 */
+	static float getTotalCost(CostKernel kernel, float[] desired, float[] actual, float[] deltas) {
+		if (desired.length != actual.length || (deltas != null && deltas.length != actual.length)) {
+			throw new IllegalArgumentException("Desired, actual and delta lengths do not match");
+		}
+		int length = actual.length;
+		if (length < PARALLEL_THRESHOLD) {
+			return (float) kernel.apply(desired, actual, deltas, 0, length);
+		} else {
+			int chunkCount = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			return (float) IntStream.range(0, chunkCount).parallel().mapToDouble(chunk -> kernel.apply(desired,
+					actual, deltas, chunk * CHUNK_SIZE, Math.min(length, (chunk + 1) * CHUNK_SIZE))).sum();
+		}
+	}
+
+	/**
+	 * @return The log of the value, limited to [LOG_LIMIT, 1 - LOG_LIMIT].
+	 */
+	private static double limitLog(double value) {
+		return Math.log(Math.min(Math.max(value, LOG_LIMIT), 1 - LOG_LIMIT));
+	}
+
+	private static double crossEntropy(float[] desired, float[] actual, float[] deltas, int start, int end) {
+		double cost = 0;
+		for (int i = start; i < end; i++) {
+			float y = desired[i];
+			float a = actual[i];
+			// Terms with a zero coefficient are skipped, rather than evaluating their logs
+			if (y != 0) {
+				cost -= y * limitLog(a);
+			}
+			if (y != 1) {
+				cost -= (1 - y) * limitLog(1 - (double) a);
+			}
+			if (deltas != null) {
+				deltas[i] = a - y;
+			}
+		}
+		return cost;
+	}
+
+	private static double multiClassCrossEntropy(float[] desired, float[] actual, float[] deltas, int start,
+			int end) {
+		double cost = 0;
+		for (int i = start; i < end; i++) {
+			float y = desired[i];
+			// Skipping the zero desired outputs of one-hot labels skips almost every log
+			if (y != 0) {
+				cost -= y * limitLog(actual[i]);
+			}
+			if (deltas != null) {
+				deltas[i] = actual[i] - y;
+			}
+		}
+		return cost;
+	}
+
+	private static double sumSquaredError(float[] desired, float[] actual, float[] deltas, int start, int end) {
+		double cost = 0;
+		for (int i = start; i < end; i++) {
+			float delta = actual[i] - desired[i];
+			cost += delta * delta;
+			if (deltas != null) {
+				deltas[i] = delta;
+			}
+		}
+		return cost;
+	}
+}
@@ -16,12 +16,15 @@
 
 package org.ml4j.nn.costfunctions;
 
-import org.ml4j.InterrimMatrix;
 import org.ml4j.Matrix;
 
 /**
  * Cross entropy cost function.
  * 
+ * The logs of the actual outputs are limited, so that saturated outputs give a
+ * large but finite cost - the total cost is evaluated in a single pass by
+ * CostFunctionKernels.
+ * 
  * @author Michael Lavelle
  *
  */
@@ -29,25 +32,7 @@ public class CrossEntropyCostFunction implements CostFunction {
 
 	@Override
 	public float getTotalCost(Matrix desiredOutputs, Matrix actualOutputs) {
-
-		try (InterrimMatrix logOfActualOutputs = actualOutputs.log().asInterrimMatrix()) {
-			try (InterrimMatrix negativeOfDesiredOutputs = desiredOutputs.mul(-1).asInterrimMatrix()) {
-				try (InterrimMatrix negativeOfActualOutputsAddOne = actualOutputs.mul(-1).asEditableMatrix().addi(1).asInterrimMatrix()) {
-					try (InterrimMatrix first = negativeOfDesiredOutputs.mul(logOfActualOutputs).asInterrimMatrix()) {
-						try (InterrimMatrix second = negativeOfActualOutputsAddOne.logi().asInterrimMatrix()) {
-							try (InterrimMatrix third = negativeOfDesiredOutputs.asEditableMatrix().addi(1).muli(second)
-									.asInterrimMatrix()) {
-								try (InterrimMatrix jpart = first.asEditableMatrix().subi(third).asInterrimMatrix()) {
-									try (InterrimMatrix jpartRowSums = jpart.rowSums().asInterrimMatrix()) {
-										return jpartRowSums.sum();
-									}
-								}
-							}
-						}
-					}
-				}
-			}
-		}
+		return CostFunctionKernels.getTotalCost(CostFunctionKernels.CROSS_ENTROPY, desiredOutputs, actualOutputs);
 	}
 
 	@Override
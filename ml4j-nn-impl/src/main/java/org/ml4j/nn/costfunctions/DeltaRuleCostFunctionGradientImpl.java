@@ -16,6 +16,8 @@
 
 package org.ml4j.nn.costfunctions;
 
+import java.util.Random;
+
 import org.ml4j.Matrix;
 import org.ml4j.MatrixFactory;
 import org.ml4j.nn.activationfunctions.ActivationFunctionBaseType;
@@ -38,6 +40,7 @@ public class DeltaRuleCostFunctionGradientImpl implements CostFunctionGradient {
   private NeuronsActivation actualOutputs;
   private CostFunction costFunction;
   private MatrixFactory matrixFactory;
+  private Matrix deltas;
 
   /**
    * @param costFunction The cost function.
@@ -70,6 +73,98 @@ public class DeltaRuleCostFunctionGradientImpl implements CostFunctionGradient {
     this.actualOutputs = actualOutputs;
   }
 
+  /**
+   * Obtain the total cost of the actual outputs, without computing the deltas.
+   * 
+   * @return The total cost of the actual outputs.
+   */
+  public float getTotalCost() {
+    return getTotalCost(false);
+  }
+
+  /**
+   * Obtain the total cost of the actual outputs. If the delta rule is supported for the final
+   * activation function, the deltas are computed in the same pass over the outputs, and retained
+   * to be back propagated.
+   * 
+   * @param finalActivationFunction The final activation function of the network.
+   * @return The total cost of the actual outputs.
+   */
+  public float getTotalCost(DifferentiableActivationFunction finalActivationFunction) {
+    return getTotalCost(isDeltaRuleSupported(finalActivationFunction));
+  }
+
+  private float getTotalCost(boolean computeDeltas) {
+    Matrix desired = desiredOutputs.getActivations(matrixFactory);
+    Matrix actual = actualOutputs.getActivations(matrixFactory);
+    CostFunctionKernels.CostKernel kernel = CostFunctionKernels.getKernel(costFunction);
+    if (kernel == null) {
+      return costFunction.getTotalCost(desired, actual);
+    }
+    if (!computeDeltas) {
+      return CostFunctionKernels.getTotalCost(kernel, desired, actual);
+    }
+    // The deltas are written to a new array, which the matrix factory then wraps
+    float[] deltasData = new float[actual.getRows() * actual.getColumns()];
+    float totalCost = CostFunctionKernels.getTotalCost(kernel, desired.getRowByRowArray(),
+        actual.getRowByRowArray(), deltasData);
+    if (deltas != null) {
+      deltas.close();
+    }
+    deltas = matrixFactory.createMatrixFromRowsByRowsArray(actual.getRows(), actual.getColumns(),
+        deltasData);
+    return totalCost;
+  }
+
+  /**
+   * Estimate the total cost of the actual outputs from a random sample of the examples, scaled
+   * up to all the examples. The deltas are not computed.
+   * 
+   * @param sampleSize The number of examples to sample.
+   * @param random The source of the sample.
+   * @return The estimated total cost of the actual outputs.
+   */
+  public float getSampledTotalCost(int sampleSize, Random random) {
+    Matrix desired = desiredOutputs.getActivations(matrixFactory);
+    Matrix actual = actualOutputs.getActivations(matrixFactory);
+    int rows = actual.getRows();
+    int examples = actual.getColumns();
+    if (sampleSize >= examples) {
+      return getTotalCost();
+    }
+    // Choose the sampled examples with a partial Fisher-Yates shuffle
+    int[] columns = new int[examples];
+    for (int c = 0; c < examples; c++) {
+      columns[c] = c;
+    }
+    for (int k = 0; k < sampleSize; k++) {
+      int j = k + random.nextInt(examples - k);
+      int swap = columns[k];
+      columns[k] = columns[j];
+      columns[j] = swap;
+    }
+    float[] desiredData = desired.getRowByRowArray();
+    float[] actualData = actual.getRowByRowArray();
+    float[] sampledDesired = new float[rows * sampleSize];
+    float[] sampledActual = new float[rows * sampleSize];
+    for (int r = 0; r < rows; r++) {
+      for (int k = 0; k < sampleSize; k++) {
+        sampledDesired[r * sampleSize + k] = desiredData[r * examples + columns[k]];
+        sampledActual[r * sampleSize + k] = actualData[r * examples + columns[k]];
+      }
+    }
+    CostFunctionKernels.CostKernel kernel = CostFunctionKernels.getKernel(costFunction);
+    float sampledTotalCost;
+    if (kernel == null) {
+      sampledTotalCost = costFunction.getTotalCost(
+          matrixFactory.createMatrixFromRowsByRowsArray(rows, sampleSize, sampledDesired),
+          matrixFactory.createMatrixFromRowsByRowsArray(rows, sampleSize, sampledActual));
+    } else {
+      sampledTotalCost = CostFunctionKernels.getTotalCost(kernel, sampledDesired, sampledActual, null);
+    }
+    return sampledTotalCost * examples / sampleSize;
+  }
+
   private boolean isDeltaRuleSupported(DifferentiableActivationFunction finalActivationFunction) {
 
     if (costFunction instanceof CrossEntropyCostFunction
@@ -104,7 +199,11 @@ public class DeltaRuleCostFunctionGradientImpl implements CostFunctionGradient {
     // same as the trainingDataActivations as this is an AutoEncoder), and the
     // activations resulting from the forward propagation
         
-    Matrix deltasM = actualOutputs.getActivations(matrixFactory).sub(desiredOutputs.getActivations(matrixFactory));
+    Matrix deltasM = deltas;
+    if (deltasM == null) {
+      deltasM = actualOutputs.getActivations(matrixFactory).sub(desiredOutputs.getActivations(matrixFactory));
+    }
+    deltas = null;
 
     
     actualOutputs.getActivations(matrixFactory).close();
@@ -14,13 +14,14 @@
 
 package org.ml4j.nn.costfunctions;
 
-import org.ml4j.EditableMatrix;
-import org.ml4j.InterrimMatrix;
 import org.ml4j.Matrix;
 
 /**
  * Multi class cross entropy cost function.
  * 
+ * <p>The log of each actual output is limited, so that saturated outputs give a large but finite
+ * cost - the total cost is evaluated in a single pass by CostFunctionKernels.
+ * 
  * @author Michael Lavelle
  *
  */
@@ -28,40 +29,8 @@ public class MultiClassCrossEntropyCostFunction implements CostFunction {
 
   @Override
   public float getTotalCost(Matrix desiredOutputs, Matrix actualOutputs) {
-   
-	    if (actualOutputs.getColumns() != desiredOutputs.getColumns()) {
-	    	 throw new IllegalArgumentException("Mismatched column count between desired and actual outputs");
-	    }
-	    if (actualOutputs.getRows() != desiredOutputs.getRows()) {
-	   	 throw new IllegalArgumentException("Mismatched row count between desired and actual outputs");
-	   }
-	  
-		try (InterrimMatrix limitLog = limitLog(actualOutputs).asInterrimMatrix()) {
-			try (InterrimMatrix negativeOfDesiredOutputs = desiredOutputs.mul(-1).asInterrimMatrix()) {
-				try (InterrimMatrix jpart = (negativeOfDesiredOutputs.asEditableMatrix().muli(limitLog)).rowSums().asInterrimMatrix()) {
-					return jpart.sum();
-				}
-			}
-
-		}
-   
-  }
-
-  private double limit(float value) {
-	  // Removed 4 0's
-    value = Math.min(value, 1 - 0.00000000001f);
-    value = Math.max(value, 0.00000000001f);
-    return value;
-  }
-
-  private Matrix limitLog(Matrix matrix) {
-    EditableMatrix dupMatrix = matrix.dup().asEditableMatrix();
-    for (int r = 0; r < dupMatrix.getRows(); r++) {
-    	for (int c = 0; c < dupMatrix.getColumns(); c++) {
-    	      dupMatrix.put(r, c, (float) Math.log(limit(dupMatrix.get(r, c))));
-    	}
-    }
-    return dupMatrix;
+    return CostFunctionKernels.getTotalCost(CostFunctionKernels.MULTI_CLASS_CROSS_ENTROPY,
+        desiredOutputs, actualOutputs);
   }
 
   @Override
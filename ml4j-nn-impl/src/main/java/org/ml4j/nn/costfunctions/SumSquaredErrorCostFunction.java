@@ -26,14 +26,13 @@ public class SumSquaredErrorCostFunction implements CostFunction {
 
   @Override
   public float getTotalCost(Matrix desiredOutputs, Matrix actualOutputs) {
-    Matrix e1 = desiredOutputs.sub(actualOutputs);
-    Matrix jpart = e1.asEditableMatrix().muli(e1);
-    return jpart.sum();
+    return CostFunctionKernels.getTotalCost(CostFunctionKernels.SUM_SQUARED_ERROR, desiredOutputs,
+        actualOutputs);
   }
   
   @Override
   public float getAverageCost(Matrix desiredOutputs, Matrix actualOutputs) {
     int m1 = desiredOutputs.getRows();
-    return getTotalCost(actualOutputs, actualOutputs) / m1;
+    return getTotalCost(desiredOutputs, actualOutputs) / m1;
   }
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn.inference;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.components.DirectedComponentsContext;
+import org.ml4j.nn.components.DirectedComponentsContextImpl;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponent;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+import org.ml4j.nn.supervised.SupervisedFeedForwardNeuralNetwork;
+
+/**
+ * Inference-only forward propagation through a snapshot of a trained
+ * SupervisedFeedForwardNeuralNetwork, separate from the training path.
+ * 
+ * The network is duplicated and decomposed into its components once, on
+ * construction - the weights of the snapshot are shared by all threads and are
+ * never adjusted, so further training of the network does not affect the
+ * engine. Each component is propagated with a non-training context, and only
+ * the output of each component is kept - no activation graph is constructed for
+ * back propagation, no intermediate activations are retained, and no forward
+ * propagation listeners are notified. Each intermediate output is closed as
+ * soon as the next component has consumed it, releasing its storage to the
+ * matrix factory - unless the next output is the same activation or shares its
+ * data, as for pass-through components.
+ * 
+ * Examples submitted as float arrays are assembled into a per-thread input
+ * buffer which is reused by subsequent calls of the same batch size, and the
+ * final output is closed once the output values have been copied out.
+ * 
+ * Instances are thread-safe provided the components of the network may be
+ * forward propagated concurrently.
+ * 
+ * @author Michael Lavelle
+ */
+public class InferenceEngine {
+
+	/**
+	 * The maximum number of input buffers of distinct sizes retained per thread.
+	 */
+	private static final int MAX_INPUT_BUFFERS_PER_THREAD = 64;
+
+	private List<DefaultChainableDirectedComponent<?, ?>> components;
+
+	private DirectedComponentsContext directedComponentsContext;
+
+	private MatrixFactory matrixFactory;
+
+	private ThreadLocal<Map<Integer, float[]>> inputBuffers;
+
+	/**
+	 * @param network       The trained network to compile a snapshot of.
+	 * @param matrixFactory The MatrixFactory.
+	 */
+	public InferenceEngine(SupervisedFeedForwardNeuralNetwork network, MatrixFactory matrixFactory) {
+		this.components = Collections.unmodifiableList(network.dup().decompose());
+		if (components.isEmpty()) {
+			throw new IllegalArgumentException("Network must contain at least one component");
+		}
+		this.matrixFactory = matrixFactory;
+		this.directedComponentsContext = new DirectedComponentsContextImpl(matrixFactory, false);
+		this.inputBuffers = ThreadLocal.withInitial(HashMap::new);
+	}
+
+	/**
+	 * @param input The input activations.
+	 * @return The output activations of the network.
+	 */
+	public NeuronsActivation infer(NeuronsActivation input) {
+		NeuronsActivation activation = input;
+		for (int componentIndex = 0; componentIndex < components.size(); componentIndex++) {
+			NeuronsActivation output = forwardPropagate(activation, components.get(componentIndex), componentIndex);
+			// The caller's input is never closed
+			if (activation != input) {
+				closeIntermediate(activation, output);
+			}
+			activation = output;
+		}
+		return activation;
+	}
+
+	private void closeIntermediate(NeuronsActivation intermediate, NeuronsActivation output) {
+		if (intermediate == output) {
+			return;
+		}
+		Matrix intermediateActivations = intermediate.getActivations(matrixFactory);
+		Matrix outputActivations = output.getActivations(matrixFactory);
+		if (intermediateActivations != outputActivations
+				&& intermediateActivations.getRowByRowArray() != outputActivations.getRowByRowArray()) {
+			intermediate.close();
+		}
+	}
+
+	/**
+	 * @param examples The feature values of each example, all of the same length.
+	 * @return The output feature values of each example.
+	 */
+	public float[][] infer(float[][] examples) {
+		if (examples.length == 0) {
+			return new float[0][];
+		}
+		int exampleCount = examples.length;
+		int featureCount = examples[0].length;
+
+		// Assemble the examples as the columns of a row-major matrix
+		float[] inputData = getInputBuffer(featureCount * exampleCount);
+		for (int exampleIndex = 0; exampleIndex < exampleCount; exampleIndex++) {
+			float[] example = examples[exampleIndex];
+			if (example.length != featureCount) {
+				throw new IllegalArgumentException("All examples must have " + featureCount + " features");
+			}
+			for (int featureIndex = 0; featureIndex < featureCount; featureIndex++) {
+				inputData[featureIndex * exampleCount + exampleIndex] = example[featureIndex];
+			}
+		}
+
+		Matrix inputMatrix = matrixFactory.createMatrixFromRowsByRowsArray(featureCount, exampleCount, inputData);
+		NeuronsActivation input = new NeuronsActivationImpl(inputMatrix,
+				NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+		NeuronsActivation output = infer(input);
+
+		// Copy out the outputs before the input buffer can be reused
+		int outputFeatureCount = output.getFeatureCount();
+		float[] outputData = output.getActivations(matrixFactory).getRowByRowArray();
+		boolean rowsSpanFeatureSet = output
+				.getFeatureOrientation() == NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET;
+		float[][] outputs = new float[exampleCount][outputFeatureCount];
+		for (int exampleIndex = 0; exampleIndex < exampleCount; exampleIndex++) {
+			float[] exampleOutput = outputs[exampleIndex];
+			for (int featureIndex = 0; featureIndex < outputFeatureCount; featureIndex++) {
+				exampleOutput[featureIndex] = rowsSpanFeatureSet ? outputData[featureIndex * exampleCount + exampleIndex]
+						: outputData[exampleIndex * outputFeatureCount + featureIndex];
+			}
+		}
+
+		// The output has been copied out, so is closed as the intermediates are - the input wraps
+		// the reused input buffer, so is never closed
+		closeIntermediate(output, input);
+		return outputs;
+	}
+
+	private <X> NeuronsActivation forwardPropagate(NeuronsActivation input,
+			DefaultChainableDirectedComponent<?, X> component, int componentIndex) {
+		return component.forwardPropagate(input, component.getContext(directedComponentsContext, componentIndex))
+				.getOutput();
+	}
+
+	private float[] getInputBuffer(int length) {
+		Map<Integer, float[]> buffers = inputBuffers.get();
+		float[] buffer = buffers.get(length);
+		if (buffer == null) {
+			if (buffers.size() >= MAX_INPUT_BUFFERS_PER_THREAD) {
+				buffers.clear();
+			}
+			buffer = new float[length];
+			buffers.put(length, buffer);
+		}
+		return buffer;
+	}
+
+	/**
+	 * @return The components of the compiled snapshot, in order of propagation.
+	 */
+	public List<DefaultChainableDirectedComponent<?, ?>> getComponents() {
+		return components;
+	}
+
+	public MatrixFactory getMatrixFactory() {
+		return matrixFactory;
+	}
+}
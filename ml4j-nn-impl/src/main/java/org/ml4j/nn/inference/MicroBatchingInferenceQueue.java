@@ -0,0 +1,254 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package org.ml4j.nn.inference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request queue for an InferenceEngine which merges concurrently submitted
+ * single examples into batches, trading a bounded delay for the throughput of
+ * propagating one matrix rather than many vectors.
+ * 
+ * Each worker thread takes the oldest pending request and then collects
+ * further requests until either maxBatchSize requests have been collected or
+ * maxDelay has elapsed since the oldest request was submitted - so no request
+ * waits more than maxDelay before its batch is propagated. If the queue is
+ * full, requests are rejected rather than queued without bound.
+ * 
+ * @author Michael Lavelle
+ */
+public class MicroBatchingInferenceQueue implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MicroBatchingInferenceQueue.class);
+
+	private InferenceEngine inferenceEngine;
+
+	private int maxBatchSize;
+
+	private long maxDelayNanos;
+
+	private BlockingQueue<InferenceRequest> pendingRequests;
+
+	private List<Thread> workers;
+
+	private volatile boolean closed;
+
+	private AtomicInteger featureCount;
+
+	private LongAdder requestCount;
+
+	private LongAdder batchCount;
+
+	/**
+	 * @param inferenceEngine The engine used to propagate each batch.
+	 * @param maxBatchSize    The maximum number of requests in each batch.
+	 * @param maxDelay        The maximum time a request waits for further
+	 *                        requests to join its batch.
+	 * @param maxDelayUnit    The unit of maxDelay.
+	 * @param workerCount     The number of threads propagating batches.
+	 * @param capacity        The maximum number of pending requests.
+	 */
+	public MicroBatchingInferenceQueue(InferenceEngine inferenceEngine, int maxBatchSize, long maxDelay,
+			TimeUnit maxDelayUnit, int workerCount, int capacity) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("Max batch size must be at least 1");
+		}
+		if (maxDelay < 0) {
+			throw new IllegalArgumentException("Max delay must not be negative");
+		}
+		if (workerCount < 1) {
+			throw new IllegalArgumentException("Worker count must be at least 1");
+		}
+		this.inferenceEngine = inferenceEngine;
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelayNanos = maxDelayUnit.toNanos(maxDelay);
+		this.pendingRequests = new LinkedBlockingQueue<>(capacity);
+		this.featureCount = new AtomicInteger(-1);
+		this.requestCount = new LongAdder();
+		this.batchCount = new LongAdder();
+		this.workers = new ArrayList<>();
+		for (int workerIndex = 0; workerIndex < workerCount; workerIndex++) {
+			Thread worker = new Thread(this::processBatches, "ml4j-inference-" + workerIndex);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+	}
+
+	/**
+	 * @param example The feature values of a single example - all examples
+	 *                submitted must have the same number of features.
+	 * @return A future containing the output feature values of the example.
+	 */
+	public CompletableFuture<float[]> submit(float[] example) {
+		if (closed) {
+			throw new IllegalStateException("Inference queue has been closed");
+		}
+		if (!featureCount.compareAndSet(-1, example.length) && featureCount.get() != example.length) {
+			throw new IllegalArgumentException(
+					"Example has " + example.length + " features, but expected " + featureCount.get());
+		}
+		InferenceRequest request = new InferenceRequest(example);
+		if (!pendingRequests.offer(request)) {
+			request.getResult().completeExceptionally(new RejectedExecutionException("Inference queue is full"));
+		} else if (closed && pendingRequests.remove(request)) {
+			// Closed after the check above, possibly after the pending requests were drained
+			request.getResult().completeExceptionally(new IllegalStateException("Inference queue has been closed"));
+		}
+		return request.getResult();
+	}
+
+	private void processBatches() {
+		List<InferenceRequest> batch = new ArrayList<>(maxBatchSize);
+		while (!closed) {
+			try {
+				InferenceRequest oldestRequest = pendingRequests.take();
+				batch.add(oldestRequest);
+				long deadline = oldestRequest.getSubmissionTime() + maxDelayNanos;
+				pendingRequests.drainTo(batch, maxBatchSize - batch.size());
+				while (batch.size() < maxBatchSize) {
+					long remainingNanos = deadline - System.nanoTime();
+					InferenceRequest request = remainingNanos <= 0 ? null
+							: pendingRequests.poll(remainingNanos, TimeUnit.NANOSECONDS);
+					if (request == null) {
+						break;
+					}
+					batch.add(request);
+					pendingRequests.drainTo(batch, maxBatchSize - batch.size());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				fail(batch, new IllegalStateException("Inference queue has been closed"));
+				return;
+			}
+			process(batch);
+			batch.clear();
+		}
+	}
+
+	private void process(List<InferenceRequest> batch) {
+		try {
+			float[][] examples = new float[batch.size()][];
+			for (int requestIndex = 0; requestIndex < batch.size(); requestIndex++) {
+				examples[requestIndex] = batch.get(requestIndex).getExample();
+			}
+			float[][] outputs = inferenceEngine.infer(examples);
+			requestCount.add(batch.size());
+			batchCount.increment();
+			for (int requestIndex = 0; requestIndex < batch.size(); requestIndex++) {
+				batch.get(requestIndex).getResult().complete(outputs[requestIndex]);
+			}
+		} catch (RuntimeException e) {
+			LOGGER.error("Unable to propagate batch of " + batch.size() + " requests", e);
+			fail(batch, e);
+		}
+	}
+
+	private void fail(List<InferenceRequest> requests, Throwable cause) {
+		for (InferenceRequest request : requests) {
+			request.getResult().completeExceptionally(cause);
+		}
+	}
+
+	/**
+	 * Stop the worker threads, failing any pending requests.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		List<InferenceRequest> remainingRequests = new ArrayList<>();
+		pendingRequests.drainTo(remainingRequests);
+		fail(remainingRequests, new IllegalStateException("Inference queue has been closed"));
+	}
+
+	/**
+	 * @return The number of requests propagated.
+	 */
+	public long getRequestCount() {
+		return requestCount.sum();
+	}
+
+	/**
+	 * @return The number of batches propagated.
+	 */
+	public long getBatchCount() {
+		return batchCount.sum();
+	}
+
+	/**
+	 * @return The average number of requests in each batch propagated.
+	 */
+	public double getAverageBatchSize() {
+		long batches = batchCount.sum();
+		return batches == 0 ? 0 : (double) requestCount.sum() / batches;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public long getMaxDelayNanos() {
+		return maxDelayNanos;
+	}
+
+	private static class InferenceRequest {
+
+		private float[] example;
+
+		private long submissionTime;
+
+		private CompletableFuture<float[]> result;
+
+		public InferenceRequest(float[] example) {
+			this.example = example;
+			this.submissionTime = System.nanoTime();
+			this.result = new CompletableFuture<>();
+		}
+
+		public float[] getExample() {
+			return example;
+		}
+
+		public long getSubmissionTime() {
+			return submissionTime;
+		}
+
+		public CompletableFuture<float[]> getResult() {
+			return result;
+		}
+	}
+}
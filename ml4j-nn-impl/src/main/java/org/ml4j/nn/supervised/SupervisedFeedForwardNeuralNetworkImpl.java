@@ -117,6 +117,71 @@ public class SupervisedFeedForwardNeuralNetworkImpl extends
 		super.train(trainingDataActivations, trainingContext, onEpochAverageCostHandler);
 	}
 
+	/**
+	 * Train this network data-parallel, forward and back propagating workerCount
+	 * batches concurrently on replicas of the component chain and applying a
+	 * single averaged weight update per group of batches.
+	 * 
+	 * @param trainingDataActivations   Supplier of a stream of training batches
+	 *                                  for each epoch.
+	 * @param trainingContext           The training context.
+	 * @param onEpochAverageCostHandler Handler for the average cost at the end of
+	 *                                  each epoch.
+	 * @param workerCount               The number of worker threads.
+	 */
+	public void train(Supplier<Stream<LabeledData<NeuronsActivation, NeuronsActivation>>> trainingDataActivations,
+			FeedForwardNeuralNetworkContext trainingContext, Consumer<Float> onEpochAverageCostHandler,
+			int workerCount) {
+		super.train(trainingDataActivations, trainingContext, onEpochAverageCostHandler, workerCount);
+	}
+
+	/**
+	 * Train this network asynchronously, with workerCount workers computing
+	 * gradients on replicas of the component chain which may lag up to
+	 * maxStaleness updates behind the weights of this network.
+	 * 
+	 * @param trainingDataActivations   Supplier of a stream of training batches
+	 *                                  for each epoch.
+	 * @param trainingContext           The training context.
+	 * @param onEpochAverageCostHandler Handler for the average cost at the end of
+	 *                                  each epoch.
+	 * @param workerCount               The number of worker threads.
+	 * @param maxStaleness              The maximum number of updates a worker's
+	 *                                  replica may lag behind.
+	 */
+	public void trainAsynchronously(
+			Supplier<Stream<LabeledData<NeuronsActivation, NeuronsActivation>>> trainingDataActivations,
+			FeedForwardNeuralNetworkContext trainingContext, Consumer<Float> onEpochAverageCostHandler,
+			int workerCount, int maxStaleness) {
+		super.trainAsynchronously(trainingDataActivations, trainingContext, onEpochAverageCostHandler, workerCount,
+				maxStaleness);
+	}
+
+	/**
+	 * Train this network asynchronously, averaging the gradients of
+	 * gradientsPerUpdate batches into each update of the weights of this network,
+	 * with workerCount workers computing gradients on replicas of the component
+	 * chain which may lag up to maxStaleness updates behind.
+	 * 
+	 * @param trainingDataActivations   Supplier of a stream of training batches
+	 *                                  for each epoch.
+	 * @param trainingContext           The training context.
+	 * @param onEpochAverageCostHandler Handler for the average cost at the end of
+	 *                                  each epoch.
+	 * @param workerCount               The number of worker threads.
+	 * @param maxStaleness              The maximum number of updates a worker's
+	 *                                  replica may lag behind.
+	 * @param gradientsPerUpdate        The number of batch gradients averaged into
+	 *                                  each update.
+	 */
+	public void trainAsynchronously(
+			Supplier<Stream<LabeledData<NeuronsActivation, NeuronsActivation>>> trainingDataActivations,
+			FeedForwardNeuralNetworkContext trainingContext, Consumer<Float> onEpochAverageCostHandler,
+			int workerCount, int maxStaleness, int gradientsPerUpdate) {
+		super.trainAsynchronously(trainingDataActivations, trainingContext, onEpochAverageCostHandler, workerCount,
+				maxStaleness, gradientsPerUpdate);
+	}
+
 	/**
 	 * Return the prediction accuracy.
 	 * 
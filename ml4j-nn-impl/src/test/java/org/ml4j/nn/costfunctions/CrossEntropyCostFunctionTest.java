@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.costfunctions;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+public class CrossEntropyCostFunctionTest {
+
+  private static final float DELTA = 1e-4f;
+
+  private MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+
+  @Test
+  public void testTotalCostIsCrossEntropy() {
+    Matrix desiredOutputs = matrixFactory.createMatrixFromRowsByRowsArray(1, 4, new float[] {1, 0, 1, 0});
+    Matrix actualOutputs = matrixFactory.createMatrixFromRowsByRowsArray(1, 4,
+        new float[] {0.9f, 0.2f, 0.6f, 0.3f});
+
+    float expected = (float) -(Math.log(0.9) + Math.log(0.8) + Math.log(0.6) + Math.log(0.7));
+    Assert.assertEquals(expected, new CrossEntropyCostFunction().getTotalCost(desiredOutputs, actualOutputs),
+        DELTA);
+  }
+
+  @Test
+  public void testTotalCostOfSaturatedOutputsIsLimited() {
+    // Each output is certain and wrong, so its log is limited to log(LOG_LIMIT)
+    Matrix desiredOutputs = matrixFactory.createMatrixFromRowsByRowsArray(1, 2, new float[] {1, 0});
+    Matrix actualOutputs = matrixFactory.createMatrixFromRowsByRowsArray(1, 2, new float[] {0, 1});
+
+    float expected = (float) (-2 * Math.log(CostFunctionKernels.LOG_LIMIT));
+    Assert.assertEquals(expected, new CrossEntropyCostFunction().getTotalCost(desiredOutputs, actualOutputs),
+        DELTA);
+  }
+}
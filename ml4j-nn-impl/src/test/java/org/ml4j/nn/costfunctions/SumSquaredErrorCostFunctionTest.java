@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.costfunctions;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+public class SumSquaredErrorCostFunctionTest {
+
+  private static final float DELTA = 1e-6f;
+
+  private MatrixFactory matrixFactory = new JBlasRowMajorMatrixFactory();
+
+  private Matrix desiredOutputs = matrixFactory.createMatrixFromRowsByRowsArray(2, 2,
+      new float[] {1, 0, 0, 1});
+
+  private Matrix actualOutputs = matrixFactory.createMatrixFromRowsByRowsArray(2, 2,
+      new float[] {0.5f, 0, 0, 0});
+
+  @Test
+  public void testTotalCostIsSumOfSquaredErrors() {
+    Assert.assertEquals(1.25f, new SumSquaredErrorCostFunction().getTotalCost(desiredOutputs, actualOutputs),
+        DELTA);
+  }
+
+  @Test
+  public void testAverageCostComparesDesiredAndActualOutputs() {
+    // The average divides the total cost by the row count, as for the other cost functions
+    Assert.assertEquals(0.625f, new SumSquaredErrorCostFunction().getAverageCost(desiredOutputs, actualOutputs),
+        DELTA);
+  }
+}
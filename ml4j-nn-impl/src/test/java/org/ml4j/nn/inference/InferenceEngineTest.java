@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.nn.inference;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponent;
+import org.ml4j.nn.components.onetone.DefaultChainableDirectedComponentActivation;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+import org.ml4j.nn.supervised.SupervisedFeedForwardNeuralNetwork;
+
+public class InferenceEngineTest {
+
+  private MatrixFactory matrixFactory;
+
+  private List<NeuronsActivation> outputs;
+
+  @Before
+  public void setUp() {
+    matrixFactory = new JBlasRowMajorMatrixFactory();
+    outputs = new ArrayList<>();
+  }
+
+  @Test
+  public void testIntermediateOutputsAreClosedOnceConsumed() {
+
+    InferenceEngine inferenceEngine = createInferenceEngine(createDoublingComponent(), createDoublingComponent(),
+        createDoublingComponent());
+
+    NeuronsActivation input = createActivation(new float[] {1, 2, 3, 4});
+    NeuronsActivation output = inferenceEngine.infer(input);
+
+    Assert.assertArrayEquals(new float[] {8, 16, 24, 32},
+        output.getActivations(matrixFactory).getRowByRowArray(), 0f);
+
+    // The input and the final output remain open, the intermediate outputs are closed
+    Assert.assertArrayEquals(new float[] {1, 2, 3, 4}, input.getActivations(matrixFactory).getRowByRowArray(), 0f);
+    Assert.assertEquals(3, outputs.size());
+    assertClosed(outputs.get(0));
+    assertClosed(outputs.get(1));
+    Assert.assertSame(output, outputs.get(2));
+  }
+
+  @Test
+  public void testIntermediateOutputsPassedThroughAreNotClosed() {
+
+    InferenceEngine inferenceEngine = createInferenceEngine(createDoublingComponent(), createPassThroughComponent(),
+        createDoublingComponent());
+
+    NeuronsActivation output = inferenceEngine.infer(createActivation(new float[] {1, 2, 3, 4}));
+
+    Assert.assertArrayEquals(new float[] {4, 8, 12, 16},
+        output.getActivations(matrixFactory).getRowByRowArray(), 0f);
+  }
+
+  @Test
+  public void testInferExamples() {
+
+    InferenceEngine inferenceEngine = createInferenceEngine(createDoublingComponent(), createDoublingComponent());
+
+    float[][] exampleOutputs = inferenceEngine.infer(new float[][] {{1, 2}, {3, 4}, {5, 6}});
+
+    Assert.assertEquals(3, exampleOutputs.length);
+    Assert.assertArrayEquals(new float[] {4, 8}, exampleOutputs[0], 0f);
+    Assert.assertArrayEquals(new float[] {12, 16}, exampleOutputs[1], 0f);
+    Assert.assertArrayEquals(new float[] {20, 24}, exampleOutputs[2], 0f);
+
+    // The final output is closed once copied out
+    Assert.assertEquals(2, outputs.size());
+    assertClosed(outputs.get(0));
+    assertClosed(outputs.get(1));
+  }
+
+  @Test
+  public void testInferExamplesPassedThroughDoesNotCloseInputBuffer() {
+
+    InferenceEngine inferenceEngine = createInferenceEngine(createPassThroughComponent());
+
+    Assert.assertArrayEquals(new float[] {1, 2}, inferenceEngine.infer(new float[][] {{1, 2}})[0], 0f);
+    // The reused input buffer remains usable
+    Assert.assertArrayEquals(new float[] {3, 4}, inferenceEngine.infer(new float[][] {{3, 4}})[0], 0f);
+  }
+
+  private InferenceEngine createInferenceEngine(DefaultChainableDirectedComponent<?, ?>... components) {
+    List<DefaultChainableDirectedComponent<?, ?>> componentList = Arrays.asList(components);
+    SupervisedFeedForwardNeuralNetwork network = mock(SupervisedFeedForwardNeuralNetwork.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "dup":
+          return invocation.getMock();
+        case "decompose":
+          return componentList;
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+    return new InferenceEngine(network, matrixFactory);
+  }
+
+  private DefaultChainableDirectedComponent<?, ?> createDoublingComponent() {
+    return createComponent(input -> {
+      NeuronsActivation output = new NeuronsActivationImpl(input.getActivations(matrixFactory).mul(2),
+          input.getFeatureOrientation());
+      outputs.add(output);
+      return output;
+    });
+  }
+
+  private DefaultChainableDirectedComponent<?, ?> createPassThroughComponent() {
+    return createComponent(input -> input);
+  }
+
+  private DefaultChainableDirectedComponent<?, ?> createComponent(
+      UnaryOperator<NeuronsActivation> propagation) {
+    return mock(DefaultChainableDirectedComponent.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "forwardPropagate":
+          NeuronsActivation output = propagation.apply((NeuronsActivation) invocation.getArguments()[0]);
+          return mock(DefaultChainableDirectedComponentActivation.class, activationInvocation -> {
+            if ("getOutput".equals(activationInvocation.getMethod().getName())) {
+              return output;
+            }
+            return RETURNS_DEFAULTS.answer(activationInvocation);
+          });
+        case "getContext":
+          return invocation.getArguments()[0];
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  private NeuronsActivation createActivation(float[] data) {
+    Matrix activations = matrixFactory.createMatrixFromRowsByRowsArray(2, data.length / 2, data);
+    return new NeuronsActivationImpl(activations, NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+  }
+
+  private void assertClosed(NeuronsActivation activation) {
+    try {
+      activation.getActivations(matrixFactory);
+      Assert.fail("Expected the activation to have been closed");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+  }
+}
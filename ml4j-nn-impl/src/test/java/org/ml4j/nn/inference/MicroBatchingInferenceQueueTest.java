@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ml4j.nn.inference;
+
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MicroBatchingInferenceQueueTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private CountDownLatch batchStarted;
+
+  private CountDownLatch batchReleased;
+
+  private InferenceEngine inferenceEngine;
+
+  private MicroBatchingInferenceQueue inferenceQueue;
+
+  @Before
+  public void setUp() {
+    batchStarted = new CountDownLatch(1);
+    batchReleased = new CountDownLatch(0);
+    // Doubles the features of each example once released
+    inferenceEngine = mock(InferenceEngine.class, invocation -> {
+      if ("infer".equals(invocation.getMethod().getName())
+          && invocation.getArguments()[0] instanceof float[][]) {
+        batchStarted.countDown();
+        batchReleased.await();
+        float[][] examples = (float[][]) invocation.getArguments()[0];
+        float[][] outputs = new float[examples.length][];
+        for (int exampleIndex = 0; exampleIndex < examples.length; exampleIndex++) {
+          outputs[exampleIndex] = new float[examples[exampleIndex].length];
+          for (int featureIndex = 0; featureIndex < outputs[exampleIndex].length; featureIndex++) {
+            outputs[exampleIndex][featureIndex] = 2 * examples[exampleIndex][featureIndex];
+          }
+        }
+        return outputs;
+      }
+      return RETURNS_DEFAULTS.answer(invocation);
+    });
+  }
+
+  @After
+  public void tearDown() {
+    if (inferenceQueue != null) {
+      inferenceQueue.close();
+    }
+  }
+
+  @Test
+  public void testRequestsWithinDelayAreBatched() throws Exception {
+
+    inferenceQueue = new MicroBatchingInferenceQueue(inferenceEngine, 4, 10, TimeUnit.SECONDS, 1, 16);
+
+    List<CompletableFuture<float[]>> results = new ArrayList<>();
+    for (int requestIndex = 0; requestIndex < 4; requestIndex++) {
+      results.add(inferenceQueue.submit(new float[] {requestIndex, 1}));
+    }
+
+    // A full batch is propagated without waiting for the delay to elapse
+    for (int requestIndex = 0; requestIndex < 4; requestIndex++) {
+      Assert.assertArrayEquals(new float[] {2 * requestIndex, 2},
+          results.get(requestIndex).get(TIMEOUT_SECONDS, TimeUnit.SECONDS), 0f);
+    }
+    Assert.assertEquals(1, inferenceQueue.getBatchCount());
+    Assert.assertEquals(4, inferenceQueue.getRequestCount());
+  }
+
+  @Test
+  public void testPartialBatchIsPropagatedOnceDelayHasElapsed() throws Exception {
+
+    long maxDelayMillis = 100;
+    inferenceQueue = new MicroBatchingInferenceQueue(inferenceEngine, 4, maxDelayMillis, TimeUnit.MILLISECONDS, 1,
+        16);
+
+    long startTime = System.nanoTime();
+    CompletableFuture<float[]> result = inferenceQueue.submit(new float[] {1, 2});
+
+    Assert.assertArrayEquals(new float[] {2, 4}, result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), 0f);
+    Assert.assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(maxDelayMillis));
+    Assert.assertEquals(1, inferenceQueue.getBatchCount());
+  }
+
+  @Test
+  public void testRequestsAreRejectedWhenQueueIsFull() throws Exception {
+
+    batchReleased = new CountDownLatch(1);
+    inferenceQueue = new MicroBatchingInferenceQueue(inferenceEngine, 1, 0, TimeUnit.MILLISECONDS, 1, 1);
+
+    // The first request is taken by the worker, which blocks propagating it
+    CompletableFuture<float[]> propagatingResult = inferenceQueue.submit(new float[] {1});
+    Assert.assertTrue(batchStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+    // The second request fills the queue, and the third is rejected
+    CompletableFuture<float[]> pendingResult = inferenceQueue.submit(new float[] {2});
+    CompletableFuture<float[]> rejectedResult = inferenceQueue.submit(new float[] {3});
+
+    Assert.assertTrue(rejectedResult.isCompletedExceptionally());
+    try {
+      rejectedResult.get();
+      Assert.fail("Expected the request to be rejected");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    batchReleased.countDown();
+    Assert.assertArrayEquals(new float[] {2}, propagatingResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), 0f);
+    Assert.assertArrayEquals(new float[] {4}, pendingResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), 0f);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRequestsAreRejectedOnceClosed() {
+
+    inferenceQueue = new MicroBatchingInferenceQueue(inferenceEngine, 4, 10, TimeUnit.MILLISECONDS, 1, 16);
+    inferenceQueue.close();
+
+    inferenceQueue.submit(new float[] {1});
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.supervised;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+public class AsynchronousTrainingTest {
+
+  private static final long SEED = 42;
+
+  private MatrixFactory matrixFactory;
+
+  private LinearTestNetworks networks;
+
+  @Before
+  public void setUp() {
+    matrixFactory = new JBlasRowMajorMatrixFactory();
+    networks = new LinearTestNetworks(matrixFactory);
+  }
+
+  @Test
+  public void testAsynchronousWithOneWorkerAndNoStalenessMatchesSingleThreaded() {
+
+    // A single worker refreshes its replica after every update when no staleness
+    // is allowed, so each gradient is computed on the current weights
+    float[][][] batches = networks.createBatches(SEED, 8, 5);
+
+    Matrix singleThreadedWeights = networks.createWeights(SEED);
+    networks.createNetwork(singleThreadedWeights).train(networks.createTrainingDataSet(batches),
+        networks.createTrainingContext(3, 0.05f), cost -> { });
+
+    Matrix asynchronousWeights = networks.createWeights(SEED);
+    networks.createNetwork(asynchronousWeights).trainAsynchronously(networks.createTrainingDataSet(batches),
+        networks.createTrainingContext(3, 0.05f), cost -> { }, 1, 0);
+
+    LinearTestNetworks.assertEquals(singleThreadedWeights, asynchronousWeights, 1e-6f);
+  }
+
+  @Test
+  public void testAsynchronousRefreshesReplicaOnlyWhenStale() {
+
+    // A single worker's replica is refreshed at the start of each epoch, and then
+    // only once more than maxStaleness updates behind - the first batch of the
+    // first epoch is trained on this network's chain without a replica
+    float[][][] batches = networks.createBatches(SEED, 8, 5);
+
+    int replicaCount = networks.getReplicaCount();
+    networks.createNetwork(networks.createWeights(SEED)).trainAsynchronously(
+        networks.createTrainingDataSet(batches), networks.createTrainingContext(3, 0.05f), cost -> { }, 1, 0);
+    Assert.assertEquals(7 + 8 + 8, networks.getReplicaCount() - replicaCount);
+
+    replicaCount = networks.getReplicaCount();
+    networks.createNetwork(networks.createWeights(SEED)).trainAsynchronously(
+        networks.createTrainingDataSet(batches), networks.createTrainingContext(3, 0.05f), cost -> { }, 1, 3);
+    Assert.assertEquals(2 + 2 + 2, networks.getReplicaCount() - replicaCount);
+  }
+
+  @Test
+  public void testAsynchronousAccumulatesGradientsPerUpdate() {
+
+    // A single worker without staleness averages each pair of batches into one
+    // update, computed on the current weights, so matches a single-threaded update
+    // on the pair combined - and refreshes its replica only after an update
+    float[][][] batches = networks.createBatches(SEED, 8, 5);
+
+    Matrix singleThreadedWeights = networks.createWeights(SEED);
+    networks.createNetwork(singleThreadedWeights).train(
+        networks.createTrainingDataSet(networks.combineBatches(batches, 2)),
+        networks.createTrainingContext(3, 0.05f), cost -> { });
+
+    int replicaCount = networks.getReplicaCount();
+    Matrix asynchronousWeights = networks.createWeights(SEED);
+    networks.createNetwork(asynchronousWeights).trainAsynchronously(networks.createTrainingDataSet(batches),
+        networks.createTrainingContext(3, 0.05f), cost -> { }, 1, 0, 2);
+
+    LinearTestNetworks.assertEquals(singleThreadedWeights, asynchronousWeights, 1e-5f);
+    Assert.assertEquals(4 + 4 + 4, networks.getReplicaCount() - replicaCount);
+  }
+
+  @Test
+  public void testAsynchronousWorkersWithinStalenessKeepTheirReplicas() {
+
+    // No worker falls more than maxStaleness updates behind, so each refreshes
+    // its replica at most once per epoch
+    int workerCount = 4;
+    float[][][] batches = networks.createBatches(SEED, 16, 5);
+
+    int replicaCount = networks.getReplicaCount();
+    networks.createNetwork(networks.createWeights(SEED)).trainAsynchronously(
+        networks.createTrainingDataSet(batches), networks.createTrainingContext(3, 0.05f), cost -> { },
+        workerCount, 1000);
+
+    int epochReplicaCount = networks.getReplicaCount() - replicaCount;
+    Assert.assertTrue(epochReplicaCount >= 3);
+    Assert.assertTrue(epochReplicaCount <= workerCount * 3);
+  }
+
+  @Test
+  public void testAsynchronousWithStaleReplicasConvergesLikeSingleThreaded() {
+
+    // The labels are a linear function of the data, so both single-threaded
+    // training and asynchronous training on stale replicas converge to it
+    int workerCount = 4;
+    Matrix targetWeights = networks.createWeights(SEED + 1);
+    float[][][] batches = networks.createBatches(SEED, 16, 5, targetWeights);
+
+    Matrix singleThreadedWeights = networks.createWeights(SEED);
+    networks.createNetwork(singleThreadedWeights).train(networks.createTrainingDataSet(batches),
+        networks.createTrainingContext(40, 0.05f), cost -> { });
+
+    Matrix asynchronousWeights = networks.createWeights(SEED);
+    networks.createNetwork(asynchronousWeights).trainAsynchronously(networks.createTrainingDataSet(batches),
+        networks.createTrainingContext(40, 0.05f), cost -> { }, workerCount, 2, 2);
+
+    LinearTestNetworks.assertEquals(targetWeights, singleThreadedWeights, 1e-3f);
+    LinearTestNetworks.assertEquals(singleThreadedWeights, asynchronousWeights, 1e-3f);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.supervised;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.nn.CostEstimator;
+
+public class CostEstimatorTrainingTest {
+
+  private static final long SEED = 42;
+
+  private MatrixFactory matrixFactory;
+
+  private LinearTestNetworks networks;
+
+  @Before
+  public void setUp() {
+    matrixFactory = new JBlasRowMajorMatrixFactory();
+    networks = new LinearTestNetworks(matrixFactory);
+  }
+
+  @Test
+  public void testEstimateIsResetForEachTraining() {
+
+    // Two trainings of the same weights on the same data report the same costs
+    // only if the second does not start from the estimate of the first
+    float[][][] batches = networks.createBatches(SEED, 8, 5);
+    CostEstimator costEstimator = new CostEstimator(2, null, 0.5f);
+
+    List<Float> firstCosts = train(batches, costEstimator, null, 1);
+    List<Float> secondCosts = train(batches, costEstimator, null, 1);
+
+    Assert.assertEquals(firstCosts, secondCosts);
+  }
+
+  @Test
+  public void testSampledCostsAreReproducibleWithShuffleSeed() {
+
+    float[][][] batches = networks.createBatches(SEED, 8, 5);
+
+    List<Float> firstCosts = train(batches, new CostEstimator(1, 2, 0.5f), SEED, 1);
+    List<Float> secondCosts = train(batches, new CostEstimator(1, 2, 0.5f), SEED, 1);
+
+    Assert.assertEquals(firstCosts, secondCosts);
+  }
+
+  @Test
+  public void testDataParallelSampledCostsAreReproducibleWithShuffleSeed() {
+
+    float[][][] batches = networks.createBatches(SEED, 16, 5);
+
+    List<Float> firstCosts = train(batches, new CostEstimator(1, 2, 0.5f), SEED, 4);
+    List<Float> secondCosts = train(batches, new CostEstimator(1, 2, 0.5f), SEED, 4);
+
+    Assert.assertEquals(firstCosts, secondCosts);
+  }
+
+  /**
+   * @return The epoch average costs reported by training fresh weights of the
+   *         seed on the batches with the workers - single-threaded for one
+   *         worker.
+   */
+  private List<Float> train(float[][][] batches, CostEstimator costEstimator, Long shuffleSeed,
+      int workerCount) {
+    SupervisedFeedForwardNeuralNetworkImpl network = networks.createNetwork(networks.createWeights(SEED));
+    network.setCostEstimator(costEstimator);
+    network.setShuffleSeed(shuffleSeed);
+    List<Float> costs = new ArrayList<>();
+    if (workerCount == 1) {
+      network.train(networks.createTrainingDataSet(batches), networks.createTrainingContext(3, 0.05f),
+          costs::add);
+    } else {
+      network.train(networks.createTrainingDataSet(batches), networks.createTrainingContext(3, 0.05f),
+          costs::add, workerCount);
+    }
+    Assert.assertEquals(3, costs.size());
+    return costs;
+  }
+}
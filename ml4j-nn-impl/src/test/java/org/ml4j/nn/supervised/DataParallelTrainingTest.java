@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.supervised;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+
+public class DataParallelTrainingTest {
+
+  private static final long SEED = 42;
+
+  private MatrixFactory matrixFactory;
+
+  private LinearTestNetworks networks;
+
+  @Before
+  public void setUp() {
+    matrixFactory = new JBlasRowMajorMatrixFactory();
+    networks = new LinearTestNetworks(matrixFactory);
+  }
+
+  @Test
+  public void testDataParallelWithOneWorkerMatchesSingleThreaded() {
+
+    float[][][] batches = networks.createBatches(SEED, 8, 5);
+
+    Matrix singleThreadedWeights = networks.createWeights(SEED);
+    networks.createNetwork(singleThreadedWeights).train(networks.createTrainingDataSet(batches),
+        networks.createTrainingContext(3, 0.05f), cost -> { });
+
+    Matrix dataParallelWeights = networks.createWeights(SEED);
+    networks.createNetwork(dataParallelWeights).train(networks.createTrainingDataSet(batches),
+        networks.createTrainingContext(3, 0.05f), cost -> { }, 1);
+
+    LinearTestNetworks.assertEquals(singleThreadedWeights, dataParallelWeights, 1e-6f);
+  }
+
+  @Test
+  public void testDataParallelMatchesSingleThreadedOnCombinedBatches() {
+
+    // Each update averages the gradients of a group of equally sized batches, so
+    // matches a single-threaded update on the batches combined
+    int workerCount = 4;
+    float[][][] batches = networks.createBatches(SEED, 16, 5);
+
+    Matrix singleThreadedWeights = networks.createWeights(SEED);
+    networks.createNetwork(singleThreadedWeights).train(
+        networks.createTrainingDataSet(networks.combineBatches(batches, workerCount)),
+        networks.createTrainingContext(3, 0.05f), cost -> { });
+
+    Matrix dataParallelWeights = networks.createWeights(SEED);
+    networks.createNetwork(dataParallelWeights).train(networks.createTrainingDataSet(batches),
+        networks.createTrainingContext(3, 0.05f), cost -> { }, workerCount);
+
+    LinearTestNetworks.assertEquals(singleThreadedWeights, dataParallelWeights, 1e-4f);
+  }
+
+  @Test
+  public void testDataParallelWithPartialFinalGroupMatchesSingleThreaded() {
+
+    // The final group of each epoch has fewer batches than workers, so the idle
+    // replicas must be re-synchronised before the next epoch
+    int workerCount = 3;
+    float[][][] batches = networks.createBatches(SEED, 4, 5);
+
+    float[][][] groupedBatches = new float[][][] {
+        networks.combineBatches(batches, workerCount)[0], batches[3]};
+
+    Matrix singleThreadedWeights = networks.createWeights(SEED);
+    networks.createNetwork(singleThreadedWeights).train(networks.createTrainingDataSet(groupedBatches),
+        networks.createTrainingContext(3, 0.05f), cost -> { });
+
+    Matrix dataParallelWeights = networks.createWeights(SEED);
+    networks.createNetwork(dataParallelWeights).train(networks.createTrainingDataSet(batches),
+        networks.createTrainingContext(3, 0.05f), cost -> { }, workerCount);
+
+    LinearTestNetworks.assertEquals(singleThreadedWeights, dataParallelWeights, 1e-4f);
+  }
+}
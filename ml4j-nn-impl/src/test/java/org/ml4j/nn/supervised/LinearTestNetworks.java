@@ -0,0 +1,286 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.supervised;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.nn.FeedForwardNeuralNetworkContext;
+import org.ml4j.nn.activationfunctions.ActivationFunctionBaseType;
+import org.ml4j.nn.activationfunctions.DifferentiableActivationFunction;
+import org.ml4j.nn.axons.AxonWeightsAdjustment;
+import org.ml4j.nn.axons.AxonWeightsAdjustmentDirection;
+import org.ml4j.nn.axons.AxonsGradient;
+import org.ml4j.nn.axons.AxonsGradientImpl;
+import org.ml4j.nn.axons.TrainableAxons;
+import org.ml4j.nn.components.DirectedComponentGradient;
+import org.ml4j.nn.components.activationfunctions.DifferentiableActivationFunctionComponent;
+import org.ml4j.nn.components.onetone.DefaultDirectedComponentChain;
+import org.ml4j.nn.components.onetone.TrailingActivationFunctionDirectedComponentChain;
+import org.ml4j.nn.components.onetone.TrailingActivationFunctionDirectedComponentChainActivation;
+import org.ml4j.nn.costfunctions.CostFunctionGradient;
+import org.ml4j.nn.datasets.LabeledData;
+import org.ml4j.nn.datasets.LabeledDataImpl;
+import org.ml4j.nn.neurons.Neurons;
+import org.ml4j.nn.neurons.NeuronsActivation;
+import org.ml4j.nn.neurons.NeuronsActivationFeatureOrientation;
+import org.ml4j.nn.neurons.NeuronsActivationImpl;
+
+/**
+ * Builds single layer linear networks, trained with the sum squared error cost
+ * function, for comparing the training paths of FeedForwardNeuralNetworkBase.
+ *
+ * The component chain is stubbed - the forward propagation multiplies the
+ * input by a weights matrix, and the back propagation computes the weights
+ * gradient from the delta rule deltas - so that the networks can be trained
+ * without any component implementations. Each replica of the chain has its own
+ * copy of the weights.
+ *
+ * @author Michael Lavelle
+ */
+class LinearTestNetworks {
+
+  static final int INPUT_FEATURE_COUNT = 4;
+
+  static final int OUTPUT_FEATURE_COUNT = 3;
+
+  private MatrixFactory matrixFactory;
+
+  private DifferentiableActivationFunction linearActivationFunction;
+
+  private DifferentiableActivationFunctionComponent finalComponent;
+
+  private AtomicInteger replicaCount = new AtomicInteger();
+
+  LinearTestNetworks(MatrixFactory matrixFactory) {
+    this.matrixFactory = matrixFactory;
+    this.linearActivationFunction = mock(DifferentiableActivationFunction.class, RETURNS_DEEP_STUBS);
+    when(linearActivationFunction.getActivationFunctionType().getBaseType())
+        .thenReturn(ActivationFunctionBaseType.LINEAR);
+    this.finalComponent = mock(DifferentiableActivationFunctionComponent.class);
+    when(finalComponent.getActivationFunction()).thenReturn(linearActivationFunction);
+  }
+
+  /**
+   * @param weights The weights of the network, adjusted in place by training.
+   * @return A linear network with the weights.
+   */
+  SupervisedFeedForwardNeuralNetworkImpl createNetwork(Matrix weights) {
+    return new SupervisedFeedForwardNeuralNetworkImpl(mock(DefaultDirectedComponentChain.class),
+        createChain(weights));
+  }
+
+  /**
+   * @return Random weights, the same for the same seed.
+   */
+  Matrix createWeights(long seed) {
+    return createMatrix(OUTPUT_FEATURE_COUNT, INPUT_FEATURE_COUNT, new Random(seed));
+  }
+
+  /**
+   * @return A training context with the epochs and learning rate.
+   */
+  FeedForwardNeuralNetworkContext createTrainingContext(int epochs, float learningRate) {
+    FeedForwardNeuralNetworkContext trainingContext = new FeedForwardNeuralNetworkContextImpl(matrixFactory, true);
+    trainingContext.setTrainingEpochs(epochs);
+    trainingContext.setTrainingLearningRate(learningRate);
+    return trainingContext;
+  }
+
+  /**
+   * @return Random training data and labels, the same for the same seed, as an
+   *         array of batches of batchSize examples - each batch the data followed
+   *         by the labels.
+   */
+  float[][][] createBatches(long seed, int batchCount, int batchSize) {
+    Random random = new Random(seed);
+    float[][][] batches = new float[batchCount][][];
+    for (int batchIndex = 0; batchIndex < batchCount; batchIndex++) {
+      batches[batchIndex] = new float[][] {
+          createMatrix(INPUT_FEATURE_COUNT, batchSize, random).getRowByRowArray(),
+          createMatrix(OUTPUT_FEATURE_COUNT, batchSize, random).getRowByRowArray()};
+    }
+    return batches;
+  }
+
+  /**
+   * @return The batches with each group of groupSize consecutive batches
+   *         combined into a single batch.
+   */
+  float[][][] combineBatches(float[][][] batches, int groupSize) {
+    float[][][] combinedBatches = new float[batches.length / groupSize][][];
+    for (int groupIndex = 0; groupIndex < combinedBatches.length; groupIndex++) {
+      combinedBatches[groupIndex] = new float[2][];
+      for (int part = 0; part < 2; part++) {
+        int rows = part == 0 ? INPUT_FEATURE_COUNT : OUTPUT_FEATURE_COUNT;
+        int batchSize = batches[0][part].length / rows;
+        int combinedSize = batchSize * groupSize;
+        float[] combined = new float[rows * combinedSize];
+        for (int member = 0; member < groupSize; member++) {
+          float[] batch = batches[groupIndex * groupSize + member][part];
+          for (int row = 0; row < rows; row++) {
+            System.arraycopy(batch, row * batchSize, combined, row * combinedSize + member * batchSize,
+                batchSize);
+          }
+        }
+        combinedBatches[groupIndex][part] = combined;
+      }
+    }
+    return combinedBatches;
+  }
+
+  /**
+   * @return Random training data, the same for the same seed, with the labels
+   *         of the target weights - so that training converges to the target
+   *         weights - as an array of batches of batchSize examples.
+   */
+  float[][][] createBatches(long seed, int batchCount, int batchSize, Matrix targetWeights) {
+    float[][][] batches = createBatches(seed, batchCount, batchSize);
+    for (float[][] batch : batches) {
+      batch[1] = targetWeights.mmul(matrixFactory.createMatrixFromRowsByRowsArray(INPUT_FEATURE_COUNT,
+          batchSize, batch[0].clone())).getRowByRowArray();
+    }
+    return batches;
+  }
+
+  /**
+   * @return The number of replicas of the component chains of the networks
+   *         created so far.
+   */
+  int getReplicaCount() {
+    return replicaCount.get();
+  }
+
+  /**
+   * @return A supplier of a fresh stream of the batches for each epoch - the
+   *         training paths close the batches they consume.
+   */
+  Supplier<Stream<LabeledData<NeuronsActivation, NeuronsActivation>>> createTrainingDataSet(
+      float[][][] batches) {
+    return () -> Stream.of(batches).map(batch -> new LabeledDataImpl<>(
+        createActivation(INPUT_FEATURE_COUNT, batch[0]), createActivation(OUTPUT_FEATURE_COUNT, batch[1])));
+  }
+
+  static void assertEquals(Matrix expected, Matrix actual, float delta) {
+    Assert.assertEquals(expected.getRows(), actual.getRows());
+    Assert.assertEquals(expected.getColumns(), actual.getColumns());
+    Assert.assertArrayEquals(expected.getRowByRowArray(), actual.getRowByRowArray(), delta);
+  }
+
+  private NeuronsActivation createActivation(int rows, float[] data) {
+    return new NeuronsActivationImpl(
+        matrixFactory.createMatrixFromRowsByRowsArray(rows, data.length / rows, data.clone()),
+        NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+  }
+
+  private Matrix createMatrix(int rows, int columns, Random random) {
+    float[] data = new float[rows * columns];
+    for (int index = 0; index < data.length; index++) {
+      data[index] = (float) random.nextGaussian();
+    }
+    return matrixFactory.createMatrixFromRowsByRowsArray(rows, columns, data);
+  }
+
+  private TrailingActivationFunctionDirectedComponentChain createChain(Matrix weights) {
+    TrainableAxons<?, ?, ?> axons = createAxons(weights);
+    return mock(TrailingActivationFunctionDirectedComponentChain.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "forwardPropagate":
+          return forwardPropagate(axons, weights, (NeuronsActivation) invocation.getArguments()[0]);
+        case "dup":
+          replicaCount.incrementAndGet();
+          return createChain(weights.dup());
+        case "getFinalComponent":
+          return finalComponent;
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  private TrainableAxons<?, ?, ?> createAxons(Matrix weights) {
+    return mock(TrainableAxons.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "getLeftNeurons":
+          return new Neurons(INPUT_FEATURE_COUNT, false);
+        case "adjustAxonWeights":
+          AxonWeightsAdjustment adjustment = (AxonWeightsAdjustment) invocation.getArguments()[0];
+          if (AxonWeightsAdjustmentDirection.SUBTRACTION.equals(invocation.getArguments()[1])) {
+            weights.asEditableMatrix().subi(adjustment.getConnectionWeights());
+          } else {
+            weights.asEditableMatrix().addi(adjustment.getConnectionWeights());
+          }
+          return null;
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  private TrailingActivationFunctionDirectedComponentChainActivation forwardPropagate(
+      TrainableAxons<?, ?, ?> axons, Matrix weights, NeuronsActivation input) {
+    Matrix inputMatrix = input.getActivations(matrixFactory).dup();
+    NeuronsActivation output = new NeuronsActivationImpl(weights.mmul(inputMatrix),
+        NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+    return mock(TrailingActivationFunctionDirectedComponentChainActivation.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "getOutput":
+          return output;
+        case "backPropagate":
+          return backPropagate(axons, inputMatrix, (CostFunctionGradient) invocation.getArguments()[0]);
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+  }
+
+  private DirectedComponentGradient<NeuronsActivation> backPropagate(TrainableAxons<?, ?, ?> axons,
+      Matrix inputMatrix, CostFunctionGradient costFunctionGradient) {
+    Matrix deltas = costFunctionGradient.backPropagateThroughFinalActivationFunction(linearActivationFunction)
+        .getOutput().getActivations(matrixFactory);
+    Matrix weightsGradient = deltas.mmul(inputMatrix.transpose());
+    NeuronsActivation inputGradient = new NeuronsActivationImpl(
+        matrixFactory.createZeros(inputMatrix.getRows(), inputMatrix.getColumns()),
+        NeuronsActivationFeatureOrientation.ROWS_SPAN_FEATURE_SET);
+    @SuppressWarnings("unchecked")
+    DirectedComponentGradient<NeuronsActivation> gradient = mock(DirectedComponentGradient.class, invocation -> {
+      switch (invocation.getMethod().getName()) {
+        case "getOutput":
+          return inputGradient;
+        case "getTotalTrainableAxonsGradients":
+          List<Supplier<AxonsGradient>> axonsGradients = new ArrayList<>();
+          axonsGradients.add(() -> new AxonsGradientImpl(axons, weightsGradient, null));
+          return axonsGradients;
+        default:
+          return RETURNS_DEFAULTS.answer(invocation);
+      }
+    });
+    return gradient;
+  }
+}
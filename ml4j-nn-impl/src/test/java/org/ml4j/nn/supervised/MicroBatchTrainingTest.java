@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ml4j.nn.supervised;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ml4j.Matrix;
+import org.ml4j.MatrixFactory;
+import org.ml4j.jblas.JBlasRowMajorMatrixFactory;
+import org.ml4j.nn.MicroBatchGradientAccumulator;
+
+public class MicroBatchTrainingTest {
+
+  private static final long SEED = 42;
+
+  private MatrixFactory matrixFactory;
+
+  private LinearTestNetworks networks;
+
+  @Before
+  public void setUp() {
+    matrixFactory = new JBlasRowMajorMatrixFactory();
+    networks = new LinearTestNetworks(matrixFactory);
+  }
+
+  @Test
+  public void testMicroBatchesMatchSingleThreadedOnCombinedBatches() {
+
+    int microBatchCount = 4;
+    float[][][] batches = networks.createBatches(SEED, 16, 5);
+
+    Matrix singleThreadedWeights = networks.createWeights(SEED);
+    networks.createNetwork(singleThreadedWeights).train(
+        networks.createTrainingDataSet(networks.combineBatches(batches, microBatchCount)),
+        networks.createTrainingContext(3, 0.05f), cost -> { });
+
+    Matrix microBatchWeights = networks.createWeights(SEED);
+    SupervisedFeedForwardNeuralNetworkImpl microBatchNetwork = networks.createNetwork(microBatchWeights);
+    microBatchNetwork.setGradientAccumulator(new MicroBatchGradientAccumulator(microBatchCount));
+    microBatchNetwork.train(networks.createTrainingDataSet(batches), networks.createTrainingContext(3, 0.05f),
+        cost -> { });
+
+    LinearTestNetworks.assertEquals(singleThreadedWeights, microBatchWeights, 1e-4f);
+  }
+
+  @Test
+  public void testPartialFinalMicroBatchesAreFlushedAtTheEndOfEachEpoch() {
+
+    int microBatchCount = 4;
+    float[][][] batches = networks.createBatches(SEED, 6, 5);
+
+    float[][][] combinedBatches = new float[][][] {
+        networks.combineBatches(Arrays.copyOfRange(batches, 0, 4), 4)[0],
+        networks.combineBatches(Arrays.copyOfRange(batches, 4, 6), 2)[0]};
+
+    Matrix singleThreadedWeights = networks.createWeights(SEED);
+    networks.createNetwork(singleThreadedWeights).train(networks.createTrainingDataSet(combinedBatches),
+        networks.createTrainingContext(3, 0.05f), cost -> { });
+
+    Matrix microBatchWeights = networks.createWeights(SEED);
+    SupervisedFeedForwardNeuralNetworkImpl microBatchNetwork = networks.createNetwork(microBatchWeights);
+    microBatchNetwork.setGradientAccumulator(new MicroBatchGradientAccumulator(microBatchCount));
+    microBatchNetwork.train(networks.createTrainingDataSet(batches), networks.createTrainingContext(3, 0.05f),
+        cost -> { });
+
+    LinearTestNetworks.assertEquals(singleThreadedWeights, microBatchWeights, 1e-4f);
+  }
+}